@@ -0,0 +1,96 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.bulk.BatchEncoder;
+import cz.mikropsoft.qreet.bulk.PackedPayloads;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dávkové kódování účtenek pomocí {@link BatchEncoder} ve {@link ForkJoinPool} s předaným počtem vláken (parametr
+ * {@code vlaken}). Čas se vykazuje na jednu účtenku, takže je přímo srovnatelný s {@link EncodeBenchmark} a
+ * škálování je vidět jako poměr časů pro různý počet vláken.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BatchBenchmark {
+
+    static final int POCET = 100_000;
+
+    /**
+     * Dávka účtenek a kodér s vlastním poolem.
+     */
+    @State(Scope.Benchmark)
+    public static class Davka {
+
+        @Param({"1", "2", "4", "8"})
+        public int vlaken;
+
+        ForkJoinPool pool;
+        BatchEncoder encoder;
+        EetUctenka[] uctenky;
+        List<EetUctenka> seznam;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            pool = new ForkJoinPool(vlaken);
+            encoder = new BatchEncoder(pool);
+            // Různé částky a časy, aby délky zakódovaných účtenek nebyly shodné
+            Random random = new Random(42);
+            LocalDateTime datum = LocalDateTime.of(2017, 5, 6, 14, 1);
+            uctenky = new EetUctenka[POCET];
+            for (int i = 0; i < POCET; i++) {
+                double castka = random.nextInt(10_000_000) / 100d;
+                String dic = i % 2 == 0 ? Vstupy.DIC : null;
+                uctenky[i] = i % 4 < 2
+                        ? EetUctenka.ofFik(Vstupy.FIK, dic, castka, datum.plusMinutes(i), Rezim.BEZNY)
+                        : EetUctenka.ofBkp(Vstupy.BKP, dic, castka, datum.plusMinutes(i), Rezim.BEZNY);
+            }
+            seznam = Arrays.asList(uctenky);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POCET)
+    public PackedPayloads encodeArray(Davka davka) {
+        return davka.encoder.encode(davka.uctenky);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POCET)
+    public PackedPayloads encodeSpliterator(Davka davka) {
+        return davka.encoder.encode(davka.seznam.spliterator());
+    }
+
+}
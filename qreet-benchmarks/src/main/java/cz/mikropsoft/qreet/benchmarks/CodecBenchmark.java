@@ -0,0 +1,65 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import cz.mikropsoft.qreet.store.BinaryCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binární zápis účtenky s pevnou délkou, jeden záznam na operaci.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BinaryCodec.RECORD_BYTES);
+    private final EetZaznam zaznam = new EetZaznam();
+    private Uctenka uctenka;
+
+    @Setup(Level.Trial)
+    public void setup(Vstupy vstupy) {
+        uctenka = Uctenka.of(vstupy.uctenka);
+        uctenka.toZaznam(zaznam);
+        BinaryCodec.write(zaznam, buffer);
+    }
+
+    @Benchmark
+    public ByteBuffer writeZaznam() {
+        buffer.clear();
+        BinaryCodec.write(zaznam, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public EetZaznam readZaznam() {
+        buffer.clear();
+        return BinaryCodec.read(buffer, zaznam);
+    }
+
+    @Benchmark
+    public Uctenka readUctenka() {
+        buffer.clear();
+        return BinaryCodec.read(buffer);
+    }
+
+}
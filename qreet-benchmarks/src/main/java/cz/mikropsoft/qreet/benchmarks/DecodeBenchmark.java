@@ -0,0 +1,74 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.utils.AsciiSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dekódování QR řetězce účtenky.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DecodeBenchmark {
+
+    /**
+     * Opakovaně používaný záznam jednoho vlákna.
+     */
+    @State(Scope.Thread)
+    public static class Zaznam {
+
+        final EetZaznam zaznam = new EetZaznam();
+        final AsciiSequence ascii = new AsciiSequence();
+    }
+
+    @Benchmark
+    public EetUctenka parseSchema(Vstupy vstupy) {
+        return new EetUctenka().parseSchema(vstupy.payload);
+    }
+
+    @Benchmark
+    public int tryParse(Vstupy vstupy, Zaznam zaznam) {
+        return zaznam.zaznam.tryParse(vstupy.payload);
+    }
+
+    @Benchmark
+    public int tryParseBytes(Vstupy vstupy, Zaznam zaznam) {
+        return zaznam.zaznam.tryParse(vstupy.payloadBytes, 0, vstupy.payloadBytes.length);
+    }
+
+    @Benchmark
+    public int tryParseAsciiSequence(Vstupy vstupy, Zaznam zaznam) {
+        return zaznam.zaznam.tryParse(zaznam.ascii.wrap(vstupy.payloadBytes, 0, vstupy.payloadBytes.length));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public EetUctenka parseSchemaParallel(Vstupy vstupy) {
+        return new EetUctenka().parseSchema(vstupy.payload);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int tryParseParallel(Vstupy vstupy, Zaznam zaznam) {
+        return zaznam.zaznam.tryParse(vstupy.payload);
+    }
+
+}
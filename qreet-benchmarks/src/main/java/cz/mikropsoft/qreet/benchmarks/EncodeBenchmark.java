@@ -0,0 +1,60 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kódování účtenky do QR řetězce.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EncodeBenchmark {
+
+    /**
+     * Pracovní pole jednoho vlákna.
+     */
+    @State(Scope.Thread)
+    public static class Buffer {
+
+        final byte[] bytes = new byte[64];
+    }
+
+    @Benchmark
+    public String generateString(Vstupy vstupy) {
+        return vstupy.uctenka.generateString();
+    }
+
+    @Benchmark
+    public int encodeToBytes(Vstupy vstupy, Buffer buffer) {
+        return vstupy.uctenka.encodeTo(buffer.bytes, 0);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateStringParallel(Vstupy vstupy) {
+        return vstupy.uctenka.generateString();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int encodeToBytesParallel(Vstupy vstupy, Buffer buffer) {
+        return vstupy.uctenka.encodeTo(buffer.bytes, 0);
+    }
+
+}
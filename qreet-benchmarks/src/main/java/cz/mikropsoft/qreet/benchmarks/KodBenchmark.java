@@ -0,0 +1,61 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.Kod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Převody kódů FIK a BKP a parsování DIČ.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class KodBenchmark {
+
+    @Benchmark
+    public Kod ofKod(Vstupy vstupy) {
+        return (vstupy.kodTyp == Kod.Typ.FIK) ? Kod.ofFik(vstupy.kod) : Kod.ofBkp(vstupy.kod);
+    }
+
+    @Benchmark
+    public String qrValue(Vstupy vstupy) {
+        return vstupy.parsedKod.qrValue();
+    }
+
+    @Benchmark
+    public Kod parse(Vstupy vstupy) {
+        return Kod.parse(vstupy.kodTyp, vstupy.kodQrValue);
+    }
+
+    @Benchmark
+    public Dic dicParse() {
+        return Dic.parse(Vstupy.DIC);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Kod ofKodParallel(Vstupy vstupy) {
+        return (vstupy.kodTyp == Kod.Typ.FIK) ? Kod.ofFik(vstupy.kod) : Kod.ofBkp(vstupy.kod);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Dic dicParseParallel() {
+        return Dic.parse(Vstupy.DIC);
+    }
+
+}
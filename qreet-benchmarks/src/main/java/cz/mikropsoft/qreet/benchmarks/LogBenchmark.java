@@ -0,0 +1,106 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import cz.mikropsoft.qreet.store.ReceiptLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Přidávání účtenek do {@link ReceiptLog}: samotný zápis do paměti a zápis se zajištěním trvalosti každých
+ * {@value #SYNC} záznamů. Deník se pro každou iteraci zakládá znovu v dočasném adresáři.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LogBenchmark {
+
+    static final int SYNC = 1024;
+
+    /**
+     * Deník sdílený vlákny.
+     */
+    @State(Scope.Benchmark)
+    public static class Log {
+
+        Path adresar;
+        ReceiptLog log;
+
+        @Setup(Level.Iteration)
+        public void setup() throws IOException {
+            adresar = Files.createTempDirectory("qreet-log");
+            log = ReceiptLog.open(adresar);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            log.close();
+            try (DirectoryStream<Path> soubory = Files.newDirectoryStream(adresar)) {
+                for (Path soubor : soubory) {
+                    Files.delete(soubor);
+                }
+            }
+            Files.delete(adresar);
+        }
+    }
+
+    /**
+     * Účtenka zapisovaná vláknem.
+     */
+    @State(Scope.Thread)
+    public static class Zapis {
+
+        Uctenka uctenka;
+
+        @Setup(Level.Trial)
+        public void setup(Vstupy vstupy) {
+            uctenka = Uctenka.of(vstupy.uctenka);
+        }
+    }
+
+    @Benchmark
+    public long append(Log log, Zapis zapis) throws IOException {
+        return log.log.append(zapis.uctenka);
+    }
+
+    @Benchmark
+    public long appendSync(Log log, Zapis zapis) throws IOException {
+        long poradi = log.log.append(zapis.uctenka);
+        if (poradi % SYNC == SYNC - 1) {
+            log.log.sync(poradi);
+        }
+        return poradi;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long appendSyncParallel(Log log, Zapis zapis) throws IOException {
+        long poradi = log.log.append(zapis.uctenka);
+        if (poradi % SYNC == SYNC - 1) {
+            log.log.sync(poradi);
+        }
+        return poradi;
+    }
+
+}
@@ -0,0 +1,93 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.metrics.Metrics;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Režie sběru {@link Metrics}. Metody {@code bezMereni} dělají stejnou práci jako měřené metody, ale mimo
+ * instrumentaci; rozdíl proti nim při {@code sber=false} je cena vypnutého sběru.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MetricsBenchmark {
+
+    /**
+     * Stav sběru po dobu běhu benchmarku.
+     */
+    @State(Scope.Benchmark)
+    public static class Sber {
+
+        @Param({"false", "true"})
+        public boolean sber;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Metrics.setZapnuto(sber);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Metrics.setZapnuto(false);
+        }
+    }
+
+    /**
+     * Opakovaně používaný záznam jednoho vlákna.
+     */
+    @State(Scope.Thread)
+    public static class Zaznam {
+
+        final EetZaznam zaznam = new EetZaznam();
+    }
+
+    @Benchmark
+    public String generateString(Vstupy vstupy, Sber sber) {
+        return vstupy.uctenka.generateString();
+    }
+
+    @Benchmark
+    public String generateStringBezMereni(Vstupy vstupy, Sber sber) {
+        char[] dst = new char[vstupy.uctenka.encodedLength()];
+        vstupy.uctenka.encodeTo(dst, 0);
+        return new String(dst);
+    }
+
+    @Benchmark
+    public EetZaznam parse(Vstupy vstupy, Sber sber, Zaznam zaznam) {
+        return zaznam.zaznam.parse(vstupy.payload);
+    }
+
+    @Benchmark
+    public int parseBezMereni(Vstupy vstupy, Sber sber, Zaznam zaznam) {
+        return zaznam.zaznam.tryParse(vstupy.payload);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateStringParallel(Vstupy vstupy, Sber sber) {
+        return vstupy.uctenka.generateString();
+    }
+
+}
@@ -0,0 +1,93 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.render.EscPosWriter;
+import cz.mikropsoft.qreet.render.QrEncoder;
+import cz.mikropsoft.qreet.render.QrImageWriter;
+import cz.mikropsoft.qreet.render.QrMatrix;
+import cz.mikropsoft.qreet.render.UrovenKorekce;
+import net.glxn.qrgen.javase.QRCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vykreslení QR kódu účtenky: vlastní matice a PNG proti původní cestě přes QRGen.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RenderBenchmark {
+
+    /**
+     * Zápis obrázků a hotová matice.
+     */
+    @State(Scope.Benchmark)
+    public static class Render {
+
+        final QrImageWriter writer = new QrImageWriter(4);
+        final EscPosWriter escPos = new EscPosWriter(4, EscPosWriter.SIRKA_58_MM);
+        QrMatrix matrix;
+
+        @Setup
+        public void setup(Vstupy vstupy) {
+            matrix = QrEncoder.encode(vstupy.uctenka, UrovenKorekce.L);
+        }
+    }
+
+    @Benchmark
+    public QrMatrix matrix(Vstupy vstupy) {
+        return QrEncoder.encode(vstupy.uctenka, UrovenKorekce.L);
+    }
+
+    @Benchmark
+    public byte[] png(Render render) {
+        return render.writer.toPng(render.matrix);
+    }
+
+    @Benchmark
+    public byte[] matrixAndPng(Vstupy vstupy, Render render) {
+        return render.writer.toPng(QrEncoder.encode(vstupy.uctenka, UrovenKorekce.L));
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream matrixAndEscPos(Vstupy vstupy, Render render) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        render.escPos.writeRaster(QrEncoder.encode(vstupy.uctenka, UrovenKorekce.L), out);
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream qrgenJpeg(Vstupy vstupy) {
+        return QRCode.from(vstupy.uctenka).stream();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public byte[] matrixAndPngParallel(Vstupy vstupy, Render render) {
+        return render.writer.toPng(QrEncoder.encode(vstupy.uctenka, UrovenKorekce.L));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ByteArrayOutputStream qrgenJpegParallel(Vstupy vstupy) {
+        return QRCode.from(vstupy.uctenka).stream();
+    }
+
+}
@@ -0,0 +1,62 @@
+package cz.mikropsoft.qreet.benchmarks;
+
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Vstupní data benchmarků: účtenka s FIK nebo BKP, s DIČ nebo bez něj. Data jsou neměnná a sdílí je všechna vlákna.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+@State(Scope.Benchmark)
+public class Vstupy {
+
+    static final String FIK = "b3a09b52-7c87-4014-a496-4c7a53cf9120-03";
+    static final String BKP = "6455B192-D697186A-6AB1971A-1E9B146B-CDD5007B";
+    static final String DIC = "CZ7900110063";
+
+    @Param({"FIK", "BKP"})
+    public String typ;
+
+    @Param({"true", "false"})
+    public boolean sDic;
+
+    EetUctenka uctenka;
+    String payload;
+    byte[] payloadBytes;
+    String kod;
+    String kodQrValue;
+    Kod.Typ kodTyp;
+    Kod parsedKod;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String dic = sDic ? DIC : null;
+        LocalDateTime datum = LocalDateTime.of(2017, 5, 6, 14, 1);
+        if ("FIK".equals(typ)) {
+            kod = FIK;
+            kodTyp = Kod.Typ.FIK;
+            parsedKod = Kod.ofFik(FIK);
+            uctenka = EetUctenka.ofFik(FIK, dic, 34113.00d, datum, Rezim.BEZNY);
+        } else {
+            kod = BKP;
+            kodTyp = Kod.Typ.BKP;
+            parsedKod = Kod.ofBkp(BKP);
+            uctenka = EetUctenka.ofBkp(BKP, dic, 34113.00d, datum, Rezim.BEZNY);
+        }
+        payload = uctenka.generateString();
+        payloadBytes = payload.getBytes(StandardCharsets.US_ASCII);
+        kodQrValue = parsedKod.qrValue();
+    }
+
+}
@@ -0,0 +1,303 @@
+package cz.mikropsoft.qreet.server;
+
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Zátěžový test služby {@link QrServer} přes localhost. Zvolený počet klientů opakovaně volá jednu cestu služby
+ * s náhodnými účtenkami, po rozehřátí se měří doba každého požadavku. Výsledkem je propustnost a percentily
+ * p50, p99 a nejdelší doba odpovědi.
+ * <p>
+ * Bez předané adresy spustí službu ve stejném procesu na volném portu:
+ * <pre>
+ * java -cp target/qreet-server.jar cz.mikropsoft.qreet.server.LoadTest qr.png 64 10
+ * java -cp target/qreet-server.jar cz.mikropsoft.qreet.server.LoadTest payload 16 10 http://localhost:8080
+ * </pre>
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class LoadTest {
+
+    // Počet různých účtenek, které klienti střídají
+    private static final int UCTENEK = 1024;
+
+    private LoadTest() {
+    }
+
+    /**
+     * Spustí test s argumenty {@code [cesta] [klientů] [sekund] [adresa]}, výchozí je {@code qr.png 64 10} nad
+     * službou spuštěnou ve stejném procesu.
+     *
+     * @param args argumenty
+     * @throws Exception chyba spuštění služby nebo testu
+     */
+    public static void main(String[] args) throws Exception {
+        String cesta = (args.length > 0) ? args[0] : "qr.png";
+        int klientu = (args.length > 1) ? Integer.parseInt(args[1]) : 64;
+        long sekund = (args.length > 2) ? Long.parseLong(args[2]) : 10;
+        if (args.length > 3) {
+            System.out.println(spustit(new URL(args[3]), cesta, klientu, 2000, sekund * 1000));
+            return;
+        }
+        QrServer server = new QrServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        try {
+            server.start();
+            URL adresa = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(), "/");
+            System.out.println(spustit(adresa, cesta, klientu, 2000, sekund * 1000));
+            System.out.println(server);
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Spustí test a počká na jeho dokončení.
+     *
+     * @param adresa kořenová adresa služby
+     * @param cesta cesta bez úvodního lomítka, např. {@code qr.png}, {@code qr.svg}, {@code payload}, {@code uctenka}
+     * @param klientu počet souběžných klientů
+     * @param rozehratiMs doba rozehřátí, která se neměří
+     * @param mereniMs doba měření
+     * @return {@link Vysledek}
+     * @throws InterruptedException přerušení čekání na klienty
+     */
+    public static Vysledek spustit(URL adresa, String cesta, int klientu, long rozehratiMs, long mereniMs)
+            throws InterruptedException {
+        if (klientu < 1) {
+            throw new IllegalArgumentException("Počet klientů musí být kladný.");
+        }
+        final String[] dotazy = dotazy(adresa, cesta);
+        final long zacatek = System.nanoTime() + rozehratiMs * 1000000L;
+        final long konec = zacatek + mereniMs * 1000000L;
+        final CountDownLatch hotovo = new CountDownLatch(klientu);
+        final List<Klient> klienti = new ArrayList<Klient>(klientu);
+        for (int i = 0; i < klientu; i++) {
+            final Klient klient = new Klient(dotazy, i);
+            klienti.add(klient);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        klient.run(zacatek, konec);
+                    } finally {
+                        hotovo.countDown();
+                    }
+                }
+            }, "qreet-load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        hotovo.await();
+
+        int pocet = 0;
+        long chyb = 0;
+        long odmitnutych = 0;
+        for (Klient klient : klienti) {
+            pocet += klient.pocet;
+            chyb += klient.chyb;
+            odmitnutych += klient.odmitnutych;
+        }
+        long[] doby = new long[pocet];
+        int pozice = 0;
+        for (Klient klient : klienti) {
+            System.arraycopy(klient.doby, 0, doby, pozice, klient.pocet);
+            pozice += klient.pocet;
+        }
+        Arrays.sort(doby);
+        return new Vysledek(cesta, klientu, mereniMs, doby, odmitnutych, chyb);
+    }
+
+    /**
+     * Úplné adresy dotazů nad náhodnými účtenkami.
+     */
+    private static String[] dotazy(URL adresa, String cesta) {
+        Random random = new Random(UCTENEK);
+        String koren = adresa.toString();
+        if (!koren.endsWith("/")) {
+            koren += "/";
+        }
+        String[] dotazy = new String[UCTENEK];
+        for (int i = 0; i < UCTENEK; i++) {
+            Uctenka.Builder builder = Uctenka.builder()
+                    .haleru(random.nextInt(1000000000))
+                    .datumCasTransakce(LocalDateTime.of(2016 + random.nextInt(30), 1 + random.nextInt(12),
+                            1 + random.nextInt(28), random.nextInt(24), random.nextInt(60)))
+                    .rezim(random.nextBoolean() ? Rezim.BEZNY : Rezim.ZJEDNODUSENY);
+            if (random.nextBoolean()) {
+                builder.dic(String.format("CZ%08d", random.nextInt(100000000)));
+            }
+            if (random.nextBoolean()) {
+                builder.fik(String.format("%08x-%04x-%04x-%04x-%012x-%02x", random.nextInt(),
+                        random.nextInt(0x10000), random.nextInt(0x10000), random.nextInt(0x10000),
+                        random.nextLong() & 0xFFFFFFFFFFFFL, random.nextInt(0x100)));
+            } else {
+                builder.bkp(String.format("%08X-%08X-%08X-%08X-%08X", random.nextInt(), random.nextInt(),
+                        random.nextInt(), random.nextInt(), random.nextInt()));
+            }
+            dotazy[i] = koren + cesta + "?payload=" + builder.build().qrValue();
+        }
+        return dotazy;
+    }
+
+    /**
+     * Jeden klient, posílá požadavky jeden po druhém a ukládá doby odpovědí v nanosekundách.
+     */
+    private static final class Klient {
+
+        private final String[] dotazy;
+        private final byte[] buffer = new byte[8192];
+        private int dalsi;
+
+        private long[] doby = new long[4096];
+        private int pocet;
+        private long odmitnutych;
+        private long chyb;
+
+        Klient(String[] dotazy, int posun) {
+            this.dotazy = dotazy;
+            this.dalsi = posun * 31;
+        }
+
+        void run(long zacatek, long konec) {
+            long ted = System.nanoTime();
+            while (ted < konec) {
+                String dotaz = dotazy[dalsi++ & (dotazy.length - 1)];
+                int stav = pozadavek(dotaz);
+                long hotovo = System.nanoTime();
+                if (ted >= zacatek) {
+                    if (stav == 503) {
+                        odmitnutych++;
+                    } else if (stav != 200) {
+                        chyb++;
+                    } else {
+                        if (pocet == doby.length) {
+                            doby = Arrays.copyOf(doby, pocet * 2);
+                        }
+                        doby[pocet++] = hotovo - ted;
+                    }
+                }
+                ted = hotovo;
+            }
+        }
+
+        /**
+         * Odešle požadavek a přečte celou odpověď, aby se spojení mohlo znovu použít.
+         */
+        private int pozadavek(String dotaz) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(dotaz).openConnection();
+                int stav = connection.getResponseCode();
+                InputStream in = (stav < 400) ? connection.getInputStream() : connection.getErrorStream();
+                if (in != null) {
+                    while (in.read(buffer) >= 0) {
+                        // odpověď se zahazuje
+                    }
+                    in.close();
+                }
+                return stav;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Výsledek testu. Doby odpovědí zahrnují jen úspěšné požadavky.
+     */
+    public static final class Vysledek {
+
+        private final String cesta;
+        private final int klientu;
+        private final long mereniMs;
+        private final long[] doby;
+        private final long odmitnutych;
+        private final long chyb;
+
+        Vysledek(String cesta, int klientu, long mereniMs, long[] doby, long odmitnutych, long chyb) {
+            this.cesta = cesta;
+            this.klientu = klientu;
+            this.mereniMs = mereniMs;
+            this.doby = doby;
+            this.odmitnutych = odmitnutych;
+            this.chyb = chyb;
+        }
+
+        /**
+         * Počet úspěšných požadavků během měření.
+         *
+         * @return počet požadavků
+         */
+        public long getPozadavku() {
+            return doby.length;
+        }
+
+        /**
+         * Počet požadavků odmítnutých stavem 503.
+         *
+         * @return počet odmítnutých požadavků
+         */
+        public long getOdmitnutych() {
+            return odmitnutych;
+        }
+
+        /**
+         * Počet ostatních neúspěšných požadavků.
+         *
+         * @return počet chyb
+         */
+        public long getChyb() {
+            return chyb;
+        }
+
+        /**
+         * Úspěšné požadavky za sekundu.
+         *
+         * @return propustnost
+         */
+        public double getPropustnost() {
+            return doby.length * 1000d / mereniMs;
+        }
+
+        /**
+         * Doba odpovědi, kterou nepřekročil předaný podíl úspěšných požadavků.
+         *
+         * @param podil podíl v rozsahu 0-1, např. 0.99 pro p99
+         * @return doba odpovědi v nanosekundách, 0 bez úspěšných požadavků
+         */
+        public long percentil(double podil) {
+            if (podil < 0 || podil > 1) {
+                throw new IllegalArgumentException("Podíl musí ležet v rozsahu 0-1.");
+            }
+            if (doby.length == 0) {
+                return 0;
+            }
+            int i = (int) Math.ceil(podil * doby.length) - 1;
+            return doby[Math.max(0, i)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "/%s, %d klientů, %d s: %d požadavků (%.0f/s), p50 %.3f ms, p99 %.3f ms, max %.3f ms, "
+                            + "odmítnuto %d, chyb %d",
+                    cesta, klientu, mereniMs / 1000, getPozadavku(), getPropustnost(), percentil(0.5) / 1e6,
+                    percentil(0.99) / 1e6, percentil(1) / 1e6, odmitnutych, chyb);
+        }
+    }
+
+}
@@ -0,0 +1,520 @@
+package cz.mikropsoft.qreet.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import cz.mikropsoft.qreet.metrics.Metrics;
+import cz.mikropsoft.qreet.render.QrCache;
+import cz.mikropsoft.qreet.render.QrImageWriter;
+import cz.mikropsoft.qreet.render.UrovenKorekce;
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP služba kódování, dekódování a vykreslení účtenek nad vestavěným {@link HttpServer}.
+ * <ul>
+ *     <li>{@code GET /payload?fik=|bkp=&dic=&castka=&datum=&rezim=} - zakódovaná informace o účtence</li>
+ *     <li>{@code GET /uctenka?payload=} - dekódovaná účtenka jako JSON</li>
+ *     <li>{@code GET /qr.png?payload=&modul=} a {@code GET /qr.svg?payload=&modul=} - obrázek QR kódu, místo
+ *     {@code payload} lze předat parametry účtenky jako u {@code /payload}</li>
+ * </ul>
+ * Částka se předává v korunách s desetinnou tečkou, datum a čas transakce ve formátu {@code 2017-05-06T14:01} a
+ * režim jako číslice 0 nebo 1. Chybné vstupy vrací stav 400 s popisem chyby.
+ * <p>
+ * Každý požadavek se obsluhuje ve vlastním vlákně, na Javě 21 a novější ve virtuálním, jinak v platformním vlákně
+ * z neomezeného fondu. Vykreslení obrázků je výpočetně náročné a jeho souběh je proto omezen počtem povolení,
+ * výchozí je počet procesorů. Požadavek, který povolení nezíská do stanovené doby, vrací stav 503 s hlavičkou
+ * {@code Retry-After}. Odpověď se do sítě zapisuje až po uvolnění povolení.
+ * <p>
+ * Matice modulů a obrázky PNG s výchozí velikostí modulu se berou ze sdílené {@link QrCache}, opakovaný požadavek na
+ * stejnou účtenku (dotisk, e-mail) se tak znovu nevykresluje. Obrázky s jinou velikostí modulu a SVG se zapisují
+ * z matice v paměti.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class QrServer implements Closeable {
+
+    /**
+     * Výchozí port služby.
+     */
+    public static final int VYCHOZI_PORT = 8080;
+
+    // Výchozí a nejvyšší velikost modulu obrázku v pixelech
+    private static final int VYCHOZI_MODUL = 4;
+    private static final int MAX_MODUL = 32;
+
+    // Výchozí rozpočet paměti vykreslených kódů v bajtech
+    private static final long VYCHOZI_CACHE = 64L << 20;
+
+    static {
+        // Bez TCP_NODELAY čeká krátká odpověď na zpožděné potvrzení klienta (až 40 ms), nastavení se čte jednou
+        // při prvním vytvoření HttpServer a výslovně předanou hodnotu nepřepisuje
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualni;
+    private final Semaphore vykreslovani;
+    private final int povoleni;
+    private final long maxCekaniMs;
+    private final QrCache cache;
+
+    private final LongAdder pozadavku = new LongAdder();
+    private final LongAdder odmitnutych = new LongAdder();
+
+    /**
+     * Služba na předané adrese s vykreslením omezeným počtem procesorů a čekáním na povolení nejvýše 1 s.
+     *
+     * @param adresa adresa a port, port 0 zvolí volný port
+     * @throws IOException chyba otevření portu
+     */
+    public QrServer(InetSocketAddress adresa) throws IOException {
+        this(adresa, Runtime.getRuntime().availableProcessors(), 1000, UrovenKorekce.L);
+    }
+
+    /**
+     * Služba na předané adrese s pamětí vykreslených kódů o velikosti 64 MB.
+     *
+     * @param adresa adresa a port, port 0 zvolí volný port
+     * @param soubehVykresleni nejvyšší počet souběžných vykreslení
+     * @param maxCekaniMs nejdelší čekání na povolení vykreslení v milisekundách
+     * @param uroven úroveň opravy chyb vykreslených QR kódů
+     * @throws IOException chyba otevření portu
+     */
+    public QrServer(InetSocketAddress adresa, int soubehVykresleni, long maxCekaniMs, UrovenKorekce uroven)
+            throws IOException {
+        this(adresa, soubehVykresleni, maxCekaniMs, new QrCache(VYCHOZI_CACHE, uroven,
+                new QrImageWriter(VYCHOZI_MODUL)));
+    }
+
+    /**
+     * Služba na předané adrese se sdílenou pamětí vykreslených kódů. Úroveň opravy chyb a zápis obrázků PNG bez
+     * parametru {@code modul} určuje paměť.
+     *
+     * @param adresa adresa a port, port 0 zvolí volný port
+     * @param soubehVykresleni nejvyšší počet souběžných vykreslení
+     * @param maxCekaniMs nejdelší čekání na povolení vykreslení v milisekundách
+     * @param cache paměť vykreslených kódů
+     * @throws IOException chyba otevření portu
+     */
+    public QrServer(InetSocketAddress adresa, int soubehVykresleni, long maxCekaniMs, QrCache cache)
+            throws IOException {
+        if (soubehVykresleni < 1) {
+            throw new IllegalArgumentException("Počet souběžných vykreslení musí být kladný.");
+        }
+        if (maxCekaniMs < 0) {
+            throw new IllegalArgumentException("Doba čekání nesmí být záporná.");
+        }
+        if (cache == null) {
+            throw new IllegalArgumentException("Paměť vykreslených kódů musí být předána.");
+        }
+        this.povoleni = soubehVykresleni;
+        this.vykreslovani = new Semaphore(soubehVykresleni);
+        this.maxCekaniMs = maxCekaniMs;
+        this.cache = cache;
+
+        ExecutorService virtualniExecutor = virtualniExecutor();
+        this.virtualni = virtualniExecutor != null;
+        this.executor = virtualni ? virtualniExecutor : Executors.newCachedThreadPool(new Vlakna());
+
+        this.server = HttpServer.create(adresa, 0);
+        server.setExecutor(executor);
+        server.createContext("/payload", new Obsluha() {
+            @Override
+            void obslouzit(HttpExchange exchange, Map<String, String> parametry) throws IOException {
+                odeslat(exchange, 200, "text/plain; charset=utf-8",
+                        uctenka(parametry).qrValue().getBytes(StandardCharsets.US_ASCII));
+            }
+        });
+        server.createContext("/uctenka", new Obsluha() {
+            @Override
+            void obslouzit(HttpExchange exchange, Map<String, String> parametry) throws IOException {
+                odeslat(exchange, 200, "application/json; charset=utf-8",
+                        json(uctenka(parametry)).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.createContext("/qr.png", new Obrazek("image/png") {
+            @Override
+            byte[] zPameti(QrImageWriter writer, Uctenka uctenka) {
+                return (writer == cache.getWriter()) ? cache.pngIfPresent(uctenka) : null;
+            }
+
+            @Override
+            byte[] vykreslit(QrImageWriter writer, Uctenka uctenka) {
+                if (writer == cache.getWriter()) {
+                    return cache.png(uctenka);
+                }
+                return writer.toPng(cache.matrix(uctenka));
+            }
+        });
+        server.createContext("/qr.svg", new Obrazek("image/svg+xml") {
+            @Override
+            byte[] vykreslit(QrImageWriter writer, Uctenka uctenka) {
+                return writer.toSvg(cache.matrix(uctenka)).getBytes(StandardCharsets.US_ASCII);
+            }
+        });
+    }
+
+    /**
+     * Spustí službu na portu z prvního argumentu, výchozí je {@value #VYCHOZI_PORT}.
+     *
+     * @param args volitelně port a počet souběžných vykreslení
+     * @throws IOException chyba otevření portu
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : VYCHOZI_PORT;
+        int soubeh = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final QrServer server = new QrServer(new InetSocketAddress(port), soubeh, 1000, UrovenKorekce.L);
+        Metrics.register();
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                server.close();
+            }
+        });
+        System.out.println(server);
+    }
+
+    /**
+     * Spustí příjem požadavků.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Ukončí příjem požadavků, rozpracované požadavky se dokončí nejdéle do 1 s.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Port, na kterém služba přijímá požadavky.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Požadavky se obsluhují ve virtuálních vláknech.
+     *
+     * @return {@code true} na Javě 21 a novější
+     */
+    public boolean isVirtualni() {
+        return virtualni;
+    }
+
+    /**
+     * Paměť vykreslených kódů.
+     *
+     * @return {@link QrCache}
+     */
+    public QrCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Počet přijatých požadavků.
+     *
+     * @return počet požadavků
+     */
+    public long getPozadavku() {
+        return pozadavku.sum();
+    }
+
+    /**
+     * Počet požadavků odmítnutých stavem 503, protože nezískaly povolení vykreslení.
+     *
+     * @return počet odmítnutých požadavků
+     */
+    public long getOdmitnutych() {
+        return odmitnutych.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "QrServer{" +
+                "port=" + getPort() +
+                ", virtualni=" + virtualni +
+                ", vykresleni=" + povoleni +
+                ", pozadavku=" + getPozadavku() +
+                ", odmitnutych=" + getOdmitnutych() +
+                ", cache=" + cache +
+                '}';
+    }
+
+    /**
+     * Získá povolení vykreslení, čeká nejvýše {@code maxCekaniMs}.
+     */
+    private boolean ziskat() {
+        if (vykreslovani.tryAcquire()) {
+            return true;
+        }
+        try {
+            return vykreslovani.tryAcquire(maxCekaniMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void pretizeno(HttpExchange exchange) throws IOException {
+        odmitnutych.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        odeslat(exchange, 503, "text/plain; charset=utf-8",
+                "Služba je přetížená, opakujte požadavek později.".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Účtenka z parametru {@code payload}, nebo z jednotlivých položek.
+     */
+    private static Uctenka uctenka(Map<String, String> parametry) {
+        String payload = parametry.get("payload");
+        if (payload != null) {
+            return Uctenka.parse(payload);
+        }
+        Uctenka.Builder builder = Uctenka.builder();
+        String fik = parametry.get("fik");
+        String bkp = parametry.get("bkp");
+        if ((fik == null) == (bkp == null)) {
+            throw new IllegalArgumentException("Musí být předán právě jeden z parametrů payload, fik nebo bkp.");
+        }
+        if (fik != null) {
+            builder.fik(fik);
+        } else {
+            builder.bkp(bkp);
+        }
+        String dic = parametry.get("dic");
+        if (dic != null && !dic.isEmpty()) {
+            builder.dic(dic);
+        }
+        String castka = parametry.get("castka");
+        if (castka != null) {
+            try {
+                builder.haleru(new BigDecimal(castka).movePointRight(2).longValueExact());
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw new IllegalArgumentException("Nepřípustná částka '" + castka + "'.");
+            }
+        }
+        String datum = parametry.get("datum");
+        if (datum != null) {
+            try {
+                builder.datumCasTransakce(LocalDateTime.parse(datum));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Nepřípustné datum a čas transakce '" + datum + "'.");
+            }
+        }
+        String rezim = parametry.get("rezim");
+        if (rezim != null) {
+            Rezim r = Rezim.parse(rezim);
+            if (r == null) {
+                throw new IllegalArgumentException("Nepřípustný režim tržby '" + rezim + "'.");
+            }
+            builder.rezim(r);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Zápis obrázků podle parametru {@code modul}, bez něj zápis paměti vykreslených kódů.
+     */
+    private QrImageWriter writer(Map<String, String> parametry) {
+        String modul = parametry.get("modul");
+        if (modul == null) {
+            return cache.getWriter();
+        }
+        try {
+            int velikost = Integer.parseInt(modul);
+            if (velikost >= 1 && velikost <= MAX_MODUL) {
+                return new QrImageWriter(velikost);
+            }
+        } catch (NumberFormatException e) {
+            // nepřípustná velikost níže
+        }
+        throw new IllegalArgumentException("Velikost modulu musí být v rozsahu 1-" + MAX_MODUL + ".");
+    }
+
+    private static String json(Uctenka uctenka) {
+        Dic dic = uctenka.getDic();
+        StringBuilder json = new StringBuilder(192);
+        json.append("{\"typ\":\"").append(uctenka.getKod().getTyp().name())
+                .append("\",\"kod\":\"").append(uctenka.getKod().qrValue())
+                .append("\",\"dic\":");
+        if (dic.isNotEmpty()) {
+            json.append("\"CZ").append(dic.qrValue()).append('"');
+        } else {
+            json.append("null");
+        }
+        json.append(",\"castka\":").append(BigDecimal.valueOf(uctenka.getCastka(), 2).toPlainString())
+                .append(",\"datumCasTransakce\":\"").append(uctenka.getDatumCasTransakce())
+                .append("\",\"rezim\":\"").append(uctenka.getRezim().name())
+                .append("\"}");
+        return json.toString();
+    }
+
+    private static void odeslat(HttpExchange exchange, int stav, String typ, byte[] telo) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", typ);
+        exchange.sendResponseHeaders(stav, telo.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(telo);
+        out.close();
+    }
+
+    /**
+     * Parametry dotazu, při opakování platí poslední hodnota.
+     */
+    private static Map<String, String> parametry(String dotaz) throws UnsupportedEncodingException {
+        Map<String, String> parametry = new HashMap<String, String>();
+        if (dotaz == null || dotaz.isEmpty()) {
+            return parametry;
+        }
+        for (String dvojice : dotaz.split("&")) {
+            int rovnase = dvojice.indexOf('=');
+            if (rovnase < 0) {
+                parametry.put(URLDecoder.decode(dvojice, "UTF-8"), "");
+            } else {
+                parametry.put(URLDecoder.decode(dvojice.substring(0, rovnase), "UTF-8"),
+                        URLDecoder.decode(dvojice.substring(rovnase + 1), "UTF-8"));
+            }
+        }
+        return parametry;
+    }
+
+    /**
+     * Executor s virtuálním vláknem pro každý požadavek, je-li k dispozici (Java 21 a novější). Hledá se
+     * reflexí, modul se tak překládá i pro starší Javu.
+     *
+     * @return executor, nebo {@code null}
+     */
+    static ExecutorService virtualniExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 20 a starší, případně virtuální vlákna jako neaktivovaná preview funkce
+            return null;
+        }
+    }
+
+    /**
+     * Společné zpracování požadavku: kontrola metody, načtení parametrů a převod chyb vstupu na stav 400.
+     */
+    private abstract class Obsluha implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            pozadavku.increment();
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    odeslat(exchange, 405, "text/plain; charset=utf-8",
+                            "Podporována je pouze metoda GET.".getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                Map<String, String> parametry;
+                try {
+                    parametry = parametry(exchange.getRequestURI().getRawQuery());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Nepřípustný zápis parametrů dotazu.");
+                }
+                obslouzit(exchange, parametry);
+            } catch (IllegalArgumentException e) {
+                String zprava = (e.getMessage() != null) ? e.getMessage() : e.toString();
+                odeslat(exchange, 400, "text/plain; charset=utf-8", zprava.getBytes(StandardCharsets.UTF_8));
+            } finally {
+                exchange.close();
+            }
+        }
+
+        abstract void obslouzit(HttpExchange exchange, Map<String, String> parametry) throws IOException;
+    }
+
+    /**
+     * Vykreslení obrázku QR kódu s omezeným souběhem.
+     */
+    private abstract class Obrazek extends Obsluha {
+
+        private final String typ;
+
+        Obrazek(String typ) {
+            this.typ = typ;
+        }
+
+        @Override
+        void obslouzit(HttpExchange exchange, Map<String, String> parametry) throws IOException {
+            QrImageWriter writer = writer(parametry);
+            Uctenka uctenka = uctenka(parametry);
+            // Hotový obrázek z paměti se jen odešle, povolení k vykreslení se získává až při výpadku
+            byte[] obrazek = zPameti(writer, uctenka);
+            if (obrazek == null) {
+                if (!ziskat()) {
+                    pretizeno(exchange);
+                    return;
+                }
+                try {
+                    obrazek = vykreslit(writer, uctenka);
+                } finally {
+                    vykreslovani.release();
+                }
+            }
+            odeslat(exchange, 200, typ, obrazek);
+        }
+
+        /**
+         * Hotový obrázek z paměti, bez vykreslení.
+         *
+         * @return obrázek, nebo {@code null}, pokud se musí vykreslit
+         */
+        byte[] zPameti(QrImageWriter writer, Uctenka uctenka) {
+            return null;
+        }
+
+        abstract byte[] vykreslit(QrImageWriter writer, Uctenka uctenka);
+    }
+
+    /**
+     * Platformní démonická vlákna pro starší Javu.
+     */
+    private static final class Vlakna implements ThreadFactory {
+
+        private final AtomicInteger cislo = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "qreet-server-" + cislo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package cz.mikropsoft.qreet.server;
+
+import cz.mikropsoft.qreet.render.UrovenKorekce;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * HTTP služba kódování a vykreslení účtenek.
+ */
+public class QrServerTest {
+
+    private QrServer server;
+    private int stav;
+    private String typ;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new QrServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 1000,
+                UrovenKorekce.L);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void payloadAUctenka() throws Exception {
+        String payload = new String(get("/payload?fik=b3a09b52-7c87-4014-a496-4c7a53cf9120-64&dic=CZ72080043"
+                + "&castka=34113.00&datum=2017-05-06T14:01&rezim=0"), StandardCharsets.US_ASCII);
+        assertEquals(200, stav);
+        assertEquals("text/plain; charset=utf-8", typ);
+
+        String json = new String(get("/uctenka?payload=" + payload), StandardCharsets.UTF_8);
+        assertEquals(200, stav);
+        assertTrue(json, json.startsWith("{\"typ\":\"FIK\",\"kod\":\""));
+        assertTrue(json, json.endsWith("\",\"dic\":\"CZ72080043\",\"castka\":34113.00,"
+                + "\"datumCasTransakce\":\"2017-05-06T14:01\",\"rezim\":\"BEZNY\"}"));
+    }
+
+    @Test
+    public void obrazky() throws Exception {
+        String payload = new String(get("/payload?bkp=01234567-89ABCDEF-01234567-89ABCDEF-01234567&castka=1.5"
+                + "&datum=2017-05-06T14:01&rezim=1"), StandardCharsets.US_ASCII);
+
+        BufferedImage png = ImageIO.read(new ByteArrayInputStream(get("/qr.png?payload=" + payload
+                + "&modul=2")));
+        assertEquals(200, stav);
+        assertEquals("image/png", typ);
+        assertEquals(0, png.getWidth() % 2);
+
+        String svg = new String(get("/qr.svg?payload=" + payload), StandardCharsets.US_ASCII);
+        assertEquals(200, stav);
+        assertEquals("image/svg+xml", typ);
+        assertTrue(svg, svg.startsWith("<svg ") && svg.endsWith("</svg>"));
+
+        // Obrázek s výchozím modulem se podruhé vrátí z paměti, matice je z paměti už pro SVG
+        byte[] prvni = get("/qr.png?payload=" + payload);
+        byte[] druhy = get("/qr.png?payload=" + payload);
+        assertEquals(200, stav);
+        assertArrayEquals(prvni, druhy);
+        assertEquals(1, server.getCache().getMisses());
+        assertEquals(1, server.getCache().getPngMisses());
+        assertEquals(1, server.getCache().getPngHits());
+    }
+
+    @Test
+    public void chybneVstupy() throws Exception {
+        String zprava = new String(get("/payload?fik=xyz&datum=2017-05-06T14:01&rezim=0"), StandardCharsets.UTF_8);
+        assertEquals(400, stav);
+        assertTrue(zprava, !zprava.isEmpty());
+        get("/qr.png?payload=123");
+        assertEquals(400, stav);
+        String payload = new String(get("/payload?bkp=01234567-89ABCDEF-01234567-89ABCDEF-01234567"
+                + "&datum=2017-05-06T14:01&rezim=0"), StandardCharsets.US_ASCII);
+        get("/qr.png?payload=" + payload + "&modul=0");
+        assertEquals(400, stav);
+        get("/uctenka");
+        assertEquals(400, stav);
+
+        HttpURLConnection connection = (HttpURLConnection) url("/payload").openConnection();
+        connection.setRequestMethod("DELETE");
+        assertEquals(405, connection.getResponseCode());
+        connection.disconnect();
+    }
+
+    @Test
+    public void zatez() throws Exception {
+        URL adresa = url("/");
+        LoadTest.Vysledek vysledek = LoadTest.spustit(adresa, "qr.png", 8, 100, 500);
+        assertEquals(0, vysledek.getChyb());
+        assertTrue(vysledek.toString(), vysledek.getPozadavku() > 0);
+        assertTrue(vysledek.percentil(0.5) <= vysledek.percentil(0.99));
+        assertTrue(vysledek.percentil(0.99) <= vysledek.percentil(1));
+        assertTrue(vysledek.getOdmitnutych() <= server.getOdmitnutych());
+    }
+
+    private URL url(String cesta) throws IOException {
+        return new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(), cesta);
+    }
+
+    private byte[] get(String cesta) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url(cesta).openConnection();
+        stav = connection.getResponseCode();
+        typ = connection.getContentType();
+        InputStream in = (stav < 400) ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n; (n = in.read(buffer)) >= 0; ) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+}
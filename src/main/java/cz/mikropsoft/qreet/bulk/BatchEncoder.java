@@ -0,0 +1,317 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Paralelní kódování velkého množství účtenek do jednoho souvislého výstupu. Práce se dělí mezi jádra pomocí
+ * fork-join, pořadí účtenek na výstupu vždy odpovídá pořadí na vstupu.
+ * <p>
+ * Pro pole a {@link List} probíhá kódování ve dvou průchodech: první zjistí délky zakódovaných účtenek, z nich se
+ * spočtou pozice a druhý průchod zapisuje každou účtenku přímo na její místo ve výsledném poli. Nic se tedy
+ * nekopíruje ani neslučuje.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public class BatchEncoder {
+
+    // Počet účtenek, pod který se úloha dále nedělí
+    private static final int PRAH = 4096;
+
+    // Počet účtenek zapisovaných do kanálu najednou
+    private static final int BLOK = 1 << 16;
+
+    // Největší délka pole, kterou JVM spolehlivě alokuje
+    private static final int MAX_DELKA = Integer.MAX_VALUE - 8;
+
+    private static final byte ODDELOVAC_RADKU = '\n';
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Kódování ve společném {@link ForkJoinPool#commonPool()}.
+     */
+    public BatchEncoder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Kódování v předaném {@link ForkJoinPool}.
+     *
+     * @param pool fork-join pool
+     */
+    public BatchEncoder(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("ForkJoinPool musí být předán.");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Zakóduje předané účtenky do jednoho souvislého pole.
+     *
+     * @param uctenky účtenky
+     * @return zakódované účtenky ve vstupním pořadí
+     */
+    public PackedPayloads encode(List<? extends EetUctenka> uctenky) {
+        return encode(uctenky.toArray(new EetUctenka[0]));
+    }
+
+    /**
+     * Zakóduje předané účtenky do jednoho souvislého pole.
+     *
+     * @param uctenky účtenky
+     * @return zakódované účtenky ve vstupním pořadí
+     */
+    public PackedPayloads encode(EetUctenka[] uctenky) {
+        int[] offsets = new int[uctenky.length + 1];
+        int length = offsets(uctenky, uctenky.length, offsets, false);
+        byte[] data = new byte[length];
+        pool.invoke(new EncodeAction(uctenky, 0, uctenky.length, data, offsets, false));
+        return new PackedPayloads(data, offsets);
+    }
+
+    /**
+     * Zakóduje účtenky z předaného {@link Spliterator} do jednoho souvislého pole. Práce se dělí pomocí
+     * {@link Spliterator#trySplit()}, jednotlivé části se kódují do vlastních bloků a nakonec se v pořadí spojí.
+     *
+     * @param uctenky účtenky, {@link Spliterator} musí být {@link Spliterator#ORDERED} nebo mít pořadí nevýznamné
+     * @return zakódované účtenky v pořadí vstupu
+     */
+    public PackedPayloads encode(Spliterator<? extends EetUctenka> uctenky) {
+        List<Blok> bloky = pool.invoke(new SpliteratorTask(uctenky));
+
+        long celkem = 0;
+        int pocet = 0;
+        for (Blok blok : bloky) {
+            celkem += blok.length;
+            pocet += blok.count;
+        }
+        if (celkem > MAX_DELKA) {
+            throw new IllegalArgumentException("Zakódované účtenky se nevejdou do jednoho pole, použijte writeLines.");
+        }
+
+        byte[] data = new byte[(int) celkem];
+        int[] offsets = new int[pocet + 1];
+        int position = 0;
+        int index = 0;
+        for (Blok blok : bloky) {
+            System.arraycopy(blok.data, 0, data, position, blok.length);
+            for (int i = 0; i < blok.count; i++) {
+                offsets[index++] = position + blok.offsets[i];
+            }
+            position += blok.length;
+        }
+        offsets[pocet] = position;
+        return new PackedPayloads(data, offsets);
+    }
+
+    /**
+     * Zakóduje předané účtenky a zapíše je do kanálu, každou na samostatný řádek ukončený znakem {@code '\n'}.
+     * Účtenky se kódují paralelně po blocích, paměťová náročnost proto nezávisí na počtu účtenek.
+     *
+     * @param uctenky účtenky
+     * @param channel cílový kanál
+     * @return počet zapsaných bajtů
+     * @throws IOException chyba zápisu
+     */
+    public long writeLines(List<? extends EetUctenka> uctenky, WritableByteChannel channel) throws IOException {
+        EetUctenka[] blok = new EetUctenka[Math.min(BLOK, uctenky.size())];
+        int[] offsets = new int[blok.length + 1];
+        byte[] data = new byte[0];
+        long zapsano = 0;
+
+        for (int from = 0; from < uctenky.size(); from += BLOK) {
+            int count = Math.min(BLOK, uctenky.size() - from);
+            for (int i = 0; i < count; i++) {
+                blok[i] = uctenky.get(from + i);
+            }
+
+            int length = offsets(blok, count, offsets, true);
+            if (data.length < length) {
+                data = new byte[length];
+            }
+            pool.invoke(new EncodeAction(blok, 0, count, data, offsets, true));
+
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            zapsano += length;
+        }
+        return zapsano;
+    }
+
+    /**
+     * Paralelně zjistí délky zakódovaných účtenek a spočte pozice jejich začátků.
+     *
+     * @return celková délka
+     */
+    private int offsets(EetUctenka[] uctenky, int count, int[] offsets, boolean radky) {
+        pool.invoke(new LengthAction(uctenky, 0, count, offsets, radky));
+        long position = 0;
+        for (int i = 0; i < count; i++) {
+            int length = offsets[i];
+            offsets[i] = (int) position;
+            position += length;
+            if (position > MAX_DELKA) {
+                throw new IllegalArgumentException("Zakódované účtenky se nevejdou do jednoho pole, použijte writeLines.");
+            }
+        }
+        offsets[count] = (int) position;
+        return (int) position;
+    }
+
+    /**
+     * První průchod: délka každé zakódované účtenky se uloží na její pozici v poli.
+     */
+    private static final class LengthAction extends RecursiveAction {
+
+        private final EetUctenka[] uctenky;
+        private final int from;
+        private final int to;
+        private final int[] lengths;
+        private final boolean radky;
+
+        LengthAction(EetUctenka[] uctenky, int from, int to, int[] lengths, boolean radky) {
+            this.uctenky = uctenky;
+            this.from = from;
+            this.to = to;
+            this.lengths = lengths;
+            this.radky = radky;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PRAH) {
+                int extra = radky ? 1 : 0;
+                for (int i = from; i < to; i++) {
+                    lengths[i] = uctenky[i].encodedLength() + extra;
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new LengthAction(uctenky, from, mid, lengths, radky),
+                        new LengthAction(uctenky, mid, to, lengths, radky));
+            }
+        }
+    }
+
+    /**
+     * Druhý průchod: každá účtenka se zapíše na svou předem spočtenou pozici.
+     */
+    private static final class EncodeAction extends RecursiveAction {
+
+        private final EetUctenka[] uctenky;
+        private final int from;
+        private final int to;
+        private final byte[] data;
+        private final int[] offsets;
+        private final boolean radky;
+
+        EncodeAction(EetUctenka[] uctenky, int from, int to, byte[] data, int[] offsets, boolean radky) {
+            this.uctenky = uctenky;
+            this.from = from;
+            this.to = to;
+            this.data = data;
+            this.offsets = offsets;
+            this.radky = radky;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PRAH) {
+                for (int i = from; i < to; i++) {
+                    int end = offsets[i] + uctenky[i].encodeTo(data, offsets[i]);
+                    if (radky) {
+                        data[end] = ODDELOVAC_RADKU;
+                    }
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new EncodeAction(uctenky, from, mid, data, offsets, radky),
+                        new EncodeAction(uctenky, mid, to, data, offsets, radky));
+            }
+        }
+    }
+
+    /**
+     * Blok účtenek zakódovaný jednou úlohou nad částí {@link Spliterator}.
+     */
+    private static final class Blok {
+
+        private byte[] data = new byte[PRAH * 64];
+        private int[] offsets = new int[PRAH];
+        private int length;
+        private int count;
+
+        void add(EetUctenka uctenka) {
+            int encodedLength = uctenka.encodedLength();
+            if (length + encodedLength > data.length) {
+                byte[] grown = new byte[Math.max(data.length * 2, length + encodedLength)];
+                System.arraycopy(data, 0, grown, 0, length);
+                data = grown;
+            }
+            if (count == offsets.length) {
+                int[] grown = new int[offsets.length * 2];
+                System.arraycopy(offsets, 0, grown, 0, count);
+                offsets = grown;
+            }
+            offsets[count++] = length;
+            length += uctenka.encodeTo(data, length);
+        }
+    }
+
+    /**
+     * Rekurzivní dělení {@link Spliterator}, výsledkem jsou bloky v pořadí vstupu.
+     */
+    private static final class SpliteratorTask extends RecursiveTask<List<Blok>> {
+
+        private final Spliterator<? extends EetUctenka> spliterator;
+
+        SpliteratorTask(Spliterator<? extends EetUctenka> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        protected List<Blok> compute() {
+            long size = spliterator.estimateSize();
+            if (size > PRAH) {
+                Spliterator<? extends EetUctenka> prefix = spliterator.trySplit();
+                if (prefix != null) {
+                    SpliteratorTask left = new SpliteratorTask(prefix);
+                    left.fork();
+                    List<Blok> right = new SpliteratorTask(spliterator).compute();
+                    List<Blok> result = new ArrayList<Blok>(left.join());
+                    result.addAll(right);
+                    return result;
+                }
+            }
+
+            final Blok blok = new Blok();
+            Consumer<EetUctenka> kodovani = new Consumer<EetUctenka>() {
+                @Override
+                public void accept(EetUctenka uctenka) {
+                    blok.add(uctenka);
+                }
+            };
+            while (spliterator.tryAdvance(kodovani)) {
+                // blok.add() zakóduje účtenku
+            }
+            List<Blok> result = new ArrayList<Blok>(1);
+            result.add(blok);
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,765 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.render.QrCache;
+import cz.mikropsoft.qreet.render.QrEncoder;
+import cz.mikropsoft.qreet.render.QrImageWriter;
+import cz.mikropsoft.qreet.render.QrMatrix;
+import cz.mikropsoft.qreet.render.UrovenKorekce;
+import cz.mikropsoft.qreet.scheme.Chyba;
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Hromadný převod účtenek mezi CSV, zakódovanými informacemi o účtenkách (jedna na řádek) a obrázky QR kódů, také
+ * jako nástroj příkazové řádky ({@link #main(String[])}).
+ * <p>
+ * Vstup se čte po dávkách řádků, dávky se zpracují paralelně v pevném počtu vláken a výsledky se zapisují ve
+ * vstupním pořadí. Rozpracovaných dávek je nejvýše dvojnásobek počtu vláken, spotřeba paměti tak nezávisí na velikosti
+ * vstupu. Čtení i zápis probíhají ve vlákně volajícího, do výstupu obrázků se proto zapisuje vždy z jednoho vlákna.
+ * <p>
+ * CSV má v prvním řádku názvy sloupců, sloupce a jejich hodnoty se rozpoznají shodně s {@link CsvImporter}.
+ * Prázdný řádek se odmítne.
+ * S předanou {@link QrCache} se matice a obrázky PNG berou z paměti, opakované účtenky se tak vykreslí jednou;
+ * nástroj příkazové řádky paměť používá.
+ * <p>
+ * Zpětný převod zapisuje CSV se sloupci {@code typ,kod,dic,castka,datum,rezim}, kód jako 20 dekadických číslic.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class BulkConverter {
+
+    /**
+     * Hlavička CSV zapisovaného zpětným převodem.
+     */
+    public static final String CSV_HLAVICKA = "typ,kod,dic,castka,datum,rezim";
+
+    /**
+     * Formát obrázků QR kódu.
+     */
+    public enum Format {
+        PNG("png"),
+        SVG("svg"),
+        BMP("bmp");
+
+        private final String pripona;
+
+        Format(String pripona) {
+            this.pripona = pripona;
+        }
+
+        /**
+         * Přípona souboru bez tečky.
+         *
+         * @return přípona
+         */
+        public String getPripona() {
+            return pripona;
+        }
+    }
+
+    /**
+     * Cíl obrázků QR kódu. Volá se vždy z jednoho vlákna, ve vstupním pořadí.
+     */
+    public interface ImageSink extends Closeable {
+
+        /**
+         * Zapíše obrázek.
+         *
+         * @param nazev název souboru
+         * @param data obsah obrázku
+         * @throws IOException chyba zápisu
+         */
+        void write(String nazev, byte[] data) throws IOException;
+
+        /**
+         * Obrázky jako položky archivu ZIP. Obrázky jsou již komprimované, ukládají se proto bez další komprese.
+         *
+         * @param out výstup archivu, zavře se spolu s cílem
+         * @return {@link ImageSink}
+         */
+        static ImageSink zip(OutputStream out) {
+            final ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, 1 << 16));
+            zip.setLevel(0);
+            return new ImageSink() {
+                @Override
+                public void write(String nazev, byte[] data) throws IOException {
+                    zip.putNextEntry(new ZipEntry(nazev));
+                    zip.write(data);
+                    zip.closeEntry();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    zip.close();
+                }
+            };
+        }
+
+        /**
+         * Obrázky jako soubory v adresáři, adresář se případně vytvoří.
+         *
+         * @param adresar cílový adresář
+         * @return {@link ImageSink}
+         * @throws IOException chyba vytvoření adresáře
+         */
+        static ImageSink directory(final Path adresar) throws IOException {
+            Files.createDirectories(adresar);
+            return new ImageSink() {
+                @Override
+                public void write(String nazev, byte[] data) throws IOException {
+                    Files.write(adresar.resolve(nazev), data);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+
+    /**
+     * Příjemce odmítnutých řádků. Volá se z vlákna volajícího, ve vstupním pořadí.
+     */
+    public interface Rejects {
+
+        /**
+         * Odmítnutý řádek.
+         *
+         * @param radek číslo řádku vstupu od 1, včetně případné hlavičky
+         * @param obsah obsah řádku
+         * @param duvod důvod odmítnutí
+         */
+        void reject(long radek, String obsah, String duvod);
+    }
+
+    /**
+     * Příjemce průběhu převodu. Volá se z vlákna volajícího nejvýše jednou za sekundu a vždy na konci převodu.
+     */
+    public interface Progress {
+
+        /**
+         * Stav převodu.
+         *
+         * @param souhrn dosud zpracované řádky
+         */
+        void progress(Souhrn souhrn);
+    }
+
+    // Výchozí počet řádků dávky
+    private static final int VYCHOZI_DAVKA = 512;
+    private static final long PRUBEH_NS = 1000000000L;
+    // Rozpočet paměti vykreslených kódů nástroje příkazové řádky v bajtech
+    private static final long VYCHOZI_CACHE = 64L << 20;
+
+    private final int vlaken;
+    private final int velikostDavky;
+    private final UrovenKorekce uroven;
+    private final QrCache cache;
+
+    /**
+     * Převod ve všech dostupných procesorech.
+     */
+    public BulkConverter() {
+        this(Runtime.getRuntime().availableProcessors(), VYCHOZI_DAVKA, UrovenKorekce.L);
+    }
+
+    /**
+     * Převod v předaném počtu vláken.
+     *
+     * @param vlaken počet vláken
+     * @param davka počet řádků dávky
+     * @param uroven úroveň opravy chyb vykreslených QR kódů
+     */
+    public BulkConverter(int vlaken, int davka, UrovenKorekce uroven) {
+        this(vlaken, davka, uroven, null);
+    }
+
+    /**
+     * Převod v předaném počtu vláken s pamětí vykreslených kódů, úroveň opravy chyb určuje paměť.
+     *
+     * @param vlaken počet vláken
+     * @param davka počet řádků dávky
+     * @param cache paměť vykreslených kódů, sdílená vlákny převodu
+     */
+    public BulkConverter(int vlaken, int davka, QrCache cache) {
+        this(vlaken, davka, uroven(cache), cache);
+    }
+
+    private BulkConverter(int vlaken, int davka, UrovenKorekce uroven, QrCache cache) {
+        if (vlaken < 1) {
+            throw new IllegalArgumentException("Počet vláken musí být kladný.");
+        }
+        if (davka < 1) {
+            throw new IllegalArgumentException("Počet řádků dávky musí být kladný.");
+        }
+        if (uroven == null) {
+            throw new IllegalArgumentException("Úroveň opravy chyb musí být předána.");
+        }
+        this.vlaken = vlaken;
+        this.velikostDavky = davka;
+        this.uroven = uroven;
+        this.cache = cache;
+    }
+
+    private static UrovenKorekce uroven(QrCache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Paměť vykreslených kódů musí být předána.");
+        }
+        return cache.getUroven();
+    }
+
+    /**
+     * Převede CSV účtenek na zakódované informace o účtenkách, obrázky QR kódu, nebo obojí. Obrázek se jmenuje podle
+     * čísla řádku CSV, např. {@code 000000002.png}. Odmítnuté řádky se na výstup nezapisují.
+     *
+     * @param csv vstup CSV s hlavičkou
+     * @param payloady výstup zakódovaných informací, jedna na řádek, nebo {@code null}
+     * @param obrazky výstup obrázků, nebo {@code null}
+     * @param format formát obrázků
+     * @param writer zápis obrázků
+     * @param rejects příjemce odmítnutých řádků, nebo {@code null}
+     * @param progress příjemce průběhu, nebo {@code null}
+     * @return {@link Souhrn}
+     * @throws IOException chyba čtení nebo zápisu
+     */
+    public Souhrn csvToPayloads(BufferedReader csv, final Writer payloady, final ImageSink obrazky,
+                                final Format format, final QrImageWriter writer, Rejects rejects,
+                                Progress progress) throws IOException {
+        if (payloady == null && obrazky == null) {
+            throw new IllegalArgumentException("Musí být předán výstup zakódovaných informací nebo obrázků.");
+        }
+        if (obrazky != null && (format == null || writer == null)) {
+            throw new IllegalArgumentException("Pro obrázky musí být předán formát a zápis obrázků.");
+        }
+        String hlavicka = csv.readLine();
+        if (hlavicka == null) {
+            throw new IOException("CSV neobsahuje hlavičku.");
+        }
+        final CsvImporter importer;
+        try {
+            importer = new CsvImporter(hlavicka);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return pipeline(csv, 2, new Prevod() {
+            @Override
+            void zpracovat(Davka davka) {
+                CsvImporter.Radek radek = importer.radek();
+                for (int i = 0; i < davka.pocet; i++) {
+                    byte[] bajty = davka.radky[i].getBytes(StandardCharsets.UTF_8);
+                    int vysledek = radek.parse(ByteBuffer.wrap(bajty), 0, bajty.length);
+                    if (vysledek != 0) {
+                        davka.chyby[i] = duvod(vysledek);
+                        continue;
+                    }
+                    try {
+                        String payload = radek.getZaznam().generateString();
+                        davka.vysledky[i] = payload;
+                        if (obrazky != null) {
+                            davka.obrazky[i] = obrazek(radek.getZaznam(), payload, format, writer);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        davka.chyby[i] = (e.getMessage() != null) ? e.getMessage() : e.toString();
+                    }
+                }
+            }
+
+            @Override
+            void zapsat(long radek, String vysledek, byte[] obrazek) throws IOException {
+                if (payloady != null) {
+                    payloady.write(vysledek);
+                    payloady.write('\n');
+                }
+                if (obrazky != null) {
+                    obrazky.write(String.format(Locale.ROOT, "%09d.%s", radek, format.getPripona()), obrazek);
+                }
+            }
+        }, obrazky != null, rejects, progress);
+    }
+
+    /**
+     * Převede zakódované informace o účtenkách, jednu na řádek, na CSV s hlavičkou {@value #CSV_HLAVICKA}.
+     * Prázdné řádky se přeskakují, nevalidní řádky se odmítnou.
+     *
+     * @param payloady vstup zakódovaných informací
+     * @param csv výstup CSV
+     * @param rejects příjemce odmítnutých řádků, nebo {@code null}
+     * @param progress příjemce průběhu, nebo {@code null}
+     * @return {@link Souhrn}
+     * @throws IOException chyba čtení nebo zápisu
+     */
+    public Souhrn payloadsToCsv(BufferedReader payloady, final Writer csv, Rejects rejects, Progress progress)
+            throws IOException {
+        csv.write(CSV_HLAVICKA);
+        csv.write('\n');
+        return pipeline(payloady, 1, new Prevod() {
+            @Override
+            void zpracovat(Davka davka) {
+                EetZaznam zaznam = new EetZaznam();
+                StringBuilder radek = new StringBuilder(96);
+                for (int i = 0; i < davka.pocet; i++) {
+                    String payload = davka.radky[i].trim();
+                    if (payload.isEmpty()) {
+                        continue;
+                    }
+                    int vysledek = zaznam.tryParse(payload);
+                    if (vysledek != 0) {
+                        davka.chyby[i] = duvod(vysledek);
+                        continue;
+                    }
+                    radek.setLength(0);
+                    davka.vysledky[i] = csv(Uctenka.of(zaznam), radek);
+                }
+            }
+
+            @Override
+            void zapsat(long radek, String vysledek, byte[] obrazek) throws IOException {
+                csv.write(vysledek);
+                csv.write('\n');
+            }
+        }, false, rejects, progress);
+    }
+
+    /**
+     * Čte dávky, předává je ke zpracování a zapisuje hotové dávky ve vstupním pořadí.
+     */
+    private Souhrn pipeline(BufferedReader in, long prvniRadek, final Prevod prevod, boolean obrazky,
+                            Rejects rejects, Progress progress) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(vlaken, new Vlakna());
+        ArrayDeque<Future<Davka>> rozpracovane = new ArrayDeque<Future<Davka>>(vlaken * 2);
+        Souhrn souhrn = new Souhrn(System.nanoTime());
+        long posledni = souhrn.zacatek;
+        try {
+            long radek = prvniRadek;
+            boolean konec = false;
+            while (!konec || !rozpracovane.isEmpty()) {
+                if (!konec && rozpracovane.size() < vlaken * 2) {
+                    final Davka nova = new Davka(radek, velikostDavky, obrazky);
+                    String line;
+                    while (nova.pocet < velikostDavky && (line = in.readLine()) != null) {
+                        nova.radky[nova.pocet++] = line;
+                    }
+                    konec = nova.pocet < velikostDavky;
+                    radek += nova.pocet;
+                    if (nova.pocet > 0) {
+                        rozpracovane.add(executor.submit(new Callable<Davka>() {
+                            @Override
+                            public Davka call() {
+                                prevod.zpracovat(nova);
+                                return nova;
+                            }
+                        }));
+                    }
+                    continue;
+                }
+                Davka hotova = hotova(rozpracovane.poll());
+                for (int i = 0; i < hotova.pocet; i++) {
+                    long cislo = hotova.prvniRadek + i;
+                    if (hotova.chyby[i] != null) {
+                        souhrn.odmitnutych++;
+                        if (rejects != null) {
+                            rejects.reject(cislo, hotova.radky[i], hotova.chyby[i]);
+                        }
+                    } else if (hotova.vysledky[i] != null) {
+                        prevod.zapsat(cislo, hotova.vysledky[i], obrazky ? hotova.obrazky[i] : null);
+                        souhrn.prevedenych++;
+                    }
+                }
+                souhrn.radku += hotova.pocet;
+                long ted = System.nanoTime();
+                if (progress != null && ted - posledni >= PRUBEH_NS) {
+                    posledni = ted;
+                    progress.progress(souhrn.snapshot(ted));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Souhrn vysledek = souhrn.snapshot(System.nanoTime());
+        if (progress != null) {
+            progress.progress(vysledek);
+        }
+        return vysledek;
+    }
+
+    private static Davka hotova(Future<Davka> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Převod byl přerušen.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Obrázek účtenky, s pamětí vykreslených kódů z ní. Obrázek PNG se z paměti bere, jen pokud se zapisuje jejím
+     * zápisem obrázků.
+     */
+    private byte[] obrazek(EetZaznam zaznam, String payload, Format format, QrImageWriter writer) {
+        if (cache == null) {
+            return vykreslit(QrEncoder.encode(payload, uroven), format, writer);
+        }
+        Uctenka uctenka = Uctenka.of(zaznam);
+        if (format == Format.PNG && writer == cache.getWriter()) {
+            return cache.png(uctenka);
+        }
+        return vykreslit(cache.matrix(uctenka), format, writer);
+    }
+
+    private static byte[] vykreslit(QrMatrix matrix, Format format, QrImageWriter writer) {
+        switch (format) {
+            case PNG:
+                return writer.toPng(matrix);
+            case SVG:
+                return writer.toSvg(matrix).getBytes(StandardCharsets.US_ASCII);
+            case BMP:
+                ByteArrayOutputStream out = new ByteArrayOutputStream(128 + writer.getSize(matrix)
+                        * writer.getSize(matrix) / 8);
+                try {
+                    writer.writeBmp(matrix, out);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return out.toByteArray();
+            default:
+                throw new IllegalStateException("Nepodporovaný formát: " + format);
+        }
+    }
+
+    /**
+     * Důvod odmítnutí řádku s chybou a její pozicí v řádku.
+     */
+    private static String duvod(int vysledek) {
+        Chyba chyba = Chyba.of(vysledek);
+        return chyba.getZprava() + " (" + chyba.getPole() + ", pozice " + Chyba.offset(vysledek) + ")";
+    }
+
+    /**
+     * Řádek CSV zpětného převodu.
+     */
+    private static String csv(Uctenka uctenka, StringBuilder radek) {
+        Dic dic = uctenka.getDic();
+        radek.append(uctenka.getKod().getTyp().name()).append(',')
+                .append(uctenka.getKod().qrValue()).append(',');
+        if (dic.isNotEmpty()) {
+            radek.append("CZ").append(dic.qrValue());
+        }
+        radek.append(',').append(BigDecimal.valueOf(uctenka.getCastka(), 2).toPlainString())
+                .append(',').append(uctenka.getDatumCasTransakce())
+                .append(',').append(uctenka.getRezim().qrValue());
+        return radek.toString();
+    }
+
+    /**
+     * Nástroj příkazové řádky:
+     * <pre>
+     * encode &lt;vstup.csv&gt; [--payloady &lt;soubor&gt;] [--obrazky &lt;archiv.zip|adresář&gt;] [--format png|svg|bmp]
+     *        [--modul &lt;px&gt;] [--vlaken &lt;n&gt;]
+     * decode &lt;payloady&gt; &lt;vystup.csv&gt; [--vlaken &lt;n&gt;]
+     * </pre>
+     * Průběh a odmítnuté řádky se vypisují na standardní chybový výstup. Návratový kód je 0 při úspěchu, 1 pokud
+     * byl některý řádek odmítnut a 2 při chybném použití.
+     *
+     * @param args argumenty
+     * @throws IOException chyba čtení nebo zápisu
+     */
+    public static void main(String[] args) throws IOException {
+        int kod = spustit(args, System.err);
+        if (kod != 0) {
+            System.exit(kod);
+        }
+    }
+
+    /**
+     * Provede příkaz nástroje příkazové řádky.
+     *
+     * @param args argumenty
+     * @param err výstup průběhu a chyb
+     * @return návratový kód
+     * @throws IOException chyba čtení nebo zápisu
+     */
+    static int spustit(String[] args, final PrintStream err) throws IOException {
+        if (args.length < 2) {
+            return pouziti(err, null);
+        }
+        Path vstup = Paths.get(args[1]);
+        Path vystup = null;
+        Path payloady = null;
+        Path obrazky = null;
+        Format format = Format.PNG;
+        int modul = 4;
+        int vlaken = Runtime.getRuntime().availableProcessors();
+        int i = 2;
+        if ("decode".equals(args[0])) {
+            if (args.length < 3) {
+                return pouziti(err, null);
+            }
+            vystup = Paths.get(args[2]);
+            i = 3;
+        } else if (!"encode".equals(args[0])) {
+            return pouziti(err, "Neznámý příkaz " + args[0]);
+        }
+        try {
+            for (; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    return pouziti(err, "Chybí hodnota přepínače " + args[i]);
+                }
+                String hodnota = args[i + 1];
+                switch (args[i]) {
+                    case "--payloady":
+                        payloady = Paths.get(hodnota);
+                        break;
+                    case "--obrazky":
+                        obrazky = Paths.get(hodnota);
+                        break;
+                    case "--format":
+                        format = Format.valueOf(hodnota.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--modul":
+                        modul = Integer.parseInt(hodnota);
+                        break;
+                    case "--vlaken":
+                        vlaken = Integer.parseInt(hodnota);
+                        break;
+                    default:
+                        return pouziti(err, "Neznámý přepínač " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return pouziti(err, e.getMessage());
+        }
+
+        BulkConverter converter;
+        QrImageWriter writer;
+        try {
+            writer = new QrImageWriter(modul);
+            converter = new BulkConverter(vlaken, VYCHOZI_DAVKA, new QrCache(VYCHOZI_CACHE, UrovenKorekce.L, writer));
+        } catch (IllegalArgumentException e) {
+            return pouziti(err, e.getMessage());
+        }
+        Rejects rejects = new Rejects() {
+            @Override
+            public void reject(long radek, String obsah, String duvod) {
+                err.println("řádek " + radek + ": " + duvod);
+            }
+        };
+        Progress progress = new Progress() {
+            @Override
+            public void progress(Souhrn souhrn) {
+                err.println(souhrn);
+            }
+        };
+
+        Souhrn souhrn;
+        try (BufferedReader in = Files.newBufferedReader(vstup, StandardCharsets.UTF_8)) {
+            if (vystup != null) {
+                try (Writer out = Files.newBufferedWriter(vystup, StandardCharsets.UTF_8)) {
+                    souhrn = converter.payloadsToCsv(in, out, rejects, progress);
+                }
+            } else {
+                if (payloady == null && obrazky == null) {
+                    return pouziti(err, "Musí být předán --payloady nebo --obrazky.");
+                }
+                Writer out = null;
+                ImageSink sink = null;
+                try {
+                    if (payloady != null) {
+                        out = Files.newBufferedWriter(payloady, StandardCharsets.US_ASCII);
+                    }
+                    if (obrazky != null) {
+                        sink = obrazky.toString().toLowerCase(Locale.ROOT).endsWith(".zip")
+                                ? ImageSink.zip(Files.newOutputStream(obrazky))
+                                : ImageSink.directory(obrazky);
+                    }
+                    souhrn = converter.csvToPayloads(in, out, sink, format, writer, rejects, progress);
+                } catch (IllegalArgumentException e) {
+                    return pouziti(err, e.getMessage());
+                } finally {
+                    if (out != null) {
+                        out.close();
+                    }
+                    if (sink != null) {
+                        sink.close();
+                    }
+                }
+            }
+        }
+        return (souhrn.getOdmitnutych() == 0) ? 0 : 1;
+    }
+
+    private static int pouziti(PrintStream err, String chyba) {
+        if (chyba != null) {
+            err.println(chyba);
+        }
+        err.println("Použití: encode <vstup.csv> [--payloady <soubor>] [--obrazky <archiv.zip|adresář>]"
+                + " [--format png|svg|bmp] [--modul <px>] [--vlaken <n>]");
+        err.println("         decode <payloady> <vystup.csv> [--vlaken <n>]");
+        return 2;
+    }
+
+    /**
+     * Souhrn převodu.
+     */
+    public static final class Souhrn {
+
+        private final long zacatek;
+        private long radku;
+        private long prevedenych;
+        private long odmitnutych;
+        private long nanos;
+
+        Souhrn(long zacatek) {
+            this.zacatek = zacatek;
+        }
+
+        Souhrn snapshot(long ted) {
+            Souhrn souhrn = new Souhrn(zacatek);
+            souhrn.radku = radku;
+            souhrn.prevedenych = prevedenych;
+            souhrn.odmitnutych = odmitnutych;
+            souhrn.nanos = ted - zacatek;
+            return souhrn;
+        }
+
+        /**
+         * Počet zpracovaných řádků vstupu, bez hlavičky.
+         *
+         * @return počet řádků
+         */
+        public long getRadku() {
+            return radku;
+        }
+
+        /**
+         * Počet převedených řádků.
+         *
+         * @return počet převedených řádků
+         */
+        public long getPrevedenych() {
+            return prevedenych;
+        }
+
+        /**
+         * Počet odmítnutých řádků.
+         *
+         * @return počet odmítnutých řádků
+         */
+        public long getOdmitnutych() {
+            return odmitnutych;
+        }
+
+        /**
+         * Doba převodu v nanosekundách.
+         *
+         * @return doba převodu
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Zpracované řádky za sekundu.
+         *
+         * @return propustnost
+         */
+        public double getPropustnost() {
+            return (nanos == 0) ? 0 : radku * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d řádků, převedeno %d, odmítnuto %d, %.1f s, %.0f řádků/s",
+                    radku, prevedenych, odmitnutych, nanos / 1e9, getPropustnost());
+        }
+    }
+
+    /**
+     * Zpracování a zápis jednoho druhu převodu.
+     */
+    private abstract static class Prevod {
+
+        /**
+         * Zpracuje dávku, volá se souběžně z více vláken, pro každou dávku z jednoho.
+         */
+        abstract void zpracovat(Davka davka);
+
+        /**
+         * Zapíše výsledek řádku, volá se z vlákna volajícího ve vstupním pořadí.
+         */
+        abstract void zapsat(long radek, String vysledek, byte[] obrazek) throws IOException;
+    }
+
+    /**
+     * Řádky vstupu a jejich výsledky.
+     */
+    private static final class Davka {
+
+        private final long prvniRadek;
+        private final String[] radky;
+        private final String[] vysledky;
+        private final String[] chyby;
+        private final byte[][] obrazky;
+        private int pocet;
+
+        Davka(long prvniRadek, int velikost, boolean obrazky) {
+            this.prvniRadek = prvniRadek;
+            this.radky = new String[velikost];
+            this.vysledky = new String[velikost];
+            this.chyby = new String[velikost];
+            this.obrazky = obrazky ? new byte[velikost][] : null;
+        }
+    }
+
+    /**
+     * Démonická vlákna převodu.
+     */
+    private static final class Vlakna implements ThreadFactory {
+
+        private final AtomicInteger cislo = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "qreet-bulk-" + cislo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,313 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.scheme.Chyba;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Paralelní dekódování souboru se zakódovanými účtenkami, jedna účtenka na řádek. Soubor se mapuje do paměti
+ * ({@link FileChannel#map}), rozdělí se na úseky zarovnané na hranice řádků a každý úsek se dekóduje samostatně,
+ * přímo z namapovaných bajtů. Pro jednotlivé řádky se nealokují žádné objekty.
+ * <p>
+ * Řádky jsou ukončeny znakem {@code '\n'}, případné {@code '\r'} před ním se ignoruje. Řádky, které nejsou validní
+ * zakódovanou účtenkou, se předají {@link Rejects} s pozicí řádku v souboru a důvodem.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public class BulkDecoder {
+
+    /**
+     * Příjemce dekódovaných účtenek. Volá se souběžně z více vláken, pro každý úsek souboru však vždy z jednoho
+     * vlákna. Předaný {@link EetZaznam} se opakovaně používá, jeho položky je nutné převzít před návratem z metody.
+     */
+    public interface Handler {
+
+        /**
+         * Dekódovaná účtenka.
+         *
+         * @param radek pořadí řádku v souboru od 0
+         * @param zaznam dekódovaná účtenka, platná pouze během volání
+         */
+        void accept(long radek, EetZaznam zaznam);
+    }
+
+    /**
+     * Příjemce odmítnutých řádků. Volá se souběžně z více vláken.
+     */
+    public interface Rejects {
+
+        /**
+         * Odmítnutý řádek.
+         *
+         * @param radek pořadí řádku v souboru od 0
+         * @param offset pozice začátku řádku v souboru
+         * @param chyba důvod odmítnutí
+         * @param pozice pozice chybného znaku v řádku
+         */
+        void reject(long radek, long offset, Chyba chyba, int pozice);
+    }
+
+    // Nejmenší a největší délka úseku, největší je omezena velikostí MappedByteBuffer
+    private static final long USEK_MIN = 1L << 20;
+    private static final long USEK_MAX = 1L << 28;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Dekódování ve společném {@link ForkJoinPool#commonPool()}.
+     */
+    public BulkDecoder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Dekódování v předaném {@link ForkJoinPool}.
+     *
+     * @param pool fork-join pool
+     */
+    public BulkDecoder(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("ForkJoinPool musí být předán.");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Dekóduje všechny řádky předaného souboru.
+     *
+     * @param file soubor se zakódovanými účtenkami
+     * @param handler příjemce dekódovaných účtenek
+     * @param rejects příjemce odmítnutých řádků, nebo {@code null}
+     * @return počet řádků souboru
+     * @throws IOException chyba čtení souboru
+     */
+    public long decode(Path file, Handler handler, Rejects rejects) throws IOException {
+        if (handler == null) {
+            throw new IllegalArgumentException("Příjemce dekódovaných účtenek musí být předán.");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Usek> useky = useky(channel);
+            pool.invoke(new CountAction(channel, useky, 0, useky.size()));
+
+            long radek = 0;
+            for (Usek usek : useky) {
+                usek.prvniRadek = radek;
+                radek += usek.radku;
+            }
+
+            pool.invoke(new DecodeAction(channel, useky, 0, useky.size(), handler, rejects));
+            return radek;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Dekóduje všechny řádky předaného souboru do sloupců primitivních hodnot. Řádek sloupce odpovídá řádku souboru,
+     * odmítnuté řádky jsou ve sloupcích označeny jako nevalidní.
+     *
+     * @param file soubor se zakódovanými účtenkami
+     * @param rejects příjemce odmítnutých řádků, nebo {@code null}
+     * @return dekódované účtenky
+     * @throws IOException chyba čtení souboru
+     */
+    public DecodedColumns decodeColumns(Path file, Rejects rejects) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Usek> useky = useky(channel);
+            pool.invoke(new CountAction(channel, useky, 0, useky.size()));
+
+            long radek = 0;
+            for (Usek usek : useky) {
+                usek.prvniRadek = radek;
+                radek += usek.radku;
+            }
+            if (radek > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Soubor má příliš mnoho řádků pro sloupce, použijte decode.");
+            }
+
+            DecodedColumns columns = new DecodedColumns((int) radek);
+            pool.invoke(new DecodeAction(channel, useky, 0, useky.size(), columns, rejects));
+            return columns;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Rozdělí soubor na úseky zarovnané na hranice řádků.
+     */
+    private List<Usek> useky(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long delka = Math.min(USEK_MAX, Math.max(USEK_MIN, size / (pool.getParallelism() * 4L)));
+
+        List<Usek> useky = new ArrayList<Usek>();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + delka);
+            // Konec úseku se posune za nejbližší konec řádku
+            while (end < size) {
+                buffer.clear();
+                int read = channel.read(buffer, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int i = 0;
+                while (i < read && buffer.get(i) != '\n') {
+                    i++;
+                }
+                end += (i < read) ? i + 1 : read;
+                if (i < read) {
+                    break;
+                }
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("Řádek v souboru je příliš dlouhý.");
+                }
+            }
+            useky.add(new Usek(start, end));
+            start = end;
+        }
+        return useky;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, Usek usek) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, usek.start, usek.end - usek.start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Úsek souboru zarovnaný na hranice řádků.
+     */
+    private static final class Usek {
+
+        private final long start;
+        private final long end;
+        private long radku;
+        private long prvniRadek;
+
+        Usek(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * První průchod: počet řádků v každém úseku, aby bylo známo pořadí prvního řádku úseku.
+     */
+    private static final class CountAction extends RecursiveAction {
+
+        private final FileChannel channel;
+        private final List<Usek> useky;
+        private final int from;
+        private final int to;
+
+        CountAction(FileChannel channel, List<Usek> useky, int from, int to) {
+            this.channel = channel;
+            this.useky = useky;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Usek usek = useky.get(from);
+                MappedByteBuffer buffer = map(channel, usek);
+                int limit = buffer.limit();
+                long radku = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (buffer.get(i) == '\n') {
+                        radku++;
+                    }
+                }
+                if (limit > 0 && buffer.get(limit - 1) != '\n') {
+                    radku++;
+                }
+                usek.radku = radku;
+            } else if (to > from) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CountAction(channel, useky, from, mid), new CountAction(channel, useky, mid, to));
+            }
+        }
+    }
+
+    /**
+     * Druhý průchod: dekódování řádků každého úseku.
+     */
+    private static final class DecodeAction extends RecursiveAction {
+
+        private final FileChannel channel;
+        private final List<Usek> useky;
+        private final int from;
+        private final int to;
+        private final Handler handler;
+        private final Rejects rejects;
+
+        DecodeAction(FileChannel channel, List<Usek> useky, int from, int to, Handler handler, Rejects rejects) {
+            this.channel = channel;
+            this.useky = useky;
+            this.from = from;
+            this.to = to;
+            this.handler = handler;
+            this.rejects = rejects;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                decode(useky.get(from));
+            } else if (to > from) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DecodeAction(channel, useky, from, mid, handler, rejects),
+                        new DecodeAction(channel, useky, mid, to, handler, rejects));
+            }
+        }
+
+        private void decode(Usek usek) {
+            MappedByteBuffer buffer = map(channel, usek);
+            // Slova číslic se čtou little-endian bez otáčení bajtů
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            EetZaznam zaznam = new EetZaznam();
+            long radek = usek.prvniRadek;
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = start;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int length = end - start;
+                if (length > 0 && buffer.get(end - 1) == '\r') {
+                    length--;
+                }
+
+                int vysledek = zaznam.tryParse(buffer, start, length);
+                if (vysledek == 0) {
+                    handler.accept(radek, zaznam);
+                } else if (rejects != null) {
+                    rejects.reject(radek, usek.start + start, Chyba.of(vysledek), Chyba.offset(vysledek));
+                }
+                radek++;
+                start = end + 1;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,595 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.scheme.Chyba;
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.utils.DateUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Import účtenek z CSV přímo z bajtů bufferu. Položky se rozpoznají a převedou na místě, bez {@code String},
+ * {@code Date} a {@code double} pro jednotlivé řádky, a předají se jako {@link EetZaznam}, nebo se uloží do
+ * sloupců primitivních hodnot ({@link DecodedColumns}).
+ * <p>
+ * Názvy sloupců v hlavičce určují jejich význam, pořadí je libovolné a ostatní sloupce se ignorují:
+ * <ul>
+ *     <li>{@code fik}, {@code bkp} - kódy v plném tvaru, případně jen významné skupiny; má-li řádek oba, použije se
+ *     FIK, jako na účtence</li>
+ *     <li>{@code kod} - FIK nebo BKP v plném tvaru, případně 20 dekadických číslic se sloupcem {@code typ}</li>
+ *     <li>{@code dic} - nepovinný, {@code (CZ)?[0-9]{8,10}}</li>
+ *     <li>{@code castka} - částka v korunách s nejvýše dvěma desetinnými místy, prázdná je 0</li>
+ *     <li>{@code datum} - {@code yyyy-MM-ddTHH:mm} v letech 2000-2099, místo {@code T} může být mezera, sekundy
+ *     se zahodí</li>
+ *     <li>{@code rezim} - nepovinný, 0 nebo 1, výchozí je běžný režim</li>
+ * </ul>
+ * Sloupce jsou odděleny čárkou, nebo středníkem, pokud jej obsahuje hlavička; se středníkem může být desetinným
+ * oddělovačem i čárka. Hodnota může být v uvozovkách. Řádky končí {@code '\n'}, případné {@code '\r'} před ním se
+ * ignoruje, prázdné řádky se přeskakují.
+ * <p>
+ * Nevalidní řádky se předají {@link BulkDecoder.Rejects} s pozicí řádku, důvodem a pozicí chybného znaku v řádku,
+ * zpracování pokračuje dalším řádkem.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class CsvImporter {
+
+    // Sloupce podle významu
+    private static final int TYP = 0;
+    private static final int KOD = 1;
+    private static final int FIK = 2;
+    private static final int BKP = 3;
+    private static final int DIC = 4;
+    private static final int CASTKA = 5;
+    private static final int DATUM = 6;
+    private static final int REZIM = 7;
+    private static final String[] NAZVY = {"typ", "kod", "fik", "bkp", "dic", "castka", "datum", "rezim"};
+
+    private static final int[] FIK_SKUPINY = {8, 4, 4, 4, 12, 2};
+    private static final int[] BKP_SKUPINY = {8, 8, 8, 8, 8};
+
+    // Nejvyšší počet číslic částky v haléřích, shodně se zakódovanou informací
+    private static final int CISLIC_CASTKY_MAX = 18;
+
+    private final byte oddelovac;
+    // Význam sloupce podle jeho pořadí v řádku, -1 pro ignorovaný sloupec
+    private final int[] vyznam;
+
+    /**
+     * Import řádků s předanou hlavičkou.
+     *
+     * @param hlavicka první řádek CSV s názvy sloupců
+     * @throws IllegalArgumentException hlavička neobsahuje sloupec kódu nebo datum
+     */
+    public CsvImporter(CharSequence hlavicka) {
+        String text = hlavicka.toString().trim();
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        this.oddelovac = (byte) ((text.indexOf(';') >= 0) ? ';' : ',');
+        String[] nazvy = text.split((oddelovac == ';') ? ";" : ",", -1);
+        this.vyznam = new int[nazvy.length];
+        boolean[] nalezene = new boolean[NAZVY.length];
+        for (int i = 0; i < nazvy.length; i++) {
+            String nazev = nazvy[i].trim().replace("\"", "").toLowerCase(Locale.ROOT);
+            vyznam[i] = -1;
+            for (int j = 0; j < NAZVY.length; j++) {
+                if (NAZVY[j].equals(nazev) && !nalezene[j]) {
+                    vyznam[i] = j;
+                    nalezene[j] = true;
+                }
+            }
+        }
+        if (!nalezene[KOD] && !nalezene[FIK] && !nalezene[BKP] || !nalezene[DATUM]) {
+            throw new IllegalArgumentException("Hlavička CSV musí obsahovat sloupec kod, fik nebo bkp a sloupec datum: "
+                    + text);
+        }
+    }
+
+    /**
+     * Importuje CSV včetně hlavičky od pozice do limitu bufferu, pozice bufferu se nemění.
+     *
+     * @param data CSV s hlavičkou v kódování ASCII nebo UTF-8
+     * @param handler příjemce účtenek, volá se z vlákna volajícího
+     * @param rejects příjemce odmítnutých řádků, nebo {@code null}
+     * @return počet řádků za hlavičkou, včetně prázdných
+     * @throws IllegalArgumentException hlavička neobsahuje sloupec kódu nebo datum
+     */
+    public static long importAll(ByteBuffer data, BulkDecoder.Handler handler, BulkDecoder.Rejects rejects) {
+        int telo = konecRadku(data, data.position());
+        CsvImporter importer = of(data, telo);
+        return importer.parse(data, dalsiRadek(data, telo), 0, handler, rejects);
+    }
+
+    /**
+     * Importuje CSV včetně hlavičky do sloupců primitivních hodnot, odmítnuté a prázdné řádky jsou ve sloupcích
+     * označeny jako nevalidní.
+     *
+     * @param data CSV s hlavičkou v kódování ASCII nebo UTF-8
+     * @param rejects příjemce odmítnutých řádků, nebo {@code null}
+     * @return importované účtenky, řádek sloupce odpovídá řádku za hlavičkou
+     * @throws IllegalArgumentException hlavička neobsahuje sloupec kódu nebo datum
+     */
+    public static DecodedColumns importColumns(ByteBuffer data, BulkDecoder.Rejects rejects) {
+        int telo = konecRadku(data, data.position());
+        CsvImporter importer = of(data, telo);
+        int od = dalsiRadek(data, telo);
+        long radku = pocetRadku(data, od, data.limit());
+        if (radku > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("CSV má více řádků, než pojmou sloupce: " + radku);
+        }
+        DecodedColumns columns = new DecodedColumns((int) radku);
+        importer.parse(data, od, 0, columns, rejects);
+        return columns;
+    }
+
+    /**
+     * Importuje řádky bez hlavičky od předané pozice do limitu bufferu, pozice bufferu se nemění. Umožňuje
+     * zpracovat úseky velkého souboru, rozdělené na hranicích řádků, souběžně.
+     *
+     * @param data řádky CSV
+     * @param od pozice začátku prvního řádku
+     * @param prvniRadek pořadí prvního řádku předávané příjemcům
+     * @param handler příjemce účtenek, volá se z vlákna volajícího
+     * @param rejects příjemce odmítnutých řádků, nebo {@code null}
+     * @return počet řádků, včetně prázdných
+     */
+    public long parse(ByteBuffer data, int od, long prvniRadek, BulkDecoder.Handler handler,
+                      BulkDecoder.Rejects rejects) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Příjemce účtenek musí být předán.");
+        }
+        Radek radek = new Radek(data);
+        long cislo = prvniRadek;
+        int pozice = od;
+        int limit = data.limit();
+        while (pozice < limit) {
+            int konec = konecRadku(data, pozice);
+            int obsah = (konec > pozice && data.get(konec - 1) == '\r') ? konec - 1 : konec;
+            if (obsah > pozice) {
+                int vysledek = radek.parse(pozice, obsah);
+                if (vysledek == 0) {
+                    handler.accept(cislo, radek.zaznam);
+                } else if (rejects != null) {
+                    rejects.reject(cislo, pozice, Chyba.of(vysledek), Chyba.offset(vysledek));
+                }
+            }
+            cislo++;
+            pozice = dalsiRadek(data, konec);
+        }
+        return cislo - prvniRadek;
+    }
+
+    /**
+     * Rozpoznání jednotlivých řádků mimo souvislý buffer, např. řádků čtených po jednom. Pro použití z jednoho
+     * vlákna.
+     */
+    Radek radek() {
+        return new Radek(null);
+    }
+
+    private static CsvImporter of(ByteBuffer data, int konecHlavicky) {
+        byte[] hlavicka = new byte[konecHlavicky - data.position()];
+        for (int i = 0; i < hlavicka.length; i++) {
+            hlavicka[i] = data.get(data.position() + i);
+        }
+        return new CsvImporter(new String(hlavicka, StandardCharsets.UTF_8));
+    }
+
+    private static int konecRadku(ByteBuffer data, int od) {
+        int limit = data.limit();
+        for (int i = od; i < limit; i++) {
+            if (data.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private static int dalsiRadek(ByteBuffer data, int konec) {
+        return (konec < data.limit()) ? konec + 1 : konec;
+    }
+
+    private static long pocetRadku(ByteBuffer data, int od, int limit) {
+        long radku = 0;
+        for (int i = od; i < limit; i++) {
+            if (data.get(i) == '\n') {
+                radku++;
+            }
+        }
+        return (limit > od && data.get(limit - 1) != '\n') ? radku + 1 : radku;
+    }
+
+    /**
+     * Rozpoznání jednoho řádku. Pozice sloupců a výsledný záznam se opakovaně používají.
+     */
+    final class Radek {
+
+        private ByteBuffer data;
+        private final int[] od = new int[NAZVY.length];
+        private final int[] konec = new int[NAZVY.length];
+        private final long[] skupiny = new long[3];
+        private final EetZaznam zaznam = new EetZaznam();
+
+        // Začátek rozpoznávaného řádku a převedená hodnota poslední položky
+        private int zacatek;
+        private long prevedeno;
+
+        Radek(ByteBuffer data) {
+            this.data = data;
+        }
+
+        /**
+         * Rozpozná řádek {@code [zacatek, obsah)} předaného bufferu a naplní záznam.
+         *
+         * @return 0, nebo výsledek s chybou a pozicí v řádku, viz {@link Chyba#of(int)}
+         */
+        int parse(ByteBuffer data, int zacatek, int obsah) {
+            this.data = data;
+            return parse(zacatek, obsah);
+        }
+
+        /**
+         * Záznam naplněný posledním úspěšně rozpoznaným řádkem.
+         */
+        EetZaznam getZaznam() {
+            return zaznam;
+        }
+
+        /**
+         * Rozpozná řádek {@code [zacatek, obsah)} a naplní záznam.
+         *
+         * @return 0, nebo výsledek s chybou a pozicí v řádku, viz {@link Chyba#of(int)}
+         */
+        int parse(int zacatek, int obsah) {
+            this.zacatek = zacatek;
+            for (int i = 0; i < NAZVY.length; i++) {
+                od[i] = -1;
+                konec[i] = -1;
+            }
+            int sloupec = 0;
+            int p = zacatek;
+            while (true) {
+                int fs = p;
+                int fe;
+                if (p < obsah && data.get(p) == '"') {
+                    fs = p + 1;
+                    fe = fs;
+                    while (fe < obsah && data.get(fe) != '"') {
+                        fe++;
+                    }
+                    p = fe;
+                    while (p < obsah && data.get(p) != oddelovac) {
+                        p++;
+                    }
+                } else {
+                    while (p < obsah && data.get(p) != oddelovac) {
+                        p++;
+                    }
+                    fe = p;
+                }
+                while (fs < fe && data.get(fs) == ' ') {
+                    fs++;
+                }
+                while (fe > fs && data.get(fe - 1) == ' ') {
+                    fe--;
+                }
+                if (sloupec < vyznam.length && vyznam[sloupec] >= 0 && fe > fs) {
+                    od[vyznam[sloupec]] = fs;
+                    konec[vyznam[sloupec]] = fe;
+                }
+                sloupec++;
+                if (p >= obsah) {
+                    break;
+                }
+                p++;
+            }
+
+            // KÓD, FIK má přednost před BKP
+            Kod.Typ typ;
+            long kodHi;
+            long kodLo;
+            int vysledek;
+            if (od[FIK] >= 0) {
+                typ = Kod.Typ.FIK;
+                vysledek = hex(od[FIK], konec[FIK], FIK_SKUPINY, 3, Chyba.FIK);
+            } else if (od[BKP] >= 0) {
+                typ = Kod.Typ.BKP;
+                vysledek = hex(od[BKP], konec[BKP], BKP_SKUPINY, 2, Chyba.BKP);
+            } else if (od[KOD] >= 0) {
+                typ = typ();
+                int k = od[KOD];
+                if (typ == null && od[TYP] >= 0) {
+                    return chyba(Chyba.TYP_KODU, od[TYP]);
+                }
+                if (konec[KOD] - k == 20 && cislice(k, konec[KOD])) {
+                    if (typ == null) {
+                        return chyba(Chyba.TYP_KODU, k);
+                    }
+                    vysledek = dekadicky(k, typ);
+                } else {
+                    if (typ == null) {
+                        typ = (konec[KOD] - k > 13 && data.get(k + 13) == '-') ? Kod.Typ.FIK : Kod.Typ.BKP;
+                    }
+                    vysledek = (typ == Kod.Typ.FIK) ? hex(k, konec[KOD], FIK_SKUPINY, 3, Chyba.FIK)
+                            : hex(k, konec[KOD], BKP_SKUPINY, 2, Chyba.BKP);
+                }
+            } else {
+                return chyba(Chyba.PRAZDNY, obsah);
+            }
+            if (vysledek != 0) {
+                return vysledek;
+            }
+            kodHi = skupiny[0];
+            kodLo = (typ == Kod.Typ.FIK) ? skupiny[1] * 100000L + skupiny[2] : skupiny[1];
+
+            // DIČ
+            Dic.Verze dicVerze = Dic.Verze.PRAZDNY;
+            long dic = 0;
+            if (od[DIC] >= 0) {
+                int d = od[DIC];
+                int e = konec[DIC];
+                if (e - d >= 2 && (data.get(d) | 0x20) == 'c' && (data.get(d + 1) | 0x20) == 'z') {
+                    d += 2;
+                }
+                int nenalezena = prvniNecislice(d, e);
+                if (nenalezena < e) {
+                    return chyba(Chyba.DIC, nenalezena);
+                }
+                int cislic = e - d;
+                if (cislic < 8 || cislic > 10) {
+                    return chyba(Chyba.DIC, e);
+                }
+                dicVerze = (cislic == 8) ? Dic.Verze.OSM_CISLIC
+                        : (cislic == 9) ? Dic.Verze.DEVET_CISLIC : Dic.Verze.DESET_CISLIC;
+                dic = cislo(d, e);
+            }
+
+            // ČÁSTKA
+            long castka = 0;
+            if (od[CASTKA] >= 0) {
+                vysledek = castka(od[CASTKA], konec[CASTKA]);
+                if (vysledek != 0) {
+                    return vysledek;
+                }
+                castka = prevedeno;
+            }
+
+            // DATUM
+            if (od[DATUM] < 0) {
+                return chyba(Chyba.SLOUPEC, obsah);
+            }
+            vysledek = datum(od[DATUM], konec[DATUM]);
+            if (vysledek != 0) {
+                return vysledek;
+            }
+            int minuta = (int) prevedeno;
+
+            // REŽIM
+            Rezim rezim = Rezim.BEZNY;
+            if (od[REZIM] >= 0) {
+                rezim = (konec[REZIM] - od[REZIM] == 1) ? Rezim.parse((char) data.get(od[REZIM])) : null;
+                if (rezim == null) {
+                    return chyba(Chyba.REZIM, od[REZIM]);
+                }
+            }
+
+            zaznam.set(typ, dicVerze, rezim, minuta, dic, kodHi, kodLo, castka);
+            return 0;
+        }
+
+        private Kod.Typ typ() {
+            if (od[TYP] < 0 || konec[TYP] - od[TYP] != 3) {
+                return null;
+            }
+            int a = data.get(od[TYP]) | 0x20;
+            int b = data.get(od[TYP] + 1) | 0x20;
+            int c = data.get(od[TYP] + 2) | 0x20;
+            if (a == 'f' && b == 'i' && c == 'k') {
+                return Kod.Typ.FIK;
+            }
+            if (a == 'b' && b == 'k' && c == 'p') {
+                return Kod.Typ.BKP;
+            }
+            return null;
+        }
+
+        /**
+         * Hexadecimální skupiny kódu oddělené pomlčkou, povinné jsou jen významné skupiny, ostatní všechny nebo
+         * žádná. Hodnoty významných skupin uloží do {@link #skupiny}.
+         */
+        private int hex(int od, int konec, int[] delky, int vyznamnych, Chyba chyba) {
+            int p = od;
+            for (int i = 0; i < delky.length; i++) {
+                if (i == vyznamnych && p - 1 == konec) {
+                    return 0;
+                }
+                if (i > 0) {
+                    if (p > konec) {
+                        return chyba(chyba, konec);
+                    }
+                    if (data.get(p - 1) != '-') {
+                        return chyba(chyba, p - 1);
+                    }
+                }
+                long hodnota = 0;
+                for (int j = p; j < p + delky[i]; j++) {
+                    if (j >= konec) {
+                        return chyba(chyba, konec);
+                    }
+                    int h = hexCislice(data.get(j));
+                    if (h < 0) {
+                        return chyba(chyba, j);
+                    }
+                    hodnota = hodnota << 4 | h;
+                }
+                if (i < vyznamnych) {
+                    skupiny[i] = hodnota;
+                }
+                p += delky[i] + 1;
+            }
+            return (p - 1 == konec) ? 0 : chyba(chyba, p - 1);
+        }
+
+        /**
+         * Kód jako 20 dekadických číslic, shodně se zakódovanou informací.
+         */
+        private int dekadicky(int od, Kod.Typ typ) {
+            skupiny[0] = cislo(od, od + 10);
+            if (skupiny[0] > 0xFFFFFFFFL) {
+                return chyba(Chyba.KOD, od);
+            }
+            if (typ == Kod.Typ.FIK) {
+                skupiny[1] = cislo(od + 10, od + 15);
+                skupiny[2] = cislo(od + 15, od + 20);
+                if (skupiny[1] > 0xFFFFL) {
+                    return chyba(Chyba.KOD, od + 10);
+                }
+                if (skupiny[2] > 0xFFFFL) {
+                    return chyba(Chyba.KOD, od + 15);
+                }
+            } else {
+                skupiny[1] = cislo(od + 10, od + 20);
+                if (skupiny[1] > 0xFFFFFFFFL) {
+                    return chyba(Chyba.KOD, od + 10);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Částka v haléřích do {@link #prevedeno}: nepovinné znaménko, celé koruny a nejvýše dvě desetinná místa.
+         */
+        private int castka(int od, int konec) {
+            int p = od;
+            boolean zaporna = false;
+            if (data.get(p) == '-' || data.get(p) == '+') {
+                zaporna = data.get(p) == '-';
+                p++;
+            }
+            long haleru = 0;
+            int vsech = 0;
+            int cislic = 0;
+            int desetinnych = -1;
+            for (; p < konec; p++) {
+                byte b = data.get(p);
+                if (b >= '0' && b <= '9') {
+                    vsech++;
+                    if (desetinnych >= 0 && ++desetinnych > 2) {
+                        return chyba(Chyba.CASTKA, p);
+                    }
+                    if (haleru != 0 || b != '0') {
+                        if (++cislic > CISLIC_CASTKY_MAX - 2) {
+                            return chyba(Chyba.CASTKA, p);
+                        }
+                    }
+                    haleru = haleru * 10 + (b - '0');
+                } else if ((b == '.' || b == ',' && oddelovac != ',') && desetinnych < 0) {
+                    desetinnych = 0;
+                } else {
+                    return chyba(Chyba.CASTKA, p);
+                }
+            }
+            if (vsech == 0) {
+                return chyba(Chyba.CASTKA, konec);
+            }
+            for (int i = Math.max(desetinnych, 0); i < 2; i++) {
+                haleru *= 10;
+            }
+            prevedeno = zaporna ? -haleru : haleru;
+            return 0;
+        }
+
+        /**
+         * Datum a čas {@code yyyy-MM-dd[T ]HH:mm[:ss]} v letech 2000-2099 jako minuta od 1970-01-01T00:00
+         * do {@link #prevedeno}.
+         */
+        private int datum(int od, int konec) {
+            int delka = konec - od;
+            if (delka != 16 && delka != 19) {
+                return chyba(Chyba.DATUM, Math.min(konec, od + 16));
+            }
+            byte t = data.get(od + 10);
+            if (data.get(od + 4) != '-' || data.get(od + 7) != '-' || t != 'T' && t != ' ' && t != 't'
+                    || data.get(od + 13) != ':' || delka == 19 && data.get(od + 16) != ':') {
+                return chyba(Chyba.DATUM, od);
+            }
+            int rok = dvojcisli(od, 4);
+            int mesic = dvojcisli(od + 5, 2);
+            int hodina = dvojcisli(od + 11, 2);
+            int minuta = dvojcisli(od + 14, 2);
+            int den = dvojcisli(od + 8, 2);
+            int sekunda = (delka == 19) ? dvojcisli(od + 17, 2) : 0;
+            // Zakódovaná informace nese rok dvojčíslím 20yy
+            if (rok < 2000 || rok > 2099) {
+                return chyba(Chyba.DATUM, od);
+            }
+            if (mesic < 1 || mesic > 12) {
+                return chyba(Chyba.DATUM, od + 5);
+            }
+            if (den < 1 || den > DateUtils.lengthOfMonth(rok, mesic)) {
+                return chyba(Chyba.DATUM, od + 8);
+            }
+            if (hodina < 0 || hodina > 23 || minuta < 0 || minuta > 59 || sekunda < 0 || sekunda > 59) {
+                return chyba(Chyba.DATUM, od + 11);
+            }
+            prevedeno = DateUtils.epochMinute(rok, mesic, den, hodina, minuta);
+            return 0;
+        }
+
+        /**
+         * Nezáporné číslo z předaného počtu dekadických číslic, -1 pokud některý znak není číslice.
+         */
+        private int dvojcisli(int od, int cislic) {
+            int hodnota = 0;
+            for (int i = od; i < od + cislic; i++) {
+                int c = data.get(i) - '0';
+                if (c < 0 || c > 9) {
+                    return -1;
+                }
+                hodnota = hodnota * 10 + c;
+            }
+            return hodnota;
+        }
+
+        private boolean cislice(int od, int konec) {
+            return prvniNecislice(od, konec) == konec;
+        }
+
+        private int prvniNecislice(int od, int konec) {
+            for (int i = od; i < konec; i++) {
+                byte b = data.get(i);
+                if (b < '0' || b > '9') {
+                    return i;
+                }
+            }
+            return konec;
+        }
+
+        private long cislo(int od, int konec) {
+            long hodnota = 0;
+            for (int i = od; i < konec; i++) {
+                hodnota = hodnota * 10 + (data.get(i) - '0');
+            }
+            return hodnota;
+        }
+
+        private int chyba(Chyba chyba, int pozice) {
+            return Chyba.vysledek(chyba, pozice - zacatek);
+        }
+    }
+
+    private static int hexCislice(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        int c = b | 0x20;
+        return (c >= 'a' && c <= 'f') ? c - 'a' + 10 : -1;
+    }
+
+}
@@ -0,0 +1,165 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+
+/**
+ * Dekódované účtenky ve sloupcích primitivních hodnot, jeden řádek sloupců na jeden řádek vstupu. Řádky, které se
+ * nepodařilo dekódovat, jsou označeny jako nevalidní ({@link #isValid(int)}).
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class DecodedColumns implements BulkDecoder.Handler {
+
+    private static final Kod.Typ[] TYPY = Kod.Typ.values();
+    private static final Dic.Verze[] VERZE_DIC = Dic.Verze.values();
+    private static final Rezim[] REZIMY = Rezim.values();
+
+    // Pořadí výčtové hodnoty + 1, 0 označuje nevalidní řádek
+    private final byte[] typ;
+    private final byte[] dicVerze;
+    private final byte[] rezim;
+    private final int[] minuta;
+    private final long[] dic;
+    private final long[] kodHi;
+    private final long[] kodLo;
+    private final long[] castka;
+
+    /**
+     * Konstruktor.
+     *
+     * @param size počet řádků
+     */
+    DecodedColumns(int size) {
+        this.typ = new byte[size];
+        this.dicVerze = new byte[size];
+        this.rezim = new byte[size];
+        this.minuta = new int[size];
+        this.dic = new long[size];
+        this.kodHi = new long[size];
+        this.kodLo = new long[size];
+        this.castka = new long[size];
+    }
+
+    @Override
+    public void accept(long radek, EetZaznam zaznam) {
+        int i = (int) radek;
+        typ[i] = (byte) (zaznam.getTyp().ordinal() + 1);
+        dicVerze[i] = (byte) zaznam.getDicVerze().ordinal();
+        rezim[i] = (byte) zaznam.getRezim().ordinal();
+        minuta[i] = zaznam.getMinuta();
+        dic[i] = zaznam.getDic();
+        kodHi[i] = zaznam.getKodHi();
+        kodLo[i] = zaznam.getKodLo();
+        castka[i] = zaznam.getCastka();
+    }
+
+    /**
+     * Počet řádků.
+     *
+     * @return počet řádků
+     */
+    public int size() {
+        return typ.length;
+    }
+
+    /**
+     * Vrací {@code true} pokud se řádek podařilo dekódovat.
+     *
+     * @param row řádek
+     * @return příznak validního řádku
+     */
+    public boolean isValid(int row) {
+        return typ[row] != 0;
+    }
+
+    /**
+     * Naplní předaný záznam položkami řádku.
+     *
+     * @param row validní řádek
+     * @param zaznam naplňovaný záznam
+     * @return předaný záznam
+     * @throws IllegalStateException řádek není validní
+     */
+    public EetZaznam get(int row, EetZaznam zaznam) {
+        if (!isValid(row)) {
+            throw new IllegalStateException("Řádek " + row + " nebyl dekódován.");
+        }
+        return zaznam.set(TYPY[typ[row] - 1], VERZE_DIC[dicVerze[row]], REZIMY[rezim[row]], minuta[row], dic[row],
+                kodHi[row], kodLo[row], castka[row]);
+    }
+
+    /**
+     * Verze DIČ poplatníka.
+     *
+     * @param row validní řádek
+     * @return {@link Dic.Verze}
+     */
+    public Dic.Verze getDicVerze(int row) {
+        return VERZE_DIC[dicVerze[row]];
+    }
+
+    /**
+     * Režim tržby.
+     *
+     * @param row validní řádek
+     * @return {@link Rezim}
+     */
+    public Rezim getRezim(int row) {
+        return REZIMY[rezim[row]];
+    }
+
+    /**
+     * Místní datum a čas transakce v minutách od 1970-01-01T00:00.
+     *
+     * @param row řádek
+     * @return datum a čas v minutách
+     */
+    public int getMinuta(int row) {
+        return minuta[row];
+    }
+
+    /**
+     * DIČ poplatníka jako číslo, pro prázdný DIČ vrací 0.
+     *
+     * @param row řádek
+     * @return číselná hodnota DIČ
+     */
+    public long getDic(int row) {
+        return dic[row];
+    }
+
+    /**
+     * Prvních 10 číslic kódu v dekadické soustavě.
+     *
+     * @param row řádek
+     * @return číslo o nejvýše 10 číslicích
+     */
+    public long getKodHi(int row) {
+        return kodHi[row];
+    }
+
+    /**
+     * Posledních 10 číslic kódu v dekadické soustavě.
+     *
+     * @param row řádek
+     * @return číslo o nejvýše 10 číslicích
+     */
+    public long getKodLo(int row) {
+        return kodLo[row];
+    }
+
+    /**
+     * Částka v haléřích.
+     *
+     * @param row řádek
+     * @return částka v haléřích
+     */
+    public long getCastka(int row) {
+        return castka[row];
+    }
+
+}
@@ -0,0 +1,118 @@
+package cz.mikropsoft.qreet.bulk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Zakódované informace o účtenkách uložené za sebou v jednom poli ASCII bajtů. Hranice jednotlivých účtenek určuje
+ * pole pozic: účtenka {@code i} leží v úseku {@code [offsets[i], offsets[i + 1])}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class PackedPayloads {
+
+    private final byte[] data;
+    private final int[] offsets;
+
+    /**
+     * Konstruktor.
+     *
+     * @param data zakódované účtenky za sebou
+     * @param offsets pozice začátků účtenek, o jeden prvek delší než počet účtenek
+     */
+    PackedPayloads(byte[] data, int[] offsets) {
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Počet účtenek.
+     *
+     * @return počet účtenek
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Pole se zakódovanými účtenkami, bez kopírování.
+     *
+     * @return ASCII bajty všech účtenek za sebou
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Pole pozic začátků účtenek, bez kopírování. Poslední prvek je celková délka dat.
+     *
+     * @return pozice začátků účtenek
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Pozice začátku účtenky.
+     *
+     * @param index pořadí účtenky
+     * @return pozice v {@link #getData()}
+     */
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Délka zakódované účtenky.
+     *
+     * @param index pořadí účtenky
+     * @return počet bajtů
+     */
+    public int getLength(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Zkopíruje zakódovanou účtenku do předaného pole znaků.
+     *
+     * @param index pořadí účtenky
+     * @param dst cílové pole
+     * @param offset pozice prvního znaku
+     * @return počet zapsaných znaků
+     */
+    public int copyTo(int index, char[] dst, int offset) {
+        int from = offsets[index];
+        int length = offsets[index + 1] - from;
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = (char) data[from + i];
+        }
+        return length;
+    }
+
+    /**
+     * Zakódovaná účtenka jako řetězec.
+     *
+     * @param index pořadí účtenky
+     * @return zakódovaná informace o účtence
+     */
+    public String getString(int index) {
+        return new String(data, offsets[index], getLength(index), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Zapíše všechny účtenky za sebou, bez oddělovačů, do předaného kanálu.
+     *
+     * @param channel cílový kanál
+     * @throws IOException chyba zápisu
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data, 0, offsets[offsets.length - 1]);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
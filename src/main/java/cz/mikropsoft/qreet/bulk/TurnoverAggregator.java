@@ -0,0 +1,467 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Rezim;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Obrat po skupinách DIČ, dne a režimu tržby: počet účtenek a přesný součet částek v haléřích, bez objektů pro
+ * skupiny a bez zaokrouhlení {@code double}. Skupiny jsou uloženy v hašovací tabulce s otevřeným adresováním nad poli
+ * {@code long}, klíčem je DIČ s verzí, den a režim složené do jednoho čísla.
+ * <p>
+ * Instance není vláknově bezpečná. Pro souběžné plnění slouží {@link Collector}, který plní několik částečných
+ * agregací a na konci je sloučí, případně {@link #aggregate(DecodedColumns, ForkJoinPool)}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class TurnoverAggregator {
+
+    /**
+     * Skupina účtenek předávaná při procházení výsledků.
+     */
+    public interface Skupina {
+
+        /**
+         * Obrat jedné skupiny.
+         *
+         * @param dicVerze verze DIČ poplatníka
+         * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+         * @param den den transakce ve dnech od 1970-01-01, viz {@link java.time.LocalDate#ofEpochDay(long)}
+         * @param rezim režim tržby
+         * @param pocet počet účtenek
+         * @param castka součet částek v haléřích
+         */
+        void accept(Dic.Verze dicVerze, long dic, int den, Rezim rezim, long pocet, long castka);
+    }
+
+    private static final Dic.Verze[] VERZE_DIC = Dic.Verze.values();
+    private static final Rezim[] REZIMY = Rezim.values();
+
+    private static final long MINUT_DNE = 24 * 60;
+
+    // Klíč: značka obsazeného místa | DIČ (34 bitů) | verze DIČ (2) | den (24) | režim (1)
+    private static final long OBSAZENO = 1L << 61;
+    private static final int POSUN_DIC = 27;
+    private static final int POSUN_VERZE = 25;
+    private static final int POSUN_DNE = 1;
+    private static final long MAX_DIC = (1L << 34) - 1;
+    private static final int MAX_DEN = (1 << 24) - 1;
+
+    // Nejvyšší počet míst tabulky
+    private static final int MAX_MIST = 1 << 30;
+
+    // Počet řádků sloupců, které se v paralelní agregaci dále nedělí
+    private static final int DAVKA = 1 << 16;
+
+    private long[] klice;
+    private long[] pocty;
+    private long[] castky;
+    private int posun;
+    private int skupin;
+
+    /**
+     * Prázdná agregace.
+     */
+    public TurnoverAggregator() {
+        this(64);
+    }
+
+    /**
+     * Prázdná agregace s předaným očekávaným počtem skupin.
+     *
+     * @param ocekavano očekávaný počet skupin, tabulka se podle potřeby zvětšuje
+     */
+    public TurnoverAggregator(int ocekavano) {
+        if (ocekavano < 0) {
+            throw new IllegalArgumentException("Očekávaný počet skupin nesmí být záporný.");
+        }
+        alokovat(mist(ocekavano));
+    }
+
+    /**
+     * Počet míst pro předaný počet skupin při zaplnění nejvýše 3/4.
+     */
+    private static int mist(long skupin) {
+        long mist = Math.max(16, skupin + skupin / 3 + 1);
+        if (mist > MAX_MIST) {
+            return MAX_MIST;
+        }
+        return Integer.highestOneBit((int) mist - 1) << 1;
+    }
+
+    private void alokovat(int mist) {
+        this.klice = new long[mist];
+        this.pocty = new long[mist];
+        this.castky = new long[mist];
+        this.posun = 64 - Integer.numberOfTrailingZeros(mist);
+    }
+
+    /**
+     * Paralelní agregace dekódovaných sloupců. Nevalidní řádky se přeskakují.
+     *
+     * @param columns dekódované účtenky
+     * @param pool {@link ForkJoinPool} pro agregaci
+     * @return sloučená agregace
+     */
+    public static TurnoverAggregator aggregate(DecodedColumns columns, ForkJoinPool pool) {
+        if (columns == null || pool == null) {
+            throw new IllegalArgumentException("Sloupce a ForkJoinPool musí být předány.");
+        }
+        return pool.invoke(new AddTask(columns, 0, columns.size()));
+    }
+
+    /**
+     * Přičte dekódovanou účtenku.
+     *
+     * @param zaznam naplněný {@link EetZaznam}
+     * @return tato agregace
+     */
+    public TurnoverAggregator add(EetZaznam zaznam) {
+        return add(zaznam.getDicVerze(), zaznam.getDic(), zaznam.getMinuta(), zaznam.getRezim(), zaznam.getCastka());
+    }
+
+    /**
+     * Přičte jednu účtenku.
+     *
+     * @param dicVerze verze DIČ poplatníka
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param minuta místní datum a čas transakce v minutách od 1970-01-01T00:00
+     * @param rezim režim tržby
+     * @param castka částka v haléřích
+     * @return tato agregace
+     * @throws ArithmeticException součet částek skupiny přetekl
+     */
+    public TurnoverAggregator add(Dic.Verze dicVerze, long dic, int minuta, Rezim rezim, long castka) {
+        if (minuta < 0) {
+            throw new IllegalArgumentException("Datum transakce musí být po 1970-01-01: " + minuta);
+        }
+        int misto = misto(klic(dicVerze, dic, (int) (minuta / MINUT_DNE), rezim));
+        // Součet se ověří dřív, než se skupina změní, přetečení ji ponechá beze změny
+        long soucet = Math.addExact(castky[misto], castka);
+        pocty[misto]++;
+        castky[misto] = soucet;
+        return this;
+    }
+
+    /**
+     * Přičte validní řádky dekódovaných sloupců.
+     *
+     * @param columns dekódované účtenky
+     * @return tato agregace
+     */
+    public TurnoverAggregator addAll(DecodedColumns columns) {
+        return addAll(columns, 0, columns.size());
+    }
+
+    /**
+     * Přičte validní řádky dekódovaných sloupců z předaného rozsahu.
+     *
+     * @param columns dekódované účtenky
+     * @param from první řádek
+     * @param to řádek za posledním
+     * @return tato agregace
+     */
+    public TurnoverAggregator addAll(DecodedColumns columns, int from, int to) {
+        for (int row = from; row < to; row++) {
+            if (columns.isValid(row)) {
+                add(columns.getDicVerze(row), columns.getDic(row), columns.getMinuta(row), columns.getRezim(row),
+                        columns.getCastka(row));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Přičte všechny skupiny předané agregace.
+     *
+     * @param other jiná agregace, nemění se
+     * @return tato agregace
+     * @throws ArithmeticException součet částek skupiny přetekl
+     */
+    public TurnoverAggregator merge(TurnoverAggregator other) {
+        long[] k = other.klice;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                int misto = misto(k[i]);
+                long soucet = Math.addExact(castky[misto], other.castky[i]);
+                pocty[misto] += other.pocty[i];
+                castky[misto] = soucet;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Počet skupin.
+     *
+     * @return počet skupin
+     */
+    public int size() {
+        return skupin;
+    }
+
+    /**
+     * Počet účtenek skupiny.
+     *
+     * @param dicVerze verze DIČ poplatníka
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param den den transakce ve dnech od 1970-01-01
+     * @param rezim režim tržby
+     * @return počet účtenek, 0 pokud skupina neexistuje
+     */
+    public long getPocet(Dic.Verze dicVerze, long dic, int den, Rezim rezim) {
+        int misto = najit(klic(dicVerze, dic, den, rezim));
+        return (misto < 0) ? 0 : pocty[misto];
+    }
+
+    /**
+     * Součet částek skupiny.
+     *
+     * @param dicVerze verze DIČ poplatníka
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param den den transakce ve dnech od 1970-01-01
+     * @param rezim režim tržby
+     * @return součet částek v haléřích, 0 pokud skupina neexistuje
+     */
+    public long getCastka(Dic.Verze dicVerze, long dic, int den, Rezim rezim) {
+        int misto = najit(klic(dicVerze, dic, den, rezim));
+        return (misto < 0) ? 0 : castky[misto];
+    }
+
+    /**
+     * Počet účtenek všech skupin.
+     *
+     * @return počet účtenek
+     */
+    public long getPocet() {
+        long pocet = 0;
+        for (long p : pocty) {
+            pocet += p;
+        }
+        return pocet;
+    }
+
+    /**
+     * Součet částek všech skupin.
+     *
+     * @return součet částek v haléřích
+     * @throws ArithmeticException součet přetekl
+     */
+    public long getCastka() {
+        long castka = 0;
+        for (long c : castky) {
+            castka = Math.addExact(castka, c);
+        }
+        return castka;
+    }
+
+    /**
+     * Projde skupiny seřazené podle DIČ (nejdříve prázdný DIČ), dne a režimu tržby.
+     *
+     * @param skupina příjemce skupin
+     */
+    public void forEach(Skupina skupina) {
+        long[] serazene = new long[skupin];
+        int n = 0;
+        for (long klic : klice) {
+            if (klic != 0) {
+                serazene[n++] = klic;
+            }
+        }
+        Arrays.sort(serazene);
+        for (long klic : serazene) {
+            int misto = najit(klic);
+            skupina.accept(VERZE_DIC[(int) (klic >>> POSUN_VERZE & 3)], klic >>> POSUN_DIC & MAX_DIC,
+                    (int) (klic >>> POSUN_DNE & MAX_DEN), REZIMY[(int) (klic & 1)], pocty[misto], castky[misto]);
+        }
+    }
+
+    private static long klic(Dic.Verze dicVerze, long dic, int den, Rezim rezim) {
+        if (dicVerze == null || rezim == null) {
+            throw new IllegalArgumentException("Verze DIČ a režim tržby musí být předány.");
+        }
+        if (dic < 0 || dic > MAX_DIC || den < 0 || den > MAX_DEN) {
+            throw new IllegalArgumentException("DIČ nebo den transakce je mimo rozsah: " + dic + ", " + den);
+        }
+        return OBSAZENO | dic << POSUN_DIC | (long) dicVerze.ordinal() << POSUN_VERZE | (long) den << POSUN_DNE
+                | rezim.ordinal();
+    }
+
+    /**
+     * Místo klíče v tabulce, pokud klíč chybí, založí jej.
+     */
+    private int misto(long klic) {
+        int maska = klice.length - 1;
+        int i = (int) (klic * 0x9E3779B97F4A7C15L >>> posun);
+        while (true) {
+            long k = klice[i];
+            if (k == klic) {
+                return i;
+            }
+            if (k == 0) {
+                if (skupin >= klice.length - (klice.length >>> 2)) {
+                    zvetsit();
+                    return misto(klic);
+                }
+                klice[i] = klic;
+                skupin++;
+                return i;
+            }
+            i = (i + 1) & maska;
+        }
+    }
+
+    /**
+     * Místo klíče v tabulce, nebo -1 pokud klíč chybí.
+     */
+    private int najit(long klic) {
+        int maska = klice.length - 1;
+        int i = (int) (klic * 0x9E3779B97F4A7C15L >>> posun);
+        while (true) {
+            long k = klice[i];
+            if (k == klic) {
+                return i;
+            }
+            if (k == 0) {
+                return -1;
+            }
+            i = (i + 1) & maska;
+        }
+    }
+
+    private void zvetsit() {
+        if (klice.length >= MAX_MIST) {
+            throw new IllegalStateException("Počet skupin překročil kapacitu tabulky.");
+        }
+        long[] k = klice;
+        long[] p = pocty;
+        long[] c = castky;
+        alokovat(k.length << 1);
+        int maska = klice.length - 1;
+        for (int j = 0; j < k.length; j++) {
+            if (k[j] != 0) {
+                int i = (int) (k[j] * 0x9E3779B97F4A7C15L >>> posun);
+                while (klice[i] != 0) {
+                    i = (i + 1) & maska;
+                }
+                klice[i] = k[j];
+                pocty[i] = p[j];
+                castky[i] = c[j];
+            }
+        }
+    }
+
+    /**
+     * Souběžné plnění, např. z {@link BulkDecoder#decode}. Účtenky se přičítají do pruhů s vlastním zámkem, pruh se
+     * vybírá podle vlákna, takže se vlákna o zámek přetahují jen výjimečně. Částečné agregace patří kolektoru a
+     * {@link #result()} je po dokončení plnění sloučí. Kolektor je jednorázový, po {@link #result()} další plnění
+     * selže.
+     */
+    public static final class Collector implements BulkDecoder.Handler {
+
+        private final Object[] zamky;
+        private final TurnoverAggregator[] castecne;
+        private volatile boolean uzavreno;
+
+        /**
+         * Kolektor s počtem pruhů podle počtu procesorů.
+         */
+        public Collector() {
+            int pruhu = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+            this.zamky = new Object[pruhu];
+            this.castecne = new TurnoverAggregator[pruhu];
+            for (int i = 0; i < pruhu; i++) {
+                zamky[i] = new Object();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws IllegalStateException kolektor už byl uzavřen metodou {@link #result()}
+         */
+        @Override
+        public void accept(long radek, EetZaznam zaznam) {
+            int pruh = (int) Thread.currentThread().getId() & (zamky.length - 1);
+            synchronized (zamky[pruh]) {
+                if (uzavreno) {
+                    throw new IllegalStateException("Kolektor už byl uzavřen, účtenku nelze přičíst.");
+                }
+                TurnoverAggregator aggregator = castecne[pruh];
+                if (aggregator == null) {
+                    aggregator = new TurnoverAggregator();
+                    castecne[pruh] = aggregator;
+                }
+                aggregator.add(zaznam);
+            }
+        }
+
+        /**
+         * Sloučí částečné agregace do největší z nich a kolektor uzavře. Volá se jednou, po dokončení plnění.
+         *
+         * @return sloučená agregace
+         * @throws IllegalStateException kolektor už byl uzavřen
+         */
+        public TurnoverAggregator result() {
+            synchronized (zamky[0]) {
+                if (uzavreno) {
+                    throw new IllegalStateException("Kolektor už byl uzavřen.");
+                }
+                uzavreno = true;
+            }
+            TurnoverAggregator vysledek = null;
+            for (int i = 0; i < zamky.length; i++) {
+                TurnoverAggregator aggregator;
+                synchronized (zamky[i]) {
+                    aggregator = castecne[i];
+                    castecne[i] = null;
+                }
+                if (aggregator != null) {
+                    vysledek = (vysledek == null) ? aggregator : sloucit(vysledek, aggregator);
+                }
+            }
+            return (vysledek != null) ? vysledek : new TurnoverAggregator();
+        }
+    }
+
+    /**
+     * Sloučí menší agregaci do větší.
+     */
+    private static TurnoverAggregator sloucit(TurnoverAggregator a, TurnoverAggregator b) {
+        return (a.size() >= b.size()) ? a.merge(b) : b.merge(a);
+    }
+
+    /**
+     * Agregace rozsahu řádků sloupců, dělená na dávky. Každá dávka plní vlastní agregaci, výsledky se slučují při
+     * spojování úloh.
+     */
+    private static final class AddTask extends RecursiveTask<TurnoverAggregator> {
+
+        private final DecodedColumns columns;
+        private final int from;
+        private final int to;
+
+        AddTask(DecodedColumns columns, int from, int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TurnoverAggregator compute() {
+            if (to - from <= DAVKA) {
+                return new TurnoverAggregator().addAll(columns, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            AddTask left = new AddTask(columns, from, mid);
+            left.fork();
+            TurnoverAggregator right = new AddTask(columns, mid, to).compute();
+            return sloucit(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package cz.mikropsoft.qreet.dedup;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pravděpodobnostní rozpoznání duplicit Bloomovým filtrem s pevnou velikostí paměti. Dosud nepřidaná účtenka může
+ * být s pravděpodobností {@link #getFalsePositiveRate()} chybně vyhodnocena jako duplicita, přidaná účtenka se však
+ * jako nová nevyhodnotí nikdy.
+ * <p>
+ * Bity se nastavují bez zámků (compare-and-set). Pokud stejnou účtenku přidávají souběžně dvě vlákna, mohou ji obě
+ * vyhodnotit jako novou; pro přesné počítání v takovém případě slouží {@link ExactDeduplicator}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class BloomDeduplicator implements Deduplicator {
+
+    // Nejvyšší počet slov filtru
+    private static final int MAX_SLOV = 1 << 30;
+
+    private final AtomicLongArray slova;
+    private final long maska;
+    private final int hashu;
+
+    private final LongAdder nastavenych = new LongAdder();
+    private final LongAdder pridanych = new LongAdder();
+
+    /**
+     * Filtr s předanou velikostí paměti a počtem hašovacích funkcí.
+     *
+     * @param maxBytes velikost paměti v bajtech, zaokrouhlí se dolů na mocninu dvou, nejméně 8
+     * @param hashu počet hašovacích funkcí 1-32
+     */
+    public BloomDeduplicator(long maxBytes, int hashu) {
+        if (maxBytes < 8) {
+            throw new IllegalArgumentException("Velikost paměti filtru musí být alespoň 8 bajtů.");
+        }
+        if (hashu < 1 || hashu > 32) {
+            throw new IllegalArgumentException("Počet hašovacích funkcí musí být v rozsahu 1-32.");
+        }
+        long slov = Math.min(MAX_SLOV, Long.highestOneBit(maxBytes / 8));
+        this.slova = new AtomicLongArray((int) slov);
+        this.maska = slov * 64 - 1;
+        this.hashu = hashu;
+    }
+
+    /**
+     * Filtr dimenzovaný pro předaný počet účtenek a požadovanou pravděpodobnost chybně ohlášené duplicity.
+     *
+     * @param ocekavano očekávaný počet účtenek
+     * @param chybovost pravděpodobnost chybně ohlášené duplicity při naplnění, v rozsahu (0, 1)
+     * @return {@link BloomDeduplicator}
+     */
+    public static BloomDeduplicator forCapacity(long ocekavano, double chybovost) {
+        if (ocekavano < 1) {
+            throw new IllegalArgumentException("Očekávaný počet účtenek musí být kladný.");
+        }
+        if (!(chybovost > 0 && chybovost < 1)) {
+            throw new IllegalArgumentException("Chybovost musí ležet v rozsahu (0, 1).");
+        }
+        // m = -n ln p / (ln 2)^2, zaokrouhleno nahoru na mocninu dvou a omezeno největším filtrem;
+        // k se odvozuje až ze skutečné velikosti, jinak by u omezeného filtru vyšlo příliš velké
+        double bitu = -ocekavano * Math.log(chybovost) / (Math.log(2) * Math.log(2));
+        long bajtu = Math.max(8, Math.min(MAX_SLOV * 8L, (long) Math.ceil(bitu / 8)));
+        bajtu = Long.highestOneBit(bajtu - 1) << 1;
+        int hashu = (int) Math.max(1, Math.min(32, Math.round(bajtu * 8d / ocekavano * Math.log(2))));
+        return new BloomDeduplicator(bajtu, hashu);
+    }
+
+    @Override
+    public boolean add(long hi, long lo) {
+        long h1 = Snapshot.mix(hi, lo);
+        long h2 = Snapshot.mix(lo, hi) | 1;
+        boolean novy = false;
+        for (int i = 0; i < hashu; i++) {
+            long bit = (h1 + i * h2) & maska;
+            int slovo = (int) (bit >>> 6);
+            long hodnota = 1L << bit;
+            long stara = slova.get(slovo);
+            while ((stara & hodnota) == 0) {
+                if (slova.compareAndSet(slovo, stara, stara | hodnota)) {
+                    nastavenych.increment();
+                    novy = true;
+                    break;
+                }
+                stara = slova.get(slovo);
+            }
+        }
+        if (novy) {
+            pridanych.increment();
+        }
+        return novy;
+    }
+
+    @Override
+    public boolean contains(long hi, long lo) {
+        long h1 = Snapshot.mix(hi, lo);
+        long h2 = Snapshot.mix(lo, hi) | 1;
+        for (int i = 0; i < hashu; i++) {
+            long bit = (h1 + i * h2) & maska;
+            if ((slova.get((int) (bit >>> 6)) & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return pridanych.sum();
+    }
+
+    /**
+     * Odhad z podílu nastavených bitů {@code (nastavených / všech) ^ hashů}.
+     *
+     * @return pravděpodobnost chybně ohlášené duplicity
+     */
+    @Override
+    public double getFalsePositiveRate() {
+        return Math.pow((double) nastavenych.sum() / (maska + 1), hashu);
+    }
+
+    /**
+     * Velikost paměti filtru v bajtech.
+     *
+     * @return velikost paměti
+     */
+    public long getBytes() {
+        return slova.length() * 8L;
+    }
+
+    /**
+     * Počet hašovacích funkcí.
+     *
+     * @return počet hašovacích funkcí
+     */
+    public int getHashu() {
+        return hashu;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(Snapshot.MAGIC);
+        data.writeByte(Snapshot.VERZE);
+        data.writeByte(Snapshot.BLOOM);
+        data.writeInt(slova.length());
+        data.writeByte(hashu);
+        data.writeLong(pridanych.sum());
+        for (int i = 0; i < slova.length(); i++) {
+            data.writeLong(slova.get(i));
+        }
+        data.flush();
+    }
+
+    /**
+     * Načte obsah zapsaný za hlavičkou.
+     *
+     * @param data vstup za hlavičkou
+     * @return {@link BloomDeduplicator}
+     * @throws IOException chyba čtení
+     */
+    static BloomDeduplicator read(DataInputStream data) throws IOException {
+        int slov = data.readInt();
+        int hashu = data.readUnsignedByte();
+        if (slov < 1 || slov > MAX_SLOV || Integer.bitCount(slov) != 1 || hashu < 1 || hashu > 32) {
+            throw new IOException("Neplatná velikost filtru: " + slov + " slov, " + hashu + " hashů.");
+        }
+        BloomDeduplicator deduplicator = new BloomDeduplicator(slov * 8L, hashu);
+        deduplicator.pridanych.add(data.readLong());
+        long nastavenych = 0;
+        for (int i = 0; i < slov; i++) {
+            long slovo = data.readLong();
+            deduplicator.slova.set(i, slovo);
+            nastavenych += Long.bitCount(slovo);
+        }
+        deduplicator.nastavenych.add(nastavenych);
+        return deduplicator;
+    }
+
+    @Override
+    public String toString() {
+        return "BloomDeduplicator{" +
+                "size=" + size() +
+                ", bytes=" + getBytes() +
+                ", hashu=" + hashu +
+                ", falsePositiveRate=" + getFalsePositiveRate() +
+                '}';
+    }
+
+}
@@ -0,0 +1,146 @@
+package cz.mikropsoft.qreet.dedup;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import cz.mikropsoft.qreet.utils.DateUtils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Rozpoznání opakovaně načtené účtenky, např. při příjmu účtenek do loterie. Účtenka se identifikuje 128bitovým
+ * klíčem z významných bitů kódu FIK nebo BKP, typu kódu, DIČ a data a času transakce. Částka ani režim tržby
+ * součástí klíče nejsou.
+ * <p>
+ * Implementace jsou bezpečné pro souběžné přidávání z více vláken a lze je uložit ({@link #writeTo(OutputStream)})
+ * a znovu načíst ({@link #readFrom(InputStream)}).
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public interface Deduplicator {
+
+    /**
+     * Přidá účtenku s předaným klíčem.
+     *
+     * @param hi horní polovina klíče, viz {@link #klicHi(Kod.Typ, long, long)}
+     * @param lo dolní polovina klíče, viz {@link #klicLo(Kod.Typ, Dic.Verze, long, int)}
+     * @return {@code true} pokud účtenka dosud přidána nebyla, {@code false} pro duplicitu
+     */
+    boolean add(long hi, long lo);
+
+    /**
+     * Vrací {@code true} pokud již byla účtenka s předaným klíčem přidána.
+     *
+     * @param hi horní polovina klíče
+     * @param lo dolní polovina klíče
+     * @return příznak přidané účtenky
+     */
+    boolean contains(long hi, long lo);
+
+    /**
+     * Přidá naplněný záznam účtenky.
+     *
+     * @param zaznam naplněný {@link EetZaznam}
+     * @return {@code true} pokud účtenka dosud přidána nebyla, {@code false} pro duplicitu
+     */
+    default boolean add(EetZaznam zaznam) {
+        return add(klicHi(zaznam.getTyp(), zaznam.getKodHi(), zaznam.getKodLo()),
+                klicLo(zaznam.getTyp(), zaznam.getDicVerze(), zaznam.getDic(), zaznam.getMinuta()));
+    }
+
+    /**
+     * Přidá účtenku.
+     *
+     * @param uctenka {@link Uctenka}
+     * @return {@code true} pokud účtenka dosud přidána nebyla, {@code false} pro duplicitu
+     */
+    default boolean add(Uctenka uctenka) {
+        Kod kod = uctenka.getKod();
+        Dic dic = uctenka.getDic();
+        return add(kod.getBits(), klicLo(kod.getTyp(), dic.getVerze(), dic.getCislo(), uctenka.getMinuta()));
+    }
+
+    /**
+     * Počet přidaných různých účtenek. Pravděpodobnostní implementace vrací počet přidání, která nebyla
+     * vyhodnocena jako duplicita.
+     *
+     * @return počet účtenek
+     */
+    long size();
+
+    /**
+     * Pravděpodobnost, že dosud nepřidaná účtenka bude vyhodnocena jako duplicita, při současném naplnění.
+     *
+     * @return 0 pro přesnou implementaci, jinak odhad v rozsahu 0-1
+     */
+    double getFalsePositiveRate();
+
+    /**
+     * Zapíše obsah do předaného výstupu. Zápis probíhající souběžně s přidáváním zachytí každou účtenku přidanou
+     * před jeho zahájením, účtenky přidané během zápisu zachytit nemusí.
+     *
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * Načte obsah zapsaný metodou {@link #writeTo(OutputStream)}.
+     *
+     * @param in vstup, nezavírá se
+     * @return {@link Deduplicator} stejného druhu, jaký byl zapsán
+     * @throws IOException chyba čtení nebo neznámý formát
+     */
+    static Deduplicator readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != Snapshot.MAGIC) {
+            throw new IOException("Vstup neobsahuje uložený Deduplicator.");
+        }
+        int verze = data.readUnsignedByte();
+        if (verze != Snapshot.VERZE) {
+            throw new IOException("Nepodporovaná verze uloženého Deduplicator: " + verze);
+        }
+        int druh = data.readUnsignedByte();
+        switch (druh) {
+            case Snapshot.PRESNY:
+                return ExactDeduplicator.read(data);
+            case Snapshot.BLOOM:
+                return BloomDeduplicator.read(data);
+            default:
+                throw new IOException("Neznámý druh uloženého Deduplicator: " + druh);
+        }
+    }
+
+    /**
+     * Horní polovina klíče, 64 významných bitů kódu.
+     *
+     * @param typ typ kódu
+     * @param kodHi prvních 10 číslic kódu v dekadické soustavě
+     * @param kodLo posledních 10 číslic kódu v dekadické soustavě
+     * @return horní polovina klíče
+     */
+    static long klicHi(Kod.Typ typ, long kodHi, long kodLo) {
+        return Kod.bits(typ, kodHi, kodLo);
+    }
+
+    /**
+     * Dolní polovina klíče: DIČ (34 bitů), verze DIČ (3 bity), typ kódu (1 bit) a minuta transakce od počátku roku
+     * 2000 (26 bitů). Datum a čas se posune do let 2000-2099 se shodným zápisem {@code yyMMddHHmm}, klíč tak
+     * odpovídá zakódované informaci o účtence. Dolní polovina klíče není nikdy 0.
+     *
+     * @param typ typ kódu
+     * @param dicVerze verze DIČ poplatníka
+     * @param dic DIČ poplatníka jako číslo
+     * @param minuta místní datum a čas transakce v minutách od 1970-01-01T00:00
+     * @return dolní polovina klíče
+     */
+    static long klicLo(Kod.Typ typ, Dic.Verze dicVerze, long dic, int minuta) {
+        long od2000 = DateUtils.normalize(minuta) - DateUtils.MINUTA_2000;
+        return dic | (long) (dicVerze.ordinal() + 1) << 34 | (long) typ.ordinal() << 37 | od2000 << 38;
+    }
+}
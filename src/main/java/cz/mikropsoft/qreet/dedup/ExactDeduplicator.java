@@ -0,0 +1,247 @@
+package cz.mikropsoft.qreet.dedup;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Přesné rozpoznání duplicit. Klíče jsou uloženy v hašovací tabulce s otevřeným adresováním nad polem
+ * {@code long}, bez objektů pro jednotlivé účtenky, tj. 16 bajtů na místo a nejvýše 32 bajtů na účtenku.
+ * <p>
+ * Tabulka je rozdělena na segmenty s vlastním zámkem, souběžné přidávání do různých segmentů se neblokuje.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class ExactDeduplicator implements Deduplicator {
+
+    // Nejvyšší počet míst segmentu, dvě položky pole na místo
+    private static final int MAX_MIST = 1 << 29;
+
+    private final Segment[] segmenty;
+    private final int posun;
+
+    /**
+     * Prázdný deduplikátor se 64 segmenty.
+     */
+    public ExactDeduplicator() {
+        this(1024, 64);
+    }
+
+    /**
+     * Prázdný deduplikátor s předaným očekávaným počtem účtenek a počtem segmentů.
+     *
+     * @param ocekavano očekávaný počet účtenek, tabulka se podle potřeby zvětšuje
+     * @param segmentu počet segmentů, zaokrouhlí se nahoru na mocninu dvou
+     */
+    public ExactDeduplicator(long ocekavano, int segmentu) {
+        if (ocekavano < 0) {
+            throw new IllegalArgumentException("Očekávaný počet účtenek nesmí být záporný.");
+        }
+        if (segmentu < 1 || segmentu > (1 << 16)) {
+            throw new IllegalArgumentException("Počet segmentů musí být v rozsahu 1-65536.");
+        }
+        int pocet = (segmentu == 1) ? 1 : Integer.highestOneBit(segmentu - 1) << 1;
+        this.segmenty = new Segment[pocet];
+        this.posun = 64 - Integer.numberOfTrailingZeros(pocet);
+        long naSegment = ocekavano / pocet + 1;
+        for (int i = 0; i < pocet; i++) {
+            segmenty[i] = new Segment(mist(naSegment));
+        }
+    }
+
+    /**
+     * Počet míst pro předaný počet klíčů při zaplnění nejvýše 3/4.
+     */
+    private static int mist(long klicu) {
+        long mist = Math.max(16, klicu + klicu / 3 + 1);
+        if (mist > MAX_MIST) {
+            return MAX_MIST;
+        }
+        return Integer.highestOneBit((int) mist - 1) << 1;
+    }
+
+    @Override
+    public boolean add(long hi, long lo) {
+        long h = Snapshot.mix(hi, lo);
+        return segment(h).add(hi, lo, (int) h);
+    }
+
+    @Override
+    public boolean contains(long hi, long lo) {
+        long h = Snapshot.mix(hi, lo);
+        return segment(h).contains(hi, lo, (int) h);
+    }
+
+    private Segment segment(long h) {
+        // Horní bity vybírají segment, dolní místo v segmentu
+        return posun == 64 ? segmenty[0] : segmenty[(int) (h >>> posun)];
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segmenty) {
+            synchronized (segment) {
+                size += segment.pocet;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Přesná implementace duplicitu nikdy neohlásí chybně.
+     *
+     * @return 0
+     */
+    @Override
+    public double getFalsePositiveRate() {
+        return 0;
+    }
+
+    /**
+     * Obsazená paměť tabulek v bajtech.
+     *
+     * @return obsazená paměť
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segmenty) {
+            synchronized (segment) {
+                bytes += segment.tabulka.length * 8L;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(Snapshot.MAGIC);
+        data.writeByte(Snapshot.VERZE);
+        data.writeByte(Snapshot.PRESNY);
+        data.writeInt(segmenty.length);
+        for (Segment segment : segmenty) {
+            // Segment se zapisuje celý pod svým zámkem, ostatní segmenty se mezitím plní dál
+            synchronized (segment) {
+                data.writeInt(segment.pocet);
+                long[] tabulka = segment.tabulka;
+                for (int i = 0; i < tabulka.length; i += 2) {
+                    if (tabulka[i + 1] != 0) {
+                        data.writeLong(tabulka[i]);
+                        data.writeLong(tabulka[i + 1]);
+                    }
+                }
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Načte obsah zapsaný za hlavičkou.
+     *
+     * @param data vstup za hlavičkou
+     * @return {@link ExactDeduplicator}
+     * @throws IOException chyba čtení
+     */
+    static ExactDeduplicator read(DataInputStream data) throws IOException {
+        int pocet = data.readInt();
+        if (pocet < 1 || pocet > (1 << 16) || Integer.bitCount(pocet) != 1) {
+            throw new IOException("Neplatný počet segmentů: " + pocet);
+        }
+        ExactDeduplicator deduplicator = new ExactDeduplicator(0, pocet);
+        for (int i = 0; i < pocet; i++) {
+            int klicu = data.readInt();
+            if (klicu < 0) {
+                throw new IOException("Neplatný počet klíčů segmentu: " + klicu);
+            }
+            for (int k = 0; k < klicu; k++) {
+                deduplicator.add(data.readLong(), data.readLong());
+            }
+        }
+        return deduplicator;
+    }
+
+    @Override
+    public String toString() {
+        return "ExactDeduplicator{" +
+                "size=" + size() +
+                ", bytes=" + getBytes() +
+                '}';
+    }
+
+    /**
+     * Segment tabulky s vlastním zámkem. Místo {@code i} zabírá položky {@code 2i} (horní polovina klíče) a
+     * {@code 2i + 1} (dolní polovina klíče, 0 pro volné místo).
+     */
+    private static final class Segment {
+
+        private long[] tabulka;
+        private int maska;
+        private int pocet;
+
+        Segment(int mist) {
+            this.tabulka = new long[mist * 2];
+            this.maska = mist - 1;
+        }
+
+        synchronized boolean add(long hi, long lo, int h) {
+            int i = najit(tabulka, maska, hi, lo, h);
+            if (tabulka[i + 1] != 0) {
+                return false;
+            }
+            tabulka[i] = hi;
+            tabulka[i + 1] = lo;
+            if (++pocet > (maska + 1) - ((maska + 1) >>> 2)) {
+                zvetsit();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(long hi, long lo, int h) {
+            return tabulka[najit(tabulka, maska, hi, lo, h) + 1] != 0;
+        }
+
+        /**
+         * Pozice místa s předaným klíčem, nebo prvního volného místa (lineární zkoušení).
+         */
+        private static int najit(long[] tabulka, int maska, long hi, long lo, int h) {
+            int slot = h & maska;
+            while (true) {
+                int i = slot << 1;
+                long l = tabulka[i + 1];
+                if (l == 0 || (l == lo && tabulka[i] == hi)) {
+                    return i;
+                }
+                slot = (slot + 1) & maska;
+            }
+        }
+
+        private void zvetsit() {
+            int mist = maska + 1;
+            if (mist >= MAX_MIST) {
+                if (pocet >= mist - 1) {
+                    throw new IllegalStateException("Segment deduplikátoru je plný, zvyšte počet segmentů.");
+                }
+                return;
+            }
+            long[] stara = tabulka;
+            long[] nova = new long[mist * 4];
+            int novaMaska = mist * 2 - 1;
+            for (int i = 0; i < stara.length; i += 2) {
+                long lo = stara[i + 1];
+                if (lo != 0) {
+                    long hi = stara[i];
+                    int j = najit(nova, novaMaska, hi, lo, (int) Snapshot.mix(hi, lo));
+                    nova[j] = hi;
+                    nova[j + 1] = lo;
+                }
+            }
+            tabulka = nova;
+            maska = novaMaska;
+        }
+    }
+
+}
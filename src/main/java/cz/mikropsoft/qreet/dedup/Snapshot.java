@@ -0,0 +1,36 @@
+package cz.mikropsoft.qreet.dedup;
+
+/**
+ * Konstanty formátu uloženého {@link Deduplicator} a hash klíče účtenky.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+final class Snapshot {
+
+    // Hlavička: "QRDD", verze formátu a druh
+    static final int MAGIC = 0x51524444;
+    static final int VERZE = 1;
+    static final int PRESNY = 1;
+    static final int BLOOM = 2;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Promíchání 128bitového klíče do 64 bitů (finalizace MurmurHash3).
+     *
+     * @param hi horní polovina klíče
+     * @param lo dolní polovina klíče
+     * @return hash klíče
+     */
+    static long mix(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
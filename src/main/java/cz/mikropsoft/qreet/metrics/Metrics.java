@@ -0,0 +1,385 @@
+package cz.mikropsoft.qreet.metrics;
+
+import cz.mikropsoft.qreet.scheme.Chyba;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Počty volání, selhání podle důvodu a histogramy latence kódování, dekódování, převodů kódů a vykreslení QR kódu.
+ * Čítače jsou {@link LongAdder}, rozložené mezi vlákna, takže souběžná volání si nepřekážejí.
+ * <p>
+ * Sběr je ve výchozím stavu vypnutý (zapíná jej systémová vlastnost {@code qreet.metrics=true}) a lze jej přepnout
+ * za běhu metodou {@link #setZapnuto(boolean)} nebo atributem {@code Zapnuto} přes JMX. Vypnutý sběr stojí jedno
+ * čtení volatilní proměnné na volání, čas se neměří.
+ * <pre>{@code
+ * Metrics.register();        // cz.mikropsoft.qreet:type=Metrics
+ * Metrics.setZapnuto(true);
+ * long p99 = Metrics.getLatence(Metrics.Operace.DEKODOVANI, 0.99);
+ * }</pre>
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class Metrics {
+
+    /**
+     * Jméno, pod kterým {@link #register()} registruje MBean.
+     */
+    public static final String OBJECT_NAME = "cz.mikropsoft.qreet:type=Metrics";
+
+    /**
+     * Počet přihrádek histogramu; přihrádka {@code i} obsahuje latence z intervalu {@code [2^(i-1), 2^i)} ns.
+     */
+    public static final int PRIHRADEK = 40;
+
+    // Začátek volání při vypnutém sběru
+    private static final long VYPNUTO = Long.MIN_VALUE;
+
+    // Index selhání, jehož důvod není Chyba
+    private static final int JINA = 0;
+
+    private static final Chyba[] CHYBY = Chyba.values();
+
+    // Maximální latence, inicializuje se před čítači
+    private static final LongBinaryOperator MAXIMUM = new LongBinaryOperator() {
+        @Override
+        public long applyAsLong(long left, long right) {
+            return Math.max(left, right);
+        }
+    };
+
+    private static final Citac[] CITACE = new Citac[Operace.values().length];
+
+    static {
+        for (int i = 0; i < CITACE.length; i++) {
+            CITACE[i] = new Citac();
+        }
+    }
+
+    private static volatile boolean zapnuto = Boolean.getBoolean("qreet.metrics");
+
+    /**
+     * Měřené operace.
+     */
+    public enum Operace {
+        /** {@code generateString()} účtenky a záznamu */
+        KODOVANI,
+        /** {@code EetZaznam.parse}, a tedy i {@code parseSchema} a {@code Uctenka.parse} */
+        DEKODOVANI,
+        /** {@code Kod.ofFik}, {@code Kod.ofBkp} a {@code Kod.parse} */
+        PREVOD_KODU,
+        /** {@code QrEncoder.encode} do matice modulů */
+        QR_MATICE,
+        /** zápis matice do PNG, BMP a SVG v {@code QrImageWriter} a rastru ESC/POS v {@code EscPosWriter} */
+        QR_OBRAZEK
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Zaregistruje MBean do {@link ManagementFactory#getPlatformMBeanServer()} pod {@link #OBJECT_NAME}. Opakovaná
+     * registrace nic nedělá.
+     *
+     * @throws IllegalStateException registrace se nezdařila
+     */
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // již registrován
+        } catch (JMException e) {
+            throw new IllegalStateException("Registrace MBean " + OBJECT_NAME + " se nezdařila.", e);
+        }
+    }
+
+    /**
+     * Odregistruje MBean. Pokud registrován není, nic nedělá.
+     *
+     * @throws IllegalStateException odregistrace se nezdařila
+     */
+    public static void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // nebyl registrován
+        } catch (JMException e) {
+            throw new IllegalStateException("Odregistrace MBean " + OBJECT_NAME + " se nezdařila.", e);
+        }
+    }
+
+    /**
+     * Zapne nebo vypne sběr. Volání rozběhnutá před přepnutím se dokončí podle původního stavu.
+     *
+     * @param zapnout {@code true} pro zapnutí
+     */
+    public static void setZapnuto(boolean zapnout) {
+        zapnuto = zapnout;
+    }
+
+    /**
+     * Je sběr zapnutý?
+     *
+     * @return {@code true} pokud se volání zaznamenávají
+     */
+    public static boolean isZapnuto() {
+        return zapnuto;
+    }
+
+    /**
+     * Začátek měřeného volání, předává se do {@link #konec(Operace, long, int)}.
+     *
+     * @return čas v ns, nebo značka vypnutého sběru
+     */
+    public static long zacatek() {
+        return zapnuto ? System.nanoTime() : VYPNUTO;
+    }
+
+    /**
+     * Zaznamená úspěšně dokončené volání.
+     *
+     * @param operace {@link Operace}
+     * @param zacatek hodnota {@link #zacatek()}
+     */
+    public static void konec(Operace operace, long zacatek) {
+        if (zacatek != VYPNUTO) {
+            CITACE[operace.ordinal()].zaznamenat(System.nanoTime() - zacatek, -1);
+        }
+    }
+
+    /**
+     * Zaznamená dokončené volání s výsledkem validace.
+     *
+     * @param operace {@link Operace}
+     * @param zacatek hodnota {@link #zacatek()}
+     * @param vysledek 0 pro úspěch, jinak výsledek s důvodem dle {@link Chyba#of(int)}
+     */
+    public static void konec(Operace operace, long zacatek, int vysledek) {
+        if (zacatek != VYPNUTO) {
+            int chyba = vysledek & 0xFF;
+            CITACE[operace.ordinal()].zaznamenat(System.nanoTime() - zacatek,
+                    (vysledek == 0) ? -1 : (chyba <= CHYBY.length) ? chyba : JINA);
+        }
+    }
+
+    /**
+     * Zaznamená volání ukončené výjimkou, jejíž důvod není {@link Chyba}.
+     *
+     * @param operace {@link Operace}
+     * @param zacatek hodnota {@link #zacatek()}
+     */
+    public static void selhani(Operace operace, long zacatek) {
+        if (zacatek != VYPNUTO) {
+            CITACE[operace.ordinal()].zaznamenat(System.nanoTime() - zacatek, JINA);
+        }
+    }
+
+    /**
+     * Počet zaznamenaných volání, úspěšných i neúspěšných.
+     *
+     * @param operace {@link Operace}
+     * @return počet volání
+     */
+    public static long getVolani(Operace operace) {
+        return CITACE[operace.ordinal()].volani.sum();
+    }
+
+    /**
+     * Počet selhání z předaného důvodu.
+     *
+     * @param operace {@link Operace}
+     * @param chyba důvod, nebo {@code null} pro selhání z jiného důvodu
+     * @return počet selhání
+     */
+    public static long getSelhani(Operace operace, Chyba chyba) {
+        return CITACE[operace.ordinal()].selhani[(chyba == null) ? JINA : chyba.ordinal() + 1].sum();
+    }
+
+    /**
+     * Horní odhad latence pro předaný percentil, s přesností na mocninu dvou.
+     *
+     * @param operace {@link Operace}
+     * @param percentil podíl volání, např. 0.99
+     * @return latence v ns, 0 pokud nebylo zaznamenáno žádné volání
+     */
+    public static long getLatence(Operace operace, double percentil) {
+        if (percentil < 0 || percentil > 1) {
+            throw new IllegalArgumentException("Percentil musí být z intervalu [0, 1]: " + percentil);
+        }
+        long[] histogram = CITACE[operace.ordinal()].histogram();
+        long celkem = 0;
+        for (long pocet : histogram) {
+            celkem += pocet;
+        }
+        if (celkem == 0) {
+            return 0;
+        }
+        long hranice = Math.max(1, (long) Math.ceil(percentil * celkem));
+        long soucet = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            soucet += histogram[i];
+            if (soucet >= hranice) {
+                return Math.min(CITACE[operace.ordinal()].max.get(), (1L << i) - 1);
+            }
+        }
+        return CITACE[operace.ordinal()].max.get();
+    }
+
+    /**
+     * Histogram latencí, viz {@link #PRIHRADEK}.
+     *
+     * @param operace {@link Operace}
+     * @return počty volání v přihrádkách
+     */
+    public static long[] getHistogram(Operace operace) {
+        return CITACE[operace.ordinal()].histogram();
+    }
+
+    /**
+     * Vynuluje všechny čítače. Souběžně zaznamenávaná volání se mohou započítat jen zčásti.
+     */
+    public static void vynulovat() {
+        for (Citac citac : CITACE) {
+            citac.vynulovat();
+        }
+    }
+
+    /**
+     * MBean nad statickými čítači.
+     */
+    private static final class Bean implements MetricsMXBean {
+
+        @Override
+        public boolean isZapnuto() {
+            return zapnuto;
+        }
+
+        @Override
+        public void setZapnuto(boolean zapnout) {
+            zapnuto = zapnout;
+        }
+
+        @Override
+        public Map<String, Long> getVolani() {
+            Map<String, Long> volani = new LinkedHashMap<String, Long>();
+            for (Operace operace : Operace.values()) {
+                volani.put(operace.name(), Metrics.getVolani(operace));
+            }
+            return volani;
+        }
+
+        @Override
+        public Map<String, Long> getSelhani() {
+            Map<String, Long> selhani = new LinkedHashMap<String, Long>();
+            for (Operace operace : Operace.values()) {
+                LongAdder[] citace = CITACE[operace.ordinal()].selhani;
+                for (int i = 0; i < citace.length; i++) {
+                    long pocet = citace[i].sum();
+                    if (pocet > 0) {
+                        selhani.put(operace.name() + "." + ((i == JINA) ? "JINA" : CHYBY[i - 1].name()), pocet);
+                    }
+                }
+            }
+            return selhani;
+        }
+
+        @Override
+        public Map<String, Double> getPrumernaLatence() {
+            Map<String, Double> latence = new LinkedHashMap<String, Double>();
+            for (Operace operace : Operace.values()) {
+                Citac citac = CITACE[operace.ordinal()];
+                long volani = citac.volani.sum();
+                latence.put(operace.name(), (volani == 0) ? 0d : (double) citac.nanos.sum() / volani);
+            }
+            return latence;
+        }
+
+        @Override
+        public Map<String, Long> getMaximalniLatence() {
+            Map<String, Long> latence = new LinkedHashMap<String, Long>();
+            for (Operace operace : Operace.values()) {
+                latence.put(operace.name(), CITACE[operace.ordinal()].max.get());
+            }
+            return latence;
+        }
+
+        @Override
+        public long latence(String operace, double percentil) {
+            return getLatence(Operace.valueOf(operace), percentil);
+        }
+
+        @Override
+        public long[] histogram(String operace) {
+            return getHistogram(Operace.valueOf(operace));
+        }
+
+        @Override
+        public void reset() {
+            vynulovat();
+        }
+    }
+
+    /**
+     * Čítače jedné operace.
+     */
+    private static final class Citac {
+
+        final LongAdder volani = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(MAXIMUM, 0);
+        final LongAdder[] selhani = novePole(CHYBY.length + 1);
+        final LongAdder[] prihradky = novePole(PRIHRADEK);
+
+        void zaznamenat(long latence, int chyba) {
+            if (latence < 0) {
+                latence = 0;
+            }
+            volani.increment();
+            nanos.add(latence);
+            max.accumulate(latence);
+            prihradky[Math.min(PRIHRADEK - 1, 64 - Long.numberOfLeadingZeros(latence))].increment();
+            if (chyba >= 0) {
+                selhani[chyba].increment();
+            }
+        }
+
+        long[] histogram() {
+            long[] histogram = new long[PRIHRADEK];
+            for (int i = 0; i < PRIHRADEK; i++) {
+                histogram[i] = prihradky[i].sum();
+            }
+            return histogram;
+        }
+
+        void vynulovat() {
+            volani.reset();
+            nanos.reset();
+            max.reset();
+            for (LongAdder citac : selhani) {
+                citac.reset();
+            }
+            for (LongAdder citac : prihradky) {
+                citac.reset();
+            }
+        }
+
+        private static LongAdder[] novePole(int delka) {
+            LongAdder[] pole = new LongAdder[delka];
+            for (int i = 0; i < delka; i++) {
+                pole[i] = new LongAdder();
+            }
+            return pole;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cz.mikropsoft.qreet.metrics;
+
+import java.util.Map;
+
+/**
+ * Rozhraní JMX pro {@link Metrics}. Klíčem map je název {@link Metrics.Operace}, u selhání ještě doplněný o název
+ * {@link cz.mikropsoft.qreet.scheme.Chyba}, např. {@code DEKODOVANI.DATUM}, nebo {@code JINA}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Je sběr zapnutý?
+     *
+     * @return {@code true} pokud se volání zaznamenávají
+     */
+    boolean isZapnuto();
+
+    /**
+     * Zapne nebo vypne sběr.
+     *
+     * @param zapnout {@code true} pro zapnutí
+     */
+    void setZapnuto(boolean zapnout);
+
+    /**
+     * Počty volání podle operace.
+     *
+     * @return operace a počet volání
+     */
+    Map<String, Long> getVolani();
+
+    /**
+     * Nenulové počty selhání podle operace a důvodu.
+     *
+     * @return operace s důvodem a počet selhání
+     */
+    Map<String, Long> getSelhani();
+
+    /**
+     * Průměrná latence podle operace.
+     *
+     * @return operace a latence v ns
+     */
+    Map<String, Double> getPrumernaLatence();
+
+    /**
+     * Nejvyšší latence podle operace.
+     *
+     * @return operace a latence v ns
+     */
+    Map<String, Long> getMaximalniLatence();
+
+    /**
+     * Horní odhad latence pro předaný percentil.
+     *
+     * @param operace název {@link Metrics.Operace}
+     * @param percentil podíl volání, např. 0.99
+     * @return latence v ns
+     */
+    long latence(String operace, double percentil);
+
+    /**
+     * Histogram latencí operace po mocninách dvou, viz {@link Metrics#PRIHRADEK}.
+     *
+     * @param operace název {@link Metrics.Operace}
+     * @return počty volání v přihrádkách
+     */
+    long[] histogram(String operace);
+
+    /**
+     * Vynuluje všechny čítače.
+     */
+    void reset();
+}
@@ -0,0 +1,215 @@
+package cz.mikropsoft.qreet.render;
+
+import cz.mikropsoft.qreet.metrics.Metrics;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Zápis QR kódu účtenky jako příkazů ESC/POS pro termotiskárny, bez obrázku a bez grafické knihovny.
+ * <ul>
+ *     <li>{@link #writeRaster(QrMatrix, OutputStream)} - rastrový obrázek {@code GS v 0} z matice modulů, tiskne
+ *     jakákoli tiskárna s podporou rastru, obrázek je vystředěn na šířku tisku</li>
+ *     <li>{@link #writeQr(EetUctenka, UrovenKorekce, OutputStream)} - příkazy {@code GS ( k}, QR kód sestaví až
+ *     tiskárna, přenáší se jen číslice účtenky</li>
+ * </ul>
+ * V rastru je tištěný (tmavý) bod bit 1, nejvyšší bit bajtu vlevo. Řádek rastru se sestaví jednou pro každý řádek
+ * modulů a opakuje se podle velikosti modulu.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class EscPosWriter {
+
+    /**
+     * Šířka tisku v bodech pro papír šíře 58 mm při 203 DPI.
+     */
+    public static final int SIRKA_58_MM = 384;
+
+    /**
+     * Šířka tisku v bodech pro papír šíře 80 mm při 203 DPI.
+     */
+    public static final int SIRKA_80_MM = 576;
+
+    /**
+     * Nejvyšší velikost modulu příkazu {@code GS ( k}.
+     */
+    public static final int MODUL_QR_MAX = 16;
+
+    private static final byte GS = 0x1D;
+
+    // Nejvyšší výška rastru GS v 0 (yH nejvýše 8)
+    private static final int VYSKA_MAX = 2303;
+
+    private final int velikostModulu;
+    private final int sirkaTisku;
+    private final int tichaZona;
+
+    /**
+     * Zápis s předanou velikostí modulu a šířkou tisku, s tichou zónou podle normy.
+     *
+     * @param velikostModulu velikost modulu v bodech tiskárny
+     * @param sirkaTisku šířka tisku v bodech, např. {@link #SIRKA_58_MM}
+     */
+    public EscPosWriter(int velikostModulu, int sirkaTisku) {
+        this(velikostModulu, sirkaTisku, QrImageWriter.TICHA_ZONA);
+    }
+
+    /**
+     * Zápis s předanou velikostí modulu, šířkou tisku a tichou zónou.
+     *
+     * @param velikostModulu velikost modulu v bodech tiskárny
+     * @param sirkaTisku šířka tisku v bodech, např. {@link #SIRKA_58_MM}
+     * @param tichaZona šířka tiché zóny v modulech
+     */
+    public EscPosWriter(int velikostModulu, int sirkaTisku, int tichaZona) {
+        if (velikostModulu < 1) {
+            throw new IllegalArgumentException("Velikost modulu musí být alespoň 1 bod.");
+        }
+        if (sirkaTisku < 8 || sirkaTisku > 0xFFFF) {
+            throw new IllegalArgumentException("Šířka tisku musí být v rozsahu 8-65535 bodů: " + sirkaTisku);
+        }
+        if (tichaZona < 0) {
+            throw new IllegalArgumentException("Šířka tiché zóny nesmí být záporná.");
+        }
+        this.velikostModulu = velikostModulu;
+        this.sirkaTisku = sirkaTisku;
+        this.tichaZona = tichaZona;
+    }
+
+    /**
+     * Šířka a výška QR kódu včetně tiché zóny v bodech.
+     *
+     * @param matrix matice modulů
+     * @return šířka QR kódu
+     */
+    public int getSize(QrMatrix matrix) {
+        return (matrix.getSize() + 2 * tichaZona) * velikostModulu;
+    }
+
+    /**
+     * Zakóduje účtenku do matice a zapíše ji jako rastr {@code GS v 0}.
+     *
+     * @param uctenka účtenka
+     * @param uroven úroveň opravy chyb
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     * @throws IllegalArgumentException QR kód se nevejde na šířku tisku
+     */
+    public void writeRaster(EetUctenka uctenka, UrovenKorekce uroven, OutputStream out) throws IOException {
+        writeRaster(QrEncoder.encode(uctenka, uroven), out);
+    }
+
+    /**
+     * Zapíše matici jako rastrový obrázek příkazem {@code GS v 0} v běžné hustotě, vystředěný na šířku tisku.
+     *
+     * @param matrix matice modulů
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     * @throws IllegalArgumentException QR kód se nevejde na šířku tisku
+     */
+    public void writeRaster(QrMatrix matrix, OutputStream out) throws IOException {
+        long zacatek = Metrics.zacatek();
+        try {
+            raster(matrix, out);
+        } catch (IOException | RuntimeException e) {
+            Metrics.selhani(Metrics.Operace.QR_OBRAZEK, zacatek);
+            throw e;
+        }
+        Metrics.konec(Metrics.Operace.QR_OBRAZEK, zacatek);
+    }
+
+    private void raster(QrMatrix matrix, OutputStream out) throws IOException {
+        int size = getSize(matrix);
+        if (size > sirkaTisku) {
+            throw new IllegalArgumentException("QR kód široký " + size + " bodů se nevejde na šířku tisku "
+                    + sirkaTisku + " bodů, zmenšete velikost modulu.");
+        }
+        if (size > VYSKA_MAX) {
+            throw new IllegalArgumentException("QR kód vysoký " + size + " bodů přesahuje výšku rastru "
+                    + VYSKA_MAX + " bodů.");
+        }
+        // Odsazení zleva vystředí QR kód, bajty vpravo za ním se neposílají
+        int odsazeni = (sirkaTisku - size) / 2;
+        int sirka = (odsazeni + size + 7) >>> 3;
+
+        byte[] prikaz = {GS, 'v', '0', 0, (byte) sirka, (byte) (sirka >>> 8), (byte) size, (byte) (size >>> 8)};
+        out.write(prikaz);
+
+        byte[] radek = new byte[sirka];
+        int zona = tichaZona * velikostModulu;
+        for (int y = 0; y < zona; y++) {
+            out.write(radek);
+        }
+        for (int my = 0; my < matrix.getSize(); my++) {
+            scanline(matrix, my, radek, odsazeni + zona);
+            for (int i = 0; i < velikostModulu; i++) {
+                out.write(radek);
+            }
+        }
+        Arrays.fill(radek, (byte) 0);
+        for (int y = 0; y < zona; y++) {
+            out.write(radek);
+        }
+        out.flush();
+    }
+
+    /**
+     * Sestaví řádek rastru pro řádek modulů, tmavý modul je bit 1, nejvyšší bit bajtu vlevo.
+     */
+    private void scanline(QrMatrix matrix, int my, byte[] radek, int od) {
+        Arrays.fill(radek, (byte) 0);
+        for (int w = 0; w < matrix.getWordsPerRow(); w++) {
+            long word = matrix.word(my, w);
+            while (word != 0) {
+                int mx = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int from = od + mx * velikostModulu;
+                for (int x = from; x < from + velikostModulu; x++) {
+                    radek[x >>> 3] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+    }
+
+    /**
+     * Zapíše účtenku příkazy {@code GS ( k} pro QR kód model 2: volba modelu, velikost modulu, úroveň opravy chyb,
+     * uložení dat a tisk. Velikost modulu je omezena na {@value #MODUL_QR_MAX} bodů, zarovnání a tichou zónu
+     * určuje tiskárna.
+     *
+     * @param uctenka účtenka
+     * @param uroven úroveň opravy chyb
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     * @throws IllegalStateException velikost modulu přesahuje {@value #MODUL_QR_MAX} bodů
+     */
+    public void writeQr(EetUctenka uctenka, UrovenKorekce uroven, OutputStream out) throws IOException {
+        if (velikostModulu > MODUL_QR_MAX) {
+            throw new IllegalStateException("Příkaz GS ( k dovoluje velikost modulu nejvýše " + MODUL_QR_MAX
+                    + " bodů: " + velikostModulu);
+        }
+        // Data se ukládají přímo za hlavičku funkce 180: GS ( k pL pH cn fn m d1...dk
+        byte[] ulozit = new byte[8 + uctenka.encodedLength()];
+        int delka = uctenka.encodeTo(ulozit, 8);
+        ulozit[0] = GS;
+        ulozit[1] = '(';
+        ulozit[2] = 'k';
+        ulozit[3] = (byte) (delka + 3);
+        ulozit[4] = (byte) ((delka + 3) >>> 8);
+        ulozit[5] = '1';
+        ulozit[6] = 'P';
+        ulozit[7] = '0';
+
+        out.write(new byte[]{
+                GS, '(', 'k', 4, 0, '1', 'A', '2', 0,                            // fn 165: model 2
+                GS, '(', 'k', 3, 0, '1', 'C', (byte) velikostModulu,             // fn 167: velikost modulu
+                GS, '(', 'k', 3, 0, '1', 'E', (byte) ('0' + uroven.ordinal()),  // fn 169: úroveň L, M, Q, H
+        });
+        out.write(ulozit, 0, 8 + delka);
+        out.write(new byte[]{GS, '(', 'k', 3, 0, '1', 'Q', '0'});              // fn 181: tisk
+        out.flush();
+    }
+
+}
@@ -0,0 +1,485 @@
+package cz.mikropsoft.qreet.render;
+
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Paměť vykreslených QR kódů účtenek omezená počtem bajtů. Klíčem jsou položky účtenky převedené do {@link EetZaznam},
+ * hodnotou matice modulů a na požádání i obrázek PNG. Opakované vykreslení stejné účtenky (dotisk, e-mail, portál) tak
+ * vrací již hotový výsledek. Klíč se sestaví bez zakódované informace, ta se zapíše až při vykreslení. Neměnná
+ * {@link Uctenka} a {@link EetUctenka} se stejnými položkami sdílí stejný klíč.
+ * <p>
+ * Statistiky matic a obrázků PNG se vedou zvlášť: obrázek, který v paměti není, je výpadek PNG, i když se jeho matice
+ * v paměti našla.
+ * <p>
+ * Paměť je rozdělena na segmenty s vlastním zámkem a vlastním podílem na rozpočtu, každý segment vyřazuje nejdéle
+ * nepoužité položky (LRU). Souběžné přístupy k různým segmentům se neblokují a vykreslení probíhá mimo zámek, při
+ * souběžném prvním požadavku na stejnou účtenku se proto může vykreslit vícekrát, do paměti se však uloží jednou.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class QrCache {
+
+    // Odhad velikosti položky bez dat: klíč, položka, uzel mapy a hlavička matice
+    private static final int REZIE = 192;
+
+    private final UrovenKorekce uroven;
+    private final QrImageWriter writer;
+    private final Segment[] segmenty;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder pngHits = new LongAdder();
+    private final LongAdder pngMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Paměť s předaným rozpočtem, úrovní opravy chyb a zápisem obrázků.
+     *
+     * @param maxBytes rozpočet v bajtech
+     * @param uroven úroveň opravy chyb vykreslovaných kódů
+     * @param writer zápis obrázků PNG
+     */
+    public QrCache(long maxBytes, UrovenKorekce uroven, QrImageWriter writer) {
+        this(maxBytes, uroven, writer, 16);
+    }
+
+    /**
+     * Paměť s předaným rozpočtem, úrovní opravy chyb, zápisem obrázků a počtem segmentů.
+     *
+     * @param maxBytes rozpočet v bajtech
+     * @param uroven úroveň opravy chyb vykreslovaných kódů
+     * @param writer zápis obrázků PNG
+     * @param segmentu počet segmentů, zaokrouhlí se nahoru na mocninu dvou
+     */
+    public QrCache(long maxBytes, UrovenKorekce uroven, QrImageWriter writer, int segmentu) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Rozpočet paměti musí být kladný.");
+        }
+        if (uroven == null || writer == null) {
+            throw new IllegalArgumentException("Úroveň opravy chyb a zápis obrázků musí být předány.");
+        }
+        if (segmentu < 1 || segmentu > (1 << 16)) {
+            throw new IllegalArgumentException("Počet segmentů musí být v rozsahu 1-65536.");
+        }
+        this.uroven = uroven;
+        this.writer = writer;
+        int pocet = Integer.highestOneBit(segmentu - 1) << 1;
+        this.segmenty = new Segment[Math.max(1, pocet)];
+        for (int i = 0; i < segmenty.length; i++) {
+            segmenty[i] = new Segment(Math.max(1, maxBytes / segmenty.length));
+        }
+    }
+
+    /**
+     * Úroveň opravy chyb vykreslovaných kódů.
+     *
+     * @return úroveň opravy chyb
+     */
+    public UrovenKorekce getUroven() {
+        return uroven;
+    }
+
+    /**
+     * Zápis obrázků PNG ukládaných do paměti.
+     *
+     * @return zápis obrázků
+     */
+    public QrImageWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Matice modulů účtenky, z paměti nebo nově vykreslená.
+     *
+     * @param uctenka účtenka
+     * @return matice modulů
+     */
+    public QrMatrix matrix(Uctenka uctenka) {
+        Klic klic = Klic.of(uctenka);
+        Segment segment = segment(klic);
+        Polozka polozka = segment.get(klic);
+        if (polozka != null) {
+            hits.increment();
+            return polozka.matrix;
+        }
+        return ulozit(segment, klic, zakodovat(uctenka)).matrix;
+    }
+
+    /**
+     * Matice modulů účtenky, z paměti nebo nově vykreslená.
+     *
+     * @param uctenka účtenka
+     * @return matice modulů
+     * @throws IllegalArgumentException účtenka nemá kód nebo režim tržby
+     */
+    public QrMatrix matrix(EetUctenka uctenka) {
+        Klic klic = Klic.of(uctenka);
+        Segment segment = segment(klic);
+        Polozka polozka = segment.get(klic);
+        if (polozka != null) {
+            hits.increment();
+            return polozka.matrix;
+        }
+        return ulozit(segment, klic, QrEncoder.encode(uctenka, uroven)).matrix;
+    }
+
+    /**
+     * Obrázek PNG účtenky, pouze pokud je v paměti. Nic se nevykresluje, výpadek se započítá až při vykreslení
+     * metodou {@link #png(Uctenka)}. Vrácené pole se nesmí měnit.
+     *
+     * @param uctenka účtenka
+     * @return obrázek PNG, nebo {@code null}, pokud v paměti není
+     */
+    public byte[] pngIfPresent(Uctenka uctenka) {
+        Klic klic = Klic.of(uctenka);
+        Polozka polozka = segment(klic).get(klic);
+        byte[] png = (polozka != null) ? polozka.png : null;
+        if (png != null) {
+            pngHits.increment();
+        }
+        return png;
+    }
+
+    /**
+     * Obrázek PNG účtenky, z paměti nebo nově vykreslený. Vrácené pole se nesmí měnit.
+     *
+     * @param uctenka účtenka
+     * @return obrázek PNG
+     */
+    public byte[] png(Uctenka uctenka) {
+        Klic klic = Klic.of(uctenka);
+        Segment segment = segment(klic);
+        Polozka polozka = segment.get(klic);
+        if (polozka == null) {
+            return png(segment, klic, ulozit(segment, klic, zakodovat(uctenka)));
+        }
+        if (polozka.png == null) {
+            hits.increment();
+        }
+        return png(segment, klic, polozka);
+    }
+
+    /**
+     * Obrázek PNG účtenky, z paměti nebo nově vykreslený. Vrácené pole se nesmí měnit.
+     *
+     * @param uctenka účtenka
+     * @return obrázek PNG
+     * @throws IllegalArgumentException účtenka nemá kód nebo režim tržby
+     */
+    public byte[] png(EetUctenka uctenka) {
+        Klic klic = Klic.of(uctenka);
+        Segment segment = segment(klic);
+        Polozka polozka = segment.get(klic);
+        if (polozka == null) {
+            return png(segment, klic, ulozit(segment, klic, QrEncoder.encode(uctenka, uroven)));
+        }
+        if (polozka.png == null) {
+            hits.increment();
+        }
+        return png(segment, klic, polozka);
+    }
+
+    /**
+     * Zapíše obrázek PNG účtenky, z paměti nebo nově vykreslený.
+     *
+     * @param uctenka účtenka
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     */
+    public void writePng(Uctenka uctenka, OutputStream out) throws IOException {
+        out.write(png(uctenka));
+    }
+
+    /**
+     * Zapíše obrázek PNG účtenky, z paměti nebo nově vykreslený.
+     *
+     * @param uctenka účtenka
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     * @throws IllegalArgumentException účtenka nemá kód nebo režim tržby
+     */
+    public void writePng(EetUctenka uctenka, OutputStream out) throws IOException {
+        out.write(png(uctenka));
+    }
+
+    /**
+     * Zakóduje neměnnou účtenku, zakódovaná informace se zapíše do pole bajtů, bez řetězce.
+     */
+    private QrMatrix zakodovat(Uctenka uctenka) {
+        byte[] digits = new byte[uctenka.encodedLength()];
+        int delka = uctenka.encodeTo(digits, 0);
+        return QrEncoder.encode(digits, 0, delka, uroven);
+    }
+
+    /**
+     * Uloží matici účtenky, která v paměti nebyla.
+     */
+    private Polozka ulozit(Segment segment, Klic klic, QrMatrix matrix) {
+        misses.increment();
+        int vaha = REZIE + matrix.getSize() * matrix.getWordsPerRow() * 8;
+        return segment.putIfAbsent(klic, new Polozka(matrix, vaha));
+    }
+
+    /**
+     * Obrázek PNG položky, z paměti nebo nově vykreslený a připojený k položce.
+     */
+    private byte[] png(Segment segment, Klic klic, Polozka polozka) {
+        byte[] png = polozka.png;
+        if (png != null) {
+            pngHits.increment();
+            return png;
+        }
+        pngMisses.increment();
+        return segment.pripojit(klic, polozka, writer.toPng(polozka.matrix));
+    }
+
+    private Segment segment(Klic klic) {
+        int h = klic.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return segmenty[h & (segmenty.length - 1)];
+    }
+
+    /**
+     * Počet matic nalezených v paměti, včetně matic pro obrázky PNG, které v paměti nebyly.
+     *
+     * @return počet zásahů
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Počet matic, které se zakódovaly.
+     *
+     * @return počet výpadků
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Počet obrázků PNG vrácených z paměti.
+     *
+     * @return počet zásahů
+     */
+    public long getPngHits() {
+        return pngHits.sum();
+    }
+
+    /**
+     * Počet obrázků PNG, které se vykreslily.
+     *
+     * @return počet výpadků
+     */
+    public long getPngMisses() {
+        return pngMisses.sum();
+    }
+
+    /**
+     * Počet položek vyřazených kvůli rozpočtu.
+     *
+     * @return počet vyřazení
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Odhad obsazené paměti v bajtech.
+     *
+     * @return obsazená paměť
+     */
+    public long getWeight() {
+        long weight = 0;
+        for (Segment segment : segmenty) {
+            synchronized (segment) {
+                weight += segment.vaha;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Počet položek v paměti.
+     *
+     * @return počet položek
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segmenty) {
+            synchronized (segment) {
+                size += segment.mapa.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Odstraní všechny položky, statistiky zůstávají.
+     */
+    public void clear() {
+        for (Segment segment : segmenty) {
+            synchronized (segment) {
+                segment.mapa.clear();
+                segment.vaha = 0;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QrCache{" +
+                "size=" + size() +
+                ", weight=" + getWeight() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", pngHits=" + getPngHits() +
+                ", pngMisses=" + getPngMisses() +
+                ", evictions=" + getEvictions() +
+                '}';
+    }
+
+    /**
+     * Klíč účtenky, položky záznamu {@link EetZaznam}. Záporná nula se v záznamu ztratí, zakódovaná informace ji však
+     * nese znaménkem, klíč ji proto rozlišuje zvlášť.
+     */
+    private static final class Klic {
+
+        private final long kodHi;
+        private final long kodLo;
+        private final long dic;
+        private final long castka;
+        private final int minuta;
+        private final int priznaky;
+
+        private Klic(EetZaznam zaznam, boolean zapornaNula) {
+            this.kodHi = zaznam.getKodHi();
+            this.kodLo = zaznam.getKodLo();
+            this.dic = zaznam.getDic();
+            this.castka = zaznam.getCastka();
+            this.minuta = zaznam.getMinuta();
+            this.priznaky = zaznam.getTyp().ordinal() | zaznam.getDicVerze().ordinal() << 2
+                    | zaznam.getRezim().ordinal() << 5 | (zapornaNula ? 1 << 7 : 0);
+        }
+
+        static Klic of(EetUctenka uctenka) {
+            EetZaznam zaznam = uctenka.toZaznam(new EetZaznam());
+            return new Klic(zaznam, zaznam.getCastka() == 0 && uctenka.encodedLength() > zaznam.encodedLength());
+        }
+
+        static Klic of(Uctenka uctenka) {
+            return new Klic(uctenka.toZaznam(new EetZaznam()), uctenka.isZaporna() && uctenka.getCastka() == 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Klic)) {
+                return false;
+            }
+            Klic klic = (Klic) o;
+            return kodHi == klic.kodHi && kodLo == klic.kodLo && dic == klic.dic && castka == klic.castka
+                    && minuta == klic.minuta && priznaky == klic.priznaky;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = kodHi * 31 + kodLo;
+            h = h * 31 + dic;
+            h = h * 31 + castka;
+            h = h * 31 + minuta;
+            h = h * 31 + priznaky;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Vykreslená účtenka.
+     */
+    private static final class Polozka {
+
+        private final QrMatrix matrix;
+        private volatile byte[] png;
+        private long vaha;
+
+        Polozka(QrMatrix matrix, long vaha) {
+            this.matrix = matrix;
+            this.vaha = vaha;
+        }
+    }
+
+    /**
+     * Segment paměti s vlastním zámkem, mapa v pořadí přístupů.
+     */
+    private final class Segment {
+
+        private final long maxVaha;
+        private final LinkedHashMap<Klic, Polozka> mapa = new LinkedHashMap<Klic, Polozka>(16, 0.75f, true);
+        private long vaha;
+
+        Segment(long maxVaha) {
+            this.maxVaha = maxVaha;
+        }
+
+        synchronized Polozka get(Klic klic) {
+            return mapa.get(klic);
+        }
+
+        synchronized Polozka putIfAbsent(Klic klic, Polozka polozka) {
+            Polozka existujici = mapa.get(klic);
+            if (existujici != null) {
+                return existujici;
+            }
+            if (polozka.vaha > maxVaha) {
+                // Položka se do segmentu nevejde, vrací se bez uložení
+                return polozka;
+            }
+            mapa.put(klic, polozka);
+            vaha += polozka.vaha;
+            vyradit(polozka);
+            return polozka;
+        }
+
+        synchronized byte[] pripojit(Klic klic, Polozka polozka, byte[] png) {
+            if (polozka.png != null) {
+                return polozka.png;
+            }
+            polozka.png = png;
+            // Položka mohla být mezitím vyřazena, pak se váha nezapočítává
+            if (mapa.get(klic) == polozka) {
+                polozka.vaha += png.length;
+                vaha += png.length;
+                vyradit(polozka);
+            }
+            return png;
+        }
+
+        private void vyradit(Polozka chranena) {
+            Iterator<Map.Entry<Klic, Polozka>> it = mapa.entrySet().iterator();
+            while (vaha > maxVaha && it.hasNext()) {
+                Polozka nejstarsi = it.next().getValue();
+                if (nejstarsi == chranena && mapa.size() > 1) {
+                    continue;
+                }
+                it.remove();
+                vaha -= nejstarsi.vaha;
+                evictions.increment();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,798 @@
+package cz.mikropsoft.qreet.render;
+
+import cz.mikropsoft.qreet.metrics.Metrics;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+
+/**
+ * Kódování řetězce dekadických číslic do matice modulů QR kódu v číselném režimu (ISO/IEC 18004).
+ * <p>
+ * Zakódovaná účtenka obsahuje pouze číslice, vystačí si proto s číselným režimem, ve kterém se tři číslice kódují do
+ * 10 bitů. Volí se nejmenší verze, do které se data vejdou, a maska s nejnižší penalizací. Tabulky Galoisova tělesa,
+ * generující polynomy Reed-Solomonova kódu, rozmístění funkčních vzorů a pořadí datových modulů pro každou verzi jsou
+ * spočteny předem, kódování jedné účtenky proto nealokuje nic kromě pracovních polí a výsledné matice.
+ * <p>
+ * Výsledná matice je shodná s maticí, kterou pro stejná data vytvoří ZXing (a tedy i QRGen), bez závislosti na AWT.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class QrEncoder {
+
+    private static final int MIN_VERZE = 1;
+    private static final int MAX_VERZE = 40;
+
+    // Počet kódových slov opravy chyb v jednom bloku, podle úrovně a verze
+    private static final byte[][] EC_SLOV_V_BLOKU = {
+            {-1, 7, 10, 15, 20, 26, 18, 20, 24, 30, 18, 20, 24, 26, 30, 22, 24, 28, 30, 28, 28, 28, 28, 30, 30, 26, 28,
+                    30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30},
+            {-1, 10, 16, 26, 18, 24, 16, 18, 22, 22, 26, 30, 22, 22, 24, 24, 28, 28, 26, 26, 26, 26, 28, 28, 28, 28, 28,
+                    28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28},
+            {-1, 13, 22, 18, 26, 18, 24, 18, 22, 20, 24, 28, 26, 24, 20, 30, 24, 28, 28, 26, 30, 28, 30, 30, 30, 30, 28,
+                    30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30},
+            {-1, 17, 28, 22, 16, 22, 28, 26, 26, 24, 28, 24, 28, 22, 24, 24, 30, 28, 28, 26, 28, 30, 24, 30, 30, 30, 30,
+                    30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30},
+    };
+
+    // Počet bloků opravy chyb, podle úrovně a verze
+    private static final byte[][] POCET_BLOKU = {
+            {-1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 4, 4, 4, 4, 4, 6, 6, 6, 6, 7, 8, 8, 9, 9, 10, 12, 12, 12, 13, 14, 15, 16,
+                    17, 18, 19, 19, 20, 21, 22, 24, 25},
+            {-1, 1, 1, 1, 2, 2, 4, 4, 4, 5, 5, 5, 8, 9, 9, 10, 10, 11, 13, 14, 16, 17, 17, 18, 20, 21, 23, 25, 26, 28,
+                    29, 31, 33, 35, 37, 38, 40, 43, 45, 47, 49},
+            {-1, 1, 1, 2, 2, 4, 4, 6, 6, 8, 8, 8, 10, 12, 16, 12, 17, 16, 18, 21, 20, 23, 23, 25, 27, 29, 34, 34, 35,
+                    38, 40, 43, 45, 48, 51, 53, 56, 59, 62, 65, 68},
+            {-1, 1, 1, 2, 4, 4, 4, 5, 6, 8, 8, 11, 11, 16, 16, 18, 16, 19, 21, 25, 25, 25, 34, 30, 32, 35, 37, 40, 42,
+                    45, 48, 51, 54, 57, 60, 63, 66, 70, 74, 77, 81},
+    };
+
+    // Indikátor číselného režimu
+    private static final int REZIM_CISLA = 0x1;
+
+    // Výplňová kódová slova
+    private static final int VYPLN_1 = 0xEC;
+    private static final int VYPLN_2 = 0x11;
+
+    // Penalizace pravidel pro výběr masky
+    private static final int N1 = 3;
+    private static final int N2 = 3;
+    private static final int N3 = 40;
+    private static final int N4 = 10;
+
+    // Největší strana matice, pro kterou se řádek i se čtyřmi moduly přesahu vejde do jednoho long
+    private static final int MAX_BITOVA_PENALIZACE = 57;
+
+    // Exponenciála a logaritmus v GF(256) s primitivním polynomem x^8 + x^4 + x^3 + x^2 + 1
+    private static final int[] EXP = new int[512];
+    private static final int[] LOG = new int[256];
+
+    // Generující polynomy podle počtu kódových slov opravy chyb, bez vedoucího koeficientu
+    private static final int[][] GENERATORY = new int[31][];
+
+    // Informace o formátu podle úrovně a masky, včetně BCH kódu a XOR masky
+    private static final int[][] FORMAT = new int[UrovenKorekce.values().length][8];
+
+    // Šablony verzí, vytvářejí se líně při prvním použití verze
+    private static final Sablona[] SABLONY = new Sablona[MAX_VERZE + 1];
+
+    static {
+        int x = 1;
+        for (int i = 0; i < 255; i++) {
+            EXP[i] = x;
+            LOG[x] = i;
+            x <<= 1;
+            if (x >= 0x100) {
+                x ^= 0x11D;
+            }
+        }
+        for (int i = 255; i < EXP.length; i++) {
+            EXP[i] = EXP[i - 255];
+        }
+
+        for (byte[] ecSlov : EC_SLOV_V_BLOKU) {
+            for (int v = MIN_VERZE; v <= MAX_VERZE; v++) {
+                if (GENERATORY[ecSlov[v]] == null) {
+                    GENERATORY[ecSlov[v]] = generator(ecSlov[v]);
+                }
+            }
+        }
+
+        for (UrovenKorekce uroven : UrovenKorekce.values()) {
+            for (int maska = 0; maska < 8; maska++) {
+                int data = uroven.getFormatBits() << 3 | maska;
+                int rem = data;
+                for (int i = 0; i < 10; i++) {
+                    rem = (rem << 1) ^ ((rem >>> 9) * 0x537);
+                }
+                FORMAT[uroven.ordinal()][maska] = (data << 10 | rem) ^ 0x5412;
+            }
+        }
+    }
+
+    private QrEncoder() {
+    }
+
+    /**
+     * Zakóduje účtenku do matice modulů QR kódu.
+     *
+     * @param uctenka účtenka
+     * @param uroven úroveň opravy chyb
+     * @return matice modulů
+     */
+    public static QrMatrix encode(EetUctenka uctenka, UrovenKorekce uroven) {
+        byte[] digits = new byte[uctenka.encodedLength()];
+        return encode(digits, 0, uctenka.encodeTo(digits, 0), uroven);
+    }
+
+    /**
+     * Zakóduje účtenku do matice modulů QR kódu.
+     *
+     * @param zaznam účtenka
+     * @param uroven úroveň opravy chyb
+     * @return matice modulů
+     */
+    public static QrMatrix encode(EetZaznam zaznam, UrovenKorekce uroven) {
+        byte[] digits = new byte[zaznam.encodedLength()];
+        return encode(digits, 0, zaznam.encodeTo(digits, 0), uroven);
+    }
+
+    /**
+     * Zakóduje řetězec dekadických číslic do matice modulů QR kódu.
+     *
+     * @param digits číslice
+     * @param uroven úroveň opravy chyb
+     * @return matice modulů
+     */
+    public static QrMatrix encode(CharSequence digits, UrovenKorekce uroven) {
+        byte[] ascii = new byte[digits.length()];
+        for (int i = 0; i < ascii.length; i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Řetězec obsahuje jiný znak než číslici na pozici " + i);
+            }
+            ascii[i] = (byte) c;
+        }
+        return encode(ascii, 0, ascii.length, uroven);
+    }
+
+    /**
+     * Zakóduje dekadické číslice v ASCII do matice modulů QR kódu.
+     *
+     * @param digits číslice v ASCII
+     * @param offset pozice první číslice
+     * @param length počet číslic
+     * @param uroven úroveň opravy chyb
+     * @return matice modulů
+     */
+    public static QrMatrix encode(byte[] digits, int offset, int length, UrovenKorekce uroven) {
+        long zacatek = Metrics.zacatek();
+        QrMatrix matrix;
+        try {
+            matrix = zakodovat(digits, offset, length, uroven);
+        } catch (RuntimeException e) {
+            Metrics.selhani(Metrics.Operace.QR_MATICE, zacatek);
+            throw e;
+        }
+        Metrics.konec(Metrics.Operace.QR_MATICE, zacatek);
+        return matrix;
+    }
+
+    private static QrMatrix zakodovat(byte[] digits, int offset, int length, UrovenKorekce uroven) {
+        if (uroven == null) {
+            throw new IllegalArgumentException("Úroveň opravy chyb musí být předána.");
+        }
+        for (int i = offset; i < offset + length; i++) {
+            if (digits[i] < '0' || digits[i] > '9') {
+                throw new IllegalArgumentException("Řetězec obsahuje jiný znak než číslici na pozici " + (i - offset));
+            }
+        }
+
+        int verze = verze(length, uroven);
+        Sablona sablona = sablona(verze);
+        byte[] data = data(digits, offset, length, verze, uroven);
+        byte[] kodovaSlova = opravaChyb(data, verze, uroven);
+
+        byte[] zaklad = sablona.moduly.clone();
+        int[] poradi = sablona.poradi;
+        int bitu = kodovaSlova.length * 8;
+        for (int i = 0; i < bitu; i++) {
+            zaklad[poradi[i]] = (byte) (kodovaSlova[i >>> 3] >>> (7 - (i & 7)) & 1);
+        }
+
+        if (sablona.size <= MAX_BITOVA_PENALIZACE) {
+            return maskaBity(zaklad, sablona, verze, uroven);
+        }
+
+        byte[] moduly = new byte[zaklad.length];
+        byte[] nejlepsi = new byte[zaklad.length];
+        int nejlepsiMaska = -1;
+        int nejnizsiPenalizace = Integer.MAX_VALUE;
+        for (int maska = 0; maska < 8; maska++) {
+            System.arraycopy(zaklad, 0, moduly, 0, zaklad.length);
+            byte[] masky = sablona.masky;
+            for (int i = 0; i < poradi.length; i++) {
+                moduly[poradi[i]] ^= (byte) (masky[i] >>> maska & 1);
+            }
+            format(moduly, sablona.size, FORMAT[uroven.ordinal()][maska]);
+
+            int penalizace = penalizace(moduly, sablona.size);
+            if (penalizace < nejnizsiPenalizace) {
+                nejnizsiPenalizace = penalizace;
+                nejlepsiMaska = maska;
+                byte[] tmp = nejlepsi;
+                nejlepsi = moduly;
+                moduly = tmp;
+            }
+        }
+        return new QrMatrix(verze, uroven, nejlepsiMaska, nejlepsi);
+    }
+
+    /**
+     * Výběr masky pro malé matice: řádky i sloupce jsou bity jednoho {@code long}, maska se aplikuje jedním XOR na
+     * řádek a sloupec a penalizace se počítá po celých řádcích.
+     */
+    private static QrMatrix maskaBity(byte[] zaklad, Sablona sablona, int verze, UrovenKorekce uroven) {
+        int size = sablona.size;
+        long[] zakladRadky = new long[size];
+        long[] zakladSloupce = new long[size];
+        for (int y = 0; y < size; y++) {
+            long radek = 0;
+            int i = y * size;
+            for (int x = 0; x < size; x++) {
+                long bit = zaklad[i + x];
+                radek |= bit << x;
+                zakladSloupce[x] |= bit << y;
+            }
+            zakladRadky[y] = radek;
+        }
+
+        long[] radky = new long[size];
+        long[] sloupce = new long[size];
+        long[] nejlepsi = new long[size];
+        int nejlepsiMaska = -1;
+        int nejnizsiPenalizace = Integer.MAX_VALUE;
+        for (int maska = 0; maska < 8; maska++) {
+            long[] maskaRadky = sablona.maskaRadky[maska];
+            long[] maskaSloupce = sablona.maskaSloupce[maska];
+            for (int i = 0; i < size; i++) {
+                radky[i] = zakladRadky[i] ^ maskaRadky[i];
+                sloupce[i] = zakladSloupce[i] ^ maskaSloupce[i];
+            }
+            formatBity(radky, sloupce, size, FORMAT[uroven.ordinal()][maska]);
+
+            int penalizace = penalizaceBity(radky, sloupce, size);
+            if (penalizace < nejnizsiPenalizace) {
+                nejnizsiPenalizace = penalizace;
+                nejlepsiMaska = maska;
+                long[] tmp = nejlepsi;
+                nejlepsi = radky;
+                radky = tmp;
+            }
+        }
+        return new QrMatrix(verze, uroven, nejlepsiMaska, nejlepsi);
+    }
+
+    /**
+     * Nejmenší verze, do které se předaný počet číslic vejde.
+     */
+    private static int verze(int length, UrovenKorekce uroven) {
+        int bitu = (length / 3) * 10 + ((length % 3 == 0) ? 0 : (length % 3 == 1) ? 4 : 7);
+        for (int verze = MIN_VERZE; verze <= MAX_VERZE; verze++) {
+            if (4 + bituPoctu(verze) + bitu <= datovychSlov(verze, uroven) * 8
+                    && length < (1 << bituPoctu(verze))) {
+                return verze;
+            }
+        }
+        throw new IllegalArgumentException("Počet číslic " + length + " překračuje kapacitu QR kódu úrovně " + uroven);
+    }
+
+    /**
+     * Počet bitů indikátoru počtu znaků v číselném režimu.
+     */
+    private static int bituPoctu(int verze) {
+        return (verze <= 9) ? 10 : (verze <= 26) ? 12 : 14;
+    }
+
+    /**
+     * Počet modulů pro data a opravu chyb, včetně zbytkových bitů.
+     */
+    private static int datovychModulu(int verze) {
+        int result = (16 * verze + 128) * verze + 64;
+        if (verze >= 2) {
+            int zarovnani = verze / 7 + 2;
+            result -= (25 * zarovnani - 10) * zarovnani - 55;
+            if (verze >= 7) {
+                result -= 36;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Počet datových kódových slov bez opravy chyb.
+     */
+    private static int datovychSlov(int verze, UrovenKorekce uroven) {
+        return datovychModulu(verze) / 8
+                - EC_SLOV_V_BLOKU[uroven.ordinal()][verze] * POCET_BLOKU[uroven.ordinal()][verze];
+    }
+
+    /**
+     * Datová kódová slova: režim, počet číslic, číslice po trojicích, zakončení a výplň.
+     */
+    private static byte[] data(byte[] digits, int offset, int length, int verze, UrovenKorekce uroven) {
+        byte[] data = new byte[datovychSlov(verze, uroven)];
+        int pos = put(data, 0, REZIM_CISLA, 4);
+        pos = put(data, pos, length, bituPoctu(verze));
+        int i = offset;
+        int end = offset + length;
+        for (; i + 3 <= end; i += 3) {
+            pos = put(data, pos, (digits[i] - '0') * 100 + (digits[i + 1] - '0') * 10 + (digits[i + 2] - '0'), 10);
+        }
+        if (end - i == 2) {
+            pos = put(data, pos, (digits[i] - '0') * 10 + (digits[i + 1] - '0'), 7);
+        } else if (end - i == 1) {
+            pos = put(data, pos, digits[i] - '0', 4);
+        }
+
+        // Zakončení nejvýše čtyřmi nulovými bity a zarovnání na celé bajty, pole je již nulové
+        int kapacita = data.length * 8;
+        pos = Math.min(kapacita, pos + 4);
+        int slovo = (pos + 7) >>> 3;
+        for (int vypln = VYPLN_1; slovo < data.length; slovo++, vypln ^= VYPLN_1 ^ VYPLN_2) {
+            data[slovo] = (byte) vypln;
+        }
+        return data;
+    }
+
+    /**
+     * Zapíše nejvyšší bity hodnoty od předané bitové pozice.
+     *
+     * @return pozice za zapsanými bity
+     */
+    private static int put(byte[] data, int pos, int value, int bitu) {
+        for (int i = bitu - 1; i >= 0; i--, pos++) {
+            if ((value >>> i & 1) != 0) {
+                data[pos >>> 3] |= (byte) (0x80 >>> (pos & 7));
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Rozdělí data do bloků, ke každému spočte kódová slova opravy chyb a bloky prokládá.
+     */
+    private static byte[] opravaChyb(byte[] data, int verze, UrovenKorekce uroven) {
+        int bloku = POCET_BLOKU[uroven.ordinal()][verze];
+        int ecSlov = EC_SLOV_V_BLOKU[uroven.ordinal()][verze];
+        int slov = datovychModulu(verze) / 8;
+        int kratkych = bloku - slov % bloku;
+        int kratkaData = slov / bloku - ecSlov;
+
+        byte[] result = new byte[slov];
+        byte[] ec = new byte[bloku * ecSlov];
+        int[] generator = GENERATORY[ecSlov];
+        int start = 0;
+        for (int b = 0; b < bloku; b++) {
+            int delka = kratkaData + ((b < kratkych) ? 0 : 1);
+            zbytek(data, start, delka, generator, ec, b * ecSlov);
+            start += delka;
+        }
+
+        int pos = 0;
+        for (int i = 0; i <= kratkaData; i++) {
+            start = 0;
+            for (int b = 0; b < bloku; b++) {
+                int delka = kratkaData + ((b < kratkych) ? 0 : 1);
+                if (i < delka) {
+                    result[pos++] = data[start + i];
+                }
+                start += delka;
+            }
+        }
+        for (int i = 0; i < ecSlov; i++) {
+            for (int b = 0; b < bloku; b++) {
+                result[pos++] = ec[b * ecSlov + i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Zbytek po dělení datového polynomu generujícím polynomem, tj. kódová slova opravy chyb.
+     */
+    private static void zbytek(byte[] data, int from, int length, int[] generator, byte[] ec, int offset) {
+        int n = generator.length;
+        for (int i = from; i < from + length; i++) {
+            int factor = (data[i] ^ ec[offset]) & 0xFF;
+            System.arraycopy(ec, offset + 1, ec, offset, n - 1);
+            ec[offset + n - 1] = 0;
+            if (factor != 0) {
+                int logFactor = LOG[factor];
+                for (int j = 0; j < n; j++) {
+                    ec[offset + j] ^= (byte) EXP[generator[j] + logFactor];
+                }
+            }
+        }
+    }
+
+    /**
+     * Generující polynom (x - a^0)(x - a^1)...(x - a^(stupen-1)) jako logaritmy koeficientů od nejvyššího stupně,
+     * bez vedoucího koeficientu 1.
+     */
+    private static int[] generator(int stupen) {
+        int[] koeficienty = new int[stupen];
+        koeficienty[stupen - 1] = 1;
+        int root = 1;
+        for (int i = 0; i < stupen; i++) {
+            for (int j = 0; j < stupen; j++) {
+                koeficienty[j] = nasob(koeficienty[j], root);
+                if (j + 1 < stupen) {
+                    koeficienty[j] ^= koeficienty[j + 1];
+                }
+            }
+            root = nasob(root, 0x02);
+        }
+        int[] logaritmy = new int[stupen];
+        for (int j = 0; j < stupen; j++) {
+            logaritmy[j] = LOG[koeficienty[j]];
+        }
+        return logaritmy;
+    }
+
+    private static int nasob(int a, int b) {
+        return (a == 0 || b == 0) ? 0 : EXP[LOG[a] + LOG[b]];
+    }
+
+    /**
+     * Zapíše informaci o formátu do obou jejích umístění.
+     */
+    private static void format(byte[] moduly, int size, int bits) {
+        for (int i = 0; i <= 5; i++) {
+            moduly[i * size + 8] = (byte) (bits >>> i & 1);
+        }
+        moduly[7 * size + 8] = (byte) (bits >>> 6 & 1);
+        moduly[8 * size + 8] = (byte) (bits >>> 7 & 1);
+        moduly[8 * size + 7] = (byte) (bits >>> 8 & 1);
+        for (int i = 9; i < 15; i++) {
+            moduly[8 * size + 14 - i] = (byte) (bits >>> i & 1);
+        }
+        for (int i = 0; i < 8; i++) {
+            moduly[8 * size + size - 1 - i] = (byte) (bits >>> i & 1);
+        }
+        for (int i = 8; i < 15; i++) {
+            moduly[(size - 15 + i) * size + 8] = (byte) (bits >>> i & 1);
+        }
+    }
+
+    /**
+     * Zapíše informaci o formátu do řádků a sloupců jako bitů.
+     */
+    private static void formatBity(long[] radky, long[] sloupce, int size, int bits) {
+        for (int i = 0; i <= 5; i++) {
+            modul(radky, sloupce, 8, i, bits >>> i);
+        }
+        modul(radky, sloupce, 8, 7, bits >>> 6);
+        modul(radky, sloupce, 8, 8, bits >>> 7);
+        modul(radky, sloupce, 7, 8, bits >>> 8);
+        for (int i = 9; i < 15; i++) {
+            modul(radky, sloupce, 14 - i, 8, bits >>> i);
+        }
+        for (int i = 0; i < 8; i++) {
+            modul(radky, sloupce, size - 1 - i, 8, bits >>> i);
+        }
+        for (int i = 8; i < 15; i++) {
+            modul(radky, sloupce, 8, size - 15 + i, bits >>> i);
+        }
+    }
+
+    private static void modul(long[] radky, long[] sloupce, int x, int y, int bit) {
+        long b = bit & 1;
+        radky[y] = (radky[y] & ~(1L << x)) | (b << x);
+        sloupce[x] = (sloupce[x] & ~(1L << y)) | (b << y);
+    }
+
+    /**
+     * Penalizace matice podle čtyř pravidel normy: řady stejných modulů, bloky 2x2, vzory podobné vyhledávacím
+     * a nevyváženost tmavých a světlých modulů. Řádky i sloupce jsou bity jednoho {@code long}, všechna pravidla se
+     * vyhodnocují pro celý řádek najednou. Výsledek je shodný s {@link #penalizace(byte[], int)}.
+     */
+    private static int penalizaceBity(long[] radky, long[] sloupce, int size) {
+        long plna = (1L << size) - 1;
+        int penalizace = 0;
+        int tmavych = 0;
+        for (int i = 0; i < size; i++) {
+            penalizace += rady(radky[i], plna) + rady(sloupce[i], plna);
+            penalizace += (vzory(radky[i], size) + vzory(sloupce[i], size)) * N3;
+            tmavych += Long.bitCount(radky[i]);
+        }
+
+        // Pravidlo 2: moduly shodné se sousedem vpravo v obou řádcích a shodné mezi řádky
+        long dvojice = plna >>> 1;
+        for (int y = 0; y < size - 1; y++) {
+            long a = radky[y];
+            long b = radky[y + 1];
+            long shodne = ~(a ^ (a >>> 1)) & ~(b ^ (b >>> 1)) & ~(a ^ b) & dvojice;
+            penalizace += Long.bitCount(shodne) * N2;
+        }
+
+        int celkem = size * size;
+        penalizace += Math.abs(tmavych * 2 - celkem) * 10 / celkem * N4;
+        return penalizace;
+    }
+
+    /**
+     * Pravidlo 1 pro jeden řádek: každá řada {@code L >= 5} stejných modulů stojí {@code N1 + L - 5}.
+     */
+    private static int rady(long radek, long plna) {
+        // Bit x: modul x je shodný s modulem x + 1, řada L modulů je řada L - 1 bitů
+        long shodne = ~(radek ^ (radek >>> 1)) & (plna >>> 1);
+        long ctverice = shodne & (shodne >>> 1) & (shodne >>> 2) & (shodne >>> 3);
+        int zacatku = Long.bitCount(ctverice & ~(ctverice << 1));
+        return Long.bitCount(ctverice) + zacatku * (N1 - 1);
+    }
+
+    /**
+     * Pravidlo 3 pro jeden řádek: počet vzorů 1011101 se čtyřmi světlými moduly před nebo za nimi, moduly mimo matici
+     * jsou světlé.
+     */
+    private static int vzory(long radek, int size) {
+        long vzor = radek & ~(radek >>> 1) & (radek >>> 2) & (radek >>> 3) & (radek >>> 4) & ~(radek >>> 5)
+                & (radek >>> 6) & ((1L << (size - 6)) - 1);
+        if (vzor == 0) {
+            return 0;
+        }
+        long svetle = ~radek;
+        long pred = ((svetle << 1) | 0x1L) & ((svetle << 2) | 0x3L) & ((svetle << 3) | 0x7L)
+                & ((svetle << 4) | 0xFL);
+        long za = (svetle >>> 7) & (svetle >>> 8) & (svetle >>> 9) & (svetle >>> 10);
+        return Long.bitCount(vzor & (pred | za));
+    }
+
+    /**
+     * Penalizace po jednotlivých modulech pro matice širší než {@link #MAX_BITOVA_PENALIZACE}.
+     */
+    private static int penalizace(byte[] m, int size) {
+        int penalizace = 0;
+
+        // Pravidlo 1: pět a více stejných modulů v řádku nebo sloupci
+        for (int i = 0; i < size; i++) {
+            int radek = 1;
+            int sloupec = 1;
+            for (int j = 1; j < size; j++) {
+                if (m[i * size + j] == m[i * size + j - 1]) {
+                    radek++;
+                } else {
+                    penalizace += (radek >= 5) ? N1 + radek - 5 : 0;
+                    radek = 1;
+                }
+                if (m[j * size + i] == m[(j - 1) * size + i]) {
+                    sloupec++;
+                } else {
+                    penalizace += (sloupec >= 5) ? N1 + sloupec - 5 : 0;
+                    sloupec = 1;
+                }
+            }
+            penalizace += (radek >= 5) ? N1 + radek - 5 : 0;
+            penalizace += (sloupec >= 5) ? N1 + sloupec - 5 : 0;
+        }
+
+        // Pravidlo 2: bloky 2x2 stejných modulů
+        for (int y = 0; y < size - 1; y++) {
+            for (int x = 0; x < size - 1; x++) {
+                int i = y * size + x;
+                byte value = m[i];
+                if (value == m[i + 1] && value == m[i + size] && value == m[i + size + 1]) {
+                    penalizace += N2;
+                }
+            }
+        }
+
+        // Pravidlo 3: vzor 1:1:3:1:1 se čtyřmi světlými moduly před nebo za ním
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (x + 6 < size && vzor(m, y * size + x, 1)
+                        && (svetle(m, y * size, x - 4, x, 1, size) || svetle(m, y * size, x + 7, x + 11, 1, size))) {
+                    penalizace += N3;
+                }
+                if (y + 6 < size && vzor(m, y * size + x, size)
+                        && (svetle(m, x, y - 4, y, size, size) || svetle(m, x, y + 7, y + 11, size, size))) {
+                    penalizace += N3;
+                }
+            }
+        }
+
+        // Pravidlo 4: odchylka podílu tmavých modulů od 50 % v násobcích 5 %
+        int tmavych = 0;
+        for (byte value : m) {
+            tmavych += value;
+        }
+        int celkem = size * size;
+        penalizace += Math.abs(tmavych * 2 - celkem) * 10 / celkem * N4;
+        return penalizace;
+    }
+
+    private static boolean vzor(byte[] m, int i, int krok) {
+        return m[i] == 1 && m[i + krok] == 0 && m[i + 2 * krok] == 1 && m[i + 3 * krok] == 1
+                && m[i + 4 * krok] == 1 && m[i + 5 * krok] == 0 && m[i + 6 * krok] == 1;
+    }
+
+    private static boolean svetle(byte[] m, int base, int from, int to, int krok, int size) {
+        from = Math.max(from, 0);
+        to = Math.min(to, size);
+        for (int i = from; i < to; i++) {
+            if (m[base + i * krok] == 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Sablona sablona(int verze) {
+        Sablona sablona = SABLONY[verze];
+        if (sablona == null) {
+            // Souběžné vytvoření stejné šablony nevadí, šablona je po vytvoření neměnná
+            sablona = new Sablona(verze);
+            SABLONY[verze] = sablona;
+        }
+        return sablona;
+    }
+
+    /**
+     * Neměnná šablona verze: funkční vzory, pořadí datových modulů a masky pro každý datový modul.
+     */
+    private static final class Sablona {
+
+        private final int size;
+        private final byte[] moduly;
+        private final int[] poradi;
+        private final byte[] masky;
+        private final long[][] maskaRadky;
+        private final long[][] maskaSloupce;
+
+        Sablona(int verze) {
+            size = verze * 4 + 17;
+            moduly = new byte[size * size];
+            boolean[] funkcni = new boolean[size * size];
+
+            // Časovací vzory
+            for (int i = 0; i < size; i++) {
+                set(funkcni, 6, i, i % 2 == 0);
+                set(funkcni, i, 6, i % 2 == 0);
+            }
+
+            // Vyhledávací vzory s oddělovači
+            vyhledavaci(funkcni, 3, 3);
+            vyhledavaci(funkcni, size - 4, 3);
+            vyhledavaci(funkcni, 3, size - 4);
+
+            // Zarovnávací vzory
+            if (verze > 1) {
+                int pocet = verze / 7 + 2;
+                int krok = (verze * 8 + pocet * 3 + 5) / (pocet * 4 - 4) * 2;
+                int[] pozice = new int[pocet];
+                pozice[0] = 6;
+                for (int i = pocet - 1, pos = size - 7; i >= 1; i--, pos -= krok) {
+                    pozice[i] = pos;
+                }
+                for (int i = 0; i < pocet; i++) {
+                    for (int j = 0; j < pocet; j++) {
+                        if ((i == 0 && j == 0) || (i == 0 && j == pocet - 1) || (i == pocet - 1 && j == 0)) {
+                            continue;
+                        }
+                        for (int dy = -2; dy <= 2; dy++) {
+                            for (int dx = -2; dx <= 2; dx++) {
+                                set(funkcni, pozice[i] + dx, pozice[j] + dy,
+                                        Math.max(Math.abs(dx), Math.abs(dy)) != 1);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Místo pro informaci o formátu a tmavý modul
+            for (int i = 0; i < 9; i++) {
+                if (i != 6) {
+                    set(funkcni, 8, i, false);
+                    set(funkcni, i, 8, false);
+                }
+            }
+            for (int i = 0; i < 8; i++) {
+                set(funkcni, size - 1 - i, 8, false);
+                set(funkcni, 8, size - 1 - i, false);
+            }
+            set(funkcni, 8, size - 8, true);
+
+            // Informace o verzi
+            if (verze >= 7) {
+                int rem = verze;
+                for (int i = 0; i < 12; i++) {
+                    rem = (rem << 1) ^ ((rem >>> 11) * 0x1F25);
+                }
+                int bits = verze << 12 | rem;
+                for (int i = 0; i < 18; i++) {
+                    boolean bit = (bits >>> i & 1) != 0;
+                    int a = size - 11 + i % 3;
+                    int b = i / 3;
+                    set(funkcni, a, b, bit);
+                    set(funkcni, b, a, bit);
+                }
+            }
+
+            // Pořadí datových modulů: dvojice sloupců zprava doleva, střídavě nahoru a dolů
+            poradi = new int[datovychModulu(verze)];
+            masky = new byte[poradi.length];
+            int k = 0;
+            for (int right = size - 1; right >= 1; right -= 2) {
+                if (right == 6) {
+                    right = 5;
+                }
+                boolean nahoru = ((right + 1) & 2) == 0;
+                for (int vert = 0; vert < size; vert++) {
+                    int y = nahoru ? size - 1 - vert : vert;
+                    for (int j = 0; j < 2; j++) {
+                        int x = right - j;
+                        if (!funkcni[y * size + x]) {
+                            poradi[k] = y * size + x;
+                            masky[k] = masky(x, y);
+                            k++;
+                        }
+                    }
+                }
+            }
+
+            // Masky jako bity řádků a sloupců, pouze pro datové moduly
+            if (size <= MAX_BITOVA_PENALIZACE) {
+                maskaRadky = new long[8][size];
+                maskaSloupce = new long[8][size];
+                for (int i = 0; i < poradi.length; i++) {
+                    int x = poradi[i] % size;
+                    int y = poradi[i] / size;
+                    for (int maska = 0; maska < 8; maska++) {
+                        long bit = masky[i] >>> maska & 1;
+                        maskaRadky[maska][y] |= bit << x;
+                        maskaSloupce[maska][x] |= bit << y;
+                    }
+                }
+            } else {
+                maskaRadky = null;
+                maskaSloupce = null;
+            }
+        }
+
+        private void set(boolean[] funkcni, int x, int y, boolean tmavy) {
+            moduly[y * size + x] = (byte) (tmavy ? 1 : 0);
+            funkcni[y * size + x] = true;
+        }
+
+        private void vyhledavaci(boolean[] funkcni, int x, int y) {
+            for (int dy = -4; dy <= 4; dy++) {
+                for (int dx = -4; dx <= 4; dx++) {
+                    int vzdalenost = Math.max(Math.abs(dx), Math.abs(dy));
+                    int xx = x + dx;
+                    int yy = y + dy;
+                    if (xx >= 0 && xx < size && yy >= 0 && yy < size) {
+                        set(funkcni, xx, yy, vzdalenost != 2 && vzdalenost != 4);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Bit {@code i} je nastaven, pokud maska {@code i} modul invertuje.
+         */
+        private static byte masky(int x, int y) {
+            int xy = x * y;
+            int result = 0;
+            result |= ((x + y) % 2 == 0) ? 1 : 0;
+            result |= (y % 2 == 0) ? 1 << 1 : 0;
+            result |= (x % 3 == 0) ? 1 << 2 : 0;
+            result |= ((x + y) % 3 == 0) ? 1 << 3 : 0;
+            result |= ((x / 3 + y / 2) % 2 == 0) ? 1 << 4 : 0;
+            result |= (xy % 2 + xy % 3 == 0) ? 1 << 5 : 0;
+            result |= ((xy % 2 + xy % 3) % 2 == 0) ? 1 << 6 : 0;
+            result |= (((x + y) % 2 + xy % 3) % 2 == 0) ? 1 << 7 : 0;
+            return (byte) result;
+        }
+    }
+
+}
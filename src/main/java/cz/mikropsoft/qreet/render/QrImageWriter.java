@@ -0,0 +1,462 @@
+package cz.mikropsoft.qreet.render;
+
+import cz.mikropsoft.qreet.metrics.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Zápis matice modulů QR kódu jako dvoubarevného obrázku PNG nebo BMP s jedním bitem na pixel, případně jako
+ * vektorového obrázku SVG.
+ * <p>
+ * Obrázek se zapisuje po řádcích přímo do výstupu, celý rastr se nikdy nevytváří. Pixelový řádek se sestaví jednou
+ * pro každý řádek modulů a opakuje se podle velikosti modulu, v PNG se opakované řádky zapisují filtrem
+ * {@code Up}, který je komprimuje téměř na nulu. SVG obsahuje jedinou cestu složenou z úseků tmavých modulů
+ * v řádcích.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class QrImageWriter {
+
+    /**
+     * Šířka tiché zóny v modulech podle normy.
+     */
+    public static final int TICHA_ZONA = 4;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int PNG_FILTER_NONE = 0;
+    private static final int PNG_FILTER_UP = 2;
+
+    // Velikost dat jednoho bloku IDAT a bloku nekomprimovaných řádků
+    private static final int IDAT_BLOK = 1 << 15;
+    private static final int SUROVY_BLOK = 1 << 14;
+
+    private static final int BMP_HLAVICKA = 14 + 40 + 8;
+
+    // Inicializace zlib je dražší než komprese celého obrázku, Deflater se proto po vykreslení vrací do fondu. Fond
+    // drží nejvýše tolik instancí, kolik je procesorů, Deflater nad tento počet se po použití ukončí. Počet nativních
+    // instancí tak nezávisí na počtu vláken, která obrázky vykreslují.
+    private static final BlockingQueue<Deflater> DEFLATERY =
+            new ArrayBlockingQueue<Deflater>(Runtime.getRuntime().availableProcessors());
+
+    private final int velikostModulu;
+    private final int tichaZona;
+
+    /**
+     * Zápis s předanou velikostí modulu a tichou zónou podle normy.
+     *
+     * @param velikostModulu velikost modulu v pixelech
+     */
+    public QrImageWriter(int velikostModulu) {
+        this(velikostModulu, TICHA_ZONA);
+    }
+
+    /**
+     * Zápis s předanou velikostí modulu a tichou zónou.
+     *
+     * @param velikostModulu velikost modulu v pixelech
+     * @param tichaZona šířka tiché zóny v modulech
+     */
+    public QrImageWriter(int velikostModulu, int tichaZona) {
+        if (velikostModulu < 1) {
+            throw new IllegalArgumentException("Velikost modulu musí být alespoň 1 pixel.");
+        }
+        if (tichaZona < 0) {
+            throw new IllegalArgumentException("Šířka tiché zóny nesmí být záporná.");
+        }
+        this.velikostModulu = velikostModulu;
+        this.tichaZona = tichaZona;
+    }
+
+    /**
+     * Šířka a výška obrázku v pixelech.
+     *
+     * @param matrix matice modulů
+     * @return šířka obrázku
+     */
+    public int getSize(QrMatrix matrix) {
+        return (matrix.getSize() + 2 * tichaZona) * velikostModulu;
+    }
+
+    /**
+     * Zakóduje matici jako obrázek PNG do pole.
+     *
+     * @param matrix matice modulů
+     * @return obrázek PNG
+     */
+    public byte[] toPng(QrMatrix matrix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + matrix.getSize() * matrix.getSize() / 4);
+        try {
+            writePng(matrix, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Zapíše matici jako obrázek PNG do kanálu.
+     *
+     * @param matrix matice modulů
+     * @param channel cílový kanál
+     * @throws IOException chyba zápisu
+     */
+    public void writePng(QrMatrix matrix, WritableByteChannel channel) throws IOException {
+        writePng(matrix, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Zapíše matici jako obrázek PNG, šedotónový s hloubkou 1 bit.
+     *
+     * @param matrix matice modulů
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     */
+    public void writePng(QrMatrix matrix, OutputStream out) throws IOException {
+        long zacatek = Metrics.zacatek();
+        try {
+            png(matrix, out);
+        } catch (IOException | RuntimeException e) {
+            Metrics.selhani(Metrics.Operace.QR_OBRAZEK, zacatek);
+            throw e;
+        }
+        Metrics.konec(Metrics.Operace.QR_OBRAZEK, zacatek);
+    }
+
+    private void png(QrMatrix matrix, OutputStream out) throws IOException {
+        int size = getSize(matrix);
+        byte[] radek = new byte[1 + (size + 7) / 8];
+
+        out.write(PNG_SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, size);
+        putInt(ihdr, 4, size);
+        ihdr[8] = 1;  // hloubka 1 bit
+        ihdr[9] = 0;  // šedotónový
+        ihdr[10] = 0; // deflate
+        ihdr[11] = 0; // adaptivní filtry
+        ihdr[12] = 0; // bez prokládání
+        chunk(out, "IHDR", ihdr, ihdr.length);
+
+        Idat idat = new Idat(out, radek.length * size);
+        try {
+            byte[] prazdny = new byte[radek.length];
+            prazdny[0] = PNG_FILTER_UP;
+
+            int zona = tichaZona * velikostModulu;
+            svetly(radek, 1, size);
+            radek[0] = PNG_FILTER_NONE;
+            for (int y = 0; y < zona; y++) {
+                idat.write((y == 0) ? radek : prazdny);
+            }
+            for (int my = 0; my < matrix.getSize(); my++) {
+                scanline(matrix, my, radek, 1, size);
+                radek[0] = PNG_FILTER_NONE;
+                idat.write(radek);
+                for (int i = 1; i < velikostModulu; i++) {
+                    idat.write(prazdny);
+                }
+            }
+            svetly(radek, 1, size);
+            radek[0] = PNG_FILTER_NONE;
+            for (int y = 0; y < zona; y++) {
+                idat.write((y == 0) ? radek : prazdny);
+            }
+            idat.finish();
+        } finally {
+            vratit(idat.deflater);
+        }
+        chunk(out, "IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    /**
+     * Zapíše matici jako obrázek BMP do kanálu.
+     *
+     * @param matrix matice modulů
+     * @param channel cílový kanál
+     * @throws IOException chyba zápisu
+     */
+    public void writeBmp(QrMatrix matrix, WritableByteChannel channel) throws IOException {
+        writeBmp(matrix, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Zapíše matici jako nekomprimovaný obrázek BMP s paletou dvou barev.
+     *
+     * @param matrix matice modulů
+     * @param out výstup, nezavírá se
+     * @throws IOException chyba zápisu
+     */
+    public void writeBmp(QrMatrix matrix, OutputStream out) throws IOException {
+        long zacatek = Metrics.zacatek();
+        try {
+            bmp(matrix, out);
+        } catch (IOException | RuntimeException e) {
+            Metrics.selhani(Metrics.Operace.QR_OBRAZEK, zacatek);
+            throw e;
+        }
+        Metrics.konec(Metrics.Operace.QR_OBRAZEK, zacatek);
+    }
+
+    private void bmp(QrMatrix matrix, OutputStream out) throws IOException {
+        int size = getSize(matrix);
+        int delkaRadku = ((size + 31) / 32) * 4;
+        int delkaDat = delkaRadku * size;
+
+        byte[] hlavicka = new byte[BMP_HLAVICKA];
+        hlavicka[0] = 'B';
+        hlavicka[1] = 'M';
+        putIntLe(hlavicka, 2, BMP_HLAVICKA + delkaDat);
+        putIntLe(hlavicka, 10, BMP_HLAVICKA);
+        putIntLe(hlavicka, 14, 40);
+        putIntLe(hlavicka, 18, size);
+        putIntLe(hlavicka, 22, size);  // kladná výška, řádky odspodu
+        hlavicka[26] = 1;              // počet rovin
+        hlavicka[28] = 1;              // 1 bit na pixel
+        putIntLe(hlavicka, 34, delkaDat);
+        putIntLe(hlavicka, 38, 2835);  // 72 DPI
+        putIntLe(hlavicka, 42, 2835);
+        putIntLe(hlavicka, 46, 2);     // barev v paletě
+        // Paleta: 0 černá, 1 bílá
+        hlavicka[58] = (byte) 0xFF;
+        hlavicka[59] = (byte) 0xFF;
+        hlavicka[60] = (byte) 0xFF;
+        out.write(hlavicka);
+
+        byte[] radek = new byte[delkaRadku];
+        int zona = tichaZona * velikostModulu;
+        svetly(radek, 0, size);
+        for (int y = 0; y < zona; y++) {
+            out.write(radek);
+        }
+        for (int my = matrix.getSize() - 1; my >= 0; my--) {
+            scanline(matrix, my, radek, 0, size);
+            for (int i = 0; i < velikostModulu; i++) {
+                out.write(radek);
+            }
+        }
+        svetly(radek, 0, size);
+        for (int y = 0; y < zona; y++) {
+            out.write(radek);
+        }
+        out.flush();
+    }
+
+    /**
+     * Zakóduje matici jako obrázek SVG.
+     *
+     * @param matrix matice modulů
+     * @return obrázek SVG
+     */
+    public String toSvg(QrMatrix matrix) {
+        StringBuilder out = new StringBuilder(256 + matrix.getSize() * matrix.getSize() / 2);
+        try {
+            writeSvg(matrix, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Zapíše matici jako obrázek SVG. Souřadnice cesty jsou v modulech, velikost obrázku v pixelech odpovídá
+     * {@link #getSize(QrMatrix)}.
+     *
+     * @param matrix matice modulů
+     * @param out výstup, nezavírá se
+     * @param <A> typ výstupu
+     * @return předaný výstup
+     * @throws IOException chyba zápisu
+     */
+    public <A extends Appendable> A writeSvg(QrMatrix matrix, A out) throws IOException {
+        long zacatek = Metrics.zacatek();
+        try {
+            A vysledek = svg(matrix, out);
+            Metrics.konec(Metrics.Operace.QR_OBRAZEK, zacatek);
+            return vysledek;
+        } catch (IOException | RuntimeException e) {
+            Metrics.selhani(Metrics.Operace.QR_OBRAZEK, zacatek);
+            throw e;
+        }
+    }
+
+    private <A extends Appendable> A svg(QrMatrix matrix, A out) throws IOException {
+        int size = getSize(matrix);
+        int moduly = matrix.getSize() + 2 * tichaZona;
+        out.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(Integer.toString(size))
+                .append("\" height=\"").append(Integer.toString(size))
+                .append("\" viewBox=\"0 0 ").append(Integer.toString(moduly)).append(' ').append(Integer.toString(moduly))
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+                .append("<path fill=\"#000\" d=\"");
+        for (int my = 0; my < matrix.getSize(); my++) {
+            int mx = 0;
+            while (mx < matrix.getSize()) {
+                if (!matrix.get(mx, my)) {
+                    mx++;
+                    continue;
+                }
+                int od = mx;
+                while (mx < matrix.getSize() && matrix.get(mx, my)) {
+                    mx++;
+                }
+                int delka = mx - od;
+                out.append('M').append(Integer.toString(od + tichaZona)).append(' ')
+                        .append(Integer.toString(my + tichaZona))
+                        .append('h').append(Integer.toString(delka)).append("v1h-").append(Integer.toString(delka))
+                        .append('z');
+            }
+        }
+        out.append("\"/></svg>");
+        return out;
+    }
+
+    /**
+     * Sestaví pixelový řádek pro řádek modulů, tmavý modul je bit 0, světlý bit 1, nejvyšší bit bajtu vlevo.
+     */
+    private void scanline(QrMatrix matrix, int my, byte[] radek, int offset, int size) {
+        svetly(radek, offset, size);
+        int zona = tichaZona * velikostModulu;
+        for (int w = 0; w < matrix.getWordsPerRow(); w++) {
+            long word = matrix.word(my, w);
+            while (word != 0) {
+                int mx = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int from = zona + mx * velikostModulu;
+                for (int x = from; x < from + velikostModulu; x++) {
+                    radek[offset + (x >>> 3)] &= (byte) ~(0x80 >>> (x & 7));
+                }
+            }
+        }
+    }
+
+    /**
+     * Naplní řádek světlými pixely, výplň za posledním pixelem zůstává nulová.
+     */
+    private static void svetly(byte[] radek, int offset, int size) {
+        for (int i = offset; i < radek.length; i++) {
+            radek[i] = (byte) 0xFF;
+        }
+        int zbytek = size & 7;
+        if (zbytek != 0) {
+            radek[offset + size / 8] = (byte) (0xFF << (8 - zbytek));
+        }
+        for (int i = offset + (size + 7) / 8; i < radek.length; i++) {
+            radek[i] = 0;
+        }
+    }
+
+    /**
+     * Deflater z fondu, případně nový, pokud je fond prázdný.
+     */
+    private static Deflater deflater() {
+        Deflater deflater = DEFLATERY.poll();
+        return (deflater != null) ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Vrátí Deflater do fondu, do plného fondu se nevrací a jeho nativní paměť se uvolní.
+     */
+    private static void vratit(Deflater deflater) {
+        deflater.reset();
+        if (!DEFLATERY.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Komprimovaná data obrázku PNG. Pixelové řádky se shromažďují v omezeném bloku a komprimují se po blocích,
+     * komprimovaná data se zapisují jako bloky IDAT.
+     */
+    private static final class Idat {
+
+        private final OutputStream out;
+        private final Deflater deflater = deflater();
+        private final byte[] surova;
+        private final byte[] komprimovana;
+        private int delka;
+        private int pozice;
+
+        Idat(OutputStream out, int celkem) {
+            this.out = out;
+            this.surova = new byte[Math.min(SUROVY_BLOK, celkem)];
+            this.komprimovana = new byte[Math.min(IDAT_BLOK, 64 + celkem / 8)];
+        }
+
+        void write(byte[] radek) throws IOException {
+            if (delka + radek.length > surova.length) {
+                deflate();
+            }
+            System.arraycopy(radek, 0, surova, delka, radek.length);
+            delka += radek.length;
+        }
+
+        void finish() throws IOException {
+            deflate();
+            deflater.finish();
+            while (!deflater.finished()) {
+                vyprazdnit();
+            }
+            if (pozice > 0) {
+                chunk(out, "IDAT", komprimovana, pozice);
+            }
+        }
+
+        private void deflate() throws IOException {
+            deflater.setInput(surova, 0, delka);
+            while (!deflater.needsInput()) {
+                vyprazdnit();
+            }
+            delka = 0;
+        }
+
+        private void vyprazdnit() throws IOException {
+            pozice += deflater.deflate(komprimovana, pozice, komprimovana.length - pozice);
+            if (pozice == komprimovana.length) {
+                chunk(out, "IDAT", komprimovana, pozice);
+                pozice = 0;
+            }
+        }
+    }
+
+    private static void chunk(OutputStream out, String typ, byte[] data, int length) throws IOException {
+        byte[] hlavicka = new byte[8];
+        putInt(hlavicka, 0, length);
+        for (int i = 0; i < 4; i++) {
+            hlavicka[4 + i] = (byte) typ.charAt(i);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(hlavicka, 4, 4);
+        crc.update(data, 0, length);
+        byte[] paticka = new byte[4];
+        putInt(paticka, 0, (int) crc.getValue());
+
+        out.write(hlavicka);
+        out.write(data, 0, length);
+        out.write(paticka);
+    }
+
+    private static void putInt(byte[] dst, int offset, int value) {
+        dst[offset] = (byte) (value >>> 24);
+        dst[offset + 1] = (byte) (value >>> 16);
+        dst[offset + 2] = (byte) (value >>> 8);
+        dst[offset + 3] = (byte) value;
+    }
+
+    private static void putIntLe(byte[] dst, int offset, int value) {
+        dst[offset] = (byte) value;
+        dst[offset + 1] = (byte) (value >>> 8);
+        dst[offset + 2] = (byte) (value >>> 16);
+        dst[offset + 3] = (byte) (value >>> 24);
+    }
+
+}
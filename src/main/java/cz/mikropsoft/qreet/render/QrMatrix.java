@@ -0,0 +1,144 @@
+package cz.mikropsoft.qreet.render;
+
+/**
+ * Matice modulů QR kódu, bez tiché zóny. Moduly jsou uloženy po řádcích jako bity v poli {@code long}, každý řádek
+ * začíná novým slovem a bit 0 slova odpovídá nejlevějšímu modulu.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class QrMatrix {
+
+    private final int verze;
+    private final UrovenKorekce uroven;
+    private final int maska;
+    private final int size;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    /**
+     * Konstruktor.
+     *
+     * @param verze verze QR kódu 1-40
+     * @param uroven úroveň opravy chyb
+     * @param maska použitá maska 0-7
+     * @param moduly moduly po řádcích, 1 pro tmavý modul
+     */
+    QrMatrix(int verze, UrovenKorekce uroven, int maska, byte[] moduly) {
+        this.verze = verze;
+        this.uroven = uroven;
+        this.maska = maska;
+        this.size = verze * 4 + 17;
+        this.wordsPerRow = (size + 63) >>> 6;
+        this.bits = new long[wordsPerRow * size];
+        for (int y = 0; y < size; y++) {
+            int row = y * size;
+            int word = y * wordsPerRow;
+            for (int x = 0; x < size; x++) {
+                if (moduly[row + x] != 0) {
+                    bits[word + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+    }
+
+    /**
+     * Konstruktor pro matice o straně nejvýše 64 modulů.
+     *
+     * @param verze verze QR kódu 1-11
+     * @param uroven úroveň opravy chyb
+     * @param maska použitá maska 0-7
+     * @param radky řádky matice, bit 0 odpovídá nejlevějšímu modulu
+     */
+    QrMatrix(int verze, UrovenKorekce uroven, int maska, long[] radky) {
+        this.verze = verze;
+        this.uroven = uroven;
+        this.maska = maska;
+        this.size = verze * 4 + 17;
+        this.wordsPerRow = 1;
+        this.bits = radky;
+    }
+
+    /**
+     * Verze QR kódu.
+     *
+     * @return verze 1-40
+     */
+    public int getVerze() {
+        return verze;
+    }
+
+    /**
+     * Úroveň opravy chyb.
+     *
+     * @return {@link UrovenKorekce}
+     */
+    public UrovenKorekce getUroven() {
+        return uroven;
+    }
+
+    /**
+     * Maska s nejnižší penalizací, která byla na data použita.
+     *
+     * @return maska 0-7
+     */
+    public int getMaska() {
+        return maska;
+    }
+
+    /**
+     * Počet modulů na straně matice.
+     *
+     * @return {@code 4 * verze + 17}
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Vrací {@code true} pro tmavý modul.
+     *
+     * @param x sloupec od 0
+     * @param y řádek od 0
+     * @return příznak tmavého modulu
+     */
+    public boolean get(int x, int y) {
+        if (x < 0 || x >= size || y < 0 || y >= size) {
+            throw new IndexOutOfBoundsException("Modul [" + x + ", " + y + "] leží mimo matici " + size + "x" + size);
+        }
+        return (bits[y * wordsPerRow + (x >>> 6)] >>> x & 1L) != 0;
+    }
+
+    /**
+     * Slovo řádku matice, bez kontroly mezí.
+     *
+     * @param y řádek
+     * @param word pořadí slova v řádku
+     * @return 64 modulů řádku počínaje modulem {@code 64 * word}
+     */
+    long word(int y, int word) {
+        return bits[y * wordsPerRow + word];
+    }
+
+    /**
+     * Počet slov na jeden řádek matice.
+     *
+     * @return počet slov
+     */
+    int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder((size * 2 + 1) * size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                sb.append(get(x, y) ? "██" : "  ");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,37 @@
+package cz.mikropsoft.qreet.render;
+
+/**
+ * Úroveň opravy chyb QR kódu.
+ * <ul>
+ *     <li>L - obnoví přibližně 7 % kódových slov</li>
+ *     <li>M - obnoví přibližně 15 % kódových slov</li>
+ *     <li>Q - obnoví přibližně 25 % kódových slov</li>
+ *     <li>H - obnoví přibližně 30 % kódových slov</li>
+ * </ul>
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public enum UrovenKorekce {
+    L(1),
+    M(0),
+    Q(3),
+    H(2)
+    ;
+
+    private final int formatBits;
+
+    UrovenKorekce(int formatBits) {
+        this.formatBits = formatBits;
+    }
+
+    /**
+     * Dva bity úrovně v informaci o formátu.
+     *
+     * @return bity úrovně
+     */
+    int getFormatBits() {
+        return formatBits;
+    }
+
+}
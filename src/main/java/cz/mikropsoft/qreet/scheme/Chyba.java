@@ -0,0 +1,104 @@
+package cz.mikropsoft.qreet.scheme;
+
+/**
+ * Důvod, proč předaný řetězec není validní zakódovanou informací o účtence, případně validním kódem FIK, BKP nebo
+ * DIČ, nebo proč řádek CSV není validní účtenkou. Výsledek validace je jedno číslo, které nese chybu i pozici
+ * chybného znaku, viz {@link Validace}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public enum Chyba {
+    PRAZDNY("kód", "Kód účtenky nebyl předán"),
+    DELKA("kód", "Délka neodpovídá verzi kódu"),
+    ZNAK("kód", "Znak není dekadická číslice"),
+    TYP_KODU("verze", "Nepřípustný typ kódu"),
+    VERZE_DIC("verze", "Nepřípustná verze DIČ"),
+    REZIM("režim tržby", "Nepřípustný režim tržby"),
+    DATUM("datum", "Neplatné datum a čas transakce"),
+    KOD("kódy", "Skupina kódu je mimo rozsah hexadecimálních číslic"),
+    CASTKA("částka", "Částka je mimo zpracovatelný rozsah"),
+    FIK("FIK", "Kód FIK neodpovídá vzoru xxxxxxxx-xxxx-xxxx"),
+    BKP("BKP", "Kód BKP neodpovídá vzoru xxxxxxxx-xxxxxxxx"),
+    DIC("DIČ", "DIČ neodpovídá vzoru CZ[0-9]{8,10}"),
+    SLOUPEC("sloupec", "Řádek neobsahuje povinný sloupec")
+    ;
+
+    private static final Chyba[] VALUES = values();
+
+    private final String pole;
+    private final String zprava;
+
+    /**
+     * Privátní konstruktor.
+     *
+     * @param pole název položky, ve které chyba nastala
+     * @param zprava popis chyby
+     */
+    Chyba(String pole, String zprava) {
+        this.pole = pole;
+        this.zprava = zprava;
+    }
+
+    /**
+     * Název položky specifikace, ve které chyba nastala.
+     *
+     * @return název položky
+     */
+    public String getPole() {
+        return pole;
+    }
+
+    /**
+     * Popis chyby.
+     *
+     * @return zpráva
+     */
+    public String getZprava() {
+        return zprava;
+    }
+
+    /**
+     * Zakóduje chybu a pozici znaku, na které nastala, do jednoho nenulového čísla. Zpět se rozloží metodami
+     * {@link #of(int)} a {@link #offset(int)}.
+     *
+     * @param chyba {@link Chyba}
+     * @param offset pozice znaku
+     * @return výsledek validace
+     */
+    public static int vysledek(Chyba chyba, int offset) {
+        return (offset << 8) | (chyba.ordinal() + 1);
+    }
+
+    /**
+     * Vrací {@link Chyba} z výsledku validace.
+     *
+     * @param vysledek výsledek validace
+     * @return {@link Chyba}, nebo {@code null} pokud je výsledek validní
+     */
+    public static Chyba of(int vysledek) {
+        int ordinal = (vysledek & 0xFF) - 1;
+        return ordinal < 0 ? null : VALUES[ordinal];
+    }
+
+    /**
+     * Vrací pozici znaku, na které chyba nastala, z výsledku validace.
+     *
+     * @param vysledek výsledek validace
+     * @return pozice znaku
+     */
+    public static int offset(int vysledek) {
+        return vysledek >>> 8;
+    }
+
+    /**
+     * Zpráva s popisem chyby pro výjimku.
+     *
+     * @param vysledek výsledek validace
+     * @return zpráva
+     */
+    static String zprava(int vysledek) {
+        Chyba chyba = of(vysledek);
+        return chyba.getZprava() + " (položka " + chyba.getPole() + ", pozice " + offset(vysledek) + ").";
+    }
+}
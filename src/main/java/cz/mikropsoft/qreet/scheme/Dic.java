@@ -1,7 +1,6 @@
 package cz.mikropsoft.qreet.scheme;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import cz.mikropsoft.qreet.utils.DigitUtils;
 
 /**
  * DIČ poplatníka - tato položka není povinná.
@@ -11,9 +10,6 @@ import java.util.regex.Pattern;
  */
 public class Dic implements QrEet {
 
-    // Vzor pro DIČ
-    private static final Pattern DIC_PATTERN = Pattern.compile("^(CZ)?(\\d{8,10})$");
-
     /**
      * Druhá číslice z attributu {@link Verze}.
      * <ul>
@@ -26,21 +22,28 @@ public class Dic implements QrEet {
      * </ul>
      */
     public enum Verze implements QrEet {
-        PRAZDNY("1"),
-        OSM_CISLIC("2"),
-        DEVET_CISLIC("3"),
-        DESET_CISLIC("4")
+        PRAZDNY("1", 0),
+        OSM_CISLIC("2", 8),
+        DEVET_CISLIC("3", 9),
+        DESET_CISLIC("4", 10)
         ;
 
+        // Verze podle dekadické číslice
+        private static final Verze[] PODLE_CISLICE = {null, PRAZDNY, OSM_CISLIC, DEVET_CISLIC, DESET_CISLIC,
+                null, null, null, null, null};
+
         private final String value;
+        private final int delka;
 
         /**
          * Privátní konstruktor.
          *
          * @param value dekadická formátu DIČ
+         * @param delka počet číslic DIČ
          */
-        Verze(String value) {
+        Verze(String value, int delka) {
             this.value = value;
+            this.delka = delka;
         }
 
         /**
@@ -54,16 +57,12 @@ public class Dic implements QrEet {
         }
 
         /**
-         * @see Verze#parse(char)
+         * Počet číslic DIČ v zakódované podobě.
+         *
+         * @return 0, 8, 9 nebo 10
          */
-        private static Verze parse(int value) {
-            String s = Integer.toString(value);
-            for (Verze verze : Verze.values()) {
-                if (verze.qrValue().equals(s)) {
-                    return verze;
-                }
-            }
-            return null;
+        int getDelka() {
+            return delka;
         }
 
         /**
@@ -73,27 +72,36 @@ public class Dic implements QrEet {
          * @return {@link Verze}, nebo {@code null}
          */
         public static Verze parse(char codePoint) {
-            int value = Character.getNumericValue(codePoint);
-            return Verze.parse(value);
+            int digit = codePoint - '0';
+            return (digit >= 0 && digit <= 9) ? PODLE_CISLICE[digit] : null;
         }
     }
 
-    private String value;
-    private Verze verze;
+    /**
+     * Sdílený prázdný DIČ.
+     */
+    public static final Dic PRAZDNY = new Dic(null, Verze.PRAZDNY, 0L);
+
+    private final String value;
+    private final Verze verze;
+    private final long cislo;
 
     /**
      * Privátní konstruktor.
      *
      * @param value hodnota DIČ
      * @param verze {@link Dic.Verze}
+     * @param cislo číselná hodnota DIČ
      */
-    private Dic(String value, Dic.Verze verze) {
+    private Dic(String value, Dic.Verze verze, long cislo) {
         this.value = value;
         this.verze = verze;
+        this.cislo = cislo;
     }
 
     /**
-     * Vrací {@link Dic} na základě předaného value.
+     * Vrací {@link Dic} na základě předaného value. Prázdný DIČ je vždy sdílený, ostatní jsou sdílené při zapnuté
+     * {@link DicPool#getDefault() paměti DIČ}.
      *
      * @param dic DIČ poplatníka - tato položka není povinná
      * @return {@link Dic}
@@ -101,24 +109,83 @@ public class Dic implements QrEet {
     public static Dic parse(String dic) {
 
         if (dic == null) {
-            return new Dic(null, Verze.PRAZDNY);
-        } else {
-
-            Matcher matcher = DIC_PATTERN.matcher(dic.toUpperCase());
-            if (matcher.matches()) {
-
-                String value = matcher.group(2);
-                int length = value.length();
-                if (length == 8) {
-                    return new Dic(value, Verze.OSM_CISLIC);
-                } else if (length == 9) {
-                    return new Dic(value, Verze.DEVET_CISLIC);
-                } else if (length == 10) {
-                    return new Dic(value, Verze.DESET_CISLIC);
-                }
+            return PRAZDNY;
+        } else if (validate(dic) == 0) {
+
+            int from = prefix(dic);
+            int length = dic.length() - from;
+            Verze verze = (length == 8) ? Verze.OSM_CISLIC : (length == 9) ? Verze.DEVET_CISLIC : Verze.DESET_CISLIC;
+            long cislo = DigitUtils.parseDigits(dic, from, dic.length());
+            DicPool pool = DicPool.getDefault();
+            if (pool != null) {
+                return pool.of(verze, cislo);
+            }
+            return new Dic(dic.substring(from), verze, cislo);
+        }
+        throw new IllegalArgumentException("Předaný DIČ neodpovídá vzoru \"CZ[0-9]{8,10}\"");
+    }
+
+    /**
+     * Ověří vzor DIČ {@code (CZ)?[0-9]{8,10}} bez vyhození výjimky, předpona CZ může být i malými písmeny.
+     *
+     * @param dic DIČ poplatníka, {@code null} je validní prázdný DIČ
+     * @return 0 pokud DIČ odpovídá vzoru, jinak výsledek dle {@link Chyba#vysledek(Chyba, int)}
+     */
+    static int validate(CharSequence dic) {
+        if (dic == null) {
+            return 0;
+        }
+        int from = prefix(dic);
+        int length = dic.length();
+        for (int i = from; i < length; i++) {
+            char c = dic.charAt(i);
+            if (c < '0' || c > '9') {
+                return Chyba.vysledek(Chyba.DIC, i);
             }
-            throw new IllegalArgumentException("Předaný DIČ neodpovídá vzoru \"CZ[0-9]{8,10}\"");
         }
+        int cislic = length - from;
+        if (cislic < 8 || cislic > 10) {
+            return Chyba.vysledek(Chyba.DIC, length);
+        }
+        return 0;
+    }
+
+    /**
+     * Délka předpony CZ, 0 pokud DIČ předponu nemá.
+     */
+    private static int prefix(CharSequence dic) {
+        if (dic.length() >= 2 && (dic.charAt(0) | 0x20) == 'c' && (dic.charAt(1) | 0x20) == 'z') {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Vrací {@link Dic} z jeho číselné hodnoty, bez kontroly vzoru.
+     *
+     * @param verze verze DIČ poplatníka
+     * @param cislo číselná hodnota DIČ
+     * @return {@link Dic}
+     */
+    static Dic of(Verze verze, long cislo) {
+        if (verze == Verze.PRAZDNY) {
+            return PRAZDNY;
+        }
+        DicPool pool = DicPool.getDefault();
+        return (pool != null) ? pool.of(verze, cislo) : create(verze, cislo);
+    }
+
+    /**
+     * Vytvoří nový neprázdný {@link Dic} z jeho číselné hodnoty.
+     *
+     * @param verze verze DIČ poplatníka
+     * @param cislo číselná hodnota DIČ
+     * @return {@link Dic}
+     */
+    static Dic create(Verze verze, long cislo) {
+        char[] digits = new char[verze.getDelka()];
+        DigitUtils.putDigits(cislo, digits.length, digits, 0);
+        return new Dic(new String(digits), verze, cislo);
     }
 
     /**
@@ -131,6 +198,15 @@ public class Dic implements QrEet {
         return value;
     }
 
+    /**
+     * DIČ poplatníka jako číslo, pro prázdný DIČ vrací 0.
+     *
+     * @return číselná hodnota DIČ
+     */
+    public long getCislo() {
+        return cislo;
+    }
+
     /**
      * Výčtová hodnota {@link Verze}.
      *
@@ -152,6 +228,23 @@ public class Dic implements QrEet {
         return value != null && value.length() != 0;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Dic)) {
+            return false;
+        }
+        Dic dic = (Dic) o;
+        return cislo == dic.cislo && verze == dic.verze;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(cislo) + verze.hashCode();
+    }
+
     @Override
     public String toString() {
         return "Dic{" +
@@ -0,0 +1,97 @@
+package cz.mikropsoft.qreet.scheme;
+
+import java.util.Arrays;
+
+/**
+ * Omezená paměť sdílených instancí {@link Dic}. Účtenky jednoho obchodníka nesou stále stejný DIČ, se zapnutou
+ * pamětí proto {@link Dic#parse(String)} i dekódování účtenky vrací již existující instanci a nealokují.
+ * <p>
+ * Paměť je přímo mapovaná: každý DIČ má podle své číselné hodnoty jediné místo a při kolizi novější DIČ starší
+ * nahradí. Velikost je tak pevná a vyhledání konstantní, bez zámků; {@link Dic} je neměnný a jeho finální položky
+ * zaručují bezpečné zveřejnění i bez synchronizace.
+ * <p>
+ * Paměť je ve výchozím stavu vypnutá, zapíná se přes {@link #setDefault(DicPool)}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class DicPool {
+
+    private static volatile DicPool defaultPool;
+
+    private final Dic[] sloty;
+    private final int maska;
+
+    /**
+     * Paměť s předanou kapacitou.
+     *
+     * @param kapacita počet míst, zaokrouhlí se nahoru na mocninu dvou
+     */
+    public DicPool(int kapacita) {
+        if (kapacita < 1 || kapacita > (1 << 24)) {
+            throw new IllegalArgumentException("Kapacita paměti DIČ musí být v rozsahu 1-16777216.");
+        }
+        int size = (kapacita == 1) ? 1 : Integer.highestOneBit(kapacita - 1) << 1;
+        this.sloty = new Dic[size];
+        this.maska = size - 1;
+    }
+
+    /**
+     * Paměť používaná při vytváření {@link Dic}.
+     *
+     * @return paměť, nebo {@code null} pokud je vypnutá
+     */
+    public static DicPool getDefault() {
+        return defaultPool;
+    }
+
+    /**
+     * Nastaví paměť používanou při vytváření {@link Dic}.
+     *
+     * @param pool paměť, nebo {@code null} pro vypnutí
+     */
+    public static void setDefault(DicPool pool) {
+        defaultPool = pool;
+    }
+
+    /**
+     * Vrací sdílený neprázdný {@link Dic}, případně jej vytvoří a uloží.
+     *
+     * @param verze verze DIČ poplatníka
+     * @param cislo číselná hodnota DIČ
+     * @return {@link Dic}
+     */
+    Dic of(Dic.Verze verze, long cislo) {
+        long h = (cislo * 5 + verze.ordinal()) * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h >>> 40) & maska;
+        Dic dic = sloty[slot];
+        if (dic == null || dic.getCislo() != cislo || dic.getVerze() != verze) {
+            dic = Dic.create(verze, cislo);
+            sloty[slot] = dic;
+        }
+        return dic;
+    }
+
+    /**
+     * Počet míst paměti.
+     *
+     * @return kapacita
+     */
+    public int getKapacita() {
+        return sloty.length;
+    }
+
+    /**
+     * Uvolní všechny uložené instance.
+     */
+    public void clear() {
+        Arrays.fill(sloty, null);
+    }
+
+    @Override
+    public String toString() {
+        return "DicPool{" +
+                "kapacita=" + sloty.length +
+                '}';
+    }
+}
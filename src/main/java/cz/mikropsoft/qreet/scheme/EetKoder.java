@@ -0,0 +1,170 @@
+package cz.mikropsoft.qreet.scheme;
+
+import cz.mikropsoft.qreet.utils.DigitUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Zápis zakódované informace o účtence z primitivních hodnot jednotlivých položek, bez alokace pomocných objektů.
+ * <p>
+ * VERZE : REŽIM TRŽBY : DATUM : DIČ : KÓDY : ČÁSTKA
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+final class EetKoder {
+
+    // Počet číslic položek VERZE, REŽIM TRŽBY, DATUM a KÓDY
+    private static final int DELKA_PEVNA = 2 + 1 + 10 + 20;
+
+    // Minimální počet číslic částky, odpovídá formátu "##0.00"
+    private static final int DELKA_CASTKY_MIN = 3;
+
+    // Do této hodnoty v Kč lze částku bezpečně zaokrouhlit na haléře v aritmetice double
+    private static final double CASTKA_DOUBLE_MAX = 1e13;
+
+    private EetKoder() {
+    }
+
+    /**
+     * Převede částku v Kč na haléře. Zaokrouhluje se stejně jako {@code DecimalFormat("##0.00")}, tj. přesná binární
+     * hodnota částky na celé haléře metodou {@link RoundingMode#HALF_EVEN}.
+     *
+     * @param castka částka v Kč
+     * @return absolutní hodnota částky v haléřích
+     */
+    static long haleru(double castka) {
+        if (Double.isNaN(castka) || Double.isInfinite(castka)) {
+            throw new IllegalArgumentException("Částka musí být konečné číslo.");
+        }
+        double abs = Math.abs(castka);
+        if (abs < CASTKA_DOUBLE_MAX) {
+            double haleru = abs * 100;
+            if (haleru - Math.floor(haleru) != 0.5) {
+                return (long) Math.rint(haleru);
+            }
+        }
+        // Výjimečný případ: polovina haléře po zaokrouhlení součinu, nebo velmi velká částka
+        try {
+            return new BigDecimal(abs).movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Částka " + castka + " je mimo zpracovatelný rozsah.", e);
+        }
+    }
+
+    /**
+     * Vrací {@code true} pokud je částka záporná, včetně záporné nuly (shodně s {@code DecimalFormat}).
+     *
+     * @param castka částka v Kč
+     * @return příznak záporné částky
+     */
+    static boolean zaporna(double castka) {
+        return castka < 0 || (castka == 0 && 1 / castka < 0);
+    }
+
+    /**
+     * Délka zakódované informace o účtence.
+     *
+     * @param dic verze DIČ poplatníka
+     * @param haleru absolutní hodnota částky v haléřích
+     * @param zaporna příznak záporné částky
+     * @return počet znaků
+     */
+    static int length(Dic.Verze dic, long haleru, boolean zaporna) {
+        return DELKA_PEVNA + dic.getDelka() + delkaCastky(haleru) + (zaporna ? 1 : 0);
+    }
+
+    private static int delkaCastky(long haleru) {
+        return Math.max(DELKA_CASTKY_MIN, DigitUtils.digitCount(haleru));
+    }
+
+    private static char digit(QrEet value) {
+        return value.qrValue().charAt(0);
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence do předaného pole znaků.
+     *
+     * @return pozice za posledním zapsaným znakem
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     */
+    static int encode(char[] dst, int offset, Kod.Typ typ, Dic.Verze dicVerze, Rezim rezim, long datumCas,
+                      long dic, long kodHi, long kodLo, long haleru, boolean zaporna) {
+
+        int length = length(dicVerze, haleru, zaporna);
+        if (offset < 0 || offset > dst.length - length) {
+            throw new IndexOutOfBoundsException("Zakódovaná účtenka (" + length + " znaků) se do pole nevejde.");
+        }
+
+        int i = offset;
+        dst[i++] = digit(typ);
+        dst[i++] = digit(dicVerze);
+        dst[i++] = digit(rezim);
+        i = DigitUtils.putDigits(datumCas, 10, dst, i);
+        if (dicVerze.getDelka() != 0) {
+            i = DigitUtils.putDigits(dic, dicVerze.getDelka(), dst, i);
+        }
+        i = DigitUtils.putDigits(kodHi, 10, dst, i);
+        i = DigitUtils.putDigits(kodLo, 10, dst, i);
+        if (zaporna) {
+            dst[i++] = '-';
+        }
+        return DigitUtils.putDigits(haleru, delkaCastky(haleru), dst, i);
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence jako ASCII do předaného pole bajtů.
+     *
+     * @return pozice za posledním zapsaným bajtem
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     */
+    static int encode(byte[] dst, int offset, Kod.Typ typ, Dic.Verze dicVerze, Rezim rezim, long datumCas,
+                      long dic, long kodHi, long kodLo, long haleru, boolean zaporna) {
+
+        int length = length(dicVerze, haleru, zaporna);
+        if (offset < 0 || offset > dst.length - length) {
+            throw new IndexOutOfBoundsException("Zakódovaná účtenka (" + length + " bajtů) se do pole nevejde.");
+        }
+
+        int i = offset;
+        dst[i++] = (byte) digit(typ);
+        dst[i++] = (byte) digit(dicVerze);
+        dst[i++] = (byte) digit(rezim);
+        i = DigitUtils.putDigits(datumCas, 10, dst, i);
+        if (dicVerze.getDelka() != 0) {
+            i = DigitUtils.putDigits(dic, dicVerze.getDelka(), dst, i);
+        }
+        i = DigitUtils.putDigits(kodHi, 10, dst, i);
+        i = DigitUtils.putDigits(kodLo, 10, dst, i);
+        if (zaporna) {
+            dst[i++] = '-';
+        }
+        return DigitUtils.putDigits(haleru, delkaCastky(haleru), dst, i);
+    }
+
+    /**
+     * Připojí zakódovanou informaci o účtence k předanému {@link Appendable}.
+     *
+     * @throws IOException chyba zápisu do {@link Appendable}
+     */
+    static void encode(Appendable out, Kod.Typ typ, Dic.Verze dicVerze, Rezim rezim, long datumCas,
+                       long dic, long kodHi, long kodLo, long haleru, boolean zaporna) throws IOException {
+
+        out.append(digit(typ));
+        out.append(digit(dicVerze));
+        out.append(digit(rezim));
+        DigitUtils.appendDigits(datumCas, 10, out);
+        if (dicVerze.getDelka() != 0) {
+            DigitUtils.appendDigits(dic, dicVerze.getDelka(), out);
+        }
+        DigitUtils.appendDigits(kodHi, 10, out);
+        DigitUtils.appendDigits(kodLo, 10, out);
+        if (zaporna) {
+            out.append('-');
+        }
+        DigitUtils.appendDigits(haleru, delkaCastky(haleru), out);
+    }
+
+}
@@ -1,15 +1,15 @@
 package cz.mikropsoft.qreet.scheme;
 
-import cz.mikropsoft.qreet.utils.StringUtils;
+import cz.mikropsoft.qreet.metrics.Metrics;
+import cz.mikropsoft.qreet.utils.DateUtils;
 import net.glxn.qrgen.core.scheme.Schema;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
-import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.TimeZone;
 
 /**
  * EET účtenka.
@@ -19,18 +19,29 @@ import java.util.regex.Pattern;
  */
 public class EetUctenka extends Schema {
 
-    // Vzor data s časem
-    public static final SimpleDateFormat DATUM_CAS_TRANSAKCE_FORMAT = new SimpleDateFormat("yyMMddHHmm");
+    /**
+     * Časová zóna, ve které se datum a čas transakce zapisuje do kódu účtenky.
+     */
+    public static final ZoneId ZONA_TRANSAKCE = ZoneId.of("Europe/Prague");
 
     /**
-     * VERZE : REŽIM TRŽBY : DATUM      : DIČ        : KÓDY                 : ČÁSTKA
-     * 14    : 0           : 1705061401 : 7900110063 : 07432313440008517650 : 3411300       pro FIK
-     * 24    : 0           : 1705061401 : 7900110063 : 16833376183600226410 : 3411300       pro BKP
+     * Vzor data s časem v časové zóně {@link #ZONA_TRANSAKCE}.
+     *
+     * @deprecated {@link SimpleDateFormat} není bezpečný pro souběžné použití z více vláken, knihovna jej již
+     * nepoužívá. Datum a čas převádí {@link DateUtils}.
      */
-    private static final Pattern QR_PATTERN = Pattern.compile("^(\\d{2})(\\d{1})(\\d{10})(\\d{10})(\\d{20})(\\d+)");
+    @Deprecated
+    public static final SimpleDateFormat DATUM_CAS_TRANSAKCE_FORMAT = new SimpleDateFormat("yyMMddHHmm");
+
+    // Příznak chybějícího data a času transakce
+    private static final int BEZ_DATA = Integer.MIN_VALUE;
+
+    static {
+        DATUM_CAS_TRANSAKCE_FORMAT.setTimeZone(TimeZone.getTimeZone(ZONA_TRANSAKCE));
+    }
 
     private Rezim rezim;
-    private Date datumCasTransakce;
+    private int minuta = BEZ_DATA;
     private Dic dic;
     private Kod kod;
     private double castka;
@@ -52,13 +63,34 @@ public class EetUctenka extends Schema {
      * @param rezim režim v jakém byla účtenka vystavena
      */
     private EetUctenka(Kod kod, String dic, double castka, Date datumCasTransakce, Rezim rezim) {
+        this(kod, dic, castka, (datumCasTransakce == null) ? BEZ_DATA
+                : (int) DateUtils.epochMinute(datumCasTransakce.getTime(), ZONA_TRANSAKCE), rezim);
+    }
+
+    /**
+     * Privátní konstruktor.
+     *
+     * @param kod FIK nebo BKP
+     * @param dic nepovinný DIČ poplatníka
+     * @param castka zaplaceno
+     * @param minuta místní datum a čas transakce v minutách od 1970-01-01T00:00
+     * @param rezim režim v jakém byla účtenka vystavena
+     */
+    private EetUctenka(Kod kod, String dic, double castka, int minuta, Rezim rezim) {
         this.kod = kod;
         this.dic = Dic.parse(dic);
         this.castka = castka;
-        this.datumCasTransakce = datumCasTransakce;
+        this.minuta = minuta;
         this.rezim = rezim;
     }
 
+    /**
+     * Místní datum a čas v minutách od 1970-01-01T00:00.
+     */
+    private static int minuta(LocalDateTime datumCasTransakce) {
+        return (datumCasTransakce == null) ? BEZ_DATA : (int) DateUtils.epochMinute(datumCasTransakce);
+    }
+
     /**
      * Statická factory k vytvoření {@link EetUctenka} s fiskálním identifikačním kódem.
      *
@@ -74,6 +106,20 @@ public class EetUctenka extends Schema {
         return new EetUctenka(Kod.ofFik(fik), dic, castka, datumCasTransakce, rezim);
     }
 
+    /**
+     * Statická factory k vytvoření {@link EetUctenka} s fiskálním identifikačním kódem.
+     *
+     * @param fik fiskální identifikační kód
+     * @param dic nepovinný DIČ poplatníka
+     * @param castka zaplaceno
+     * @param datumCasTransakce místní datum a čas v časové zóně {@link #ZONA_TRANSAKCE}, kdy byla platba provedena
+     * @param rezim režim v jakém byla účtenka vystavena
+     * @return naplněná {@link EetUctenka}
+     */
+    public static EetUctenka ofFik(String fik, String dic, double castka, LocalDateTime datumCasTransakce, Rezim rezim) {
+        return new EetUctenka(Kod.ofFik(fik), dic, castka, minuta(datumCasTransakce), rezim);
+    }
+
     /**
      * Statická factory k vytvoření {@link EetUctenka} s bezpečnostním kódem poplatníka.
      *
@@ -90,12 +136,17 @@ public class EetUctenka extends Schema {
     }
 
     /**
-     * Zakódovaná verze v dekadické soustavě (2 číslice).
+     * Statická factory k vytvoření {@link EetUctenka} s bezpečnostním kódem poplatníka.
      *
-     * @return 2 číslice dekadické soustavy
+     * @param bkp bezpečnostní kód poplatníka
+     * @param dic nepovinný DIČ poplatníka
+     * @param castka zaplaceno
+     * @param datumCasTransakce místní datum a čas v časové zóně {@link #ZONA_TRANSAKCE}, kdy byla platba provedena
+     * @param rezim režim v jakém byla účtenka vystavena
+     * @return naplněná {@link EetUctenka}
      */
-    private Verze getVerze() {
-        return new Verze(kod.getTyp(), dic.getVerze());
+    public static EetUctenka ofBkp(String bkp, String dic, double castka, LocalDateTime datumCasTransakce, Rezim rezim) {
+        return new EetUctenka(Kod.ofBkp(bkp), dic, castka, minuta(datumCasTransakce), rezim);
     }
 
     /**
@@ -108,15 +159,15 @@ public class EetUctenka extends Schema {
     }
 
     /**
-     * 12 číslic datum a čas tržby ve formátu {@link #DATUM_CAS_TRANSAKCE_FORMAT}, formát ISO 8601.
+     * 10 číslic datum a čas tržby ve formátu {@code yyMMddHHmm} v časové zóně {@link #ZONA_TRANSAKCE}.
      *
-     * @return datum a čas transakce
+     * @return datum a čas transakce jako číslo {@code yyMMddHHmm}
      */
-    private String qrDatum() {
-        if (datumCasTransakce == null) {
+    private long qrDatum() {
+        if (minuta == BEZ_DATA) {
             throw new IllegalArgumentException("Datum transakce musí být předán");
         } else {
-            return DATUM_CAS_TRANSAKCE_FORMAT.format(datumCasTransakce);
+            return DateUtils.datumCasDigits(minuta);
         }
     }
 
@@ -142,12 +193,95 @@ public class EetUctenka extends Schema {
      * 1-10 znaků z množiny [0-9.] cena na účtence v Kč. Desetinné číslo, max. 2 desetinné cifry, Tečka jako oddělovač desetinných míst.
      * Maximální možná hodnota je 9 999 999.99
      *
-     * @return částka
+     * @return absolutní hodnota částky v haléřích
+     */
+    private long qrCastka() {
+        return EetKoder.haleru(castka);
+    }
+
+    /**
+     * Délka zakódované informace o účtence, kterou zapíší metody {@code encodeTo}.
+     *
+     * @return počet znaků
+     */
+    public int encodedLength() {
+        return EetKoder.length(getDic().getVerze(), qrCastka(), EetKoder.zaporna(castka));
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence do předaného pole znaků, bez alokace pomocných objektů.
+     *
+     * @param dst cílové pole
+     * @param offset pozice prvního znaku
+     * @return počet zapsaných znaků
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     * @see #encodedLength()
+     */
+    public int encodeTo(char[] dst, int offset) {
+        Dic dic = getDic();
+        Kod kod = getKod();
+        return EetKoder.encode(dst, offset, kod.getTyp(), dic.getVerze(), getRezim(), qrDatum(), dic.getCislo(),
+                kod.getDecimalHi(), kod.getDecimalLo(), qrCastka(), EetKoder.zaporna(castka)) - offset;
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence jako ASCII do předaného pole bajtů, bez alokace pomocných objektů.
+     *
+     * @param dst cílové pole
+     * @param offset pozice prvního bajtu
+     * @return počet zapsaných bajtů
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     * @see #encodedLength()
+     */
+    public int encodeTo(byte[] dst, int offset) {
+        Dic dic = getDic();
+        Kod kod = getKod();
+        return EetKoder.encode(dst, offset, kod.getTyp(), dic.getVerze(), getRezim(), qrDatum(), dic.getCislo(),
+                kod.getDecimalHi(), kod.getDecimalLo(), qrCastka(), EetKoder.zaporna(castka)) - offset;
+    }
+
+    /**
+     * Připojí zakódovanou informaci o účtence k předanému {@link Appendable}, znak po znaku.
+     *
+     * @param out cíl zápisu, např. {@link StringBuilder} nebo {@link java.io.Writer}
+     * @param <A> typ cíle zápisu
+     * @return předaný cíl zápisu
+     * @throws IOException chyba zápisu do {@link Appendable}
+     */
+    public <A extends Appendable> A encodeTo(A out) throws IOException {
+        Dic dic = getDic();
+        Kod kod = getKod();
+        EetKoder.encode(out, kod.getTyp(), dic.getVerze(), getRezim(), qrDatum(), dic.getCislo(),
+                kod.getDecimalHi(), kod.getDecimalLo(), qrCastka(), EetKoder.zaporna(castka));
+        return out;
+    }
+
+    /**
+     * Naplní předaný záznam položkami této účtenky. Částka se převede na haléře.
+     *
+     * @param zaznam naplňovaný záznam
+     * @return předaný záznam
      */
-    private String qrCastka() {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(new Locale("cs", "CZ"));
-        DecimalFormat CASTKA_FORMAT = new DecimalFormat("##0.00", symbols);
-        return CASTKA_FORMAT.format(castka).replace(",", "");
+    public EetZaznam toZaznam(EetZaznam zaznam) {
+        qrDatum();
+        Dic dic = getDic();
+        Kod kod = getKod();
+        long haleru = qrCastka();
+        return zaznam.set(kod.getTyp(), dic.getVerze(), getRezim(), minuta, dic.getCislo(),
+                kod.getDecimalHi(), kod.getDecimalLo(), EetKoder.zaporna(castka) ? -haleru : haleru);
+    }
+
+    /**
+     * Vytvoří neměnnou kopii této účtenky se shodnou zakódovanou informací.
+     *
+     * @return {@link Uctenka}
+     */
+    public Uctenka toUctenka() {
+        qrDatum();
+        if (kod == null || rezim == null) {
+            throw new IllegalArgumentException("Kód a režim tržby musí být předány.");
+        }
+        return new Uctenka(kod, dic, rezim, minuta, qrCastka(), EetKoder.zaporna(castka));
     }
 
     /**
@@ -155,32 +289,32 @@ public class EetUctenka extends Schema {
      *
      * @param value zakódovaná informaci o účtence
      * @return naplněný objekt {@link EetUctenka}
+     * @see EetZaznam#parse(CharSequence)
      */
     @Override
     public EetUctenka parseSchema(String value) {
         if (value != null) {
-
-            Matcher matcher = QR_PATTERN.matcher(value);
-            if (matcher.matches()) {
-
-                Verze verze = Verze.parse(matcher.group(1));
-                this.rezim = Rezim.parse(matcher.group(2));
-                this.datumCasTransakce = StringUtils
-                        .parseDatumCasTransakce(matcher.group(3), DATUM_CAS_TRANSAKCE_FORMAT);
-                this.dic = Dic.parse(matcher.group(4));
-                this.kod = Kod.parse(verze.getTyp(), matcher.group(5));
-                String s = matcher.group(6);
-                this.castka = Double.valueOf(s) / 100;
-
-                return this;
-            }
-            throw new IllegalArgumentException("Parsování předaného kódu: " + value + ", se nezdařilo");
-
+            return naplnit(new EetZaznam().parse(value));
         } else {
             throw new IllegalArgumentException("Toto není validní QR kód EET účtenky: " + value);
         }
     }
 
+    /**
+     * Naplní tuto účtenku položkami předaného záznamu.
+     *
+     * @param zaznam naplněný {@link EetZaznam}
+     * @return tato účtenka
+     */
+    EetUctenka naplnit(EetZaznam zaznam) {
+        this.rezim = zaznam.getRezim();
+        this.minuta = zaznam.getMinuta();
+        this.dic = Dic.of(zaznam.getDicVerze(), zaznam.getDic());
+        this.kod = Kod.of(zaznam.getTyp(), zaznam.getKodHi(), zaznam.getKodLo());
+        this.castka = zaznam.getCastka() / 100d;
+        return this;
+    }
+
     /**
      * VERZE : REŽIM TRŽBY : DATUM : DIČ : KÓDY : ČÁSTKA
      *
@@ -188,16 +322,17 @@ public class EetUctenka extends Schema {
      */
     @Override
     public String generateString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(getVerze().qrValue());
-        sb.append(getRezim().qrValue());
-        sb.append(qrDatum());
-        Dic dic = getDic();
-        if (dic.isNotEmpty()) {
-            sb.append(dic.qrValue());
+        long zacatek = Metrics.zacatek();
+        String value;
+        try {
+            char[] dst = new char[encodedLength()];
+            encodeTo(dst, 0);
+            value = new String(dst);
+        } catch (RuntimeException e) {
+            Metrics.selhani(Metrics.Operace.KODOVANI, zacatek);
+            throw e;
         }
-        sb.append(getKod().qrValue());
-        sb.append(qrCastka());
-        return sb.toString();
+        Metrics.konec(Metrics.Operace.KODOVANI, zacatek);
+        return value;
     }
 }
@@ -0,0 +1,570 @@
+package cz.mikropsoft.qreet.scheme;
+
+import cz.mikropsoft.qreet.metrics.Metrics;
+import cz.mikropsoft.qreet.utils.DateUtils;
+import cz.mikropsoft.qreet.utils.DigitUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Položky EET účtenky uložené v primitivních hodnotách. Na rozdíl od {@link EetUctenka} je určen k opakovanému
+ * použití, např. při dekódování velkého množství kódů ve smyčce bez alokace nových objektů.
+ * <p>
+ * Instance není bezpečná pro souběžné použití z více vláken.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public class EetZaznam {
+
+    // Počet číslic položek VERZE, REŽIM TRŽBY, DATUM a KÓDY
+    private static final int DELKA_PEVNA = 2 + 1 + 10 + 20;
+
+    // Nejvyšší počet číslic částky, který se vejde do long
+    private static final int DELKA_CASTKY_MAX = 18;
+
+    // Nejvyšší hodnota skupiny kódu o 8, resp. 4 hexadecimálních číslicích
+    private static final long SKUPINA_8_MAX = 0xFFFFFFFFL;
+    private static final long SKUPINA_4_MAX = 0xFFFFL;
+
+    private Kod.Typ typ;
+    private Dic.Verze dicVerze;
+    private Rezim rezim;
+    private int minuta;
+    private long dic;
+    private long kodHi;
+    private long kodLo;
+    private long castka;
+
+    /**
+     * Prázdný záznam, naplní se metodou {@link #parse(CharSequence)}.
+     */
+    public EetZaznam() {
+    }
+
+    /**
+     * Dekóduje předaný řetězec do tohoto záznamu. Řetězec se prochází jednou, znak po znaku, bez regulárních výrazů
+     * a bez alokace pomocných objektů.
+     *
+     * @param value zakódovaná informace o účtence
+     * @return tento záznam
+     * @throws IllegalArgumentException předaný řetězec není validní zakódovanou informací o účtence
+     */
+    public EetZaznam parse(CharSequence value) {
+        long zacatek = Metrics.zacatek();
+        int vysledek = scan(value, this);
+        Metrics.konec(Metrics.Operace.DEKODOVANI, zacatek, vysledek);
+        if (vysledek != 0) {
+            throw new IllegalArgumentException("Parsování předaného kódu: " + value + ", se nezdařilo. "
+                    + Chyba.zprava(vysledek));
+        }
+        return this;
+    }
+
+    /**
+     * Dekóduje úsek ASCII bajtů do tohoto záznamu, bez převodu na řetězec, viz {@link #tryParse(byte[], int, int)}.
+     *
+     * @param src pole bajtů
+     * @param offset pozice prvního bajtu
+     * @param length počet bajtů
+     * @return tento záznam
+     * @throws IllegalArgumentException úsek není validní zakódovanou informací o účtence
+     */
+    public EetZaznam parse(byte[] src, int offset, int length) {
+        long zacatek = Metrics.zacatek();
+        int vysledek = tryParse(src, offset, length);
+        Metrics.konec(Metrics.Operace.DEKODOVANI, zacatek, vysledek);
+        if (vysledek != 0) {
+            throw new IllegalArgumentException("Parsování předaného kódu: "
+                    + new String(src, offset, length, StandardCharsets.ISO_8859_1) + ", se nezdařilo. "
+                    + Chyba.zprava(vysledek));
+        }
+        return this;
+    }
+
+    /**
+     * Naplní záznam předanými položkami.
+     *
+     * @param typ typ kódu
+     * @param dicVerze verze DIČ poplatníka
+     * @param rezim režim tržby
+     * @param minuta místní datum a čas transakce v minutách od 1970-01-01T00:00
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param kodHi prvních 10 číslic kódu v dekadické soustavě
+     * @param kodLo posledních 10 číslic kódu v dekadické soustavě
+     * @param castka částka v haléřích
+     * @return tento záznam
+     */
+    public EetZaznam set(Kod.Typ typ, Dic.Verze dicVerze, Rezim rezim, int minuta, long dic, long kodHi, long kodLo,
+                         long castka) {
+        if (typ == null || dicVerze == null || rezim == null) {
+            throw new IllegalArgumentException("Typ kódu, verze DIČ a režim tržby musí být předány.");
+        }
+        this.typ = typ;
+        this.dicVerze = dicVerze;
+        this.rezim = rezim;
+        this.minuta = minuta;
+        this.dic = dic;
+        this.kodHi = kodHi;
+        this.kodLo = kodLo;
+        this.castka = castka;
+        return this;
+    }
+
+    /**
+     * Dekóduje předaný řetězec do tohoto záznamu bez vyhození výjimky. Pokud řetězec není validní, záznam se nezmění.
+     *
+     * @param value zakódovaná informace o účtence
+     * @return 0 pokud se dekódování zdařilo, jinak výsledek s důvodem ({@link Chyba#of(int)}) a pozicí chybného
+     * znaku ({@link Chyba#offset(int)})
+     */
+    public int tryParse(CharSequence value) {
+        return scan(value, this);
+    }
+
+    /**
+     * Dekóduje úsek ASCII bajtů do tohoto záznamu bez vyhození výjimky a bez převodu na řetězec. Číslice se ověřují
+     * a převádějí po osmi naráz aritmetikou nad slovy {@code long} (SWAR), výsledek je shodný s
+     * {@link #tryParse(CharSequence)}.
+     *
+     * @param src pole bajtů
+     * @param offset pozice prvního bajtu
+     * @param length počet bajtů
+     * @return 0 pokud se dekódování zdařilo, jinak výsledek s důvodem ({@link Chyba#of(int)}) a pozicí chybného
+     * znaku relativně k {@code offset} ({@link Chyba#offset(int)})
+     * @throws IndexOutOfBoundsException úsek přesahuje pole
+     */
+    public int tryParse(byte[] src, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > src.length - length) {
+            throw new IndexOutOfBoundsException("Úsek " + offset + "+" + length + " mimo pole délky " + src.length);
+        }
+        return scan(src, null, offset, length, this);
+    }
+
+    /**
+     * Dekóduje úsek ASCII bajtů do tohoto záznamu, viz {@link #tryParse(byte[], int, int)}. Pozice, limit ani
+     * pořadí bajtů bufferu se nemění.
+     *
+     * @param src buffer
+     * @param offset absolutní pozice prvního bajtu
+     * @param length počet bajtů
+     * @return 0 pokud se dekódování zdařilo, jinak výsledek s důvodem ({@link Chyba#of(int)}) a pozicí chybného
+     * znaku relativně k {@code offset} ({@link Chyba#offset(int)})
+     * @throws IndexOutOfBoundsException úsek přesahuje limit bufferu
+     */
+    public int tryParse(ByteBuffer src, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > src.limit() - length) {
+            throw new IndexOutOfBoundsException("Úsek " + offset + "+" + length + " mimo limit " + src.limit());
+        }
+        if (src.hasArray()) {
+            return scan(src.array(), null, src.arrayOffset() + offset, length, this);
+        }
+        return scan(null, src, offset, length, this);
+    }
+
+    /**
+     * Projde předaný řetězec, ověří všechny položky a pokud je {@code target} předán, naplní jej.
+     *
+     * @param s zakódovaná informace o účtence
+     * @param target naplňovaný záznam, nebo {@code null} pro pouhou validaci
+     * @return 0 pokud je řetězec validní, jinak výsledek dle {@link Chyba#vysledek(Chyba, int)}
+     */
+    static int scan(CharSequence s, EetZaznam target) {
+
+        if (s == null) {
+            return Chyba.vysledek(Chyba.PRAZDNY, 0);
+        }
+        int length = s.length();
+        if (length < 3) {
+            return Chyba.vysledek(Chyba.DELKA, length);
+        }
+
+        Kod.Typ typ = Kod.Typ.of(s.charAt(0));
+        if (typ == null) {
+            return Chyba.vysledek(Chyba.TYP_KODU, 0);
+        }
+        Dic.Verze dicVerze = Dic.Verze.parse(s.charAt(1));
+        if (dicVerze == null) {
+            return Chyba.vysledek(Chyba.VERZE_DIC, 1);
+        }
+        Rezim rezim = Rezim.parse(s.charAt(2));
+        if (rezim == null) {
+            return Chyba.vysledek(Chyba.REZIM, 2);
+        }
+
+        int dicDelka = dicVerze.getDelka();
+        int castkaOd = DELKA_PEVNA + dicDelka;
+        if (length <= castkaOd) {
+            return Chyba.vysledek(Chyba.DELKA, length);
+        }
+        if (length - castkaOd > DELKA_CASTKY_MAX) {
+            return Chyba.vysledek(Chyba.CASTKA, castkaOd);
+        }
+        for (int i = 3; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return Chyba.vysledek(Chyba.ZNAK, i);
+            }
+        }
+
+        // DATUM yyMMddHHmm
+        long minuta = DateUtils.parseDatumCas(s, 3);
+        if (minuta < 0) {
+            return Chyba.vysledek(Chyba.DATUM, 3 + (int) (-minuta - 1));
+        }
+
+        // DIČ
+        long dic = DigitUtils.parseDigits(s, 13, 13 + dicDelka);
+
+        // KÓDY
+        int kodOd = 13 + dicDelka;
+        long kodHi = DigitUtils.parseDigits(s, kodOd, kodOd + 10);
+        if (kodHi > SKUPINA_8_MAX) {
+            return Chyba.vysledek(Chyba.KOD, kodOd);
+        }
+        long kodLo;
+        if (typ == Kod.Typ.FIK) {
+            long druha = DigitUtils.parseDigits(s, kodOd + 10, kodOd + 15);
+            if (druha > SKUPINA_4_MAX) {
+                return Chyba.vysledek(Chyba.KOD, kodOd + 10);
+            }
+            long treti = DigitUtils.parseDigits(s, kodOd + 15, kodOd + 20);
+            if (treti > SKUPINA_4_MAX) {
+                return Chyba.vysledek(Chyba.KOD, kodOd + 15);
+            }
+            kodLo = druha * 100000L + treti;
+        } else {
+            kodLo = DigitUtils.parseDigits(s, kodOd + 10, kodOd + 20);
+            if (kodLo > SKUPINA_8_MAX) {
+                return Chyba.vysledek(Chyba.KOD, kodOd + 10);
+            }
+        }
+
+        // ČÁSTKA
+        long castka = DigitUtils.parseDigits(s, castkaOd, length);
+
+        if (target != null) {
+            target.typ = typ;
+            target.dicVerze = dicVerze;
+            target.rezim = rezim;
+            target.minuta = (int) minuta;
+            target.dic = dic;
+            target.kodHi = kodHi;
+            target.kodLo = kodLo;
+            target.castka = castka;
+        }
+        return 0;
+    }
+
+    /**
+     * Bajtová obdoba {@link #scan(CharSequence, EetZaznam)}. Čte se buď z pole, nebo z bufferu bez pole.
+     *
+     * @param a pole bajtů, nebo {@code null}
+     * @param b buffer, pokud pole není předáno
+     * @param off pozice prvního bajtu
+     * @param length počet bajtů
+     * @param target naplňovaný záznam, nebo {@code null} pro pouhou validaci
+     * @return 0 pokud je úsek validní, jinak výsledek dle {@link Chyba#vysledek(Chyba, int)}
+     */
+    static int scan(byte[] a, ByteBuffer b, int off, int length, EetZaznam target) {
+
+        if (length < 3) {
+            return Chyba.vysledek(Chyba.DELKA, length);
+        }
+
+        Kod.Typ typ = Kod.Typ.of(bajt(a, b, off));
+        if (typ == null) {
+            return Chyba.vysledek(Chyba.TYP_KODU, 0);
+        }
+        Dic.Verze dicVerze = Dic.Verze.parse(bajt(a, b, off + 1));
+        if (dicVerze == null) {
+            return Chyba.vysledek(Chyba.VERZE_DIC, 1);
+        }
+        Rezim rezim = Rezim.parse(bajt(a, b, off + 2));
+        if (rezim == null) {
+            return Chyba.vysledek(Chyba.REZIM, 2);
+        }
+
+        int dicDelka = dicVerze.getDelka();
+        int castkaOd = DELKA_PEVNA + dicDelka;
+        if (length <= castkaOd) {
+            return Chyba.vysledek(Chyba.DELKA, length);
+        }
+        if (length - castkaOd > DELKA_CASTKY_MAX) {
+            return Chyba.vysledek(Chyba.CASTKA, castkaOd);
+        }
+        // Po osmi bajtech, poslední slovo končí na konci úseku a může se s předchozím překrývat
+        int konec = off + length;
+        for (int i = off + 3; i < konec; i += 8) {
+            int p = Math.min(i, konec - 8);
+            if (!DigitUtils.isEightDigits(slovo(a, b, p))) {
+                while (bajt(a, b, p) >= '0' && bajt(a, b, p) <= '9') {
+                    p++;
+                }
+                return Chyba.vysledek(Chyba.ZNAK, p - off);
+            }
+        }
+
+        // DATUM yyMMddHHmm, první čtyři dvojčíslí jedním slovem
+        long dvojcisli = DigitUtils.digitPairs(slovo(a, b, off + 3));
+        long minuta = DateUtils.datumCas((int) (dvojcisli & 0xFF), (int) (dvojcisli >>> 16 & 0xFF),
+                (int) (dvojcisli >>> 32 & 0xFF), (int) (dvojcisli >>> 48 & 0xFF),
+                (bajt(a, b, off + 11) - '0') * 10 + bajt(a, b, off + 12) - '0');
+        if (minuta < 0) {
+            return Chyba.vysledek(Chyba.DATUM, 3 + (int) (-minuta - 1));
+        }
+
+        // DIČ
+        long dic = cislo(a, b, off + 13, dicDelka);
+
+        // KÓDY
+        int kodOd = 13 + dicDelka;
+        long kodHi = cislo(a, b, off + kodOd, 10);
+        if (kodHi > SKUPINA_8_MAX) {
+            return Chyba.vysledek(Chyba.KOD, kodOd);
+        }
+        long kodLo;
+        if (typ == Kod.Typ.FIK) {
+            long druha = cislo(a, b, off + kodOd + 10, 5);
+            if (druha > SKUPINA_4_MAX) {
+                return Chyba.vysledek(Chyba.KOD, kodOd + 10);
+            }
+            long treti = cislo(a, b, off + kodOd + 15, 5);
+            if (treti > SKUPINA_4_MAX) {
+                return Chyba.vysledek(Chyba.KOD, kodOd + 15);
+            }
+            kodLo = druha * 100000L + treti;
+        } else {
+            kodLo = cislo(a, b, off + kodOd + 10, 10);
+            if (kodLo > SKUPINA_8_MAX) {
+                return Chyba.vysledek(Chyba.KOD, kodOd + 10);
+            }
+        }
+
+        // ČÁSTKA
+        long castka = cislo(a, b, off + castkaOd, length - castkaOd);
+
+        if (target != null) {
+            target.typ = typ;
+            target.dicVerze = dicVerze;
+            target.rezim = rezim;
+            target.minuta = (int) minuta;
+            target.dic = dic;
+            target.kodHi = kodHi;
+            target.kodLo = kodLo;
+            target.castka = castka;
+        }
+        return 0;
+    }
+
+    private static char bajt(byte[] a, ByteBuffer b, int i) {
+        return (char) ((a != null ? a[i] : b.get(i)) & 0xFF);
+    }
+
+    private static long slovo(byte[] a, ByteBuffer b, int i) {
+        return a != null ? DigitUtils.readWord(a, i) : DigitUtils.readWord(b, i);
+    }
+
+    /**
+     * Převede ověřené číslice po osmi. Úsek, jehož délka není násobkem osmi, začíná slovem končícím za neúplnou
+     * skupinou, předcházející bajty se nahradí nulami; před {@code od} proto musí ležet alespoň 7 bajtů záznamu.
+     */
+    private static long cislo(byte[] a, ByteBuffer b, int od, int delka) {
+        int zbytek = delka & 7;
+        long value = 0;
+        int i = od;
+        if (zbytek != 0) {
+            value = DigitUtils.eightDigits(DigitUtils.padZeros(slovo(a, b, od + zbytek - 8), 8 - zbytek));
+            i += zbytek;
+        }
+        for (int konec = od + delka; i < konec; i += 8) {
+            value = value * 100_000_000L + DigitUtils.eightDigits(slovo(a, b, i));
+        }
+        return value;
+    }
+
+    /**
+     * Typ kódu FIK nebo BKP.
+     *
+     * @return {@link Kod.Typ}
+     */
+    public Kod.Typ getTyp() {
+        return typ;
+    }
+
+    /**
+     * Verze DIČ poplatníka.
+     *
+     * @return {@link Dic.Verze}
+     */
+    public Dic.Verze getDicVerze() {
+        return dicVerze;
+    }
+
+    /**
+     * Režim tržby.
+     *
+     * @return {@link Rezim}
+     */
+    public Rezim getRezim() {
+        return rezim;
+    }
+
+    /**
+     * Místní datum a čas transakce v minutách od 1970-01-01T00:00. Dvojčíslí roku se vztahuje k 21. století.
+     *
+     * @return datum a čas transakce v minutách
+     */
+    public int getMinuta() {
+        return minuta;
+    }
+
+    /**
+     * Místní datum a čas transakce.
+     *
+     * @return {@link LocalDateTime}
+     */
+    public LocalDateTime getDatumCasTransakce() {
+        return DateUtils.toLocalDateTime(minuta);
+    }
+
+    /**
+     * DIČ poplatníka jako číslo, pro prázdný DIČ vrací 0.
+     *
+     * @return číselná hodnota DIČ
+     */
+    public long getDic() {
+        return dic;
+    }
+
+    /**
+     * Prvních 10 číslic kódu v dekadické soustavě.
+     *
+     * @return číslo o nejvýše 10 číslicích
+     */
+    public long getKodHi() {
+        return kodHi;
+    }
+
+    /**
+     * Posledních 10 číslic kódu v dekadické soustavě.
+     *
+     * @return číslo o nejvýše 10 číslicích
+     */
+    public long getKodLo() {
+        return kodLo;
+    }
+
+    /**
+     * Částka v haléřích.
+     *
+     * @return částka v haléřích
+     */
+    public long getCastka() {
+        return castka;
+    }
+
+    /**
+     * Vytvoří z tohoto záznamu novou {@link EetUctenka}.
+     *
+     * @return naplněná {@link EetUctenka}
+     */
+    public EetUctenka toUctenka() {
+        getTypNotNull();
+        return new EetUctenka().naplnit(this);
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence do předaného pole znaků.
+     *
+     * @param dst cílové pole
+     * @param offset pozice prvního znaku
+     * @return počet zapsaných znaků
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     */
+    public int encodeTo(char[] dst, int offset) {
+        return EetKoder.encode(dst, offset, getTypNotNull(), dicVerze, rezim, DateUtils.datumCasDigits(minuta), dic,
+                kodHi, kodLo, Math.abs(castka), castka < 0) - offset;
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence jako ASCII do předaného pole bajtů.
+     *
+     * @param dst cílové pole
+     * @param offset pozice prvního bajtu
+     * @return počet zapsaných bajtů
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     */
+    public int encodeTo(byte[] dst, int offset) {
+        return EetKoder.encode(dst, offset, getTypNotNull(), dicVerze, rezim, DateUtils.datumCasDigits(minuta), dic,
+                kodHi, kodLo, Math.abs(castka), castka < 0) - offset;
+    }
+
+    /**
+     * Připojí zakódovanou informaci o účtence k předanému {@link Appendable}.
+     *
+     * @param out cíl zápisu
+     * @param <A> typ cíle zápisu
+     * @return předaný cíl zápisu
+     * @throws IOException chyba zápisu do {@link Appendable}
+     */
+    public <A extends Appendable> A encodeTo(A out) throws IOException {
+        EetKoder.encode(out, getTypNotNull(), dicVerze, rezim, DateUtils.datumCasDigits(minuta), dic,
+                kodHi, kodLo, Math.abs(castka), castka < 0);
+        return out;
+    }
+
+    /**
+     * Délka zakódované informace o účtence.
+     *
+     * @return počet znaků
+     */
+    public int encodedLength() {
+        getTypNotNull();
+        return EetKoder.length(dicVerze, Math.abs(castka), castka < 0);
+    }
+
+    /**
+     * VERZE : REŽIM TRŽBY : DATUM : DIČ : KÓDY : ČÁSTKA
+     *
+     * @return zakódovaná informaci o účtence
+     */
+    public String generateString() {
+        long zacatek = Metrics.zacatek();
+        String value;
+        try {
+            char[] dst = new char[encodedLength()];
+            encodeTo(dst, 0);
+            value = new String(dst);
+        } catch (RuntimeException e) {
+            Metrics.selhani(Metrics.Operace.KODOVANI, zacatek);
+            throw e;
+        }
+        Metrics.konec(Metrics.Operace.KODOVANI, zacatek);
+        return value;
+    }
+
+    private Kod.Typ getTypNotNull() {
+        if (typ == null) {
+            throw new IllegalStateException("Záznam nebyl naplněn.");
+        }
+        return typ;
+    }
+
+    @Override
+    public String toString() {
+        return "EetZaznam{" +
+                "typ=" + typ +
+                ", dicVerze=" + dicVerze +
+                ", rezim=" + rezim +
+                ", minuta=" + minuta +
+                ", dic=" + dic +
+                ", kodHi=" + kodHi +
+                ", kodLo=" + kodLo +
+                ", castka=" + castka +
+                '}';
+    }
+}
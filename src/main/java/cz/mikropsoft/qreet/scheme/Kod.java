@@ -1,10 +1,11 @@
 package cz.mikropsoft.qreet.scheme;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import cz.mikropsoft.qreet.metrics.Metrics;
+import cz.mikropsoft.qreet.utils.DigitUtils;
 
 /**
- * Kódy FIK nebo BKP, zakódované jako dekadické číslice.
+ * Kódy FIK nebo BKP, zakódované jako dekadické číslice. Uchovávají se pouze významné skupiny, které se zapisují do
+ * QR kódu, jako 64 bitů v jednom {@code long}.
  *
  * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
  * @since 09.03.2019
@@ -16,16 +17,18 @@ public class Kod implements QrEet {
     /**
      * Pro registraci účtenky stačí první tři skupiny po 8 a 4 hexadecimálních číslicích. Jednotlivé skupiny jsou
      * převedeny do dekadické soustavy a doplněny zleva nulami na celkový počet 10, 5 a 5 číslic, celkem tedy 20 číslic.
+     * Zbývající skupiny jsou nepovinné.
      */
-    private static final Pattern FIK_PATTERN = Pattern.compile("^([0-9A-F]{8})-([0-9A-F]{4})-([0-9A-F]{4})(-[0-9A-F]{4}-[0-9A-F]{12}-[0-9A-F]{2})?$");
-    private static final Pattern DECODE_FIK_PATTERN = Pattern.compile("^(\\d{10})(\\d{5})(\\d{5})$");
+    private static final int[] FIK_SKUPINY = {8, 4, 4, 4, 12, 2};
+    private static final int FIK_VYZNAMNYCH = 3;
 
     /**
      * Pro registraci účtenky stačí první dvě skupiny po 8 hexadecimálních číslicích. Jednotlivé skupiny jsou
      * převedeny do dekadické soustavy a doplněny nulami na celkový počet 10 a 10 číslic, celkem tedy 20 číslic.
+     * Zbývající skupiny jsou nepovinné.
      */
-    private static final Pattern BKP_PATTERN = Pattern.compile("^([0-9A-F]{8})-([0-9A-F]{8})(-[0-9A-F]{8}-[0-9A-F]{8}-[0-9A-F]{8})?$");
-    private static final Pattern DECODE_BKP_PATTERN = Pattern.compile("^(\\d{10})(\\d{10})$");
+    private static final int[] BKP_SKUPINY = {8, 8, 8, 8, 8};
+    private static final int BKP_VYZNAMNYCH = 2;
 
     /**
      * FIK nebo BKP, zakódovaný jako dekadické číslice.
@@ -41,6 +44,9 @@ public class Kod implements QrEet {
         BKP("2")
         ;
 
+        // Typ podle dekadické číslice
+        private static final Typ[] PODLE_CISLICE = {null, FIK, BKP, null, null, null, null, null, null, null};
+
         private final String value;
 
         Typ(String value) {
@@ -59,43 +65,106 @@ public class Kod implements QrEet {
         }
 
         /**
-         * @see Kod.Typ#parse(char)
+         * Vrací {@link Typ} na základě předaného value.
+         *
+         * @param codePoint dekadická číslice
+         * @return {@link Typ}
+         * @throws IllegalArgumentException {@link Typ} se nepodařilo dle předané číslice určit
          */
-        private static Typ parse(int value) {
-            String s = Integer.toString(value);
-            for (Typ typ : Typ.values()) {
-                if (typ.qrValue().equals(s)) {
-                    return typ;
-                }
+        public static Typ parse(char codePoint) {
+            Typ typ = of(codePoint);
+            if (typ == null) {
+                throw new IllegalArgumentException("Nepřípustný typ kódu '" + codePoint + "'.");
             }
-            throw new IllegalArgumentException();
+            return typ;
         }
 
         /**
-         * Vrací {@link Typ} na základě předaného value.
+         * Vrací {@link Typ} podle dekadické číslice bez vyhození výjimky.
          *
          * @param codePoint dekadická číslice
-         * @return {@link Typ}
-         * @throws IllegalArgumentException {@link Typ} se nepodařilo dle předané číslice určit
+         * @return {@link Typ}, nebo {@code null} pro nepřípustný znak
          */
-        public static Typ parse(char codePoint) {
-            int value = Character.getNumericValue(codePoint);
-            return Kod.Typ.parse(value);
+        static Typ of(char codePoint) {
+            int digit = codePoint - '0';
+            return (digit >= 0 && digit <= 9) ? PODLE_CISLICE[digit] : null;
         }
     }
 
-    private String value;
-    private Kod.Typ typ;
+    private final Kod.Typ typ;
+    private final long bits;
 
     /**
      * Privátní konstruktor.
      *
-     * @param value hodnota kódu (FIK nebo BKP)
      * @param typ {@link Kod.Typ}
+     * @param bits významné skupiny kódu: pro FIK 32 + 16 + 16 bitů, pro BKP 32 + 32 bitů
      */
-    private Kod(String value, Kod.Typ typ) {
-        this.value = value.toUpperCase();
+    private Kod(Kod.Typ typ, long bits) {
         this.typ = typ;
+        this.bits = bits;
+    }
+
+    /**
+     * Ověří, že předaný kód sestává z předaných skupin hexadecimálních číslic oddělených pomlčkou. Povinné jsou
+     * pouze významné skupiny, ostatní musí být buď všechny, nebo žádná.
+     *
+     * @param s kód
+     * @param skupiny délky skupin
+     * @param vyznamnych počet povinných skupin
+     * @param chyba chyba vracená pro nevalidní kód
+     * @return 0 pokud kód odpovídá vzoru, jinak výsledek s pozicí prvního chybného znaku
+     */
+    private static int validate(CharSequence s, int[] skupiny, int vyznamnych, Chyba chyba) {
+        if (s == null) {
+            return Chyba.vysledek(Chyba.PRAZDNY, 0);
+        }
+        int length = s.length();
+        int pos = 0;
+        for (int i = 0; i < skupiny.length; i++) {
+            if (i == vyznamnych && pos - 1 == length) {
+                return 0;
+            }
+            if (i > 0) {
+                if (pos > length) {
+                    return Chyba.vysledek(chyba, length);
+                }
+                if (s.charAt(pos - 1) != KOD_SEPARATOR) {
+                    return Chyba.vysledek(chyba, pos - 1);
+                }
+            }
+            int end = pos + skupiny[i];
+            for (int j = pos; j < end; j++) {
+                if (j >= length) {
+                    return Chyba.vysledek(chyba, length);
+                }
+                if (!DigitUtils.isHex(s, j, j + 1)) {
+                    return Chyba.vysledek(chyba, j);
+                }
+            }
+            pos = end + 1;
+        }
+        return (pos - 1 == length) ? 0 : Chyba.vysledek(chyba, pos - 1);
+    }
+
+    /**
+     * Ověří vzor kódu FIK bez vyhození výjimky.
+     *
+     * @param fik fiskální identifikační kód
+     * @return 0 pokud kód odpovídá vzoru, jinak výsledek dle {@link Chyba#vysledek(Chyba, int)}
+     */
+    static int validateFik(CharSequence fik) {
+        return validate(fik, FIK_SKUPINY, FIK_VYZNAMNYCH, Chyba.FIK);
+    }
+
+    /**
+     * Ověří vzor kódu BKP bez vyhození výjimky.
+     *
+     * @param bkp bezpečnostní kód poplatníka
+     * @return 0 pokud kód odpovídá vzoru, jinak výsledek dle {@link Chyba#vysledek(Chyba, int)}
+     */
+    static int validateBkp(CharSequence bkp) {
+        return validate(bkp, BKP_SKUPINY, BKP_VYZNAMNYCH, Chyba.BKP);
     }
 
     /**
@@ -111,9 +180,13 @@ public class Kod implements QrEet {
             throw new IllegalArgumentException("Kód FIK musí být předán.");
         }
 
-        Matcher matcher = FIK_PATTERN.matcher(fik.toUpperCase());
-        if (matcher.matches()) {
-            return new Kod(fik, Typ.FIK);
+        long zacatek = Metrics.zacatek();
+        int vysledek = validateFik(fik);
+        Metrics.konec(Metrics.Operace.PREVOD_KODU, zacatek, vysledek);
+        if (vysledek == 0) {
+            return new Kod(Typ.FIK, DigitUtils.parseHex(fik, 0, 8) << 32
+                    | DigitUtils.parseHex(fik, 9, 13) << 16
+                    | DigitUtils.parseHex(fik, 14, 18));
         }
         throw new IllegalArgumentException("Předaný FIK: " + fik + ", neodpovídá vzoru \"xxxxxxxx-xxxx-xxxx\"");
     }
@@ -131,9 +204,12 @@ public class Kod implements QrEet {
             throw new IllegalArgumentException("Kód BKP musí být předán.");
         }
 
-        Matcher matcher = BKP_PATTERN.matcher(bkp.toUpperCase());
-        if (matcher.matches()) {
-            return new Kod(bkp, Typ.BKP);
+        long zacatek = Metrics.zacatek();
+        int vysledek = validateBkp(bkp);
+        Metrics.konec(Metrics.Operace.PREVOD_KODU, zacatek, vysledek);
+        if (vysledek == 0) {
+            return new Kod(Typ.BKP, DigitUtils.parseHex(bkp, 0, 8) << 32
+                    | DigitUtils.parseHex(bkp, 9, 17));
         }
         throw new IllegalArgumentException("Předaný BKP: " + bkp + ", neodpovídá vzoru \"xxxxxxxx-xxxxxxxx\"");
     }
@@ -151,25 +227,35 @@ public class Kod implements QrEet {
     }
 
     /**
-     * Předanou hexadecimální číslici tranformuje do dekadické soustavy a doplní ji nulami na celkový počet n číslic.
+     * Významné skupiny kódu, které se zapisují do QR kódu: pro FIK tři skupiny po 32, 16 a 16 bitech, pro BKP dvě
+     * skupiny po 32 bitech.
      *
-     * @param s hexadecimální číslice k transformaci
-     * @return výsledek transformace
+     * @return 64 bitů významných skupin
      */
-    private static String encodeDecimal(final String s) {
+    public long getBits() {
+        return bits;
+    }
 
-        if (s == null) {
-            throw new IllegalArgumentException("Hexadecimální číslice musí být předána.");
-        }
+    /**
+     * Prvních 10 číslic kódu v dekadické soustavě, tj. první skupina hexadecimálních číslic.
+     *
+     * @return číslo o nejvýše 10 číslicích
+     */
+    long getDecimalHi() {
+        return bits >>> 32;
+    }
 
-        int length = s.length();
-        if (length != 4 && length != 8) {
-            throw new IllegalArgumentException();
+    /**
+     * Posledních 10 číslic kódu v dekadické soustavě. Pro FIK jde o druhou a třetí skupinu doplněné na 5 a 5 číslic,
+     * pro BKP o druhou skupinu doplněnou na 10 číslic.
+     *
+     * @return číslo o nejvýše 10 číslicích
+     */
+    long getDecimalLo() {
+        if (typ == Typ.FIK) {
+            return (bits >>> 16 & 0xFFFFL) * 100000L + (bits & 0xFFFFL);
         }
-
-        int n = (length + 4) / 5 * 5; // Délka jako násobek pěti
-        long l = Long.parseLong(s.trim(), 16);
-        return  String.format("%1$" + n + "s", l).replace(' ', '0');
+        return bits & 0xFFFFFFFFL;
     }
 
     /**
@@ -179,50 +265,37 @@ public class Kod implements QrEet {
      */
     @Override
     public String qrValue() {
-        StringBuilder sb = new StringBuilder();
-        switch (getTyp()) {
-            case FIK:
-
-                Matcher fik = FIK_PATTERN.matcher(value);
-                if (fik.matches()) {
-                    sb.append(Kod.encodeDecimal(fik.group(1)));
-                    sb.append(Kod.encodeDecimal(fik.group(2)));
-                    sb.append(Kod.encodeDecimal(fik.group(3)));
-                }
-                return sb.toString();
-
-            case BKP:
-
-                Matcher bkp = BKP_PATTERN.matcher(value);
-                if (bkp.matches()) {
-                    sb.append(Kod.encodeDecimal(bkp.group(1)));
-                    sb.append(Kod.encodeDecimal(bkp.group(2)));
-                }
-                return sb.toString();
-
-            default:
-                throw new IllegalStateException("Nepodporovaný typ kódu: " + typ);
-        }
+        char[] digits = new char[20];
+        DigitUtils.putDigits(getDecimalHi(), 10, digits, 0);
+        DigitUtils.putDigits(getDecimalLo(), 10, digits, 10);
+        return new String(digits);
     }
 
     /**
-     * Dekóduje předaný kód do hexadecimální číslice.
+     * Vrací {@link Kod} z jeho dekadické podoby, bez opakované kontroly regulárním výrazem.
      *
-     * @param s decimální číslice k transformaci
-     * @return výsledek transformace
+     * @param typ typ kódu
+     * @param decimalHi prvních 10 číslic kódu v dekadické soustavě
+     * @param decimalLo posledních 10 číslic kódu v dekadické soustavě
+     * @return {@link Kod}
      */
-    private static String decodeDecimal(final String s) {
-
-        if (s == null) {
-            throw new IllegalArgumentException("Decimální číslice musí být předána.");
-        }
+    static Kod of(Kod.Typ typ, long decimalHi, long decimalLo) {
+        return new Kod(typ, bits(typ, decimalHi, decimalLo));
+    }
 
-        int length = s.length();
-        if (5 == length || 10 == length) {
-            long l = Long.valueOf(s);
-            return Long.toHexString(l);
+    /**
+     * Převede dekadickou podobu kódu na 64 bitů významných skupin, shodně s {@link #getBits()}.
+     *
+     * @param typ typ kódu
+     * @param decimalHi prvních 10 číslic kódu v dekadické soustavě
+     * @param decimalLo posledních 10 číslic kódu v dekadické soustavě
+     * @return 64 bitů významných skupin
+     */
+    public static long bits(Kod.Typ typ, long decimalHi, long decimalLo) {
+        if (typ == Typ.FIK) {
+            return decimalHi << 32 | (decimalLo / 100000L) << 16 | decimalLo % 100000L;
         }
-        throw new IllegalArgumentException("Délka neodpovídá znakům.");
+        return decimalHi << 32 | decimalLo;
     }
 
     /**
@@ -237,18 +310,13 @@ public class Kod implements QrEet {
             throw new IllegalArgumentException("Délka FIK neodpovídá dvaceti znakům.");
         }
 
-        Matcher matcher = DECODE_FIK_PATTERN.matcher(value);
-        if (matcher.matches()) {
-
-            StringBuilder sb = new StringBuilder();
-            sb.append(Kod.decodeDecimal(matcher.group(1)));
-            sb.append(KOD_SEPARATOR);
-            sb.append(Kod.decodeDecimal(matcher.group(2)));
-            sb.append(KOD_SEPARATOR);
-            sb.append(Kod.decodeDecimal(matcher.group(3)));
-            return Kod.ofFik(sb.toString());
+        long hi = DigitUtils.parseDigits(value, 0, 10);
+        long druha = DigitUtils.parseDigits(value, 10, 15);
+        long treti = DigitUtils.parseDigits(value, 15, 20);
+        if (hi < 0 || druha < 0 || treti < 0 || hi > 0xFFFFFFFFL || druha > 0xFFFFL || treti > 0xFFFFL) {
+            throw new IllegalArgumentException("Předaný FIK: " + value + ", neodpovídá vzoru \"dddddddddddddddddddd\"");
         }
-        throw new IllegalArgumentException("Předaný FIK: " + value + ", neodpovídá vzoru \"dddddddddddddddddddd\"");
+        return Kod.of(Typ.FIK, hi, druha * 100000L + treti);
     }
 
     /**
@@ -263,16 +331,12 @@ public class Kod implements QrEet {
             throw new IllegalArgumentException("Délka BKP neodpovídá dvaceti znakům.");
         }
 
-        Matcher matcher = DECODE_BKP_PATTERN.matcher(value);
-        if (matcher.matches()) {
-
-            StringBuilder sb = new StringBuilder();
-            sb.append(Kod.decodeDecimal(matcher.group(1)));
-            sb.append(KOD_SEPARATOR);
-            sb.append(Kod.decodeDecimal(matcher.group(2)));
-            return Kod.ofBkp(sb.toString());
+        long hi = DigitUtils.parseDigits(value, 0, 10);
+        long lo = DigitUtils.parseDigits(value, 10, 20);
+        if (hi < 0 || lo < 0 || hi > 0xFFFFFFFFL || lo > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Předaný BKP: " + value + ", neodpovídá vzoru \"dddddddddddddddddddd\"");
         }
-        throw new IllegalArgumentException("Předaný BKP: " + value + ", neodpovídá vzoru \"dddddddddddddddddddd\"");
+        return Kod.of(Typ.BKP, hi, lo);
     }
 
     /**
@@ -288,28 +352,81 @@ public class Kod implements QrEet {
             throw new IllegalArgumentException("Nebyl předán typ kódu.");
         }
 
-        switch (typ) {
-            case FIK:
-                /*
-                    2c4ccf70-0055-44f2-804e-3056786dd351-ff
-                    07432313440008517650
-                 */
-                return Kod.parseFik(value);
-            case BKP:
-                /*
-                    6455B192-D697186A-6AB1971A-1E9B146B-CDD5007B
-                    16833376183600226410
-                 */
-                return Kod.parseBkp(value);
-            default:
-                throw new IllegalStateException("Nepodporovaný typ kódu: " + typ);
+        long zacatek = Metrics.zacatek();
+        Kod kod;
+        try {
+            switch (typ) {
+                case FIK:
+                    /*
+                        2c4ccf70-0055-44f2-804e-3056786dd351-ff
+                        07432313440008517650
+                     */
+                    kod = Kod.parseFik(value);
+                    break;
+                case BKP:
+                    /*
+                        6455B192-D697186A-6AB1971A-1E9B146B-CDD5007B
+                        16833376183600226410
+                     */
+                    kod = Kod.parseBkp(value);
+                    break;
+                default:
+                    throw new IllegalStateException("Nepodporovaný typ kódu: " + typ);
+            }
+        } catch (IllegalArgumentException e) {
+            Chyba chyba = (value == null) ? Chyba.PRAZDNY : (value.length() != 20) ? Chyba.DELKA : Chyba.KOD;
+            Metrics.konec(Metrics.Operace.PREVOD_KODU, zacatek, Chyba.vysledek(chyba, 0));
+            throw e;
         }
+        Metrics.konec(Metrics.Operace.PREVOD_KODU, zacatek);
+        return kod;
+    }
+
+    /**
+     * Hexadecimální podoba významných skupin kódu, velkými písmeny.
+     *
+     * @return např. {@code 2C4CCF70-0055-44F2} pro FIK
+     */
+    private String hexValue() {
+        char[] hex;
+        if (typ == Typ.FIK) {
+            hex = new char[18];
+            DigitUtils.putHex(bits >>> 32, 8, hex, 0);
+            hex[8] = KOD_SEPARATOR;
+            DigitUtils.putHex(bits >>> 16 & 0xFFFFL, 4, hex, 9);
+            hex[13] = KOD_SEPARATOR;
+            DigitUtils.putHex(bits & 0xFFFFL, 4, hex, 14);
+        } else {
+            hex = new char[17];
+            DigitUtils.putHex(bits >>> 32, 8, hex, 0);
+            hex[8] = KOD_SEPARATOR;
+            DigitUtils.putHex(bits & 0xFFFFFFFFL, 8, hex, 9);
+        }
+        return new String(hex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Kod)) {
+            return false;
+        }
+        Kod kod = (Kod) o;
+        return bits == kod.bits && typ == kod.typ;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = (bits ^ (bits >>> 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) ^ typ.ordinal();
     }
 
     @Override
     public String toString() {
         return "Kod{" +
-                "value='" + value + '\'' +
+                "value='" + hexValue() + '\'' +
                 ", typ=" + typ +
                 '}';
     }
@@ -11,6 +11,9 @@ public enum Rezim implements QrEet {
     ZJEDNODUSENY("1")
     ;
 
+    // Režim podle dekadické číslice
+    private static final Rezim[] PODLE_CISLICE = {BEZNY, ZJEDNODUSENY, null, null, null, null, null, null, null, null};
+
     private final String value;
 
     /**
@@ -37,14 +40,20 @@ public enum Rezim implements QrEet {
      * {@link Rezim} na základě předaného value.
      *
      * @param value hodnota
-     * @return {@link Rezim}
+     * @return {@link Rezim}, nebo {@code null} pro nepřípustnou hodnotu
      */
     public static Rezim parse(String value) {
-        for (Rezim rezim : Rezim.values()) {
-            if (rezim.qrValue().equals(value)) {
-                return rezim;
-            }
-        }
-        return null;
+        return (value != null && value.length() == 1) ? parse(value.charAt(0)) : null;
+    }
+
+    /**
+     * {@link Rezim} na základě předané dekadické číslice.
+     *
+     * @param codePoint dekadická číslice
+     * @return {@link Rezim}, nebo {@code null} pro nepřípustný znak
+     */
+    public static Rezim parse(char codePoint) {
+        int digit = codePoint - '0';
+        return (digit >= 0 && digit <= 9) ? PODLE_CISLICE[digit] : null;
     }
 }
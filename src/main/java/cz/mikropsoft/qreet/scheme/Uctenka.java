@@ -0,0 +1,454 @@
+package cz.mikropsoft.qreet.scheme;
+
+import cz.mikropsoft.qreet.utils.DateUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Neměnná EET účtenka. Na rozdíl od {@link EetUctenka} má všechny položky finální, lze ji proto bez synchronizace
+ * sdílet mezi vlákny a používat jako klíč v mapách. Zakódovaná informace i hash se počítají nejvýše jednou, při
+ * prvním použití.
+ * <p>
+ * Vytváří se přes {@link #builder()} nebo dekódováním {@link #parse(CharSequence)}, pro knihovnu QRGen se předává
+ * přes {@link #toSchema()}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class Uctenka implements QrEet {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Kod kod;
+    private final Dic dic;
+    private final Rezim rezim;
+    private final int minuta;
+    private final long haleru;
+    private final boolean zaporna;
+
+    // Zakódovaná informace a hash, počítají se líně; souběžný výpočet vede ke shodnému výsledku
+    private transient String payload;
+    private transient int hash;
+
+    /**
+     * Konstruktor, položky musí být již ověřené.
+     *
+     * @param kod FIK nebo BKP
+     * @param dic DIČ poplatníka
+     * @param rezim režim tržby
+     * @param minuta místní datum a čas transakce v minutách od 1970-01-01T00:00
+     * @param haleru absolutní hodnota částky v haléřích
+     * @param zaporna příznak záporné částky
+     */
+    Uctenka(Kod kod, Dic dic, Rezim rezim, int minuta, long haleru, boolean zaporna) {
+        this.kod = kod;
+        this.dic = dic;
+        this.rezim = rezim;
+        this.minuta = minuta;
+        this.haleru = haleru;
+        this.zaporna = zaporna;
+    }
+
+    /**
+     * Nový builder účtenky.
+     *
+     * @return {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Dekóduje předaný řetězec.
+     *
+     * @param value zakódovaná informace o účtence
+     * @return {@link Uctenka}
+     * @throws IllegalArgumentException předaný řetězec není validní zakódovanou informací o účtence
+     */
+    public static Uctenka parse(CharSequence value) {
+        return of(new EetZaznam().parse(value));
+    }
+
+    /**
+     * Vytvoří účtenku z naplněného záznamu.
+     *
+     * @param zaznam naplněný {@link EetZaznam}
+     * @return {@link Uctenka}
+     */
+    public static Uctenka of(EetZaznam zaznam) {
+        long castka = zaznam.getCastka();
+        return new Uctenka(Kod.of(zaznam.getTyp(), zaznam.getKodHi(), zaznam.getKodLo()),
+                Dic.of(zaznam.getDicVerze(), zaznam.getDic()), zaznam.getRezim(), zaznam.getMinuta(),
+                Math.abs(castka), castka < 0);
+    }
+
+    /**
+     * Vytvoří neměnnou kopii předané účtenky, se shodnou zakódovanou informací.
+     *
+     * @param uctenka {@link EetUctenka}
+     * @return {@link Uctenka}
+     */
+    public static Uctenka of(EetUctenka uctenka) {
+        return uctenka.toUctenka();
+    }
+
+    /**
+     * Kód FIK nebo BKP.
+     *
+     * @return {@link Kod}
+     */
+    public Kod getKod() {
+        return kod;
+    }
+
+    /**
+     * DIČ poplatníka, pro účtenku bez DIČ {@link Dic#PRAZDNY}.
+     *
+     * @return {@link Dic}
+     */
+    public Dic getDic() {
+        return dic;
+    }
+
+    /**
+     * Režim tržby.
+     *
+     * @return {@link Rezim}
+     */
+    public Rezim getRezim() {
+        return rezim;
+    }
+
+    /**
+     * Místní datum a čas transakce v minutách od 1970-01-01T00:00.
+     *
+     * @return datum a čas transakce v minutách
+     */
+    public int getMinuta() {
+        return minuta;
+    }
+
+    /**
+     * Místní datum a čas transakce v časové zóně {@link EetUctenka#ZONA_TRANSAKCE}.
+     *
+     * @return {@link LocalDateTime}
+     */
+    public LocalDateTime getDatumCasTransakce() {
+        return DateUtils.toLocalDateTime(minuta);
+    }
+
+    /**
+     * Částka v haléřích.
+     *
+     * @return částka v haléřích, záporná pro zápornou částku
+     */
+    public long getCastka() {
+        return zaporna ? -haleru : haleru;
+    }
+
+    /**
+     * Vrací {@code true} pro zápornou částku, včetně záporné nuly.
+     *
+     * @return příznak záporné částky
+     */
+    public boolean isZaporna() {
+        return zaporna;
+    }
+
+    /**
+     * Délka zakódované informace o účtence.
+     *
+     * @return počet znaků
+     */
+    public int encodedLength() {
+        return EetKoder.length(dic.getVerze(), haleru, zaporna);
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence do předaného pole znaků, bez alokace pomocných objektů.
+     *
+     * @param dst cílové pole
+     * @param offset pozice prvního znaku
+     * @return počet zapsaných znaků
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     */
+    public int encodeTo(char[] dst, int offset) {
+        return EetKoder.encode(dst, offset, kod.getTyp(), dic.getVerze(), rezim, DateUtils.datumCasDigits(minuta),
+                dic.getCislo(), kod.getDecimalHi(), kod.getDecimalLo(), haleru, zaporna) - offset;
+    }
+
+    /**
+     * Zapíše zakódovanou informaci o účtence jako ASCII do předaného pole bajtů, bez alokace pomocných objektů.
+     *
+     * @param dst cílové pole
+     * @param offset pozice prvního bajtu
+     * @return počet zapsaných bajtů
+     * @throws IndexOutOfBoundsException zakódovaná informace se do pole od předané pozice nevejde
+     */
+    public int encodeTo(byte[] dst, int offset) {
+        return EetKoder.encode(dst, offset, kod.getTyp(), dic.getVerze(), rezim, DateUtils.datumCasDigits(minuta),
+                dic.getCislo(), kod.getDecimalHi(), kod.getDecimalLo(), haleru, zaporna) - offset;
+    }
+
+    /**
+     * Připojí zakódovanou informaci o účtence k předanému {@link Appendable}.
+     *
+     * @param out cíl zápisu
+     * @param <A> typ cíle zápisu
+     * @return předaný cíl zápisu
+     * @throws IOException chyba zápisu do {@link Appendable}
+     */
+    public <A extends Appendable> A encodeTo(A out) throws IOException {
+        String payload = this.payload;
+        if (payload != null) {
+            out.append(payload);
+        } else {
+            EetKoder.encode(out, kod.getTyp(), dic.getVerze(), rezim, DateUtils.datumCasDigits(minuta),
+                    dic.getCislo(), kod.getDecimalHi(), kod.getDecimalLo(), haleru, zaporna);
+        }
+        return out;
+    }
+
+    /**
+     * Naplní předaný záznam položkami této účtenky.
+     *
+     * @param zaznam naplňovaný záznam
+     * @return předaný záznam
+     */
+    public EetZaznam toZaznam(EetZaznam zaznam) {
+        return zaznam.set(kod.getTyp(), dic.getVerze(), rezim, minuta, dic.getCislo(), kod.getDecimalHi(),
+                kod.getDecimalLo(), getCastka());
+    }
+
+    /**
+     * Adaptér pro knihovnu QRGen, např. {@code QRCode.from(uctenka.toSchema())}.
+     *
+     * @return {@link net.glxn.qrgen.core.scheme.Schema} s touto účtenkou
+     */
+    public UctenkaSchema toSchema() {
+        return new UctenkaSchema(this);
+    }
+
+    /**
+     * VERZE : REŽIM TRŽBY : DATUM : DIČ : KÓDY : ČÁSTKA, spočítaná při prvním volání.
+     *
+     * @return zakódovaná informaci o účtence
+     */
+    @Override
+    public String qrValue() {
+        String payload = this.payload;
+        if (payload == null) {
+            char[] dst = new char[encodedLength()];
+            encodeTo(dst, 0);
+            payload = new String(dst);
+            this.payload = payload;
+        }
+        return payload;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Uctenka)) {
+            return false;
+        }
+        Uctenka uctenka = (Uctenka) o;
+        return minuta == uctenka.minuta
+                && haleru == uctenka.haleru
+                && zaporna == uctenka.zaporna
+                && rezim == uctenka.rezim
+                && kod.equals(uctenka.kod)
+                && dic.equals(uctenka.dic);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = kod.hashCode();
+            h = 31 * h + dic.hashCode();
+            h = 31 * h + rezim.ordinal();
+            h = 31 * h + minuta;
+            h = 31 * h + Long.hashCode(haleru);
+            h = 31 * h + (zaporna ? 1 : 0);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "Uctenka{" +
+                "kod=" + kod +
+                ", dic=" + dic +
+                ", rezim=" + rezim +
+                ", datumCasTransakce=" + getDatumCasTransakce() +
+                ", castka=" + getCastka() +
+                '}';
+    }
+
+    /**
+     * Builder neměnné účtenky. Povinné jsou kód, datum a čas transakce a režim tržby, DIČ není povinný a částka
+     * je výchozí 0.
+     */
+    public static final class Builder {
+
+        private Kod kod;
+        private Dic dic = Dic.PRAZDNY;
+        private Rezim rezim;
+        private Long minuta;
+        private long haleru;
+        private boolean zaporna;
+
+        private Builder() {
+        }
+
+        /**
+         * Fiskální identifikační kód.
+         *
+         * @param fik FIK
+         * @return tento builder
+         * @see Kod#ofFik(String)
+         */
+        public Builder fik(String fik) {
+            this.kod = Kod.ofFik(fik);
+            return this;
+        }
+
+        /**
+         * Bezpečnostní kód poplatníka.
+         *
+         * @param bkp BKP
+         * @return tento builder
+         * @see Kod#ofBkp(String)
+         */
+        public Builder bkp(String bkp) {
+            this.kod = Kod.ofBkp(bkp);
+            return this;
+        }
+
+        /**
+         * Kód FIK nebo BKP.
+         *
+         * @param kod {@link Kod}
+         * @return tento builder
+         */
+        public Builder kod(Kod kod) {
+            this.kod = kod;
+            return this;
+        }
+
+        /**
+         * Nepovinný DIČ poplatníka.
+         *
+         * @param dic DIČ, nebo {@code null}
+         * @return tento builder
+         * @see Dic#parse(String)
+         */
+        public Builder dic(String dic) {
+            this.dic = Dic.parse(dic);
+            return this;
+        }
+
+        /**
+         * Nepovinný DIČ poplatníka.
+         *
+         * @param dic {@link Dic}, nebo {@code null}
+         * @return tento builder
+         */
+        public Builder dic(Dic dic) {
+            this.dic = (dic == null) ? Dic.PRAZDNY : dic;
+            return this;
+        }
+
+        /**
+         * Částka v Kč, zaokrouhlí se na haléře stejně jako v {@link EetUctenka}.
+         *
+         * @param castka částka v Kč
+         * @return tento builder
+         */
+        public Builder castka(double castka) {
+            this.haleru = EetKoder.haleru(castka);
+            this.zaporna = EetKoder.zaporna(castka);
+            return this;
+        }
+
+        /**
+         * Částka v haléřích.
+         *
+         * @param haleru částka v haléřích
+         * @return tento builder
+         */
+        public Builder haleru(long haleru) {
+            if (haleru == Long.MIN_VALUE) {
+                throw new IllegalArgumentException("Částka " + haleru + " je mimo zpracovatelný rozsah.");
+            }
+            this.haleru = Math.abs(haleru);
+            this.zaporna = haleru < 0;
+            return this;
+        }
+
+        /**
+         * Místní datum a čas transakce v časové zóně {@link EetUctenka#ZONA_TRANSAKCE}, v letech 2000-2099.
+         *
+         * @param datumCasTransakce datum a čas transakce
+         * @return tento builder
+         */
+        public Builder datumCasTransakce(LocalDateTime datumCasTransakce) {
+            this.minuta = (datumCasTransakce == null) ? null : DateUtils.epochMinute(datumCasTransakce);
+            return this;
+        }
+
+        /**
+         * Datum a čas transakce, převede se do časové zóny {@link EetUctenka#ZONA_TRANSAKCE}, v letech 2000-2099.
+         *
+         * @param datumCasTransakce datum a čas transakce
+         * @return tento builder
+         */
+        public Builder datumCasTransakce(Date datumCasTransakce) {
+            this.minuta = (datumCasTransakce == null) ? null
+                    : DateUtils.epochMinute(datumCasTransakce.getTime(), EetUctenka.ZONA_TRANSAKCE);
+            return this;
+        }
+
+        /**
+         * Režim tržby.
+         *
+         * @param rezim {@link Rezim}
+         * @return tento builder
+         */
+        public Builder rezim(Rezim rezim) {
+            this.rezim = rezim;
+            return this;
+        }
+
+        /**
+         * Vytvoří neměnnou účtenku.
+         *
+         * @return {@link Uctenka}
+         * @throws IllegalArgumentException chybí povinná položka nebo datum transakce není v letech 2000-2099
+         */
+        public Uctenka build() {
+            if (kod == null) {
+                throw new IllegalArgumentException("Kód FIK nebo BKP musí být předán.");
+            }
+            if (minuta == null) {
+                throw new IllegalArgumentException("Datum transakce musí být předán");
+            }
+            // Zakódovaná informace nese rok dvojčíslím 20yy, jiný rok by se přečetl jinak
+            if (minuta < DateUtils.MINUTA_2000 || minuta >= DateUtils.MINUTA_2100) {
+                throw new IllegalArgumentException("Datum transakce musí být v letech 2000-2099: "
+                        + DateUtils.toLocalDateTime(minuta));
+            }
+            if (rezim == null) {
+                throw new IllegalArgumentException("Režim tržby musí být předán.");
+            }
+            return new Uctenka(kod, dic, rezim, minuta.intValue(), haleru, zaporna);
+        }
+    }
+
+}
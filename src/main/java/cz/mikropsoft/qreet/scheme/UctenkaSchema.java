@@ -0,0 +1,58 @@
+package cz.mikropsoft.qreet.scheme;
+
+import net.glxn.qrgen.core.scheme.Schema;
+
+/**
+ * Adaptér neměnné {@link Uctenka} pro knihovnu QRGen. Adaptér je rovněž neměnný, {@link #parseSchema(String)}
+ * proto nemění tuto instanci, ale vrací novou.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class UctenkaSchema extends Schema {
+
+    private final Uctenka uctenka;
+
+    /**
+     * Konstruktor.
+     *
+     * @param uctenka {@link Uctenka}
+     */
+    public UctenkaSchema(Uctenka uctenka) {
+        if (uctenka == null) {
+            throw new IllegalArgumentException("Účtenka musí být předána.");
+        }
+        this.uctenka = uctenka;
+    }
+
+    /**
+     * Účtenka tohoto adaptéru.
+     *
+     * @return {@link Uctenka}
+     */
+    public Uctenka getUctenka() {
+        return uctenka;
+    }
+
+    /**
+     * Dekódovat předaný řetězec do nového adaptéru.
+     *
+     * @param value zakódovaná informaci o účtence
+     * @return nový {@link UctenkaSchema}
+     * @see Uctenka#parse(CharSequence)
+     */
+    @Override
+    public UctenkaSchema parseSchema(String value) {
+        return new UctenkaSchema(Uctenka.parse(value));
+    }
+
+    /**
+     * Zakódovaná informace o účtence, spočítaná nejvýše jednou.
+     *
+     * @return zakódovaná informaci o účtence
+     */
+    @Override
+    public String generateString() {
+        return uctenka.qrValue();
+    }
+}
@@ -0,0 +1,220 @@
+package cz.mikropsoft.qreet.scheme;
+
+/**
+ * Validace vstupů bez vyhození výjimky a bez alokace. Každá metoda vrací 0 pro validní vstup, jinak nenulový
+ * výsledek, ze kterého lze získat důvod ({@link Chyba#of(int)}) a pozici chybného znaku ({@link Chyba#offset(int)}).
+ * <p>
+ * Metody {@code parse} a {@code of} jednotlivých položek při nevalidním vstupu vyhazují
+ * {@link IllegalArgumentException}, což je při hromadném zpracování, kdy je nevalidní vstup běžný, zbytečně drahé.
+ * Pro počítání důvodů odmítnutí přes celou dávku slouží {@link Statistika}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class Validace {
+
+    private static final int POCET_CHYB = Chyba.values().length;
+
+    /**
+     * Privátní konstruktor.
+     */
+    private Validace() {
+    }
+
+    /**
+     * Ověří zakódovanou informaci o účtence.
+     *
+     * @param value zakódovaná informace o účtence
+     * @return 0 pokud je řetězec validní, jinak výsledek validace
+     */
+    public static int uctenka(CharSequence value) {
+        return EetZaznam.scan(value, null);
+    }
+
+    /**
+     * Ověří fiskální identifikační kód ve tvaru {@code xxxxxxxx-xxxx-xxxx}, případně celý FIK.
+     *
+     * @param fik fiskální identifikační kód
+     * @return 0 pokud kód odpovídá vzoru, jinak výsledek validace
+     */
+    public static int fik(CharSequence fik) {
+        return Kod.validateFik(fik);
+    }
+
+    /**
+     * Ověří bezpečnostní kód poplatníka ve tvaru {@code xxxxxxxx-xxxxxxxx}, případně celý BKP.
+     *
+     * @param bkp bezpečnostní kód poplatníka
+     * @return 0 pokud kód odpovídá vzoru, jinak výsledek validace
+     */
+    public static int bkp(CharSequence bkp) {
+        return Kod.validateBkp(bkp);
+    }
+
+    /**
+     * Ověří DIČ poplatníka ve tvaru {@code CZ[0-9]{8,10}}, předpona CZ není povinná.
+     *
+     * @param dic DIČ poplatníka, {@code null} je validní, položka není povinná
+     * @return 0 pokud DIČ odpovídá vzoru, jinak výsledek validace
+     */
+    public static int dic(CharSequence dic) {
+        return Dic.validate(dic);
+    }
+
+    /**
+     * Ověří dvojčíslí verze, tedy typ kódu a verzi DIČ.
+     *
+     * @param value dvojčíslí
+     * @return 0 pokud je dvojčíslí validní, jinak výsledek validace
+     */
+    public static int verze(CharSequence value) {
+        if (value == null) {
+            return Chyba.vysledek(Chyba.PRAZDNY, 0);
+        }
+        if (value.length() != 2) {
+            return Chyba.vysledek(Chyba.DELKA, Math.min(value.length(), 2));
+        }
+        if (Kod.Typ.of(value.charAt(0)) == null) {
+            return Chyba.vysledek(Chyba.TYP_KODU, 0);
+        }
+        if (Dic.Verze.parse(value.charAt(1)) == null) {
+            return Chyba.vysledek(Chyba.VERZE_DIC, 1);
+        }
+        return 0;
+    }
+
+    /**
+     * Ověří režim tržby, tedy právě jednu číslici 0 nebo 1.
+     *
+     * @param value režim tržby
+     * @return 0 pokud je režim validní, jinak výsledek validace
+     */
+    public static int rezim(CharSequence value) {
+        if (value == null) {
+            return Chyba.vysledek(Chyba.PRAZDNY, 0);
+        }
+        if (value.length() != 1) {
+            return Chyba.vysledek(Chyba.DELKA, Math.min(value.length(), 1));
+        }
+        return Rezim.parse(value.charAt(0)) == null ? Chyba.vysledek(Chyba.REZIM, 0) : 0;
+    }
+
+    /**
+     * Počty validních a odmítnutých účtenek dávky podle důvodu odmítnutí. Instance není vláknově bezpečná, při
+     * paralelním zpracování má každé vlákno vlastní instanci a výsledky se sloučí přes {@link #merge(Statistika)}.
+     */
+    public static final class Statistika {
+
+        private final long[] odmitnutych = new long[POCET_CHYB];
+        private long validnich;
+
+        /**
+         * Ověří zakódovanou informaci o účtence a započítá výsledek.
+         *
+         * @param value zakódovaná informace o účtence
+         * @return 0 pokud je řetězec validní, jinak výsledek validace
+         */
+        public int validate(CharSequence value) {
+            return pridat(uctenka(value));
+        }
+
+        /**
+         * Ověří a započítá všechny předané účtenky.
+         *
+         * @param values zakódované informace o účtenkách
+         * @return počet odmítnutých účtenek z předaných
+         */
+        public long validateAll(Iterable<? extends CharSequence> values) {
+            long odmitnuto = 0;
+            for (CharSequence value : values) {
+                if (validate(value) != 0) {
+                    odmitnuto++;
+                }
+            }
+            return odmitnuto;
+        }
+
+        /**
+         * Započítá již zjištěný výsledek validace.
+         *
+         * @param vysledek výsledek validace
+         * @return předaný výsledek
+         */
+        public int pridat(int vysledek) {
+            int ordinal = vysledek & 0xFF;
+            if (ordinal == 0) {
+                validnich++;
+            } else {
+                odmitnutych[ordinal - 1]++;
+            }
+            return vysledek;
+        }
+
+        /**
+         * Přičte počty jiné statistiky.
+         *
+         * @param other jiná statistika
+         * @return tato statistika
+         */
+        public Statistika merge(Statistika other) {
+            validnich += other.validnich;
+            for (int i = 0; i < POCET_CHYB; i++) {
+                odmitnutych[i] += other.odmitnutych[i];
+            }
+            return this;
+        }
+
+        /**
+         * Počet validních účtenek.
+         *
+         * @return počet validních
+         */
+        public long getValidnich() {
+            return validnich;
+        }
+
+        /**
+         * Počet účtenek odmítnutých z předaného důvodu.
+         *
+         * @param chyba důvod odmítnutí
+         * @return počet odmítnutých
+         */
+        public long getOdmitnutych(Chyba chyba) {
+            return odmitnutych[chyba.ordinal()];
+        }
+
+        /**
+         * Počet všech odmítnutých účtenek.
+         *
+         * @return počet odmítnutých
+         */
+        public long getOdmitnutych() {
+            long sum = 0;
+            for (long pocet : odmitnutych) {
+                sum += pocet;
+            }
+            return sum;
+        }
+
+        /**
+         * Počet všech započítaných účtenek.
+         *
+         * @return počet účtenek
+         */
+        public long getPocet() {
+            return validnich + getOdmitnutych();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Statistika{validnich=").append(validnich);
+            for (int i = 0; i < POCET_CHYB; i++) {
+                if (odmitnutych[i] != 0) {
+                    sb.append(", ").append(Chyba.of(i + 1)).append('=').append(odmitnutych[i]);
+                }
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+}
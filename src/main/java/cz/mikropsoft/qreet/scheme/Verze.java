@@ -8,8 +8,19 @@ package cz.mikropsoft.qreet.scheme;
  */
 public class Verze implements QrEet {
 
-    private Kod.Typ typ;
-    private Dic.Verze dic;
+    // Všech 2x4 kombinací podle pořadí typu kódu a verze DIČ
+    private static final Verze[][] KOMBINACE = new Verze[Kod.Typ.values().length][Dic.Verze.values().length];
+
+    static {
+        for (Kod.Typ typ : Kod.Typ.values()) {
+            for (Dic.Verze dic : Dic.Verze.values()) {
+                KOMBINACE[typ.ordinal()][dic.ordinal()] = new Verze(typ, dic);
+            }
+        }
+    }
+
+    private final Kod.Typ typ;
+    private final Dic.Verze dic;
 
     /**
      * Privátní konstruktor.
@@ -36,13 +47,27 @@ public class Verze implements QrEet {
 
             Kod.Typ typ = Kod.Typ.parse(value.charAt(0));
             Dic.Verze dic = Dic.Verze.parse(value.charAt(1));
-            return new Verze(typ, dic);
+            if (dic == null) {
+                throw new IllegalArgumentException("Nepřípustná verze DIČ '" + value.charAt(1) + "'.");
+            }
+            return of(typ, dic);
 
         } else {
             throw new IllegalArgumentException("Číslo reprezentující verzi kódu neodpovídá svoji délkou právě dvěma znakům.");
         }
     }
 
+    /**
+     * Vrací sdílenou {@link Verze} pro předaný typ kódu a verzi DIČ.
+     *
+     * @param typ {@link Kod.Typ}
+     * @param dic {@link Dic.Verze}
+     * @return {@link Verze}
+     */
+    public static Verze of(Kod.Typ typ, Dic.Verze dic) {
+        return KOMBINACE[typ.ordinal()][dic.ordinal()];
+    }
+
     /**
      * Vrací typ kódu.
      *
@@ -77,6 +102,23 @@ public class Verze implements QrEet {
         return typ.qrValue() + dic.qrValue();
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Verze)) {
+            return false;
+        }
+        Verze verze = (Verze) o;
+        return typ == verze.typ && dic == verze.dic;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (typ == null ? 0 : typ.hashCode()) + (dic == null ? 0 : dic.hashCode());
+    }
+
     @Override
     public String toString() {
         return "Verze{" +
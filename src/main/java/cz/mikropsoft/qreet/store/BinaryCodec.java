@@ -0,0 +1,346 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import cz.mikropsoft.qreet.utils.DateUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binární zápis účtenky s pevnou délkou {@value #RECORD_BYTES} bajtů, náhrada serializace Javy. Záznam tvoří tři
+ * slova {@code long}:
+ * <ol>
+ *     <li>64 významných bitů kódu FIK nebo BKP ({@link Kod#getBits()})</li>
+ *     <li>DIČ (bity 0-33), verze DIČ (34-35), typ kódu (36), režim tržby (37) a minuta transakce od
+ *     2000-01-01T00:00 (38-63)</li>
+ *     <li>absolutní hodnota částky v haléřích (bity 0-62) a příznak záporné částky (63)</li>
+ * </ol>
+ * Datum a čas se zapisuje v letech 2000-2099 se shodným zápisem {@code yyMMddHHmm}, zpětně přečtená účtenka tak má
+ * stejnou zakódovanou informaci ({@code generateString()}) jako zapsaná. Slova se do {@link ByteBuffer} zapisují
+ * v jeho pořadí bajtů, do {@link DataOutput} v pořadí big-endian.
+ * <p>
+ * Zapisovat a číst lze {@link Uctenka}, {@link EetZaznam} i {@link EetUctenka}; bez alokace pracuje jen zápis
+ * a čtení {@link EetZaznam}. Zápornou nulu zachová jen {@link Uctenka}, ostatní ji přečtou jako nulu.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class BinaryCodec {
+
+    /**
+     * Počet bajtů jednoho záznamu.
+     */
+    public static final int RECORD_BYTES = 24;
+
+    private static final long DIC_MASK = (1L << 34) - 1;
+    private static final long CASTKA_MASK = Long.MAX_VALUE;
+    private static final long MINUT_STOLETI = DateUtils.MINUTA_2100 - DateUtils.MINUTA_2000;
+
+    // Nejvyšší číselná hodnota DIČ podle verze
+    private static final long[] DIC_MAX = {0L, 99999999L, 999999999L, 9999999999L};
+
+    private static final Kod.Typ[] TYPY = Kod.Typ.values();
+    private static final Dic.Verze[] VERZE_DIC = Dic.Verze.values();
+    private static final Rezim[] REZIMY = Rezim.values();
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Zapíše záznam účtenky na aktuální pozici bufferu.
+     *
+     * @param zaznam naplněný záznam
+     * @param dst cílový buffer
+     * @throws BufferOverflowException v bufferu nezbývá {@value #RECORD_BYTES} bajtů
+     */
+    public static void write(EetZaznam zaznam, ByteBuffer dst) {
+        long castka = zaznam.getCastka();
+        dst.putLong(Kod.bits(zaznam.getTyp(), zaznam.getKodHi(), zaznam.getKodLo()));
+        dst.putLong(polozky(zaznam.getTyp(), zaznam.getDicVerze(), zaznam.getRezim(), zaznam.getMinuta(),
+                zaznam.getDic()));
+        dst.putLong(castka(Math.abs(castka), castka < 0));
+    }
+
+    /**
+     * Zapíše účtenku na aktuální pozici bufferu.
+     *
+     * @param uctenka účtenka
+     * @param dst cílový buffer
+     * @throws BufferOverflowException v bufferu nezbývá {@value #RECORD_BYTES} bajtů
+     */
+    public static void write(Uctenka uctenka, ByteBuffer dst) {
+        Kod kod = uctenka.getKod();
+        Dic dic = uctenka.getDic();
+        dst.putLong(kod.getBits());
+        dst.putLong(polozky(kod.getTyp(), dic.getVerze(), uctenka.getRezim(), uctenka.getMinuta(), dic.getCislo()));
+        dst.putLong(castka(Math.abs(uctenka.getCastka()), uctenka.isZaporna()));
+    }
+
+    /**
+     * Zapíše účtenku na aktuální pozici bufferu.
+     *
+     * @param uctenka účtenka
+     * @param dst cílový buffer
+     * @throws BufferOverflowException v bufferu nezbývá {@value #RECORD_BYTES} bajtů
+     * @throws IllegalArgumentException účtenka nemá kód nebo režim tržby
+     */
+    public static void write(EetUctenka uctenka, ByteBuffer dst) {
+        write(uctenka.toUctenka(), dst);
+    }
+
+    /**
+     * Zapíše účtenku do předaného výstupu.
+     *
+     * @param uctenka účtenka
+     * @param out výstup
+     * @throws IOException chyba zápisu
+     * @throws IllegalArgumentException účtenka nemá kód nebo režim tržby
+     */
+    public static void write(EetUctenka uctenka, DataOutput out) throws IOException {
+        write(uctenka.toUctenka(), out);
+    }
+
+    /**
+     * Zapíše účtenku do předaného výstupu.
+     *
+     * @param uctenka účtenka
+     * @param out výstup
+     * @throws IOException chyba zápisu
+     */
+    public static void write(Uctenka uctenka, DataOutput out) throws IOException {
+        Kod kod = uctenka.getKod();
+        Dic dic = uctenka.getDic();
+        out.writeLong(kod.getBits());
+        out.writeLong(polozky(kod.getTyp(), dic.getVerze(), uctenka.getRezim(), uctenka.getMinuta(), dic.getCislo()));
+        out.writeLong(castka(Math.abs(uctenka.getCastka()), uctenka.isZaporna()));
+    }
+
+    /**
+     * Zapíše záznam účtenky do předaného výstupu.
+     *
+     * @param zaznam naplněný záznam
+     * @param out výstup
+     * @throws IOException chyba zápisu
+     */
+    public static void write(EetZaznam zaznam, DataOutput out) throws IOException {
+        long castka = zaznam.getCastka();
+        out.writeLong(Kod.bits(zaznam.getTyp(), zaznam.getKodHi(), zaznam.getKodLo()));
+        out.writeLong(polozky(zaznam.getTyp(), zaznam.getDicVerze(), zaznam.getRezim(), zaznam.getMinuta(),
+                zaznam.getDic()));
+        out.writeLong(castka(Math.abs(castka), castka < 0));
+    }
+
+    /**
+     * Zapíše pole účtenek za sebou na aktuální pozici bufferu, bez počtu.
+     *
+     * @param uctenky účtenky
+     * @param dst cílový buffer
+     * @throws BufferOverflowException v bufferu nezbývá místo pro všechny účtenky
+     */
+    public static void writeAll(Uctenka[] uctenky, ByteBuffer dst) {
+        if (dst.remaining() < (long) uctenky.length * RECORD_BYTES) {
+            throw new BufferOverflowException();
+        }
+        for (Uctenka uctenka : uctenky) {
+            write(uctenka, dst);
+        }
+    }
+
+    /**
+     * Zapíše počet účtenek a pak účtenky za sebou do předaného výstupu.
+     *
+     * @param uctenky účtenky
+     * @param out výstup
+     * @throws IOException chyba zápisu
+     */
+    public static void writeAll(Uctenka[] uctenky, DataOutput out) throws IOException {
+        out.writeInt(uctenky.length);
+        for (Uctenka uctenka : uctenky) {
+            write(uctenka, out);
+        }
+    }
+
+    /**
+     * Přečte záznam účtenky z aktuální pozice bufferu do předaného záznamu, bez alokace.
+     *
+     * @param src zdrojový buffer
+     * @param zaznam naplňovaný záznam
+     * @return předaný záznam
+     * @throws BufferUnderflowException v bufferu nezbývá {@value #RECORD_BYTES} bajtů
+     * @throws IllegalArgumentException záznam není platný
+     */
+    public static EetZaznam read(ByteBuffer src, EetZaznam zaznam) {
+        return read(src.getLong(), src.getLong(), src.getLong(), zaznam);
+    }
+
+    /**
+     * Přečte záznam účtenky z předaného vstupu do předaného záznamu.
+     *
+     * @param in vstup
+     * @param zaznam naplňovaný záznam
+     * @return předaný záznam
+     * @throws IOException chyba čtení nebo neplatný záznam
+     */
+    public static EetZaznam read(DataInput in, EetZaznam zaznam) throws IOException {
+        long bits = in.readLong();
+        long polozky = in.readLong();
+        long castka = in.readLong();
+        try {
+            return read(bits, polozky, castka, zaznam);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Přečte účtenku z aktuální pozice bufferu.
+     *
+     * @param src zdrojový buffer
+     * @return {@link Uctenka}
+     * @throws BufferUnderflowException v bufferu nezbývá {@value #RECORD_BYTES} bajtů
+     * @throws IllegalArgumentException záznam není platný
+     */
+    public static Uctenka read(ByteBuffer src) {
+        long bits = src.getLong();
+        long polozky = src.getLong();
+        long castka = src.getLong();
+        EetZaznam zaznam = read(bits, polozky, castka, new EetZaznam());
+        return uctenka(zaznam, castka);
+    }
+
+    /**
+     * Přečte účtenku z aktuální pozice bufferu jako {@link EetUctenka}.
+     *
+     * @param src zdrojový buffer
+     * @return {@link EetUctenka}
+     * @throws BufferUnderflowException v bufferu nezbývá {@value #RECORD_BYTES} bajtů
+     * @throws IllegalArgumentException záznam není platný
+     */
+    public static EetUctenka readEetUctenka(ByteBuffer src) {
+        return read(src, new EetZaznam()).toUctenka();
+    }
+
+    /**
+     * Přečte účtenku z předaného vstupu jako {@link EetUctenka}.
+     *
+     * @param in vstup
+     * @return {@link EetUctenka}
+     * @throws IOException chyba čtení nebo neplatný záznam
+     */
+    public static EetUctenka readEetUctenka(DataInput in) throws IOException {
+        return read(in, new EetZaznam()).toUctenka();
+    }
+
+    /**
+     * Přečte účtenky z aktuální pozice bufferu.
+     *
+     * @param src zdrojový buffer
+     * @param pocet počet účtenek
+     * @return pole účtenek
+     * @throws BufferUnderflowException v bufferu nezbývá místo pro všechny účtenky
+     * @throws IllegalArgumentException záznam není platný
+     */
+    public static Uctenka[] readAll(ByteBuffer src, int pocet) {
+        if (pocet < 0 || src.remaining() < (long) pocet * RECORD_BYTES) {
+            throw new BufferUnderflowException();
+        }
+        Uctenka[] uctenky = new Uctenka[pocet];
+        EetZaznam zaznam = new EetZaznam();
+        for (int i = 0; i < pocet; i++) {
+            long bits = src.getLong();
+            long polozky = src.getLong();
+            long castka = src.getLong();
+            uctenky[i] = uctenka(read(bits, polozky, castka, zaznam), castka);
+        }
+        return uctenky;
+    }
+
+    /**
+     * Přečte počet účtenek a pak účtenky zapsané metodou {@link #writeAll(Uctenka[], DataOutput)}.
+     *
+     * @param in vstup
+     * @return pole účtenek
+     * @throws IOException chyba čtení nebo neplatný záznam
+     */
+    public static Uctenka[] readAll(DataInput in) throws IOException {
+        int pocet = in.readInt();
+        if (pocet < 0) {
+            throw new IOException("Neplatný počet účtenek: " + pocet);
+        }
+        Uctenka[] uctenky = new Uctenka[pocet];
+        EetZaznam zaznam = new EetZaznam();
+        for (int i = 0; i < pocet; i++) {
+            long bits = in.readLong();
+            long polozky = in.readLong();
+            long castka = in.readLong();
+            try {
+                uctenky[i] = uctenka(read(bits, polozky, castka, zaznam), castka);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        return uctenky;
+    }
+
+    /**
+     * Druhé slovo záznamu.
+     */
+    private static long polozky(Kod.Typ typ, Dic.Verze dicVerze, Rezim rezim, int minuta, long dic) {
+        long od2000 = DateUtils.normalize(minuta) - DateUtils.MINUTA_2000;
+        return dic | (long) dicVerze.ordinal() << 34 | (long) typ.ordinal() << 36 | (long) rezim.ordinal() << 37
+                | od2000 << 38;
+    }
+
+    /**
+     * Třetí slovo záznamu.
+     */
+    private static long castka(long haleru, boolean zaporna) {
+        if (haleru < 0) {
+            throw new IllegalArgumentException("Částka " + haleru + " je mimo zpracovatelný rozsah.");
+        }
+        return zaporna ? haleru | Long.MIN_VALUE : haleru;
+    }
+
+    private static EetZaznam read(long bits, long polozky, long castka, EetZaznam zaznam) {
+        Kod.Typ typ = TYPY[(int) (polozky >>> 36) & 1];
+        Dic.Verze dicVerze = VERZE_DIC[(int) (polozky >>> 34) & 3];
+        Rezim rezim = REZIMY[(int) (polozky >>> 37) & 1];
+        long dic = polozky & DIC_MASK;
+        long od2000 = polozky >>> 38;
+        if (dic > DIC_MAX[dicVerze.ordinal()] || od2000 >= MINUT_STOLETI) {
+            throw new IllegalArgumentException("Neplatný binární záznam účtenky: " + Long.toHexString(polozky));
+        }
+        long kodHi = bits >>> 32;
+        long kodLo = (typ == Kod.Typ.FIK) ? (bits >>> 16 & 0xFFFFL) * 100000L + (bits & 0xFFFFL) : bits & 0xFFFFFFFFL;
+        long haleru = castka & CASTKA_MASK;
+        return zaznam.set(typ, dicVerze, rezim, (int) (DateUtils.MINUTA_2000 + od2000), dic, kodHi, kodLo,
+                castka < 0 ? -haleru : haleru);
+    }
+
+    /**
+     * Účtenka ze záznamu, se zachováním záporné nuly.
+     */
+    private static Uctenka uctenka(EetZaznam zaznam, long castka) {
+        Uctenka uctenka = Uctenka.of(zaznam);
+        if (castka == Long.MIN_VALUE) {
+            return Uctenka.builder()
+                    .kod(uctenka.getKod())
+                    .dic(uctenka.getDic())
+                    .rezim(uctenka.getRezim())
+                    .datumCasTransakce(uctenka.getDatumCasTransakce())
+                    .castka(-0d)
+                    .build();
+        }
+        return uctenka;
+    }
+
+}
@@ -0,0 +1,429 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sloupcové úložiště účtenek mimo haldu JVM. Každá účtenka zabírá 37 bajtů v přímých (direct)
+ * {@link ByteBuffer}, rozdělených do segmentů po {@value #SEGMENT_ROWS} řádcích. Uvnitř segmentu je každá položka
+ * uložena ve vlastním sloupci:
+ * <ul>
+ *     <li>kód - dvě poloviny dekadické podoby po 10 číslicích ({@code long}, {@code long})</li>
+ *     <li>DIČ poplatníka ({@code long})</li>
+ *     <li>částka v haléřích ({@code long})</li>
+ *     <li>místní datum a čas transakce v minutách od 1970-01-01T00:00 ({@code int})</li>
+ *     <li>typ kódu, verze DIČ a režim tržby ({@code byte})</li>
+ * </ul>
+ * Úložiště dovoluje přidávat na konec a číst libovolný řádek. Přidávat smí v jednom okamžiku jen jedno vlákno; řádky
+ * přidané před předáním úložiště jinému vláknu (happens-before) lze číst souběžně z libovolného počtu vláken.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public class ColumnStore {
+
+    static final int SEGMENT_SHIFT = 16;
+    static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_ROWS - 1;
+
+    // Počátky sloupců v segmentu
+    private static final int KOD_HI = 0;
+    private static final int KOD_LO = KOD_HI + 8 * SEGMENT_ROWS;
+    private static final int DIC = KOD_LO + 8 * SEGMENT_ROWS;
+    private static final int CASTKA = DIC + 8 * SEGMENT_ROWS;
+    private static final int MINUTA = CASTKA + 8 * SEGMENT_ROWS;
+    private static final int PRIZNAKY = MINUTA + 4 * SEGMENT_ROWS;
+    private static final int SEGMENT_BYTES = PRIZNAKY + SEGMENT_ROWS;
+
+    /**
+     * Počet bajtů na jednu účtenku.
+     */
+    public static final int ROW_BYTES = SEGMENT_BYTES / SEGMENT_ROWS;
+
+    private static final Kod.Typ[] TYPY = Kod.Typ.values();
+    private static final Dic.Verze[] VERZE_DIC = Dic.Verze.values();
+    private static final Rezim[] REZIMY = Rezim.values();
+
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    private final EetZaznam scratch = new EetZaznam();
+    private volatile long size;
+
+    /**
+     * Počet uložených účtenek.
+     *
+     * @return počet řádků
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Obsazená paměť mimo haldu.
+     *
+     * @return počet bajtů
+     */
+    public long capacityBytes() {
+        return (long) segments.size() * SEGMENT_BYTES;
+    }
+
+    /**
+     * Přidá účtenku na konec úložiště.
+     *
+     * @param uctenka účtenka
+     * @return řádek přidané účtenky
+     */
+    public long append(EetUctenka uctenka) {
+        return append(uctenka.toZaznam(scratch));
+    }
+
+    /**
+     * Přidá účtenku na konec úložiště.
+     *
+     * @param zaznam naplněný záznam účtenky
+     * @return řádek přidané účtenky
+     */
+    public long append(EetZaznam zaznam) {
+        return append(zaznam.getTyp(), zaznam.getDicVerze(), zaznam.getRezim(), zaznam.getMinuta(), zaznam.getDic(),
+                zaznam.getKodHi(), zaznam.getKodLo(), zaznam.getCastka());
+    }
+
+    /**
+     * Přidá účtenku na konec úložiště.
+     *
+     * @param typ typ kódu
+     * @param dicVerze verze DIČ poplatníka
+     * @param rezim režim tržby
+     * @param minuta místní datum a čas transakce v minutách od 1970-01-01T00:00
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param kodHi prvních 10 číslic kódu v dekadické soustavě
+     * @param kodLo posledních 10 číslic kódu v dekadické soustavě
+     * @param castka částka v haléřích
+     * @return řádek přidané účtenky
+     */
+    public long append(Kod.Typ typ, Dic.Verze dicVerze, Rezim rezim, int minuta, long dic, long kodHi, long kodLo,
+                       long castka) {
+        if (typ == null || dicVerze == null || rezim == null) {
+            throw new IllegalArgumentException("Typ kódu, verze DIČ a režim tržby musí být předány.");
+        }
+        long row = size;
+        int index = (int) (row & SEGMENT_MASK);
+        if (index == 0 && (row >>> SEGMENT_SHIFT) == segments.size()) {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_BYTES).order(ByteOrder.nativeOrder()));
+        }
+        ByteBuffer segment = segments.get((int) (row >>> SEGMENT_SHIFT));
+        segment.putLong(KOD_HI + 8 * index, kodHi);
+        segment.putLong(KOD_LO + 8 * index, kodLo);
+        segment.putLong(DIC + 8 * index, dic);
+        segment.putLong(CASTKA + 8 * index, castka);
+        segment.putInt(MINUTA + 4 * index, minuta);
+        segment.put(PRIZNAKY + index, (byte) (typ.ordinal() | dicVerze.ordinal() << 1 | rezim.ordinal() << 4));
+        size = row + 1;
+        return row;
+    }
+
+    private ByteBuffer segment(long row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Řádek " + row + " mimo rozsah 0.." + (size - 1));
+        }
+        return segments.get((int) (row >>> SEGMENT_SHIFT));
+    }
+
+    private static int index(long row) {
+        return (int) (row & SEGMENT_MASK);
+    }
+
+    private int priznaky(long row) {
+        return segment(row).get(PRIZNAKY + index(row));
+    }
+
+    /**
+     * Typ kódu.
+     *
+     * @param row řádek
+     * @return {@link Kod.Typ}
+     */
+    public Kod.Typ getTyp(long row) {
+        return TYPY[priznaky(row) & 0x1];
+    }
+
+    /**
+     * Verze DIČ poplatníka.
+     *
+     * @param row řádek
+     * @return {@link Dic.Verze}
+     */
+    public Dic.Verze getDicVerze(long row) {
+        return VERZE_DIC[(priznaky(row) >>> 1) & 0x7];
+    }
+
+    /**
+     * Režim tržby.
+     *
+     * @param row řádek
+     * @return {@link Rezim}
+     */
+    public Rezim getRezim(long row) {
+        return REZIMY[(priznaky(row) >>> 4) & 0x1];
+    }
+
+    /**
+     * Místní datum a čas transakce v minutách od 1970-01-01T00:00.
+     *
+     * @param row řádek
+     * @return datum a čas v minutách
+     */
+    public int getMinuta(long row) {
+        return segment(row).getInt(MINUTA + 4 * index(row));
+    }
+
+    /**
+     * DIČ poplatníka jako číslo, pro prázdný DIČ vrací 0.
+     *
+     * @param row řádek
+     * @return číselná hodnota DIČ
+     */
+    public long getDic(long row) {
+        return segment(row).getLong(DIC + 8 * index(row));
+    }
+
+    /**
+     * Prvních 10 číslic kódu v dekadické soustavě.
+     *
+     * @param row řádek
+     * @return číslo o nejvýše 10 číslicích
+     */
+    public long getKodHi(long row) {
+        return segment(row).getLong(KOD_HI + 8 * index(row));
+    }
+
+    /**
+     * Posledních 10 číslic kódu v dekadické soustavě.
+     *
+     * @param row řádek
+     * @return číslo o nejvýše 10 číslicích
+     */
+    public long getKodLo(long row) {
+        return segment(row).getLong(KOD_LO + 8 * index(row));
+    }
+
+    /**
+     * Částka v haléřích.
+     *
+     * @param row řádek
+     * @return částka v haléřích
+     */
+    public long getCastka(long row) {
+        return segment(row).getLong(CASTKA + 8 * index(row));
+    }
+
+    /**
+     * Naplní předaný záznam položkami řádku.
+     *
+     * @param row řádek
+     * @param zaznam naplňovaný záznam
+     * @return předaný záznam
+     */
+    public EetZaznam get(long row, EetZaznam zaznam) {
+        ByteBuffer segment = segment(row);
+        int index = index(row);
+        int priznaky = segment.get(PRIZNAKY + index);
+        return zaznam.set(TYPY[priznaky & 0x1], VERZE_DIC[(priznaky >>> 1) & 0x7], REZIMY[(priznaky >>> 4) & 0x1],
+                segment.getInt(MINUTA + 4 * index), segment.getLong(DIC + 8 * index),
+                segment.getLong(KOD_HI + 8 * index), segment.getLong(KOD_LO + 8 * index),
+                segment.getLong(CASTKA + 8 * index));
+    }
+
+    /**
+     * Nový pohled na řádky úložiště. Každé vlákno by mělo používat vlastní pohled.
+     *
+     * @return {@link View} nastavený na řádek 0
+     */
+    public View view() {
+        return new View(this);
+    }
+
+    /**
+     * Znovupoužitelný pohled (flyweight) na jeden řádek úložiště. Čte položky přímo z úložiště, bez kopírování
+     * a bez vytváření {@link EetUctenka}. Řádek se mění metodou {@link #moveTo(long)}.
+     * <p>
+     * Instance není bezpečná pro souběžné použití z více vláken.
+     */
+    public static final class View {
+
+        private final ColumnStore store;
+        private final EetZaznam zaznam = new EetZaznam();
+        private long row;
+
+        private View(ColumnStore store) {
+            this.store = store;
+        }
+
+        /**
+         * Nastaví pohled na předaný řádek.
+         *
+         * @param row řádek
+         * @return tento pohled
+         */
+        public View moveTo(long row) {
+            if (row < 0 || row >= store.size()) {
+                throw new IndexOutOfBoundsException("Řádek " + row + " mimo rozsah 0.." + (store.size() - 1));
+            }
+            this.row = row;
+            return this;
+        }
+
+        /**
+         * Aktuální řádek.
+         *
+         * @return řádek
+         */
+        public long getRow() {
+            return row;
+        }
+
+        /**
+         * @see ColumnStore#getTyp(long)
+         */
+        public Kod.Typ getTyp() {
+            return store.getTyp(row);
+        }
+
+        /**
+         * @see ColumnStore#getDicVerze(long)
+         */
+        public Dic.Verze getDicVerze() {
+            return store.getDicVerze(row);
+        }
+
+        /**
+         * @see ColumnStore#getRezim(long)
+         */
+        public Rezim getRezim() {
+            return store.getRezim(row);
+        }
+
+        /**
+         * @see ColumnStore#getMinuta(long)
+         */
+        public int getMinuta() {
+            return store.getMinuta(row);
+        }
+
+        /**
+         * Místní datum a čas transakce.
+         *
+         * @return {@link LocalDateTime}
+         */
+        public LocalDateTime getDatumCasTransakce() {
+            return store.get(row, zaznam).getDatumCasTransakce();
+        }
+
+        /**
+         * @see ColumnStore#getDic(long)
+         */
+        public long getDic() {
+            return store.getDic(row);
+        }
+
+        /**
+         * @see ColumnStore#getKodHi(long)
+         */
+        public long getKodHi() {
+            return store.getKodHi(row);
+        }
+
+        /**
+         * @see ColumnStore#getKodLo(long)
+         */
+        public long getKodLo() {
+            return store.getKodLo(row);
+        }
+
+        /**
+         * @see ColumnStore#getCastka(long)
+         */
+        public long getCastka() {
+            return store.getCastka(row);
+        }
+
+        /**
+         * Délka zakódované informace o účtence.
+         *
+         * @return počet znaků
+         */
+        public int encodedLength() {
+            return store.get(row, zaznam).encodedLength();
+        }
+
+        /**
+         * Zapíše zakódovanou informaci o účtence do předaného pole znaků, bez alokace.
+         *
+         * @param dst cílové pole
+         * @param offset pozice prvního znaku
+         * @return počet zapsaných znaků
+         */
+        public int encodeTo(char[] dst, int offset) {
+            return store.get(row, zaznam).encodeTo(dst, offset);
+        }
+
+        /**
+         * Zapíše zakódovanou informaci o účtence jako ASCII do předaného pole bajtů, bez alokace.
+         *
+         * @param dst cílové pole
+         * @param offset pozice prvního bajtu
+         * @return počet zapsaných bajtů
+         */
+        public int encodeTo(byte[] dst, int offset) {
+            return store.get(row, zaznam).encodeTo(dst, offset);
+        }
+
+        /**
+         * Připojí zakódovanou informaci o účtence k předanému {@link Appendable}.
+         *
+         * @param out cíl zápisu
+         * @param <A> typ cíle zápisu
+         * @return předaný cíl zápisu
+         * @throws IOException chyba zápisu do {@link Appendable}
+         */
+        public <A extends Appendable> A encodeTo(A out) throws IOException {
+            return store.get(row, zaznam).encodeTo(out);
+        }
+
+        /**
+         * VERZE : REŽIM TRŽBY : DATUM : DIČ : KÓDY : ČÁSTKA
+         *
+         * @return zakódovaná informaci o účtence
+         */
+        public String generateString() {
+            return store.get(row, zaznam).generateString();
+        }
+
+        /**
+         * Vytvoří z aktuálního řádku novou {@link EetUctenka}.
+         *
+         * @return naplněná {@link EetUctenka}
+         */
+        public EetUctenka toUctenka() {
+            return store.get(row, zaznam).toUctenka();
+        }
+
+        @Override
+        public String toString() {
+            return "View{" +
+                    "row=" + row +
+                    ", zaznam=" + store.get(row, zaznam) +
+                    '}';
+        }
+    }
+
+}
@@ -0,0 +1,457 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.bulk.BulkDecoder;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+/**
+ * Trvalý deník účtenek pouze s přidáváním na konec. Účtenky se zapisují jako záznamy pevné délky
+ * {@value #RECORD_BYTES} bajtů do souborů segmentů namapovaných do paměti, každý segment pojme stejný počet záznamů.
+ * Záznam tvoří:
+ * <ol>
+ *     <li>účtenka v zápisu {@link BinaryCodec} ({@value BinaryCodec#RECORD_BYTES} bajtů)</li>
+ *     <li>dolních 32 bitů pořadí záznamu v deníku</li>
+ *     <li>CRC32 předchozích 28 bajtů</li>
+ * </ol>
+ * Přidání záznamu je jen zápis do paměti. Trvalost zajišťuje {@link #sync(long)}: volající vlákna, která čekají
+ * současně, obslouží jediné {@link MappedByteBuffer#force()} (group commit), takže se počet zápisů na disk nezvyšuje
+ * s počtem vláken.
+ * <p>
+ * Při otevření se ověří záznamy všech segmentů. V posledním segmentu se deník zkrátí před první záznam s chybným
+ * kontrolním součtem nebo pořadím (rozepsaný konec po havárii) a zbytek segmentu se vynuluje, aby se staré záznamy
+ * za novým koncem nemohly později jevit jako platné. Poškozený záznam v dřívějším segmentu se nezkracuje,
+ * otevření skončí {@link IOException} s názvem souboru a pozicí záznamu.
+ * <p>
+ * Přidávat a číst lze souběžně z více vláken, přidávání se řadí za sebou.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class ReceiptLog implements Closeable {
+
+    /**
+     * Počet bajtů jednoho záznamu.
+     */
+    public static final int RECORD_BYTES = 32;
+
+    /**
+     * Výchozí počet záznamů segmentu, segment má 64 MB.
+     */
+    public static final int SEGMENT_RECORDS = 1 << 21;
+
+    // Hlavička segmentu v místě prvního záznamu: "QRLG", verze formátu, délka záznamu, počet záznamů a pořadí
+    // prvního záznamu segmentu
+    private static final int MAGIC = 0x51524C47;
+    private static final int VERZE = 1;
+    private static final String PRIPONA = ".seg";
+
+    // Počet záznamů, které se při paralelním čtení dále nedělí
+    private static final int DAVKA = 1 << 16;
+
+    private final Path adresar;
+    private final int zaznamuSegmentu;
+    private final Object forceLock = new Object();
+    private final byte[] zaznam = new byte[RECORD_BYTES];
+    private final ByteBuffer zapis = ByteBuffer.wrap(zaznam).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private final long obnoveno;
+
+    // Segmenty v pořadí, nahrazuje se celé pole
+    private volatile MappedByteBuffer[] segmenty;
+    private volatile long size;
+    private volatile long trvale;
+    private boolean zavreno;
+
+    private ReceiptLog(Path adresar, int zaznamuSegmentu) throws IOException {
+        this.adresar = adresar;
+        this.zaznamuSegmentu = zaznamuSegmentu;
+        this.segmenty = new MappedByteBuffer[0];
+        this.obnoveno = obnovit();
+        this.trvale = obnoveno;
+    }
+
+    /**
+     * Otevře, případně založí, deník v předaném adresáři s výchozí velikostí segmentu.
+     *
+     * @param adresar adresář segmentů
+     * @return deník
+     * @throws IOException chyba čtení nebo zápisu, nebo adresář obsahuje segmenty jiného formátu
+     */
+    public static ReceiptLog open(Path adresar) throws IOException {
+        return open(adresar, SEGMENT_RECORDS);
+    }
+
+    /**
+     * Otevře, případně založí, deník v předaném adresáři.
+     *
+     * @param adresar adresář segmentů
+     * @param zaznamuSegmentu počet záznamů segmentu včetně hlavičky, mocnina dvou; existující deník musí být založen
+     * se stejnou hodnotou
+     * @return deník
+     * @throws IOException chyba čtení nebo zápisu, nebo adresář obsahuje segmenty jiného formátu
+     */
+    public static ReceiptLog open(Path adresar, int zaznamuSegmentu) throws IOException {
+        if (zaznamuSegmentu < 2 || Integer.bitCount(zaznamuSegmentu) != 1
+                || (long) zaznamuSegmentu * RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Počet záznamů segmentu musí být mocnina dvou v rozsahu 2-2^26: "
+                    + zaznamuSegmentu);
+        }
+        Files.createDirectories(adresar);
+        return new ReceiptLog(adresar, zaznamuSegmentu);
+    }
+
+    /**
+     * Najde segmenty, ověří jejich hlavičky a záznamy a určí konec deníku.
+     *
+     * @return počet platných záznamů
+     */
+    private long obnovit() throws IOException {
+        List<Path> soubory = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(adresar, "*" + PRIPONA)) {
+            for (Path soubor : stream) {
+                soubory.add(soubor);
+            }
+        }
+        soubory.sort(null);
+
+        List<MappedByteBuffer> platne = new ArrayList<MappedByteBuffer>();
+        long konec = 0;
+        int posledni = soubory.size() - 1;
+        for (int i = 0; i <= posledni; i++) {
+            Path soubor = soubory.get(i);
+            if (!soubor.equals(soubor(i))) {
+                throw new IOException("Segment " + soubor + " nenavazuje na předchozí segmenty deníku.");
+            }
+            MappedByteBuffer segment = map(soubor);
+            if (i == posledni && segment.getLong(0) == 0L && segment.getLong(16) == 0L) {
+                // Poslední segment založený těsně před havárií, hlavička se nestihla zapsat
+                Files.delete(soubor);
+                break;
+            }
+            if (segment.getInt(0) != MAGIC || segment.getInt(4) != VERZE || segment.getInt(8) != RECORD_BYTES
+                    || segment.getInt(12) != zaznamuSegmentu || segment.getLong(16) != prvni(i)) {
+                throw new IOException("Segment " + soubor + " nemá hlavičku deníku účtenek se shodnými parametry.");
+            }
+            platne.add(segment);
+            int z = 1;
+            while (z < zaznamuSegmentu && platny(segment, z, prvni(i) + z - 1)) {
+                z++;
+            }
+            konec = prvni(i) + z - 1;
+            if (z == zaznamuSegmentu) {
+                continue;
+            }
+            if (i < posledni) {
+                // Dřívější segment se před založením dalšího zapsal na disk, chybný záznam v něm není rozepsaný konec
+                throw new IOException("Segment " + soubor + " obsahuje poškozený záznam na pozici "
+                        + (long) z * RECORD_BYTES + ".");
+            }
+            // Rozepsaný konec posledního segmentu se vynuluje. Zapisují se jen nenulové bajty, běžně zavřený
+            // deník tak zůstane beze změny.
+            boolean zmena = false;
+            for (int p = z * RECORD_BYTES; p < segment.capacity(); p += 8) {
+                if (segment.getLong(p) != 0L) {
+                    segment.putLong(p, 0L);
+                    zmena = true;
+                }
+            }
+            if (zmena) {
+                segment.force();
+            }
+        }
+        segmenty = platne.toArray(new MappedByteBuffer[0]);
+        size = konec;
+        return konec;
+    }
+
+    private boolean platny(ByteBuffer segment, int z, long poradi) {
+        int pozice = z * RECORD_BYTES;
+        if (segment.getInt(pozice + 24) != (int) poradi) {
+            return false;
+        }
+        crc.reset();
+        for (int i = 0; i < RECORD_BYTES - 4; i++) {
+            zaznam[i] = segment.get(pozice + i);
+        }
+        crc.update(zaznam, 0, RECORD_BYTES - 4);
+        return segment.getInt(pozice + 28) == (int) crc.getValue();
+    }
+
+    /**
+     * Pořadí prvního záznamu segmentu.
+     */
+    private long prvni(int segment) {
+        return (long) segment * (zaznamuSegmentu - 1);
+    }
+
+    private Path soubor(int segment) {
+        return adresar.resolve(String.format("%020d", prvni(segment)) + PRIPONA);
+    }
+
+    private MappedByteBuffer map(Path soubor) throws IOException {
+        try (FileChannel channel = FileChannel.open(soubor, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) zaznamuSegmentu * RECORD_BYTES);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            return segment;
+        }
+    }
+
+    /**
+     * Přidá účtenku na konec deníku. Záznam je po návratu viditelný pro čtení, trvalý je až po {@link #sync(long)}.
+     *
+     * @param zaznam naplněný záznam účtenky
+     * @return pořadí záznamu v deníku
+     * @throws IllegalArgumentException účtenku nelze zapsat, viz {@link BinaryCodec}
+     * @throws IOException chyba založení segmentu
+     */
+    public long append(EetZaznam zaznam) throws IOException {
+        synchronized (this) {
+            zapis.clear();
+            BinaryCodec.write(zaznam, zapis);
+            return pripojit();
+        }
+    }
+
+    /**
+     * Přidá účtenku na konec deníku. Záznam je po návratu viditelný pro čtení, trvalý je až po {@link #sync(long)}.
+     *
+     * @param uctenka účtenka
+     * @return pořadí záznamu v deníku
+     * @throws IllegalArgumentException účtenku nelze zapsat, viz {@link BinaryCodec}
+     * @throws IOException chyba založení segmentu
+     */
+    public long append(Uctenka uctenka) throws IOException {
+        synchronized (this) {
+            zapis.clear();
+            BinaryCodec.write(uctenka, zapis);
+            return pripojit();
+        }
+    }
+
+    /**
+     * Doplní pořadí a kontrolní součet a zapíše záznam z pracovního pole. Volá se pod zámkem deníku.
+     */
+    private long pripojit() throws IOException {
+        if (zavreno) {
+            throw new IllegalStateException("Deník je zavřený.");
+        }
+        long poradi = size;
+        int s = (int) (poradi / (zaznamuSegmentu - 1));
+        int z = (int) (poradi % (zaznamuSegmentu - 1)) + 1;
+        MappedByteBuffer[] aktualni = segmenty;
+        if (s == aktualni.length) {
+            aktualni = zalozit(s);
+        }
+        zapis.putInt((int) poradi);
+        crc.reset();
+        crc.update(zaznam, 0, RECORD_BYTES - 4);
+        zapis.putInt((int) crc.getValue());
+
+        MappedByteBuffer segment = aktualni[s];
+        segment.position(z * RECORD_BYTES);
+        segment.put(zaznam);
+        size = poradi + 1;
+        return poradi;
+    }
+
+    private MappedByteBuffer[] zalozit(int s) throws IOException {
+        if (s > 0) {
+            // Zaplněný segment musí být trvalý dřív, než vznikne další: při obnově se zkracuje jen poslední segment
+            segmenty[s - 1].force();
+        }
+        MappedByteBuffer segment = map(soubor(s));
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERZE);
+        segment.putInt(8, RECORD_BYTES);
+        segment.putInt(12, zaznamuSegmentu);
+        segment.putLong(16, prvni(s));
+        MappedByteBuffer[] nove = Arrays.copyOf(segmenty, s + 1);
+        nove[s] = segment;
+        segmenty = nove;
+        return nove;
+    }
+
+    /**
+     * Zajistí trvalost všech záznamů až po předaný včetně. Pokud už je jiné vlákno zapisuje na disk, počká na něj
+     * a případně zapíše jen zbytek; jedno {@code force()} tak pokryje záznamy všech čekajících vláken.
+     *
+     * @param poradi pořadí záznamu vráceného z {@code append}
+     */
+    public void sync(long poradi) {
+        if (poradi < trvale) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (poradi < trvale) {
+                return;
+            }
+            long cil;
+            MappedByteBuffer[] aktualni;
+            synchronized (this) {
+                cil = size;
+                aktualni = segmenty;
+            }
+            if (cil == 0) {
+                return;
+            }
+            int od = (int) (trvale / (zaznamuSegmentu - 1));
+            int po = (int) ((cil - 1) / (zaznamuSegmentu - 1));
+            for (int s = od; s <= po; s++) {
+                aktualni[s].force();
+            }
+            trvale = cil;
+        }
+    }
+
+    /**
+     * Zajistí trvalost všech přidaných záznamů.
+     */
+    public void sync() {
+        sync(size - 1);
+    }
+
+    /**
+     * Počet záznamů deníku.
+     *
+     * @return počet záznamů
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Počet záznamů, jejichž trvalost byla zajištěna.
+     *
+     * @return počet trvalých záznamů
+     */
+    public long getTrvalych() {
+        return trvale;
+    }
+
+    /**
+     * Počet platných záznamů nalezených při otevření.
+     *
+     * @return počet obnovených záznamů
+     */
+    public long getObnovenych() {
+        return obnoveno;
+    }
+
+    /**
+     * Přečte záznam deníku.
+     *
+     * @param poradi pořadí záznamu
+     * @param zaznam naplňovaný záznam
+     * @return předaný záznam
+     */
+    public EetZaznam get(long poradi, EetZaznam zaznam) {
+        if (poradi < 0 || poradi >= size) {
+            throw new IndexOutOfBoundsException("Záznam " + poradi + " mimo rozsah 0.." + (size - 1));
+        }
+        ByteBuffer segment = segmenty[(int) (poradi / (zaznamuSegmentu - 1))].duplicate()
+                .order(ByteOrder.LITTLE_ENDIAN);
+        segment.position((int) (poradi % (zaznamuSegmentu - 1) + 1) * RECORD_BYTES);
+        return BinaryCodec.read(segment, zaznam);
+    }
+
+    /**
+     * Postupně předá záznamy od předaného pořadí do konce deníku v okamžiku volání.
+     *
+     * @param od pořadí prvního záznamu
+     * @param handler příjemce záznamů, pořadí se předává jako řádek
+     * @return počet předaných záznamů
+     */
+    public long scan(long od, BulkDecoder.Handler handler) {
+        long konec = size;
+        cist(segmenty, Math.max(0, od), konec, handler);
+        return Math.max(0, konec - Math.max(0, od));
+    }
+
+    /**
+     * Paralelně předá všechny záznamy deníku v okamžiku volání. Příjemce se volá souběžně z více vláken, pro každou
+     * dávku záznamů vždy z jednoho vlákna, stejně jako v {@link BulkDecoder}.
+     *
+     * @param handler příjemce záznamů, pořadí se předává jako řádek
+     * @param pool {@link ForkJoinPool} pro čtení
+     * @return počet předaných záznamů
+     */
+    public long scan(BulkDecoder.Handler handler, ForkJoinPool pool) {
+        long konec = size;
+        pool.invoke(new ScanAction(segmenty, 0, konec, handler));
+        return konec;
+    }
+
+    private void cist(MappedByteBuffer[] aktualni, long od, long konec, BulkDecoder.Handler handler) {
+        EetZaznam zaznam = new EetZaznam();
+        long poradi = od;
+        while (poradi < konec) {
+            int s = (int) (poradi / (zaznamuSegmentu - 1));
+            int z = (int) (poradi % (zaznamuSegmentu - 1)) + 1;
+            ByteBuffer segment = aktualni[s].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            long doSegmentu = Math.min(konec, prvni(s + 1));
+            for (; poradi < doSegmentu; poradi++, z++) {
+                segment.position(z * RECORD_BYTES);
+                handler.accept(poradi, BinaryCodec.read(segment, zaznam));
+            }
+        }
+    }
+
+    /**
+     * Zajistí trvalost přidaných záznamů a uzavře deník pro přidávání. Mapování se uvolní až s deníkem.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            zavreno = true;
+        }
+        sync();
+    }
+
+    /**
+     * Paralelní čtení rozsahu záznamů, dělené na dávky.
+     */
+    private final class ScanAction extends RecursiveAction {
+
+        private final MappedByteBuffer[] aktualni;
+        private final long od;
+        private final long konec;
+        private final BulkDecoder.Handler handler;
+
+        ScanAction(MappedByteBuffer[] aktualni, long od, long konec, BulkDecoder.Handler handler) {
+            this.aktualni = aktualni;
+            this.od = od;
+            this.konec = konec;
+            this.handler = handler;
+        }
+
+        @Override
+        protected void compute() {
+            if (konec - od <= DAVKA) {
+                cist(aktualni, od, konec, handler);
+            } else {
+                long stred = (od + konec) >>> 1;
+                invokeAll(new ScanAction(aktualni, od, stred, handler),
+                        new ScanAction(aktualni, stred, konec, handler));
+            }
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongConsumer;
+
+/**
+ * Index řádků {@link ColumnStore} podle data a času transakce a podle DIČ. Dotazy na rozsah minut
+ * {@code [od, do)}, případně jen pro jeden DIČ, trvají logaritmický čas a neprocházejí celé úložiště.
+ * <p>
+ * Index tvoří:
+ * <ul>
+ *     <li>sloupec minut transakce seřazený vzestupně a sloupec řádků úložiště ve stejném pořadí</li>
+ *     <li>nejmenší a největší minuta každého bloku {@value #BLOK} položek, podle kterých se nejdříve vyhledá blok
+ *     a teprve v něm položka</li>
+ *     <li>seřazené různé DIČ s verzí a pro každý z nich pozice jeho položek v hlavním sloupci, seřazené podle
+ *     minuty</li>
+ * </ul>
+ * Index se staví paralelně ({@link Arrays#parallelSort(long[])}) a je neměnný, řádky přidané do úložiště později
+ * neobsahuje. Lze jej uložit do souboru ({@link #write(Path)}) a znovu otevřít namapováním do paměti
+ * ({@link #open(Path)}), bez čtení celého souboru. Minuty jsou v minutách od 1970-01-01T00:00, viz
+ * {@link cz.mikropsoft.qreet.utils.DateUtils#epochMinute(java.time.LocalDateTime)}.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class TimeIndex {
+
+    /**
+     * Počet položek v bloku souhrnu.
+     */
+    public static final int BLOK = 4096;
+
+    // Nejvyšší počet položek, sloupec řádků se mapuje jedním bufferem
+    private static final int MAX_POLOZEK = Integer.MAX_VALUE / 8;
+
+    // Hlavička souboru: "QRTI", verze formátu, velikost bloku, počet položek a počet DIČ
+    private static final int MAGIC = 0x51525449;
+    private static final int VERZE = 1;
+    private static final int HLAVICKA = 24;
+
+    private final int pocet;
+    private final IntBuffer minuty;
+    private final LongBuffer radky;
+    // Nejmenší a největší minuta bloku, střídavě
+    private final IntBuffer bloky;
+    // DIČ << 2 | verze DIČ, vzestupně
+    private final LongBuffer dicy;
+    // Pozice prvních položek DIČ v poli dicPozice, o jednu delší než dicy
+    private final IntBuffer dicOd;
+    private final IntBuffer dicPozice;
+
+    private TimeIndex(int pocet, IntBuffer minuty, LongBuffer radky, IntBuffer bloky, LongBuffer dicy,
+                      IntBuffer dicOd, IntBuffer dicPozice) {
+        this.pocet = pocet;
+        this.minuty = minuty;
+        this.radky = radky;
+        this.bloky = bloky;
+        this.dicy = dicy;
+        this.dicOd = dicOd;
+        this.dicPozice = dicPozice;
+    }
+
+    /**
+     * Paralelně postaví index nad všemi řádky úložiště, ve společném {@link java.util.concurrent.ForkJoinPool}.
+     * Úložiště se během stavby nesmí měnit.
+     *
+     * @param store úložiště účtenek
+     * @return index
+     */
+    public static TimeIndex build(final ColumnStore store) {
+        long size = store.size();
+        if (size > MAX_POLOZEK) {
+            throw new IllegalArgumentException("Úložiště má příliš mnoho řádků pro index: " + size);
+        }
+        int n = (int) size;
+
+        // Minuta v horních 32 bitech, řádek v dolních; pořadí long odpovídá pořadí (minuta, řádek)
+        final long[] klice = new long[n];
+        Arrays.parallelSetAll(klice, new IntToLongFunction() {
+            @Override
+            public long applyAsLong(int i) {
+                return (long) store.getMinuta(i) << 32 | i;
+            }
+        });
+        Arrays.parallelSort(klice);
+        int[] minuty = new int[n];
+        final long[] radky = new long[n];
+        Arrays.parallelSetAll(minuty, new IntUnaryOperator() {
+            @Override
+            public int applyAsInt(int i) {
+                return (int) (klice[i] >> 32);
+            }
+        });
+        Arrays.parallelSetAll(radky, new IntToLongFunction() {
+            @Override
+            public long applyAsLong(int i) {
+                return klice[i] & 0xFFFFFFFFL;
+            }
+        });
+
+        int[] bloky = new int[2 * ((n + BLOK - 1) / BLOK)];
+        for (int b = 0; b < bloky.length / 2; b++) {
+            bloky[2 * b] = minuty[b * BLOK];
+            bloky[2 * b + 1] = minuty[Math.min(n, (b + 1) * BLOK) - 1];
+        }
+
+        // DIČ položek v pořadí hlavního sloupce, různé DIČ seřazené
+        final long[] dicPolozek = new long[n];
+        Arrays.parallelSetAll(dicPolozek, new IntToLongFunction() {
+            @Override
+            public long applyAsLong(int i) {
+                return dicKlic(store.getDicVerze(radky[i]), store.getDic(radky[i]));
+            }
+        });
+        long[] dicy = dicPolozek.clone();
+        Arrays.parallelSort(dicy);
+        int ruznych = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || dicy[i] != dicy[i - 1]) {
+                dicy[ruznych++] = dicy[i];
+            }
+        }
+        final long[] ruzne = Arrays.copyOf(dicy, ruznych);
+
+        // Pořadí DIČ v horních 32 bitech, pozice v hlavním sloupci (tedy i pořadí minut) v dolních
+        Arrays.parallelSetAll(klice, new IntToLongFunction() {
+            @Override
+            public long applyAsLong(int i) {
+                return (long) Arrays.binarySearch(ruzne, dicPolozek[i]) << 32 | i;
+            }
+        });
+        Arrays.parallelSort(klice);
+        int[] dicPozice = new int[n];
+        int[] dicOd = new int[ruznych + 1];
+        for (int i = 0; i < n; i++) {
+            dicPozice[i] = (int) klice[i];
+            dicOd[(int) (klice[i] >>> 32) + 1]++;
+        }
+        for (int d = 0; d < ruznych; d++) {
+            dicOd[d + 1] += dicOd[d];
+        }
+
+        return new TimeIndex(n, IntBuffer.wrap(minuty), LongBuffer.wrap(radky), IntBuffer.wrap(bloky),
+                LongBuffer.wrap(ruzne), IntBuffer.wrap(dicOd), IntBuffer.wrap(dicPozice));
+    }
+
+    /**
+     * Otevře index uložený metodou {@link #write(Path)}. Sloupce se mapují do paměti jen pro čtení, čtou se až při
+     * dotazech. Mapování zůstává platné i po zavření souboru, dokud je index dosažitelný.
+     *
+     * @param file soubor indexu
+     * @return index
+     * @throws IOException chyba čtení, nebo soubor není indexem
+     */
+    public static TimeIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer hlavicka = ByteBuffer.allocate(HLAVICKA).order(ByteOrder.LITTLE_ENDIAN);
+            while (hlavicka.hasRemaining()) {
+                if (channel.read(hlavicka, hlavicka.position()) < 0) {
+                    throw new IOException("Soubor " + file + " není indexem účtenek, je příliš krátký.");
+                }
+            }
+            hlavicka.flip();
+            if (hlavicka.getInt() != MAGIC || hlavicka.getInt() != VERZE || hlavicka.getInt() != BLOK) {
+                throw new IOException("Soubor " + file + " není indexem účtenek v podporované verzi.");
+            }
+            int n = hlavicka.getInt();
+            int ruznych = hlavicka.getInt();
+            int bloku = (n + BLOK - 1) / BLOK;
+            if (n < 0 || n > MAX_POLOZEK || ruznych < 0 || ruznych > n
+                    || channel.size() != delkaSouboru(n, bloku, ruznych)) {
+                throw new IOException("Soubor " + file + " indexu účtenek je poškozený.");
+            }
+
+            long pozice = HLAVICKA;
+            IntBuffer minuty = map(channel, pozice, 4L * n).asIntBuffer();
+            pozice += zarovnat(4L * n);
+            LongBuffer radky = map(channel, pozice, 8L * n).asLongBuffer();
+            pozice += 8L * n;
+            IntBuffer bloky = map(channel, pozice, 8L * bloku).asIntBuffer();
+            pozice += 8L * bloku;
+            LongBuffer dicy = map(channel, pozice, 8L * ruznych).asLongBuffer();
+            pozice += 8L * ruznych;
+            IntBuffer dicOd = map(channel, pozice, 4L * (ruznych + 1)).asIntBuffer();
+            pozice += zarovnat(4L * (ruznych + 1));
+            IntBuffer dicPozice = map(channel, pozice, 4L * n).asIntBuffer();
+            return new TimeIndex(n, minuty, radky, bloky, dicy, dicOd, dicPozice);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long pozice, long delka) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, pozice, delka).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long zarovnat(long delka) {
+        return (delka + 7) & ~7L;
+    }
+
+    private static long delkaSouboru(long n, long bloku, long ruznych) {
+        return HLAVICKA + zarovnat(4 * n) + 8 * n + 8 * bloku + 8 * ruznych + zarovnat(4 * (ruznych + 1))
+                + zarovnat(4 * n);
+    }
+
+    /**
+     * Uloží index do souboru, v pořadí bajtů little-endian. Existující soubor se přepíše.
+     *
+     * @param file cílový soubor
+     * @throws IOException chyba zápisu
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERZE).putInt(BLOK).putInt(pocet).putInt(dicy.limit()).putInt(0);
+            zapsat(channel, buffer, minuty);
+            zapsat(channel, buffer, radky);
+            zapsat(channel, buffer, bloky);
+            zapsat(channel, buffer, dicy);
+            zapsat(channel, buffer, dicOd);
+            zapsat(channel, buffer, dicPozice);
+            vyprazdnit(channel, buffer);
+            channel.force(false);
+        }
+    }
+
+    private static void zapsat(FileChannel channel, ByteBuffer buffer, IntBuffer sloupec) throws IOException {
+        for (int i = 0; i < sloupec.limit(); i++) {
+            if (buffer.remaining() < 4) {
+                vyprazdnit(channel, buffer);
+            }
+            buffer.putInt(sloupec.get(i));
+        }
+        if ((sloupec.limit() & 1) != 0) {
+            // Zarovnání následujícího sloupce na 8 bajtů
+            if (buffer.remaining() < 4) {
+                vyprazdnit(channel, buffer);
+            }
+            buffer.putInt(0);
+        }
+    }
+
+    private static void zapsat(FileChannel channel, ByteBuffer buffer, LongBuffer sloupec) throws IOException {
+        for (int i = 0; i < sloupec.limit(); i++) {
+            if (buffer.remaining() < 8) {
+                vyprazdnit(channel, buffer);
+            }
+            buffer.putLong(sloupec.get(i));
+        }
+    }
+
+    private static void vyprazdnit(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Počet položek indexu, tj. počet řádků úložiště v době stavby.
+     *
+     * @return počet položek
+     */
+    public int size() {
+        return pocet;
+    }
+
+    /**
+     * Počet různých DIČ, prázdný DIČ se počítá jako jeden.
+     *
+     * @return počet DIČ
+     */
+    public int getPocetDic() {
+        return dicy.limit();
+    }
+
+    /**
+     * Nejmenší minuta transakce.
+     *
+     * @return minuta od 1970-01-01T00:00
+     * @throws IllegalStateException index je prázdný
+     */
+    public int getMinMinuta() {
+        if (pocet == 0) {
+            throw new IllegalStateException("Index je prázdný.");
+        }
+        return bloky.get(0);
+    }
+
+    /**
+     * Největší minuta transakce.
+     *
+     * @return minuta od 1970-01-01T00:00
+     * @throws IllegalStateException index je prázdný
+     */
+    public int getMaxMinuta() {
+        if (pocet == 0) {
+            throw new IllegalStateException("Index je prázdný.");
+        }
+        return bloky.get(bloky.limit() - 1);
+    }
+
+    /**
+     * Počet účtenek s minutou transakce v rozsahu {@code [od, do)}.
+     *
+     * @param od první minuta
+     * @param doMinuty minuta za rozsahem
+     * @return počet účtenek
+     */
+    public int count(int od, int doMinuty) {
+        return (od >= doMinuty) ? 0 : prvni(doMinuty) - prvni(od);
+    }
+
+    /**
+     * Řádky úložiště s minutou transakce v rozsahu {@code [od, do)}, seřazené podle minuty a řádku.
+     *
+     * @param od první minuta
+     * @param doMinuty minuta za rozsahem
+     * @return řádky úložiště
+     */
+    public long[] rows(int od, int doMinuty) {
+        int z = prvni(od);
+        long[] rows = new long[Math.max(0, prvni(doMinuty) - z)];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = radky.get(z + i);
+        }
+        return rows;
+    }
+
+    /**
+     * Předá řádky úložiště s minutou transakce v rozsahu {@code [od, do)}, seřazené podle minuty a řádku.
+     *
+     * @param od první minuta
+     * @param doMinuty minuta za rozsahem
+     * @param consumer příjemce řádků
+     */
+    public void forEach(int od, int doMinuty, LongConsumer consumer) {
+        int k = prvni(doMinuty);
+        for (int i = prvni(od); i < k; i++) {
+            consumer.accept(radky.get(i));
+        }
+    }
+
+    /**
+     * Počet účtenek poplatníka s minutou transakce v rozsahu {@code [od, do)}.
+     *
+     * @param dicVerze verze DIČ poplatníka
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param od první minuta
+     * @param doMinuty minuta za rozsahem
+     * @return počet účtenek
+     */
+    public int count(Dic.Verze dicVerze, long dic, int od, int doMinuty) {
+        int d = najitDic(dicVerze, dic);
+        if (d < 0 || od >= doMinuty) {
+            return 0;
+        }
+        return prvniDic(d, doMinuty) - prvniDic(d, od);
+    }
+
+    /**
+     * Řádky úložiště poplatníka s minutou transakce v rozsahu {@code [od, do)}, seřazené podle minuty a řádku.
+     *
+     * @param dicVerze verze DIČ poplatníka
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param od první minuta
+     * @param doMinuty minuta za rozsahem
+     * @return řádky úložiště
+     */
+    public long[] rows(Dic.Verze dicVerze, long dic, int od, int doMinuty) {
+        int d = najitDic(dicVerze, dic);
+        if (d < 0) {
+            return new long[0];
+        }
+        int z = prvniDic(d, od);
+        long[] rows = new long[Math.max(0, prvniDic(d, doMinuty) - z)];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = radky.get(dicPozice.get(z + i));
+        }
+        return rows;
+    }
+
+    /**
+     * Předá řádky úložiště poplatníka s minutou transakce v rozsahu {@code [od, do)}, seřazené podle minuty
+     * a řádku.
+     *
+     * @param dicVerze verze DIČ poplatníka
+     * @param dic DIČ poplatníka jako číslo, pro prázdný DIČ 0
+     * @param od první minuta
+     * @param doMinuty minuta za rozsahem
+     * @param consumer příjemce řádků
+     */
+    public void forEach(Dic.Verze dicVerze, long dic, int od, int doMinuty, LongConsumer consumer) {
+        int d = najitDic(dicVerze, dic);
+        if (d < 0) {
+            return;
+        }
+        int k = prvniDic(d, doMinuty);
+        for (int i = prvniDic(d, od); i < k; i++) {
+            consumer.accept(radky.get(dicPozice.get(i)));
+        }
+    }
+
+    private static long dicKlic(Dic.Verze dicVerze, long dic) {
+        return dic << 2 | dicVerze.ordinal();
+    }
+
+    /**
+     * Pozice první položky s minutou alespoň {@code minuta}: nejdříve první blok, jehož největší minuta jí dosahuje,
+     * pak uvnitř bloku.
+     */
+    private int prvni(int minuta) {
+        int nizsi = 0;
+        int vyssi = bloky.limit() / 2;
+        while (nizsi < vyssi) {
+            int stred = (nizsi + vyssi) >>> 1;
+            if (bloky.get(2 * stred + 1) < minuta) {
+                nizsi = stred + 1;
+            } else {
+                vyssi = stred;
+            }
+        }
+        if (nizsi == bloky.limit() / 2) {
+            return pocet;
+        }
+        int z = nizsi * BLOK;
+        if (bloky.get(2 * nizsi) >= minuta) {
+            return z;
+        }
+        int k = Math.min(pocet, z + BLOK);
+        while (z < k) {
+            int stred = (z + k) >>> 1;
+            if (minuty.get(stred) < minuta) {
+                z = stred + 1;
+            } else {
+                k = stred;
+            }
+        }
+        return z;
+    }
+
+    /**
+     * Pozice v {@code dicPozice} první položky DIČ s minutou alespoň {@code minuta}.
+     */
+    private int prvniDic(int d, int minuta) {
+        int z = dicOd.get(d);
+        int k = dicOd.get(d + 1);
+        while (z < k) {
+            int stred = (z + k) >>> 1;
+            if (minuty.get(dicPozice.get(stred)) < minuta) {
+                z = stred + 1;
+            } else {
+                k = stred;
+            }
+        }
+        return z;
+    }
+
+    private int najitDic(Dic.Verze dicVerze, long dic) {
+        if (dicVerze == null) {
+            throw new IllegalArgumentException("Verze DIČ musí být předána.");
+        }
+        long klic = dicKlic(dicVerze, dic);
+        int z = 0;
+        int k = dicy.limit();
+        while (z < k) {
+            int stred = (z + k) >>> 1;
+            long hodnota = dicy.get(stred);
+            if (hodnota < klic) {
+                z = stred + 1;
+            } else if (hodnota > klic) {
+                k = stred;
+            } else {
+                return stred;
+            }
+        }
+        return -1;
+    }
+}
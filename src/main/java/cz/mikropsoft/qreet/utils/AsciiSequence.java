@@ -0,0 +1,83 @@
+package cz.mikropsoft.qreet.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Znovupoužitelný pohled na úsek ASCII bajtů jako {@link CharSequence}, bez kopírování a bez dekódování do
+ * {@link String}. Úsek se nastavuje metodami {@code wrap}, instance tak může procházet řádky souboru bez alokace.
+ * <p>
+ * Instance není bezpečná pro souběžné použití z více vláken.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class AsciiSequence implements CharSequence {
+
+    private ByteBuffer buffer;
+    private byte[] array;
+    private int from;
+    private int length;
+
+    /**
+     * Nastaví pohled na úsek předaného {@link ByteBuffer}, pozice a limit bufferu se nemění.
+     *
+     * @param buffer buffer
+     * @param from absolutní pozice prvního bajtu
+     * @param length počet bajtů
+     * @return tento pohled
+     */
+    public AsciiSequence wrap(ByteBuffer buffer, int from, int length) {
+        if (buffer.hasArray()) {
+            return wrap(buffer.array(), buffer.arrayOffset() + from, length);
+        }
+        this.buffer = buffer;
+        this.array = null;
+        this.from = from;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Nastaví pohled na úsek předaného pole.
+     *
+     * @param array pole bajtů
+     * @param from pozice prvního bajtu
+     * @param length počet bajtů
+     * @return tento pohled
+     */
+    public AsciiSequence wrap(byte[] array, int from, int length) {
+        this.buffer = null;
+        this.array = array;
+        this.from = from;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", délka: " + length);
+        }
+        return (char) ((array != null ? array[from + index] : buffer.get(from + index)) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) charAt(i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
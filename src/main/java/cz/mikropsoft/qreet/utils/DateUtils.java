@@ -0,0 +1,226 @@
+package cz.mikropsoft.qreet.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Převod data a času transakce na dekadické číslice ve formátu {@code yyMMddHHmm} a zpět.
+ * <p>
+ * Datum a čas se uchovává jako místní datum a čas v minutách od 1970-01-01T00:00 (epoch-minute). Převod mezi
+ * epoch-minute a číslicemi je čistě aritmetický, bez formátovacích objektů a bez zámků, a je proto bezpečný pro
+ * libovolný počet souběžných vláken. Časová zóna se uplatní pouze při převodu z/na okamžik ({@link Date},
+ * {@link Instant}) a vždy se předává explicitně.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class DateUtils {
+
+    private static final long MINUTES_PER_DAY = 24L * 60L;
+
+    /**
+     * 2000-01-01T00:00 v minutách od 1970-01-01T00:00, první minuta, kterou lze zapsat dvojčíslím roku.
+     */
+    public static final long MINUTA_2000 = 10957L * MINUTES_PER_DAY;
+
+    /**
+     * 2100-01-01T00:00 v minutách od 1970-01-01T00:00, první minuta za rozsahem dvojčíslí roku.
+     */
+    public static final long MINUTA_2100 = 47482L * MINUTES_PER_DAY;
+
+    // Dvojčíslí roku se vztahuje k tomuto století
+    private static final int STOLETI = 2000;
+
+    private DateUtils() {
+    }
+
+    /**
+     * Převede místní datum a čas vyjádřený v minutách od 1970-01-01T00:00 na číslo, jehož dekadický zápis odpovídá
+     * formátu {@code yyMMddHHmm}.
+     *
+     * @param epochMinute místní datum a čas v minutách od 1970-01-01T00:00
+     * @return datum a čas jako číslo {@code yyMMddHHmm}
+     */
+    public static long datumCasDigits(long epochMinute) {
+        long days = Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+        int minuteOfDay = (int) (epochMinute - days * MINUTES_PER_DAY);
+        long date = civilDate(days);
+        return (Math.abs(date) % 1000000 * 100 + minuteOfDay / 60) * 100 + minuteOfDay % 60;
+    }
+
+    /**
+     * Převede místní datum a čas na minutu v letech 2000-2099 se shodným zápisem {@code yyMMddHHmm}, tedy na
+     * hodnotu, kterou vrací dekódování zapsaného data a času.
+     *
+     * @param epochMinute místní datum a čas v minutách od 1970-01-01T00:00
+     * @return místní datum a čas v minutách od 1970-01-01T00:00 v rozsahu {@link #MINUTA_2000} až
+     * {@link #MINUTA_2100}
+     */
+    public static long normalize(long epochMinute) {
+        if (epochMinute >= MINUTA_2000 && epochMinute < MINUTA_2100) {
+            return epochMinute;
+        }
+        long digits = datumCasDigits(epochMinute);
+        int minute = (int) (digits % 100);
+        int hour = (int) (digits / 100 % 100);
+        int day = (int) (digits / 10000 % 100);
+        int month = (int) (digits / 1000000 % 100);
+        int year = STOLETI + (int) (digits / 100000000);
+        return epochMinute(year, month, day, hour, minute);
+    }
+
+    /**
+     * Přečte 10 číslic data a času ve formátu {@code yyMMddHHmm} a ověří platnost jednotlivých položek. Dvojčíslí
+     * roku se vztahuje k 21. století.
+     *
+     * @param s řetězec
+     * @param offset pozice první číslice
+     * @return místní datum a čas v minutách od 1970-01-01T00:00, nebo záporné číslo {@code -(1 + pozice)} s pozicí
+     * chybné položky relativně k {@code offset}
+     */
+    public static long parseDatumCas(CharSequence s, int offset) {
+        long yy = DigitUtils.parseDigits(s, offset, offset + 2);
+        if (yy < 0) {
+            return -1;
+        }
+        return datumCas((int) yy, (int) DigitUtils.parseDigits(s, offset + 2, offset + 4),
+                (int) DigitUtils.parseDigits(s, offset + 4, offset + 6),
+                (int) DigitUtils.parseDigits(s, offset + 6, offset + 8),
+                (int) DigitUtils.parseDigits(s, offset + 8, offset + 10));
+    }
+
+    /**
+     * Ověří platnost položek data a času zapsaného ve formátu {@code yyMMddHHmm} a převede je na minuty. Dvojčíslí
+     * roku se vztahuje k 21. století.
+     *
+     * @param yy dvojčíslí roku 0-99
+     * @param month měsíc
+     * @param day den v měsíci
+     * @param hour hodina
+     * @param minute minuta
+     * @return místní datum a čas v minutách od 1970-01-01T00:00, nebo záporné číslo {@code -(1 + pozice)} s pozicí
+     * chybné položky v zápisu {@code yyMMddHHmm}
+     */
+    public static long datumCas(int yy, int month, int day, int hour, int minute) {
+        if (yy < 0 || yy > 99) {
+            return -1;
+        }
+        int year = STOLETI + yy;
+        if (month < 1 || month > 12) {
+            return -3;
+        }
+        if (day < 1 || day > lengthOfMonth(year, month)) {
+            return -5;
+        }
+        if (hour < 0 || hour > 23) {
+            return -7;
+        }
+        if (minute < 0 || minute > 59) {
+            return -9;
+        }
+        return epochMinute(year, month, day, hour, minute);
+    }
+
+    /**
+     * Převod dnů od epochy na gregoriánské datum (H. Hinnant, "civil_from_days").
+     *
+     * @param days dny od 1970-01-01
+     * @return datum jako číslo {@code yyyyMMdd}
+     */
+    private static long civilDate(long days) {
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (year * 100 + month) * 100 + day;
+    }
+
+    /**
+     * Převede místní datum a čas na minuty od 1970-01-01T00:00. Hodnoty položek se nekontrolují.
+     *
+     * @param year rok
+     * @param month měsíc 1-12
+     * @param day den v měsíci
+     * @param hour hodina 0-23
+     * @param minute minuta 0-59
+     * @return místní datum a čas v minutách od 1970-01-01T00:00
+     */
+    public static long epochMinute(int year, int month, int day, int hour, int minute) {
+        // Převod gregoriánského data na dny od epochy (H. Hinnant, "days_from_civil")
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        long days = era * 146097 + doe - 719468;
+        return days * MINUTES_PER_DAY + hour * 60L + minute;
+    }
+
+    /**
+     * Převede místní datum a čas na minuty od 1970-01-01T00:00, sekundy se zahodí.
+     *
+     * @param dateTime místní datum a čas
+     * @return místní datum a čas v minutách od 1970-01-01T00:00
+     */
+    public static long epochMinute(LocalDateTime dateTime) {
+        return epochMinute(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute());
+    }
+
+    /**
+     * Převede okamžik na místní datum a čas v minutách od 1970-01-01T00:00 v předané časové zóně.
+     *
+     * @param epochMillis okamžik v milisekundách od 1970-01-01T00:00Z
+     * @param zone časová zóna
+     * @return místní datum a čas v minutách od 1970-01-01T00:00
+     */
+    public static long epochMinute(long epochMillis, ZoneId zone) {
+        ZoneOffset offset = zone.getRules().getOffset(Instant.ofEpochMilli(epochMillis));
+        return Math.floorDiv(epochMillis + offset.getTotalSeconds() * 1000L, 60L * 1000L);
+    }
+
+    /**
+     * Převede místní datum a čas v minutách od 1970-01-01T00:00 na {@link LocalDateTime}.
+     *
+     * @param epochMinute místní datum a čas v minutách od 1970-01-01T00:00
+     * @return {@link LocalDateTime}
+     */
+    public static LocalDateTime toLocalDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Převede místní datum a čas v minutách od 1970-01-01T00:00 na okamžik v předané časové zóně. Místní čas
+     * v mezeře při přechodu na letní čas se posune o délku mezery, v překryvu se použije dřívější okamžik.
+     *
+     * @param epochMinute místní datum a čas v minutách od 1970-01-01T00:00
+     * @param zone časová zóna
+     * @return {@link Date}
+     */
+    public static Date toDate(long epochMinute, ZoneId zone) {
+        return Date.from(toLocalDateTime(epochMinute).atZone(zone).toInstant());
+    }
+
+    /**
+     * Počet dní v měsíci gregoriánského kalendáře.
+     *
+     * @param year rok
+     * @param month měsíc 1-12
+     * @return počet dní
+     */
+    public static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            return ((year & 3) == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+}
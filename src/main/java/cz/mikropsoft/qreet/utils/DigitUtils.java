@@ -0,0 +1,301 @@
+package cz.mikropsoft.qreet.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Zápis a čtení dekadických číslic bez alokace pomocných objektů.
+ *
+ * @author Michal Hájek, <a href="mailto:mikrop@centrum.cz">mikrop@centrum.cz</a>
+ * @since 17.10.2026
+ */
+public final class DigitUtils {
+
+    // Mocniny deseti, které se vejdou do long
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    // Dvojice číslic 00-99, desítky a jednotky
+    private static final char[] DIGIT_TENS = new char[100];
+    private static final char[] DIGIT_ONES = new char[100];
+
+    // Bajty slova SWAR (SIMD within a register)
+    private static final long NIBBLE_HI = 0xF0F0F0F0F0F0F0F0L;
+    private static final long NIBBLE_LO = 0x0F0F0F0F0F0F0F0FL;
+    private static final long PLUS_6 = 0x0606060606060606L;
+    private static final long ZNAKY_0 = 0x3030303030303030L;
+    private static final long NIBBLE_3 = 0x3333333333333333L;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    // Hodnota hexadecimální číslice podle znaku, -1 pro jiný znak
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        long power = 1L;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10L;
+        }
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+            HEX_VALUES[Character.toLowerCase(HEX_DIGITS[i])] = (byte) i;
+        }
+        for (int i = 0; i < 100; i++) {
+            DIGIT_TENS[i] = (char) ('0' + i / 10);
+            DIGIT_ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private DigitUtils() {
+    }
+
+    /**
+     * Vrací počet dekadických číslic nezáporného čísla (pro 0 vrací 1).
+     *
+     * @param value nezáporné číslo
+     * @return počet číslic
+     */
+    public static int digitCount(long value) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Ověří, že se nezáporné číslo vejde do předaného počtu číslic.
+     */
+    private static void checkWidth(long value, int width) {
+        if (value < 0 || width < 1 || width > POWERS_OF_TEN.length
+                || (width < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[width])) {
+            throw new IllegalArgumentException("Číslo " + value + " nelze zapsat na " + width + " číslic.");
+        }
+    }
+
+    /**
+     * Zapíše nezáporné číslo jako právě {@code width} dekadických číslic, zleva doplněných nulami.
+     *
+     * @param value nezáporné číslo
+     * @param width počet číslic
+     * @param dst cílové pole
+     * @param offset pozice první číslice
+     * @return pozice za poslední zapsanou číslicí
+     */
+    public static int putDigits(long value, int width, char[] dst, int offset) {
+        checkWidth(value, width);
+        int i = offset + width;
+        while (i - offset >= 2) {
+            int pair = (int) (value % 100);
+            value /= 100;
+            dst[--i] = DIGIT_ONES[pair];
+            dst[--i] = DIGIT_TENS[pair];
+        }
+        if (i > offset) {
+            dst[--i] = (char) ('0' + value);
+        }
+        return offset + width;
+    }
+
+    /**
+     * Zapíše nezáporné číslo jako právě {@code width} ASCII číslic, zleva doplněných nulami.
+     *
+     * @param value nezáporné číslo
+     * @param width počet číslic
+     * @param dst cílové pole
+     * @param offset pozice první číslice
+     * @return pozice za poslední zapsanou číslicí
+     */
+    public static int putDigits(long value, int width, byte[] dst, int offset) {
+        checkWidth(value, width);
+        int i = offset + width;
+        while (i - offset >= 2) {
+            int pair = (int) (value % 100);
+            value /= 100;
+            dst[--i] = (byte) DIGIT_ONES[pair];
+            dst[--i] = (byte) DIGIT_TENS[pair];
+        }
+        if (i > offset) {
+            dst[--i] = (byte) ('0' + value);
+        }
+        return offset + width;
+    }
+
+    /**
+     * Připojí nezáporné číslo jako právě {@code width} dekadických číslic, zleva doplněných nulami.
+     *
+     * @param value nezáporné číslo
+     * @param width počet číslic
+     * @param out cíl zápisu
+     * @throws IOException chyba zápisu do {@link Appendable}
+     */
+    public static void appendDigits(long value, int width, Appendable out) throws IOException {
+        checkWidth(value, width);
+        for (int i = width - 1; i >= 0; i--) {
+            long power = POWERS_OF_TEN[i];
+            long digit = value / power;
+            out.append((char) ('0' + digit));
+            value -= digit * power;
+        }
+    }
+
+    /**
+     * Zapíše nezáporné číslo jako právě {@code width} hexadecimálních číslic (velká písmena), zleva doplněných nulami.
+     *
+     * @param value nezáporné číslo
+     * @param width počet číslic
+     * @param dst cílové pole
+     * @param offset pozice první číslice
+     * @return pozice za poslední zapsanou číslicí
+     */
+    public static int putHex(long value, int width, char[] dst, int offset) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            dst[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return offset + width;
+    }
+
+    /**
+     * Ověří, že úsek předaného řetězce obsahuje pouze hexadecimální číslice (malá i velká písmena).
+     *
+     * @param s řetězec
+     * @param from pozice první číslice
+     * @param to pozice za poslední číslicí
+     * @return {@code true} pokud úsek obsahuje pouze hexadecimální číslice
+     */
+    public static boolean isHex(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= HEX_VALUES.length || HEX_VALUES[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Přečte hexadecimální číslo z části předaného řetězce.
+     *
+     * @param s řetězec
+     * @param from pozice první číslice
+     * @param to pozice za poslední číslicí, nejvýše 15 číslic
+     * @return hodnota čísla, nebo {@code -1} pokud úsek obsahuje jiný než hexadecimální znak
+     */
+    public static long parseHex(CharSequence s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            int digit = (c < HEX_VALUES.length) ? HEX_VALUES[c] : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Přečte dekadické číslo z části předaného řetězce.
+     *
+     * @param s řetězec
+     * @param from pozice první číslice
+     * @param to pozice za poslední číslicí, nejvýše 18 číslic
+     * @return hodnota čísla, nebo {@code -1} pokud úsek obsahuje jiný znak než dekadickou číslici
+     */
+    public static long parseDigits(CharSequence s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Přečte 8 bajtů od předané pozice jako slovo, první bajt v nejnižších bitech (little-endian).
+     *
+     * @param src pole bajtů
+     * @param index pozice prvního bajtu
+     * @return slovo
+     */
+    public static long readWord(byte[] src, int index) {
+        return (src[index] & 0xFFL)
+                | (src[index + 1] & 0xFFL) << 8
+                | (src[index + 2] & 0xFFL) << 16
+                | (src[index + 3] & 0xFFL) << 24
+                | (src[index + 4] & 0xFFL) << 32
+                | (src[index + 5] & 0xFFL) << 40
+                | (src[index + 6] & 0xFFL) << 48
+                | (long) src[index + 7] << 56;
+    }
+
+    /**
+     * Přečte 8 bajtů od předané absolutní pozice jako slovo, první bajt v nejnižších bitech (little-endian). Pozice
+     * ani pořadí bajtů bufferu se nemění.
+     *
+     * @param src buffer
+     * @param index absolutní pozice prvního bajtu
+     * @return slovo
+     */
+    public static long readWord(ByteBuffer src, int index) {
+        long word = src.getLong(index);
+        return (src.order() == ByteOrder.LITTLE_ENDIAN) ? word : Long.reverseBytes(word);
+    }
+
+    /**
+     * Ověří naráz, že všech 8 bajtů slova jsou ASCII číslice: horní půlbajt musí být 3 a přičtení 6 jej nesmí změnit.
+     *
+     * @param word slovo dle {@link #readWord(byte[], int)}
+     * @return {@code true} pokud slovo obsahuje pouze číslice
+     */
+    public static boolean isEightDigits(long word) {
+        return ((word & NIBBLE_HI) | (((word + PLUS_6) & NIBBLE_HI) >>> 4)) == NIBBLE_3;
+    }
+
+    /**
+     * Převede slovo 8 ASCII číslic na číslo třemi násobeními, vždy se spojí sousední dvojice skupin číslic. Číslice
+     * se neověřují, viz {@link #isEightDigits(long)}.
+     *
+     * @param word slovo dle {@link #readWord(byte[], int)}
+     * @return číslo 0-99999999
+     */
+    public static int eightDigits(long word) {
+        long pairs = digitPairs(word);
+        long quads = (pairs * (100 << 16 | 1)) >>> 16 & 0x0000FFFF0000FFFFL;
+        return (int) ((quads * (10000L << 32 | 1)) >>> 32);
+    }
+
+    /**
+     * Převede slovo 8 ASCII číslic na čtyři dvojčíslí v 16bitových úsecích, první dvojčíslí v nejnižším úseku.
+     * Číslice se neověřují, viz {@link #isEightDigits(long)}.
+     *
+     * @param word slovo dle {@link #readWord(byte[], int)}
+     * @return čtyři čísla 0-99
+     */
+    public static long digitPairs(long word) {
+        return ((word & NIBBLE_LO) * (10 << 8 | 1)) >>> 8 & 0x00FF00FF00FF00FFL;
+    }
+
+    /**
+     * Nahradí prvních {@code count} bajtů slova znakem '0', zbylé číslice tak tvoří číslo s úvodními nulami.
+     *
+     * @param word slovo dle {@link #readWord(byte[], int)}
+     * @param count počet nahrazených bajtů 0-7
+     * @return slovo
+     */
+    public static long padZeros(long word, int count) {
+        if (count == 0) {
+            return word;
+        }
+        int bits = count << 3;
+        return (word & (-1L << bits)) | (ZNAKY_0 >>> (64 - bits));
+    }
+
+}
@@ -2,6 +2,7 @@ package cz.mikropsoft.qreet.utils;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.Date;
 
 public final class StringUtils {
@@ -12,7 +13,10 @@ public final class StringUtils {
      * @param datumCasTransakce datum a čas transakce
      * @param format formát předaného data
      * @return {@link Date}
+     * @deprecated {@link SimpleDateFormat} není bezpečný pro souběžné použití z více vláken, použijte
+     * {@link #parseDatumCasTransakce(CharSequence)}
      */
+    @Deprecated
     public static Date parseDatumCasTransakce(String datumCasTransakce, SimpleDateFormat format) {
         try {
             return format.parse(datumCasTransakce);
@@ -21,4 +25,22 @@ public final class StringUtils {
         }
     }
 
+    /**
+     * Parsuje předaný řetězec (datum a čas transakce ve formátu {@code yyMMddHHmm}). Bezpečné pro souběžné použití
+     * z více vláken.
+     *
+     * @param datumCasTransakce datum a čas transakce
+     * @return místní datum a čas transakce
+     */
+    public static LocalDateTime parseDatumCasTransakce(CharSequence datumCasTransakce) {
+        if (datumCasTransakce == null || datumCasTransakce.length() != 10) {
+            throw new IllegalArgumentException("Chyba parsování data a času transakce.");
+        }
+        long minuta = DateUtils.parseDatumCas(datumCasTransakce, 0);
+        if (minuta < 0) {
+            throw new IllegalArgumentException("Chyba parsování data a času transakce.");
+        }
+        return DateUtils.toLocalDateTime(minuta);
+    }
+
 }
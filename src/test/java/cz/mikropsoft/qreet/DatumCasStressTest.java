@@ -0,0 +1,112 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.utils.DateUtils;
+import cz.mikropsoft.qreet.utils.StringUtils;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Souběžné kódování a dekódování data a času transakce z mnoha vláken.
+ */
+public class DatumCasStressTest {
+
+    private static final int VLAKEN = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+    private static final int OPAKOVANI = 50000;
+
+    // Rozsah 2016-01-01T00:00 až 2099-12-31T23:59
+    private static final long OD = DateUtils.epochMinute(2016, 1, 1, 0, 0);
+    private static final long DO = DateUtils.epochMinute(2099, 12, 31, 23, 59);
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyMMddHHmm");
+
+    @Test
+    public void datumCasDigits() {
+        for (long minuta = DateUtils.epochMinute(2019, 12, 31, 0, 0); minuta < DateUtils.epochMinute(2021, 1, 2, 0, 0); minuta += 7) {
+            LocalDateTime dateTime = DateUtils.toLocalDateTime(minuta);
+            String digits = Long.toString(DateUtils.datumCasDigits(minuta));
+            assertEquals(FORMAT.format(dateTime), digits);
+            assertEquals(dateTime, StringUtils.parseDatumCasTransakce(digits));
+            assertEquals(minuta, DateUtils.epochMinute(dateTime));
+        }
+    }
+
+    @Test
+    public void concurrentEncodeDecode() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(VLAKEN);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < VLAKEN; t++) {
+                final long seed = t;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        Random random = new Random(seed);
+                        EetZaznam zaznam = new EetZaznam();
+                        start.await();
+                        int chyb = 0;
+                        for (int i = 0; i < OPAKOVANI; i++) {
+                            long minuta = OD + (long) (random.nextDouble() * (DO - OD));
+                            LocalDateTime dateTime = DateUtils.toLocalDateTime(minuta);
+                            String expected = FORMAT.format(dateTime);
+
+                            EetUctenka uctenka = (i % 2 == 0)
+                                    ? EetUctenka.ofBkp("6455B192-D697186A", null, 1d, dateTime, Rezim.BEZNY)
+                                    : EetUctenka.ofBkp("6455B192-D697186A", null, 1d,
+                                    DateUtils.toDate(minuta, EetUctenka.ZONA_TRANSAKCE), Rezim.BEZNY);
+                            String kod = uctenka.generateString();
+                            String datum = kod.substring(3, 13);
+
+                            if (!expected.equals(datum) && !mezeraLetnihoCasu(dateTime)) {
+                                chyb++;
+                            }
+                            // Dekódovaná minuta nezávisle přes DateTimeFormatter, mimo mezeru i proti zdrojové minutě
+                            long dekodovana = zaznam.parse(kod).getMinuta();
+                            if (dekodovana != LocalDateTime.parse(datum, FORMAT).toEpochSecond(ZoneOffset.UTC) / 60) {
+                                chyb++;
+                            }
+                            if (dekodovana != minuta && !mezeraLetnihoCasu(dateTime)) {
+                                chyb++;
+                            }
+                        }
+                        return chyb;
+                    }
+                }));
+            }
+            start.countDown();
+            int chyb = 0;
+            for (Future<Integer> future : futures) {
+                chyb += future.get();
+            }
+            assertEquals(0, chyb);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Místní čas v mezeře při přechodu na letní čas neexistuje a převod přes {@link Date} jej posune.
+     */
+    private static boolean mezeraLetnihoCasu(LocalDateTime dateTime) {
+        return !EetUctenka.ZONA_TRANSAKCE.getRules().isValidOffset(dateTime,
+                EetUctenka.ZONA_TRANSAKCE.getRules().getOffset(dateTime));
+    }
+
+}
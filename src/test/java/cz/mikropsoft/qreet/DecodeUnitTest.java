@@ -0,0 +1,132 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static cz.mikropsoft.qreet.scheme.EetUctenka.DATUM_CAS_TRANSAKCE_FORMAT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Dekódování zakódované informace o účtence bez regulárních výrazů.
+ */
+public class DecodeUnitTest {
+
+    private static final String[] KODY = {
+            "1101705061401074323134400085176503411300",
+            "2101705061401168333761836002264103411300",
+            "14017050614017900110063074323134400085176503411300",
+            "24017050614017900110063168333761836002264103411300",
+            "12119123123591234567800000000010000100000000",
+            "231200229120012345678942949672954294967295000",
+    };
+
+    @Test
+    public void parseSchemaRoundTrip() {
+        for (String kod : KODY) {
+            assertEquals(kod, new EetUctenka().parseSchema(kod).generateString());
+        }
+    }
+
+    @Test
+    public void zaznamRoundTrip() {
+        EetZaznam zaznam = new EetZaznam();
+        for (String kod : KODY) {
+            assertSame(zaznam, zaznam.parse(kod));
+            assertEquals(kod, zaznam.generateString());
+            assertEquals(kod, zaznam.toUctenka().generateString());
+        }
+    }
+
+    @Test
+    public void zaznamFields() {
+        EetZaznam zaznam = new EetZaznam().parse(new StringBuilder(KODY[2]));
+        assertSame(Kod.Typ.FIK, zaznam.getTyp());
+        assertSame(Dic.Verze.DESET_CISLIC, zaznam.getDicVerze());
+        assertSame(Rezim.BEZNY, zaznam.getRezim());
+        assertEquals(7900110063L, zaznam.getDic());
+        assertEquals(743231344L, zaznam.getKodHi());
+        assertEquals(8517650L, zaznam.getKodLo());
+        assertEquals(3411300L, zaznam.getCastka());
+    }
+
+    /**
+     * Kód s úvodní nulou v hexadecimální podobě musí projít dekódováním i opětovným zakódováním.
+     */
+    @Test
+    public void leadingZeroKod() throws Exception {
+        EetUctenka uctenka = EetUctenka.ofBkp("0455B192-0697186A", null, 1.5d,
+                DATUM_CAS_TRANSAKCE_FORMAT.parse("1705061401"), Rezim.BEZNY);
+        String kod = uctenka.generateString();
+        assertEquals(kod, new EetUctenka().parseSchema(kod).generateString());
+    }
+
+    @Test
+    public void invalid() {
+        String[] kody = {
+                "",
+                "3101705061401074323134400085176503411300", // typ kódu
+                "1501705061401074323134400085176503411300", // verze DIČ
+                "1121705061401074323134400085176503411300", // režim
+                "1101713061401074323134400085176503411300", // měsíc
+                "1101702291401074323134400085176503411300", // 29. února
+                "1101705061461074323134400085176503411300", // minuta
+                "1101705061401999999999900085176503411300", // skupina kódu
+                "1101705061401074323134499999176503411300", // skupina FIK
+                "110170506140107432313440008517650341130X", // znak
+                "110170506140107432313440008517650",        // délka
+        };
+        for (String kod : kody) {
+            try {
+                new EetZaznam().parse(kod);
+                fail(kod);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("pozice"));
+            }
+        }
+    }
+
+    @Test
+    public void bajty() {
+        Random random = new Random(24);
+        EetZaznam zRetezce = new EetZaznam();
+        EetZaznam zPole = new EetZaznam();
+        EetZaznam zBufferu = new EetZaznam();
+        for (EetUctenka uctenka : Uctenky.random(3000, 24)) {
+            String kod = uctenka.generateString();
+            // Náhodně poškozený znak, aby se porovnaly i výsledky s důvodem a pozicí chyby
+            if (random.nextBoolean()) {
+                char[] znaky = kod.toCharArray();
+                znaky[random.nextInt(znaky.length)] = "0123456789X:/ 9".charAt(random.nextInt(15));
+                kod = new String(znaky);
+            }
+            byte[] bajty = ("##" + kod + "#").getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bajty.length);
+            buffer.put(bajty);
+
+            int vysledek = zRetezce.tryParse(kod);
+            assertEquals(kod, vysledek, zPole.tryParse(bajty, 2, kod.length()));
+            assertEquals(kod, vysledek, zBufferu.tryParse(buffer, 2, kod.length()));
+            assertEquals(bajty.length, buffer.position());
+            if (vysledek == 0) {
+                assertEquals(kod, zRetezce.generateString(), zPole.generateString());
+                assertEquals(kod, zRetezce.generateString(), zBufferu.generateString());
+            }
+        }
+        for (String kod : KODY) {
+            byte[] bajty = kod.getBytes(StandardCharsets.ISO_8859_1);
+            assertEquals(kod, zPole.parse(bajty, 0, bajty.length).generateString());
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.DicPool;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.scheme.Verze;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Sdílené instance DIČ, verze a číselníků.
+ */
+public class DicUnitTest {
+
+    @Test
+    public void prazdny() {
+        assertSame(Dic.PRAZDNY, Dic.parse(null));
+        assertNull(Dic.PRAZDNY.qrValue());
+        assertSame(Dic.Verze.PRAZDNY, Dic.PRAZDNY.getVerze());
+    }
+
+    @Test
+    public void pool() {
+        Dic bezPameti = Dic.parse("CZ01234567");
+        assertNotSame(bezPameti, Dic.parse("CZ01234567"));
+        assertEquals(bezPameti, Dic.parse("01234567"));
+        assertEquals("01234567", bezPameti.qrValue());
+
+        DicPool.setDefault(new DicPool(64));
+        try {
+            Dic dic = Dic.parse("CZ01234567");
+            assertEquals(bezPameti, dic);
+            assertEquals("01234567", dic.qrValue());
+            assertSame(dic, Dic.parse("cz01234567"));
+            assertSame(dic, Dic.parse("01234567"));
+            assertNotSame(dic, Dic.parse("CZ001234567"));
+
+            // Dekódování přes paměť nemění zakódovaný DIČ
+            for (EetUctenka uctenka : Uctenky.random(50, 32)) {
+                String payload = uctenka.generateString();
+                assertEquals(payload, new EetUctenka().parseSchema(payload).generateString());
+            }
+        } finally {
+            DicPool.setDefault(null);
+        }
+    }
+
+    @Test
+    public void ciselniky() {
+        assertSame(Verze.of(Kod.Typ.BKP, Dic.Verze.DEVET_CISLIC), Verze.parse("23"));
+        assertEquals("23", Verze.parse("23").qrValue());
+        assertSame(Kod.Typ.FIK, Kod.Typ.parse('1'));
+        assertSame(Dic.Verze.DESET_CISLIC, Dic.Verze.parse('4'));
+        assertNull(Dic.Verze.parse('5'));
+        assertSame(Rezim.ZJEDNODUSENY, Rezim.parse("1"));
+        assertSame(Rezim.BEZNY, Rezim.parse('0'));
+        assertNull(Rezim.parse("01"));
+        assertNull(Rezim.parse('x'));
+    }
+
+}
@@ -0,0 +1,87 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import static cz.mikropsoft.qreet.scheme.EetUctenka.DATUM_CAS_TRANSAKCE_FORMAT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Zápis zakódované informace o účtence do předaného pole nebo {@link Appendable}.
+ */
+public class EncodeUnitTest {
+
+    private static final String BKP = "6455B192-D697186A-6AB1971A-1E9B146B-CDD5007B";
+    private static final String FIK = "2c4ccf70-0055-44f2-804e-3056786dd351-ff";
+
+    /**
+     * Původní zápis přes {@link java.text.SimpleDateFormat} a {@link DecimalFormat}.
+     */
+    private static String reference(String verze, String kod, String dic, double castka, Date datum) {
+        DecimalFormat castkaFormat = new DecimalFormat("##0.00", new DecimalFormatSymbols(new Locale("cs", "CZ")));
+        return verze + "0" + DATUM_CAS_TRANSAKCE_FORMAT.format(datum) + (dic == null ? "" : dic.substring(2))
+                + kod + castkaFormat.format(castka).replace(",", "");
+    }
+
+    @Test
+    public void encodeToChars() throws Exception {
+        EetUctenka uctenka = EetUctenka.ofBkp(BKP, "CZ7900110063", 34113.00d,
+                DATUM_CAS_TRANSAKCE_FORMAT.parse("1705061401"), Rezim.BEZNY);
+        char[] dst = new char[64];
+        int length = uctenka.encodeTo(dst, 7);
+        assertEquals(uctenka.encodedLength(), length);
+        assertEquals("24017050614017900110063168333761836002264103411300", new String(dst, 7, length));
+    }
+
+    @Test
+    public void encodeToBytes() throws Exception {
+        EetUctenka uctenka = EetUctenka.ofFik(FIK, null, 0.5d,
+                DATUM_CAS_TRANSAKCE_FORMAT.parse("1705061401"), Rezim.ZJEDNODUSENY);
+        byte[] dst = new byte[uctenka.encodedLength()];
+        uctenka.encodeTo(dst, 0);
+        assertArrayEquals("111170506140107432313440008517650050".getBytes("US-ASCII"), dst);
+    }
+
+    @Test
+    public void encodeToAppendable() throws Exception {
+        EetUctenka uctenka = EetUctenka.ofFik(FIK, "CZ12345678", -12.5d,
+                DATUM_CAS_TRANSAKCE_FORMAT.parse("1912312359"), Rezim.BEZNY);
+        StringBuilder sb = uctenka.encodeTo(new StringBuilder("#"));
+        assertEquals("#" + uctenka.generateString(), sb.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void encodeToShortArray() throws Exception {
+        EetUctenka uctenka = EetUctenka.ofBkp(BKP, null, 1d,
+                DATUM_CAS_TRANSAKCE_FORMAT.parse("1705061401"), Rezim.BEZNY);
+        uctenka.encodeTo(new char[36], 1);
+    }
+
+    /**
+     * Výstup {@link EetUctenka#generateString()} musí být shodný s původní implementací.
+     */
+    @Test
+    public void generateStringMatchesReference() throws Exception {
+        Random random = new Random(42);
+        String[] dics = {null, "CZ12345678", "CZ123456789", "CZ1234567890"};
+        double[] castky = {0d, -0d, 0.005d, 0.015d, 1.005d, 2.675d, 0.125d, 9999999.99d, -0.001d, 34113d};
+        for (int i = 0; i < 100000; i++) {
+            String dic = dics[random.nextInt(dics.length)];
+            double castka = (i < castky.length) ? castky[i]
+                    : (random.nextBoolean() ? random.nextInt(1000000000) / 100d : random.nextDouble() * 1e7);
+            Date datum = new Date(1451606400000L + (long) (random.nextDouble() * 631152000000L));
+            EetUctenka uctenka = EetUctenka.ofBkp(BKP, dic, castka, datum, Rezim.BEZNY);
+            assertEquals(reference("2" + (dic == null ? 1 : dic.length() - 8), "16833376183600226410", dic, castka, datum),
+                    uctenka.generateString());
+        }
+    }
+
+}
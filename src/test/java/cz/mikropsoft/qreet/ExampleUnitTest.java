@@ -7,6 +7,7 @@ import net.glxn.qrgen.javase.QRCode;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.FileOutputStream;
 
 import static cz.mikropsoft.qreet.scheme.EetUctenka.DATUM_CAS_TRANSAKCE_FORMAT;
@@ -81,8 +82,10 @@ public class ExampleUnitTest {
      */
     @Test
     public void qreetToFile() throws Exception {
+        File file = File.createTempFile("QRBKP", ".jpg");
+        file.deleteOnExit();
         QRCode.from(uctenka)
-                .writeTo(new FileOutputStream("C:/tmp/QRBKP.jpg"));
+                .writeTo(new FileOutputStream(file));
     }
 
 }
\ No newline at end of file
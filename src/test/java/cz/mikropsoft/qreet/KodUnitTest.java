@@ -0,0 +1,75 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.Kod;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Binární podoba kódů FIK a BKP.
+ */
+public class KodUnitTest {
+
+    @Test
+    public void fik() {
+        Kod kod = Kod.ofFik("b3a09b52-7c87-4014-a496-4c7a53cf9120-03");
+        assertEquals(0xB3A09B527C874014L, kod.getBits());
+        assertEquals("30136471863187916404", kod.qrValue());
+        assertEquals(kod, Kod.ofFik("B3A09B52-7C87-4014"));
+        assertEquals(kod.hashCode(), Kod.ofFik("B3A09B52-7C87-4014").hashCode());
+        assertEquals(kod, Kod.parse(Kod.Typ.FIK, kod.qrValue()));
+    }
+
+    @Test
+    public void bkp() {
+        Kod kod = Kod.ofBkp("01234567-89abcdef-01234567-89abcdef-01234567");
+        assertEquals(0x0123456789ABCDEFL, kod.getBits());
+        assertEquals("00190887432309737967", kod.qrValue());
+        assertEquals(kod, Kod.ofBkp("01234567-89ABCDEF"));
+        assertEquals(kod, Kod.parse(Kod.Typ.BKP, kod.qrValue()));
+    }
+
+    @Test
+    public void uvodniNuly() {
+        Kod fik = Kod.ofFik("00000000-0000-000f");
+        assertEquals("00000000000000000015", fik.qrValue());
+        assertEquals("Kod{value='00000000-0000-000F', typ=FIK}", fik.toString());
+        assertEquals(fik, Kod.parse(Kod.Typ.FIK, fik.qrValue()));
+
+        Kod bkp = Kod.ofBkp("ffffffff-00000001");
+        assertEquals("42949672950000000001", bkp.qrValue());
+        assertEquals("Kod{value='FFFFFFFF-00000001', typ=BKP}", bkp.toString());
+    }
+
+    @Test
+    public void typSeRozlisuje() {
+        assertNotEquals(Kod.ofFik("01234567-89ab-cdef"), Kod.ofBkp("01234567-89abcdef"));
+    }
+
+    @Test
+    public void nevalidniKody() {
+        String[] fiky = {"", "b3a09b52-7c87-401", "b3a09b52-7c87-4014-", "b3a09b52-7c87-4014-a496",
+                "b3a09b52_7c87-4014", "g3a09b52-7c87-4014", "b3a09b52-7c87-4014-a496-4c7a53cf9120-033"};
+        for (String fik : fiky) {
+            try {
+                Kod.ofFik(fik);
+                fail(fik);
+            } catch (IllegalArgumentException e) {
+                // očekávaná výjimka
+            }
+        }
+        String[] bkpy = {"", "01234567-89abcde", "01234567-89abcdef-01234567", "01234567 89abcdef",
+                "0123456789abcdef0"};
+        for (String bkp : bkpy) {
+            try {
+                Kod.ofBkp(bkp);
+                fail(bkp);
+            } catch (IllegalArgumentException e) {
+                // očekávaná výjimka
+            }
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import cz.mikropsoft.qreet.scheme.UctenkaSchema;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Neměnná účtenka.
+ */
+public class UctenkaUnitTest {
+
+    @Test
+    public void builder() {
+        Uctenka uctenka = Uctenka.builder()
+                .bkp("01234567-89ABCDEF-01234567-89ABCDEF-01234567")
+                .dic("CZ12345678")
+                .castka(1234.5)
+                .datumCasTransakce(LocalDateTime.of(2019, 3, 9, 14, 5))
+                .rezim(Rezim.ZJEDNODUSENY)
+                .build();
+        EetUctenka eet = EetUctenka.ofBkp("01234567-89ABCDEF", "CZ12345678", 1234.5,
+                LocalDateTime.of(2019, 3, 9, 14, 5), Rezim.ZJEDNODUSENY);
+
+        assertEquals(eet.generateString(), uctenka.qrValue());
+        assertSame(uctenka.qrValue(), uctenka.qrValue());
+        assertEquals(123450, uctenka.getCastka());
+        assertEquals(uctenka, Uctenka.of(eet));
+        assertEquals(uctenka, Uctenka.parse(uctenka.qrValue()));
+        assertEquals(uctenka.hashCode(), Uctenka.parse(uctenka.qrValue()).hashCode());
+    }
+
+    @Test
+    public void roundTrip() {
+        Set<Uctenka> set = new HashSet<Uctenka>();
+        for (EetUctenka eet : Uctenky.random(500, 41)) {
+            String payload = eet.generateString();
+            Uctenka uctenka = Uctenka.of(eet);
+            assertEquals(payload, uctenka.qrValue());
+            assertEquals(uctenka, Uctenka.parse(payload));
+            assertEquals(payload, uctenka.toSchema().generateString());
+            set.add(uctenka);
+            set.add(Uctenka.parse(payload));
+        }
+        assertEquals(500, set.size());
+    }
+
+    @Test
+    public void rovnost() {
+        Uctenka.Builder builder = Uctenka.builder()
+                .fik("b3a09b52-7c87-4014")
+                .datumCasTransakce(LocalDateTime.of(2020, 1, 1, 0, 0))
+                .rezim(Rezim.BEZNY)
+                .haleru(100);
+        Uctenka uctenka = builder.build();
+        assertSame(Dic.PRAZDNY, uctenka.getDic());
+        assertEquals(uctenka, builder.build());
+        assertNotEquals(uctenka, builder.haleru(101).build());
+        assertNotEquals(uctenka, builder.haleru(100).rezim(Rezim.ZJEDNODUSENY).build());
+    }
+
+    @Test
+    public void schema() {
+        Uctenka uctenka = Uctenka.of(Uctenky.random(1, 42)[0]);
+        UctenkaSchema schema = uctenka.toSchema();
+        UctenkaSchema parsed = schema.parseSchema(uctenka.qrValue());
+        assertEquals(uctenka, parsed.getUctenka());
+        assertSame(uctenka, schema.getUctenka());
+    }
+
+    @Test
+    public void povinnePolozky() {
+        try {
+            Uctenka.builder().fik("b3a09b52-7c87-4014").rezim(Rezim.BEZNY).build();
+            fail("Datum transakce je povinný");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Datum transakce musí být předán", e.getMessage());
+        }
+        Uctenka.Builder builder = Uctenka.builder().fik("b3a09b52-7c87-4014").rezim(Rezim.BEZNY);
+        builder.datumCasTransakce(LocalDateTime.of(2000, 1, 1, 0, 0)).build();
+        builder.datumCasTransakce(LocalDateTime.of(2099, 12, 31, 23, 59)).build();
+        for (LocalDateTime datum : new LocalDateTime[]{LocalDateTime.of(1999, 12, 31, 23, 59),
+                LocalDateTime.of(2100, 1, 1, 0, 0), LocalDateTime.of(9999, 1, 1, 0, 0)}) {
+            try {
+                builder.datumCasTransakce(datum).build();
+                fail("Rok mimo 2000-2099: " + datum);
+            } catch (IllegalArgumentException e) {
+                // dvojčíslí roku by se přečetlo jinak
+            }
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Rezim;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Náhodné účtenky pro testy.
+ */
+public final class Uctenky {
+
+    private static final String[] DICS = {null, "CZ12345678", "CZ123456789", "CZ1234567890", "CZ7900110063"};
+
+    private Uctenky() {
+    }
+
+    /**
+     * Náhodná, ale validní účtenka.
+     *
+     * @param random zdroj náhody
+     * @return {@link EetUctenka}
+     */
+    public static EetUctenka random(Random random) {
+        String dic = DICS[random.nextInt(DICS.length)];
+        double castka = random.nextInt(1000000000) / 100d;
+        LocalDateTime datum = LocalDateTime.of(2016 + random.nextInt(30), 1 + random.nextInt(12),
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+        Rezim rezim = random.nextBoolean() ? Rezim.BEZNY : Rezim.ZJEDNODUSENY;
+        if (random.nextBoolean()) {
+            String fik = String.format("%08x-%04x-%04x-%04x-%012x-%02x", random.nextInt(), random.nextInt(0x10000),
+                    random.nextInt(0x10000), random.nextInt(0x10000), random.nextLong() & 0xFFFFFFFFFFFFL,
+                    random.nextInt(0x100));
+            return EetUctenka.ofFik(fik, dic, castka, datum, rezim);
+        } else {
+            String bkp = String.format("%08X-%08X-%08X-%08X-%08X", random.nextInt(), random.nextInt(),
+                    random.nextInt(), random.nextInt(), random.nextInt());
+            return EetUctenka.ofBkp(bkp, dic, castka, datum, rezim);
+        }
+    }
+
+    /**
+     * Pole náhodných účtenek.
+     *
+     * @param count počet účtenek
+     * @param seed semínko náhody
+     * @return účtenky
+     */
+    public static EetUctenka[] random(int count, long seed) {
+        Random random = new Random(seed);
+        EetUctenka[] uctenky = new EetUctenka[count];
+        for (int i = 0; i < count; i++) {
+            uctenky[i] = random(random);
+        }
+        return uctenky;
+    }
+
+}
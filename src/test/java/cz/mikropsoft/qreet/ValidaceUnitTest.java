@@ -0,0 +1,104 @@
+package cz.mikropsoft.qreet;
+
+import cz.mikropsoft.qreet.scheme.Chyba;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Validace;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Validace vstupů bez vyhození výjimky.
+ */
+public class ValidaceUnitTest {
+
+    @Test
+    public void kody() {
+        assertEquals(0, Validace.fik("b3a09b52-7c87-4014-a496-4c7a53cf9120-03"));
+        assertEquals(0, Validace.fik("B3A09B52-7C87-4014"));
+        assertChyba(Chyba.FIK, 9, Validace.fik("B3A09B52-X7C87-4014"));
+        assertChyba(Chyba.FIK, 8, Validace.fik("B3A09B52_7C87-4014"));
+        assertChyba(Chyba.FIK, 17, Validace.fik("B3A09B52-7C87-401"));
+        assertChyba(Chyba.FIK, 21, Validace.fik("B3A09B52-7C87-4014-a4"));
+        assertChyba(Chyba.PRAZDNY, 0, Validace.fik(null));
+
+        assertEquals(0, Validace.bkp("01234567-89abcdef"));
+        assertChyba(Chyba.BKP, 13, Validace.bkp("01234567-89ab-cdef"));
+    }
+
+    @Test
+    public void dic() {
+        assertEquals(0, Validace.dic(null));
+        assertEquals(0, Validace.dic("CZ12345678"));
+        assertEquals(0, Validace.dic("cz1234567890"));
+        assertEquals(0, Validace.dic("123456789"));
+        assertChyba(Chyba.DIC, 9, Validace.dic("CZ1234567"));
+        assertChyba(Chyba.DIC, 13, Validace.dic("CZ12345678901"));
+        assertChyba(Chyba.DIC, 0, Validace.dic("SK12345678"));
+        assertChyba(Chyba.DIC, 5, Validace.dic("CZ123x5678"));
+    }
+
+    @Test
+    public void verzeARezim() {
+        assertEquals(0, Validace.verze("14"));
+        assertChyba(Chyba.TYP_KODU, 0, Validace.verze("31"));
+        assertChyba(Chyba.VERZE_DIC, 1, Validace.verze("15"));
+        assertChyba(Chyba.DELKA, 1, Validace.verze("1"));
+        assertChyba(Chyba.PRAZDNY, 0, Validace.verze(null));
+
+        assertEquals(0, Validace.rezim("1"));
+        assertChyba(Chyba.REZIM, 0, Validace.rezim("2"));
+        assertChyba(Chyba.REZIM, 0, Validace.rezim("x"));
+    }
+
+    @Test
+    public void uctenka() {
+        EetUctenka uctenka = Uctenky.random(1, 21)[0];
+        String payload = uctenka.generateString();
+        assertEquals(0, Validace.uctenka(payload));
+        // Režim tržby musí být číslice, dříve se jiný znak četl jako běžný režim
+        assertChyba(Chyba.REZIM, 2, Validace.uctenka(payload.substring(0, 2) + 'x' + payload.substring(3)));
+        assertChyba(Chyba.ZNAK, 3, Validace.uctenka(payload.substring(0, 3) + 'x' + payload.substring(4)));
+    }
+
+    @Test
+    public void statistika() {
+        List<String> payloady = new ArrayList<String>();
+        for (EetUctenka uctenka : Uctenky.random(100, 22)) {
+            String payload = uctenka.generateString();
+            payloady.add(payload);
+            payloady.add('9' + payload.substring(1));
+            payloady.add(payload.substring(0, 10));
+        }
+        payloady.add(null);
+
+        Validace.Statistika statistika = new Validace.Statistika();
+        assertEquals(201, statistika.validateAll(payloady));
+        assertEquals(100, statistika.getValidnich());
+        assertEquals(100, statistika.getOdmitnutych(Chyba.TYP_KODU));
+        assertEquals(100, statistika.getOdmitnutych(Chyba.DELKA));
+        assertEquals(1, statistika.getOdmitnutych(Chyba.PRAZDNY));
+        assertEquals(0, statistika.getOdmitnutych(Chyba.DATUM));
+
+        Validace.Statistika druha = new Validace.Statistika();
+        druha.validate("x");
+        statistika.merge(druha);
+        assertEquals(202, statistika.getOdmitnutych());
+        assertEquals(302, statistika.getPocet());
+    }
+
+    @Test
+    public void validniBezChyby() {
+        assertNull(Chyba.of(0));
+    }
+
+    private static void assertChyba(Chyba chyba, int offset, int vysledek) {
+        assertEquals(chyba, Chyba.of(vysledek));
+        assertEquals(offset, Chyba.offset(vysledek));
+    }
+
+}
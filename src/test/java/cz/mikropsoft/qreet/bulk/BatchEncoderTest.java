@@ -0,0 +1,67 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Paralelní kódování účtenek musí dát stejný výsledek jako postupné volání {@link EetUctenka#generateString()}.
+ */
+public class BatchEncoderTest {
+
+    private static final EetUctenka[] UCTENKY = Uctenky.random(100000, 7);
+
+    private static void assertPacked(PackedPayloads packed) {
+        assertEquals(UCTENKY.length, packed.size());
+        char[] buffer = new char[64];
+        for (int i = 0; i < UCTENKY.length; i++) {
+            String expected = UCTENKY[i].generateString();
+            assertEquals(expected, packed.getString(i));
+            assertEquals(expected, new String(buffer, 0, packed.copyTo(i, buffer, 0)));
+        }
+    }
+
+    @Test
+    public void encodeArray() {
+        assertPacked(new BatchEncoder().encode(UCTENKY));
+    }
+
+    @Test
+    public void encodeList() {
+        assertPacked(new BatchEncoder(new ForkJoinPool(3)).encode(Arrays.asList(UCTENKY)));
+    }
+
+    @Test
+    public void encodeSpliterator() {
+        assertPacked(new BatchEncoder().encode(Arrays.spliterator(UCTENKY)));
+        assertPacked(new BatchEncoder().encode(new LinkedList<EetUctenka>(Arrays.asList(UCTENKY)).spliterator()));
+    }
+
+    @Test
+    public void encodeEmpty() {
+        assertEquals(0, new BatchEncoder().encode(new EetUctenka[0]).size());
+    }
+
+    @Test
+    public void writeLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long zapsano = new BatchEncoder().writeLines(Arrays.asList(UCTENKY), Channels.newChannel(out));
+        assertEquals(out.size(), zapsano);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+        assertEquals(UCTENKY.length, lines.length);
+        for (int i = 0; i < UCTENKY.length; i++) {
+            assertEquals(UCTENKY[i].generateString(), lines[i]);
+        }
+    }
+
+}
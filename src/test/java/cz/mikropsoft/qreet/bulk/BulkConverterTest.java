@@ -0,0 +1,214 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.render.QrCache;
+import cz.mikropsoft.qreet.render.QrImageWriter;
+import cz.mikropsoft.qreet.render.UrovenKorekce;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hromadný převod mezi CSV, zakódovanými informacemi o účtenkách a obrázky.
+ */
+public class BulkConverterTest {
+
+    @Test
+    public void tamAZpet() throws Exception {
+        EetUctenka[] uctenky = Uctenky.random(5000, 81);
+        StringBuilder payloady = new StringBuilder();
+        for (EetUctenka uctenka : uctenky) {
+            payloady.append(uctenka.generateString()).append('\n');
+        }
+
+        // Malé dávky ve více vláknech, pořadí výstupu musí odpovídat vstupu
+        BulkConverter converter = new BulkConverter(3, 7, UrovenKorekce.L);
+        StringWriter csv = new StringWriter();
+        BulkConverter.Souhrn souhrn = converter.payloadsToCsv(reader(payloady.toString()), csv, null, null);
+        assertEquals(uctenky.length, souhrn.getRadku());
+        assertEquals(uctenky.length, souhrn.getPrevedenych());
+        assertTrue(csv.toString().startsWith(BulkConverter.CSV_HLAVICKA + "\n"));
+
+        StringWriter zpet = new StringWriter();
+        souhrn = converter.csvToPayloads(reader(csv.toString()), zpet, null, null, null, null, null);
+        assertEquals(uctenky.length, souhrn.getPrevedenych());
+        assertEquals(payloady.toString(), zpet.toString());
+    }
+
+    @Test
+    public void odmitnuteRadky() throws Exception {
+        String csv = "rezim;datum;castka;dic;kod\n"
+                + "0;2017-05-06 14:01;34113,00;CZ72080043;b3a09b52-7c87-4014-a496-4c7a53cf9120-64\n"
+                + "0;2017-05-06T14:01;1;;nesmysl\n"
+                + "1;2017-05-06T14:01;;;01234567-89ABCDEF-01234567-89ABCDEF-01234567\n"
+                + "2;2017-05-06T14:01;1;;01234567-89ABCDEF-01234567-89ABCDEF-01234567\n"
+                + "0;6.5.2017;1;;01234567-89ABCDEF-01234567-89ABCDEF-01234567\n";
+        final List<Long> odmitnute = new ArrayList<Long>();
+        StringWriter payloady = new StringWriter();
+        BulkConverter.Souhrn souhrn = new BulkConverter().csvToPayloads(reader(csv), payloady, null, null, null,
+                new BulkConverter.Rejects() {
+                    @Override
+                    public void reject(long radek, String obsah, String duvod) {
+                        odmitnute.add(radek);
+                    }
+                }, null);
+        assertEquals(5, souhrn.getRadku());
+        assertEquals(2, souhrn.getPrevedenych());
+        assertEquals(3, souhrn.getOdmitnutych());
+        assertEquals("[3, 5, 6]", odmitnute.toString());
+
+        String[] radky = payloady.toString().split("\n");
+        assertEquals(EetUctenka.ofFik("b3a09b52-7c87-4014-a496-4c7a53cf9120-64", "CZ72080043", 34113.00d,
+                LocalDateTime.of(2017, 5, 6, 14, 1), Rezim.BEZNY)
+                .generateString(), radky[0]);
+    }
+
+    @Test
+    public void sloupceJakoCsvImporter() throws Exception {
+        // Sloupec fik, bez nepovinných sloupců castka a rezim
+        String csv = "datum,fik\n2017-05-06T14:01,b3a09b52-7c87-4014-a496-4c7a53cf9120-64\n";
+        StringWriter payloady = new StringWriter();
+        BulkConverter.Souhrn souhrn = new BulkConverter().csvToPayloads(reader(csv), payloady, null, null, null,
+                null, null);
+        assertEquals(1, souhrn.getPrevedenych());
+        assertEquals(EetUctenka.ofFik("b3a09b52-7c87-4014-a496-4c7a53cf9120-64", null, 0d,
+                LocalDateTime.of(2017, 5, 6, 14, 1), Rezim.BEZNY).generateString() + "\n", payloady.toString());
+    }
+
+    @Test
+    public void obrazky() throws Exception {
+        EetUctenka[] uctenky = Uctenky.random(50, 82);
+        StringBuilder payloady = new StringBuilder();
+        for (EetUctenka uctenka : uctenky) {
+            payloady.append(uctenka.generateString()).append('\n');
+        }
+        BulkConverter converter = new BulkConverter(4, 3, UrovenKorekce.L);
+        StringWriter csv = new StringWriter();
+        converter.payloadsToCsv(reader(payloady.toString()), csv, null, null);
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (BulkConverter.ImageSink sink = BulkConverter.ImageSink.zip(zip)) {
+            converter.csvToPayloads(reader(csv.toString()), null, sink, BulkConverter.Format.PNG,
+                    new QrImageWriter(2), null, null);
+        }
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            for (int i = 0; i < uctenky.length; i++) {
+                ZipEntry entry = in.getNextEntry();
+                assertEquals(String.format("%09d.png", i + 2), entry.getName());
+                assertNotNull(ImageIO.read(in));
+            }
+        }
+
+        Path adresar = Files.createTempDirectory("qreet");
+        try {
+            try (BulkConverter.ImageSink sink = BulkConverter.ImageSink.directory(adresar)) {
+                converter.csvToPayloads(reader(csv.toString()), null, sink, BulkConverter.Format.SVG,
+                        new QrImageWriter(2), null, null);
+            }
+            String svg = new String(Files.readAllBytes(adresar.resolve("000000002.svg")), StandardCharsets.US_ASCII);
+            assertTrue(svg.startsWith("<svg "));
+            assertEquals(uctenky.length, adresar.toFile().list().length);
+        } finally {
+            for (File file : adresar.toFile().listFiles()) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(adresar);
+        }
+    }
+
+    @Test
+    public void obrazkyZPameti() throws Exception {
+        EetUctenka[] uctenky = Uctenky.random(20, 84);
+        StringBuilder payloady = new StringBuilder();
+        // Každá účtenka dvakrát
+        for (int i = 0; i < 2; i++) {
+            for (EetUctenka uctenka : uctenky) {
+                payloady.append(uctenka.generateString()).append('\n');
+            }
+        }
+        QrCache cache = new QrCache(1 << 20, UrovenKorekce.L, new QrImageWriter(2));
+        BulkConverter converter = new BulkConverter(2, 5, cache);
+        StringWriter csv = new StringWriter();
+        converter.payloadsToCsv(reader(payloady.toString()), csv, null, null);
+
+        final List<byte[]> png = new ArrayList<byte[]>();
+        BulkConverter.ImageSink sink = new BulkConverter.ImageSink() {
+            @Override
+            public void write(String nazev, byte[] data) {
+                png.add(data);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        converter.csvToPayloads(reader(csv.toString()), null, sink, BulkConverter.Format.PNG, cache.getWriter(),
+                null, null);
+        assertEquals(2 * uctenky.length, png.size());
+        assertEquals(uctenky.length, cache.getPngMisses());
+        assertEquals(uctenky.length, cache.getPngHits());
+        for (int i = 0; i < uctenky.length; i++) {
+            assertArrayEquals(png.get(i), png.get(uctenky.length + i));
+        }
+    }
+
+    @Test
+    public void prikazovaRadka() throws Exception {
+        EetUctenka[] uctenky = Uctenky.random(100, 83);
+        Path vstup = Files.createTempFile("qreet", ".txt");
+        Path csv = Files.createTempFile("qreet", ".csv");
+        Path zpet = Files.createTempFile("qreet", ".txt");
+        Path zip = Files.createTempFile("qreet", ".zip");
+        try {
+            StringBuilder payloady = new StringBuilder();
+            for (EetUctenka uctenka : uctenky) {
+                payloady.append(uctenka.generateString()).append('\n');
+            }
+            Files.write(vstup, payloady.toString().getBytes(StandardCharsets.US_ASCII));
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(err, true, "UTF-8");
+
+            assertEquals(0, BulkConverter.spustit(new String[]{"decode", vstup.toString(), csv.toString()}, out));
+            assertEquals(0, BulkConverter.spustit(new String[]{"encode", csv.toString(), "--payloady",
+                    zpet.toString(), "--obrazky", zip.toString(), "--format", "bmp", "--vlaken", "2"}, out));
+            assertArrayEquals(Files.readAllBytes(vstup), Files.readAllBytes(zpet));
+            assertTrue(Files.size(zip) > 0);
+            assertEquals(2, BulkConverter.spustit(new String[]{"encode", csv.toString()}, out));
+            assertEquals(2, BulkConverter.spustit(new String[]{"prevod", csv.toString()}, out));
+            String vypis = new String(err.toByteArray(), StandardCharsets.UTF_8);
+            assertTrue(vypis, vypis.contains("100 řádků, převedeno 100, odmítnuto 0"));
+        } finally {
+            Files.delete(vstup);
+            Files.delete(csv);
+            Files.delete(zpet);
+            Files.delete(zip);
+        }
+    }
+
+    private static BufferedReader reader(String s) {
+        return new BufferedReader(new StringReader(s));
+    }
+
+}
@@ -0,0 +1,125 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.Chyba;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Paralelní dekódování souboru namapovaného do paměti.
+ */
+public class BulkDecoderTest {
+
+    private static final int RADKU = 200000;
+    private static final int VADNY_KAZDY = 1000;
+
+    private static String[] radky;
+    private static Path file;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        EetUctenka[] uctenky = Uctenky.random(RADKU, 11);
+        radky = new String[RADKU];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < RADKU; i++) {
+            radky[i] = (i % VADNY_KAZDY == 1) ? "3" + uctenky[i].generateString().substring(1)
+                    : uctenky[i].generateString();
+            sb.append(radky[i]).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        file = Files.createTempFile("qreet", ".txt");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @AfterClass
+    public static void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void decode() throws Exception {
+        final ConcurrentHashMap<Long, String> decoded = new ConcurrentHashMap<Long, String>();
+        final ConcurrentHashMap<Long, Chyba> rejected = new ConcurrentHashMap<Long, Chyba>();
+        final AtomicLong offsets = new AtomicLong();
+
+        long count = new BulkDecoder(new ForkJoinPool(4)).decode(file, new BulkDecoder.Handler() {
+            @Override
+            public void accept(long radek, EetZaznam zaznam) {
+                decoded.put(radek, zaznam.generateString());
+            }
+        }, new BulkDecoder.Rejects() {
+            @Override
+            public void reject(long radek, long offset, Chyba chyba, int pozice) {
+                rejected.put(radek, chyba);
+                offsets.addAndGet(offset);
+            }
+        });
+
+        assertEquals(RADKU, count);
+        assertEquals(RADKU / VADNY_KAZDY, rejected.size());
+        for (int i = 0; i < RADKU; i++) {
+            if (i % VADNY_KAZDY == 1) {
+                assertEquals(Chyba.TYP_KODU, rejected.get((long) i));
+            } else {
+                assertEquals(radky[i], decoded.get((long) i));
+            }
+        }
+        assertTrue(offsets.get() > 0);
+    }
+
+    @Test
+    public void decodeColumns() throws Exception {
+        DecodedColumns columns = new BulkDecoder().decodeColumns(file, null);
+        assertEquals(RADKU, columns.size());
+        EetZaznam zaznam = new EetZaznam();
+        for (int i = 0; i < RADKU; i++) {
+            if (i % VADNY_KAZDY == 1) {
+                assertFalse(columns.isValid(i));
+            } else {
+                assertEquals(radky[i], columns.get(i, zaznam).generateString());
+            }
+        }
+    }
+
+    @Test
+    public void rejectOffset() throws Exception {
+        Path small = Files.createTempFile("qreet", ".txt");
+        try {
+            Files.write(small, (radky[0] + "\nX\n" + radky[2]).getBytes(StandardCharsets.US_ASCII));
+            final long[] reject = new long[3];
+            long count = new BulkDecoder().decode(small, new BulkDecoder.Handler() {
+                @Override
+                public void accept(long radek, EetZaznam zaznam) {
+                }
+            }, new BulkDecoder.Rejects() {
+                @Override
+                public void reject(long radek, long offset, Chyba chyba, int pozice) {
+                    reject[0] = radek;
+                    reject[1] = offset;
+                    reject[2] = chyba.ordinal();
+                }
+            });
+            assertEquals(3, count);
+            assertEquals(1, reject[0]);
+            assertEquals(radky[0].length() + 1, reject[1]);
+            assertEquals(Chyba.DELKA.ordinal(), reject[2]);
+        } finally {
+            Files.delete(small);
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.scheme.Chyba;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Import účtenek z CSV přímo z bajtů bufferu.
+ */
+public class CsvImporterTest {
+
+    @Test
+    public void nahodneRadky() {
+        Random random = new Random(91);
+        int pocet = 3000;
+        String[] ocekavane = new String[pocet];
+        StringBuilder csv = new StringBuilder("datum;bkp;fik;castka;dic;rezim;poznamka\r\n");
+        for (int i = 0; i < pocet; i++) {
+            String bkp = String.format("%08X-%08X-%08X-%08X-%08X", random.nextInt(), random.nextInt(),
+                    random.nextInt(), random.nextInt(), random.nextInt());
+            String fik = random.nextBoolean() ? String.format("%08x-%04x-%04x-%04x-%012x-%02x", random.nextInt(),
+                    random.nextInt(0x10000), random.nextInt(0x10000), random.nextInt(0x10000),
+                    random.nextLong() & 0xFFFFFFFFFFFFL, random.nextInt(0x100)) : null;
+            String dic = random.nextBoolean() ? null : "CZ" + (10000000L + random.nextInt(90000000));
+            long haleru = random.nextInt(1000000000);
+            LocalDateTime datum = LocalDateTime.of(2016 + random.nextInt(30), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+            Rezim rezim = random.nextBoolean() ? Rezim.BEZNY : Rezim.ZJEDNODUSENY;
+
+            EetUctenka uctenka = (fik != null) ? EetUctenka.ofFik(fik, dic, haleru / 100d, datum, rezim)
+                    : EetUctenka.ofBkp(bkp, dic, haleru / 100d, datum, rezim);
+            ocekavane[i] = uctenka.generateString();
+            csv.append(datum.toString().replace('T', ' ')).append(i % 3 == 0 ? ":07" : "").append(';')
+                    .append(bkp).append(';')
+                    .append(fik != null ? "\"" + fik + "\"" : "").append(';')
+                    .append(haleru / 100).append(',').append(String.format("%02d", haleru % 100)).append(';')
+                    .append(dic != null ? dic : "").append(';')
+                    .append(rezim.qrValue()).append(";x\r\n");
+            if (i % 100 == 0) {
+                csv.append("\r\n");
+            }
+        }
+
+        ByteBuffer data = ByteBuffer.allocateDirect(csv.length());
+        data.put(csv.toString().getBytes(StandardCharsets.US_ASCII)).flip();
+        final List<String> importovane = new ArrayList<String>();
+        long radku = CsvImporter.importAll(data, new BulkDecoder.Handler() {
+            @Override
+            public void accept(long radek, EetZaznam zaznam) {
+                importovane.add(zaznam.generateString());
+            }
+        }, new BulkDecoder.Rejects() {
+            @Override
+            public void reject(long radek, long offset, Chyba chyba, int pozice) {
+                throw new AssertionError(radek + ": " + chyba + " " + pozice);
+            }
+        });
+        assertEquals(0, data.position());
+        assertEquals(pocet + pocet / 100, radku);
+        assertEquals(pocet, importovane.size());
+        for (int i = 0; i < pocet; i++) {
+            assertEquals(ocekavane[i], importovane.get(i));
+        }
+    }
+
+    @Test
+    public void odmitnuteRadky() {
+        String csv = "kod,typ,castka,datum,dic\n"
+                + "b3a09b52-7c87-4014-a496-4c7a53cf9120-64,,34113.00,2017-05-06T14:01,CZ72080043\n"
+                + "b3a09b52-7c87-4014,FIK,-12.5,2017-05-06T14:01,\n"
+                + "03014432562893451234,BKP,0,2017-05-06T14:01,\n"
+                + "03014432562893451234,,0,2017-05-06T14:01,\n"
+                + "b3a09b52-7c87-4014-a49,,1,2017-05-06T14:01,\n"
+                + "b3a09b52-7c87-4014,,1.234,2017-05-06T14:01,\n"
+                + "b3a09b52-7c87-4014,,1,2017-02-29T14:01,\n"
+                + "b3a09b52-7c87-4014,,1,2017-05-06T14:01,CZ1234567\n"
+                + "b3a09b52-7c87-4014,XYZ,1,2017-05-06T14:01,\n"
+                + ",,1,2017-05-06T14:01,\n"
+                + "b3a09b52-7c87-4014,,1,\n"
+                + "01234567-89ABCDEF,BKP,1e3,2017-05-06T14:01,\n"
+                + "b3a09b52-7c87-4014,,1,1999-12-31T23:59,\n"
+                + "b3a09b52-7c87-4014,,1,2100-01-01T00:00,";
+        final List<String> odmitnute = new ArrayList<String>();
+        final List<Long> prijate = new ArrayList<Long>();
+        DecodedColumns columns = CsvImporter.importColumns(ByteBuffer.wrap(csv.getBytes(StandardCharsets.US_ASCII)),
+                new BulkDecoder.Rejects() {
+                    @Override
+                    public void reject(long radek, long offset, Chyba chyba, int pozice) {
+                        odmitnute.add(radek + ":" + chyba + ":" + pozice);
+                    }
+                });
+        assertEquals(14, columns.size());
+        assertEquals("[3:TYP_KODU:0, 4:FIK:22, 5:CASTKA:24, 6:DATUM:30, 7:DIC:48, 8:TYP_KODU:19, 9:PRAZDNY:21, "
+                + "10:SLOUPEC:22, 11:CASTKA:23, 12:DATUM:22, 13:DATUM:22]", odmitnute.toString());
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.isValid(i)) {
+                prijate.add((long) i);
+            }
+        }
+        assertEquals("[0, 1, 2]", prijate.toString());
+
+        EetZaznam zaznam = new EetZaznam();
+        assertEquals(EetUctenka.ofFik("b3a09b52-7c87-4014-a496-4c7a53cf9120-64", "CZ72080043", 34113.00d,
+                LocalDateTime.of(2017, 5, 6, 14, 1), Rezim.BEZNY).generateString(),
+                columns.get(0, zaznam).generateString());
+        assertEquals(-1250, columns.get(1, zaznam).getCastka());
+        assertEquals("03014432562893451234", columns.get(2, zaznam).generateString().substring(13, 33));
+    }
+
+    @Test
+    public void hlavicka() {
+        try {
+            new CsvImporter("castka,dic,rezim");
+            throw new AssertionError("Hlavička bez kódu");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Hlavička CSV"));
+        }
+
+        // Úsek bez hlavičky od předané pozice, pořadí řádků od předaného čísla
+        CsvImporter importer = new CsvImporter("\uFEFF\"FIK\";\"Datum\"");
+        byte[] radky = "xx\n01234567-89ab-cdef;2020-01-31T23:59\n".getBytes(StandardCharsets.US_ASCII);
+        final List<Long> cisla = new ArrayList<Long>();
+        long pocet = importer.parse(ByteBuffer.wrap(radky), 3, 10, new BulkDecoder.Handler() {
+            @Override
+            public void accept(long radek, EetZaznam zaznam) {
+                cisla.add(radek);
+                assertEquals(LocalDateTime.of(2020, 1, 31, 23, 59), zaznam.getDatumCasTransakce());
+            }
+        }, null);
+        assertEquals(1, pocet);
+        assertEquals("[10]", cisla.toString());
+    }
+
+}
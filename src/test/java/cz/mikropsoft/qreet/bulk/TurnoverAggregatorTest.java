@@ -0,0 +1,156 @@
+package cz.mikropsoft.qreet.bulk;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Obrat po skupinách DIČ, dne a režimu tržby.
+ */
+public class TurnoverAggregatorTest {
+
+    private static final Dic.Verze[] VERZE = {Dic.Verze.PRAZDNY, Dic.Verze.OSM_CISLIC, Dic.Verze.DEVET_CISLIC,
+            Dic.Verze.DESET_CISLIC};
+    private static final long[] DICY = {0, 12345678, 123456789, 7900110063L};
+
+    @Test
+    public void skupiny() throws Exception {
+        int pocet = 200000;
+        Random random = new Random(101);
+        final Map<String, long[]> ocekavane = new HashMap<String, long[]>();
+        StringBuilder payloady = new StringBuilder();
+        TurnoverAggregator postupne = new TurnoverAggregator();
+        EetZaznam zaznam = new EetZaznam();
+        int prvniDen = (int) LocalDate.of(2017, 5, 1).toEpochDay();
+        for (int i = 0; i < pocet; i++) {
+            int d = random.nextInt(DICY.length);
+            int den = prvniDen + random.nextInt(31);
+            Rezim rezim = random.nextBoolean() ? Rezim.BEZNY : Rezim.ZJEDNODUSENY;
+            long castka = random.nextInt(1000000);
+            zaznam.set(Kod.Typ.BKP, VERZE[d], rezim, den * 1440 + random.nextInt(1440), DICY[d],
+                    random.nextInt(Integer.MAX_VALUE), random.nextInt(Integer.MAX_VALUE), castka);
+            postupne.add(zaznam);
+            payloady.append(zaznam.generateString()).append('\n');
+
+            String klic = DICY[d] + "/" + den + "/" + rezim;
+            long[] skupina = ocekavane.get(klic);
+            if (skupina == null) {
+                skupina = new long[2];
+                ocekavane.put(klic, skupina);
+            }
+            skupina[0]++;
+            skupina[1] += castka;
+        }
+
+        assertEquals(ocekavane.size(), postupne.size());
+        assertEquals(pocet, postupne.getPocet());
+        final List<Long> poradi = new ArrayList<Long>();
+        postupne.forEach(new TurnoverAggregator.Skupina() {
+            @Override
+            public void accept(Dic.Verze dicVerze, long dic, int den, Rezim rezim, long p, long castka) {
+                long[] skupina = ocekavane.get(dic + "/" + den + "/" + rezim);
+                assertEquals(skupina[0], p);
+                assertEquals(skupina[1], castka);
+                poradi.add(dic * 100000 + den * 2 + rezim.ordinal());
+            }
+        });
+        for (int i = 1; i < poradi.size(); i++) {
+            assertTrue(poradi.get(i - 1) < poradi.get(i));
+        }
+        long[] skupina = ocekavane.get(DICY[3] + "/" + prvniDen + "/" + Rezim.BEZNY);
+        assertEquals(skupina[1], postupne.getCastka(Dic.Verze.DESET_CISLIC, DICY[3], prvniDen, Rezim.BEZNY));
+        assertEquals(0, postupne.getPocet(Dic.Verze.DESET_CISLIC, DICY[3], prvniDen - 1, Rezim.BEZNY));
+
+        // Paralelně ze sloupců i přímo při dekódování souboru
+        Path file = Files.createTempFile("qreet", ".txt");
+        try {
+            Files.write(file, payloady.toString().getBytes(StandardCharsets.US_ASCII));
+            BulkDecoder decoder = new BulkDecoder(new ForkJoinPool(4));
+            DecodedColumns columns = decoder.decodeColumns(file, null);
+            assertSame(postupne, TurnoverAggregator.aggregate(columns, new ForkJoinPool(4)));
+
+            TurnoverAggregator.Collector collector = new TurnoverAggregator.Collector();
+            decoder.decode(file, collector, null);
+            assertSame(postupne, collector.result());
+            try {
+                collector.accept(0, zaznam);
+                fail("Plnění uzavřeného kolektoru");
+            } catch (IllegalStateException e) {
+                // kolektor je jednorázový
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void presnySoucet() {
+        // 0,10 Kč milionkrát, v double by součet nebyl přesně 100 000 Kč
+        TurnoverAggregator a = new TurnoverAggregator();
+        TurnoverAggregator b = new TurnoverAggregator(0);
+        for (int i = 0; i < 1000000; i++) {
+            ((i & 1) == 0 ? a : b).add(Dic.Verze.PRAZDNY, 0, 0, Rezim.BEZNY, 10);
+        }
+        a.merge(b);
+        assertEquals(1, a.size());
+        assertEquals(10000000, a.getCastka());
+        assertEquals(9999995, a.add(Dic.Verze.PRAZDNY, 0, 1, Rezim.BEZNY, -5)
+                .getCastka(Dic.Verze.PRAZDNY, 0, 0, Rezim.BEZNY));
+
+        a.add(Dic.Verze.PRAZDNY, 0, 2 * 1440, Rezim.BEZNY, Long.MAX_VALUE);
+        try {
+            a.add(Dic.Verze.PRAZDNY, 0, 2 * 1440, Rezim.BEZNY, 1);
+            fail("Přetečení součtu");
+        } catch (ArithmeticException e) {
+            // přetečení se nesmí ztratit
+        }
+        // Skupina zůstane po přetečení beze změny
+        assertEquals(1, a.getPocet(Dic.Verze.PRAZDNY, 0, 2, Rezim.BEZNY));
+        assertEquals(Long.MAX_VALUE, a.getCastka(Dic.Verze.PRAZDNY, 0, 2, Rezim.BEZNY));
+        TurnoverAggregator c = new TurnoverAggregator().add(Dic.Verze.PRAZDNY, 0, 2 * 1440, Rezim.BEZNY, 1);
+        try {
+            c.merge(a);
+            fail("Přetečení součtu při slučování");
+        } catch (ArithmeticException e) {
+            // očekávané
+        }
+        assertEquals(1, c.getPocet(Dic.Verze.PRAZDNY, 0, 2, Rezim.BEZNY));
+        assertEquals(1, c.getCastka(Dic.Verze.PRAZDNY, 0, 2, Rezim.BEZNY));
+        try {
+            a.add(Dic.Verze.PRAZDNY, 0, -1, Rezim.BEZNY, 1);
+            fail("Záporné datum");
+        } catch (IllegalArgumentException e) {
+            // mimo rozsah klíče
+        }
+    }
+
+    private static void assertSame(TurnoverAggregator ocekavana, final TurnoverAggregator agregace) {
+        assertEquals(ocekavana.size(), agregace.size());
+        assertEquals(ocekavana.getPocet(), agregace.getPocet());
+        ocekavana.forEach(new TurnoverAggregator.Skupina() {
+            @Override
+            public void accept(Dic.Verze dicVerze, long dic, int den, Rezim rezim, long pocet, long castka) {
+                assertEquals(pocet, agregace.getPocet(dicVerze, dic, den, rezim));
+                assertEquals(castka, agregace.getCastka(dicVerze, dic, den, rezim));
+            }
+        });
+    }
+
+}
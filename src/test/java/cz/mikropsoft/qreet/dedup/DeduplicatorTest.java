@@ -0,0 +1,147 @@
+package cz.mikropsoft.qreet.dedup;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rozpoznání opakovaně načtených účtenek.
+ */
+public class DeduplicatorTest {
+
+    @Test
+    public void exact() throws Exception {
+        EetUctenka[] uctenky = Uctenky.random(5000, 51);
+        ExactDeduplicator deduplicator = new ExactDeduplicator(0, 4);
+        EetZaznam zaznam = new EetZaznam();
+        for (EetUctenka uctenka : uctenky) {
+            assertTrue(deduplicator.add(zaznam.parse(uctenka.generateString())));
+        }
+        for (EetUctenka uctenka : uctenky) {
+            assertFalse(deduplicator.add(Uctenka.of(uctenka)));
+            assertFalse(deduplicator.add(zaznam.parse(uctenka.generateString())));
+        }
+        assertEquals(uctenky.length, deduplicator.size());
+        assertEquals(0, deduplicator.getFalsePositiveRate(), 0);
+
+        Deduplicator nacteny = roundTrip(deduplicator);
+        assertTrue(nacteny instanceof ExactDeduplicator);
+        assertEquals(uctenky.length, nacteny.size());
+        for (EetUctenka uctenka : uctenky) {
+            assertFalse(nacteny.add(Uctenka.of(uctenka)));
+        }
+        assertTrue(nacteny.add(Uctenka.of(Uctenky.random(1, 52)[0])));
+    }
+
+    @Test
+    public void klicBezCastky() {
+        Uctenka uctenka = Uctenka.of(Uctenky.random(1, 53)[0]);
+        Uctenka jinaCastka = Uctenka.builder()
+                .kod(uctenka.getKod())
+                .dic(uctenka.getDic())
+                .datumCasTransakce(uctenka.getDatumCasTransakce())
+                .rezim(uctenka.getRezim())
+                .haleru(uctenka.getCastka() + 1)
+                .build();
+        Uctenka jinyCas = Uctenka.builder()
+                .kod(uctenka.getKod())
+                .dic(uctenka.getDic())
+                .datumCasTransakce(uctenka.getDatumCasTransakce().plusMinutes(1))
+                .rezim(uctenka.getRezim())
+                .build();
+        Deduplicator deduplicator = new ExactDeduplicator();
+        assertTrue(deduplicator.add(uctenka));
+        assertFalse(deduplicator.add(jinaCastka));
+        assertTrue(deduplicator.add(jinyCas));
+    }
+
+    @Test
+    public void bloom() throws Exception {
+        int pocet = 100000;
+        BloomDeduplicator deduplicator = BloomDeduplicator.forCapacity(pocet, 0.01);
+        Random random = new Random(54);
+        long[] klice = new long[pocet * 2];
+        for (int i = 0; i < klice.length; i++) {
+            klice[i] = random.nextLong() | 1;
+        }
+        for (int i = 0; i < pocet; i++) {
+            deduplicator.add(klice[2 * i], klice[2 * i + 1]);
+        }
+        for (int i = 0; i < pocet; i++) {
+            assertFalse(deduplicator.add(klice[2 * i], klice[2 * i + 1]));
+        }
+        double odhad = deduplicator.getFalsePositiveRate();
+        assertTrue(String.valueOf(odhad), odhad > 0 && odhad < 0.01);
+
+        int chybnych = 0;
+        for (int i = 0; i < pocet; i++) {
+            if (deduplicator.contains(random.nextLong(), random.nextLong() | 1)) {
+                chybnych++;
+            }
+        }
+        assertEquals(odhad, chybnych / (double) pocet, 0.003);
+
+        Deduplicator nacteny = roundTrip(deduplicator);
+        assertEquals(deduplicator.size(), nacteny.size());
+        assertEquals(odhad, nacteny.getFalsePositiveRate(), 0);
+        for (int i = 0; i < pocet; i++) {
+            assertTrue(nacteny.contains(klice[2 * i], klice[2 * i + 1]));
+        }
+    }
+
+    @Test
+    public void concurrentProducers() throws Exception {
+        final EetUctenka[] uctenky = Uctenky.random(4000, 55);
+        final ExactDeduplicator deduplicator = new ExactDeduplicator(0, 8);
+        final AtomicLong novych = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                final int posun = t;
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        EetZaznam zaznam = new EetZaznam();
+                        for (int i = 0; i < uctenky.length; i++) {
+                            String payload = uctenky[(i + posun * 500) % uctenky.length].generateString();
+                            if (deduplicator.add(zaznam.parse(payload))) {
+                                novych.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(uctenky.length, novych.get());
+        assertEquals(uctenky.length, deduplicator.size());
+    }
+
+    private static Deduplicator roundTrip(Deduplicator deduplicator) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        deduplicator.writeTo(out);
+        return Deduplicator.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+}
@@ -0,0 +1,166 @@
+package cz.mikropsoft.qreet.metrics;
+
+import cz.mikropsoft.qreet.render.QrEncoder;
+import cz.mikropsoft.qreet.render.QrImageWriter;
+import cz.mikropsoft.qreet.render.QrMatrix;
+import cz.mikropsoft.qreet.render.UrovenKorekce;
+import cz.mikropsoft.qreet.scheme.Chyba;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Sběr počtů volání, selhání a latencí.
+ */
+public class MetricsTest {
+
+    private static final String FIK = "b3a09b52-7c87-4014-a496-4c7a53cf9120-64";
+
+    @Before
+    public void setUp() {
+        Metrics.vynulovat();
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setZapnuto(false);
+        Metrics.vynulovat();
+        Metrics.unregister();
+    }
+
+    @Test
+    public void vypnuto() {
+        Metrics.setZapnuto(false);
+        String payload = uctenka().generateString();
+        new EetZaznam().parse(payload);
+        Kod.ofFik(FIK);
+        for (Metrics.Operace operace : Metrics.Operace.values()) {
+            assertEquals(0, Metrics.getVolani(operace));
+        }
+        assertEquals(0, Metrics.getLatence(Metrics.Operace.KODOVANI, 0.5));
+    }
+
+    @Test
+    public void zapnuto() throws Exception {
+        Metrics.setZapnuto(true);
+        EetUctenka uctenka = uctenka();
+        for (int i = 0; i < 99; i++) {
+            uctenka.generateString();
+        }
+        final String payload = uctenka.generateString();
+        EetZaznam zaznam = new EetZaznam().parse(payload);
+        selze(new Runnable() {
+            @Override
+            public void run() {
+                new EetZaznam().parse(payload.substring(0, 5) + "13" + payload.substring(7));
+            }
+        });
+        selze(new Runnable() {
+            @Override
+            public void run() {
+                Kod.ofFik("b3a09b52-7c87");
+            }
+        });
+        selze(new Runnable() {
+            @Override
+            public void run() {
+                Kod.parse(Kod.Typ.BKP, "123");
+            }
+        });
+        Kod.parse(Kod.Typ.FIK, Kod.ofFik(FIK).qrValue());
+        QrMatrix matrix = QrEncoder.encode(zaznam, UrovenKorekce.L);
+        new QrImageWriter(2).toPng(matrix);
+        new QrImageWriter(2).toSvg(matrix);
+
+        assertEquals(100, Metrics.getVolani(Metrics.Operace.KODOVANI));
+        assertEquals(2, Metrics.getVolani(Metrics.Operace.DEKODOVANI));
+        assertEquals(1, Metrics.getSelhani(Metrics.Operace.DEKODOVANI, Chyba.DATUM));
+        assertEquals(5, Metrics.getVolani(Metrics.Operace.PREVOD_KODU)); // včetně EetUctenka.ofFik
+        assertEquals(1, Metrics.getSelhani(Metrics.Operace.PREVOD_KODU, Chyba.FIK));
+        assertEquals(1, Metrics.getSelhani(Metrics.Operace.PREVOD_KODU, Chyba.DELKA));
+        assertEquals(1, Metrics.getVolani(Metrics.Operace.QR_MATICE));
+        assertEquals(2, Metrics.getVolani(Metrics.Operace.QR_OBRAZEK));
+        assertEquals(0, Metrics.getSelhani(Metrics.Operace.QR_OBRAZEK, null));
+
+        long soucet = 0;
+        for (long pocet : Metrics.getHistogram(Metrics.Operace.KODOVANI)) {
+            soucet += pocet;
+        }
+        assertEquals(100, soucet);
+        long median = Metrics.getLatence(Metrics.Operace.KODOVANI, 0.5);
+        assertTrue(median > 0);
+        assertTrue(median <= Metrics.getLatence(Metrics.Operace.KODOVANI, 0.99));
+
+        // Vypnutím se již zaznamenané hodnoty nemění
+        Metrics.setZapnuto(false);
+        uctenka.generateString();
+        assertEquals(100, Metrics.getVolani(Metrics.Operace.KODOVANI));
+    }
+
+    @Test
+    public void jmx() throws Exception {
+        Metrics.register();
+        Metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName jmeno = new ObjectName(Metrics.OBJECT_NAME);
+        assertEquals(Boolean.FALSE, server.getAttribute(jmeno, "Zapnuto"));
+        server.setAttribute(jmeno, new Attribute("Zapnuto", true));
+        assertTrue(Metrics.isZapnuto());
+
+        final String payload = uctenka().generateString();
+        selze(new Runnable() {
+            @Override
+            public void run() {
+                new EetZaznam().parse(payload + "x");
+            }
+        });
+
+        TabularData volani = (TabularData) server.getAttribute(jmeno, "Volani");
+        CompositeData kodovani = volani.get(new Object[]{"KODOVANI"});
+        assertEquals(1L, kodovani.get("value"));
+        TabularData selhani = (TabularData) server.getAttribute(jmeno, "Selhani");
+        assertEquals(1, selhani.size());
+        assertEquals(1L, selhani.get(new Object[]{"DEKODOVANI.ZNAK"}).get("value"));
+        long p99 = (Long) server.invoke(jmeno, "latence", new Object[]{"KODOVANI", 0.99},
+                new String[]{String.class.getName(), double.class.getName()});
+        assertTrue(p99 > 0);
+
+        server.invoke(jmeno, "reset", new Object[0], new String[0]);
+        assertEquals(0, Metrics.getVolani(Metrics.Operace.KODOVANI));
+        server.setAttribute(jmeno, new Attribute("Zapnuto", false));
+        assertFalse(Metrics.isZapnuto());
+        Metrics.unregister();
+        assertFalse(server.isRegistered(jmeno));
+    }
+
+    private static EetUctenka uctenka() {
+        return EetUctenka.ofFik(FIK, "CZ72080043", 34113.00d, LocalDateTime.of(2017, 5, 6, 14, 1), Rezim.BEZNY);
+    }
+
+    private static void selze(Runnable volani) {
+        try {
+            volani.run();
+            fail("Očekávána výjimka");
+        } catch (IllegalArgumentException e) {
+            // očekávané selhání
+        }
+    }
+
+}
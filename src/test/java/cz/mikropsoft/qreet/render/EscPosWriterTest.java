@@ -0,0 +1,129 @@
+package cz.mikropsoft.qreet.render;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Zápis QR kódu účtenky jako příkazů ESC/POS.
+ */
+public class EscPosWriterTest {
+
+    private static final String KOD = "1101705061401074323134400085176503411300";
+
+    @Test
+    public void qrPrikazy() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new EscPosWriter(6, EscPosWriter.SIRKA_58_MM).writeQr(new EetUctenka().parseSchema(KOD), UrovenKorekce.M, out);
+
+        ByteArrayOutputStream ocekavane = new ByteArrayOutputStream();
+        ocekavane.write(hex("1D 28 6B 04 00 31 41 32 00"    // model 2
+                + " 1D 28 6B 03 00 31 43 06"                 // modul 6 bodů
+                + " 1D 28 6B 03 00 31 45 31"                 // úroveň M
+                + " 1D 28 6B 2B 00 31 50 30"));              // uložení 40 číslic
+        ocekavane.write(KOD.getBytes(StandardCharsets.US_ASCII));
+        ocekavane.write(hex("1D 28 6B 03 00 31 51 30"));   // tisk
+        assertArrayEquals(ocekavane.toByteArray(), out.toByteArray());
+    }
+
+    @Test
+    public void rastrZlatyVzor() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new EscPosWriter(1, 24, 0).writeRaster(new EetUctenka().parseSchema(KOD), UrovenKorekce.L, out);
+
+        // Verze 1 (21 modulů), 3 bajty na řádek, QR kód odsazen o 1 bod zleva
+        assertArrayEquals(hex("1D 76 30 00 03 00 15 00"
+                + " 7F 6D FC 41 49 04 5D 35 74 5D 19 74 5D 75 74 41 49 04 7F 55 FC"
+                + " 00 44 00 73 7B CC 3A 90 04 2D F9 20 24 C4 54 47 74 64 00 49 D0"
+                + " 7F 0D 9C 41 62 74 5D 1A 48 5D 03 10 5D 4A EC 41 60 C8 7F 7F EC"), out.toByteArray());
+    }
+
+    @Test
+    public void rastr() throws Exception {
+        for (EetUctenka uctenka : Uctenky.random(10, 25)) {
+            QrMatrix matrix = QrEncoder.encode(uctenka, UrovenKorekce.M);
+            for (int velikost = 2; velikost <= 6; velikost += 2) {
+                EscPosWriter writer = new EscPosWriter(velikost, EscPosWriter.SIRKA_58_MM);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                writer.writeRaster(matrix, out);
+                byte[] rastr = out.toByteArray();
+
+                int size = writer.getSize(matrix);
+                int odsazeni = (EscPosWriter.SIRKA_58_MM - size) / 2;
+                int sirka = (rastr[4] & 0xFF) | (rastr[5] & 0xFF) << 8;
+                assertArrayEquals(hex("1D 76 30 00"), Arrays.copyOf(rastr, 4));
+                assertEquals((odsazeni + size + 7) / 8, sirka);
+                assertEquals(size, (rastr[6] & 0xFF) | (rastr[7] & 0xFF) << 8);
+                assertEquals(8 + sirka * size, rastr.length);
+
+                // Obrázek z bodů QR kódu bez odsazení zleva
+                BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+                for (int y = 0; y < size; y++) {
+                    for (int x = 0; x < sirka * 8; x++) {
+                        boolean tmavy = (rastr[8 + y * sirka + (x >>> 3)] & (0x80 >>> (x & 7))) != 0;
+                        int mx = (x - odsazeni) / velikost - QrImageWriter.TICHA_ZONA;
+                        int my = y / velikost - QrImageWriter.TICHA_ZONA;
+                        boolean modul = x >= odsazeni && mx >= 0 && my >= 0 && mx < matrix.getSize()
+                                && my < matrix.getSize() && matrix.get(mx, my);
+                        assertEquals("[" + x + ", " + y + "]", modul, tmavy);
+                        if (x >= odsazeni && x < odsazeni + size) {
+                            image.setRGB(x - odsazeni, y, tmavy ? 0 : 0xFFFFFF);
+                        }
+                    }
+                }
+                assertEquals(uctenka.generateString(), decode(image));
+            }
+        }
+    }
+
+    @Test
+    public void nevejdeSe() throws Exception {
+        QrMatrix matrix = QrEncoder.encode(KOD, UrovenKorekce.L);
+        try {
+            new EscPosWriter(14, EscPosWriter.SIRKA_58_MM).writeRaster(matrix, new ByteArrayOutputStream());
+            fail("Širší než tisk");
+        } catch (IllegalArgumentException e) {
+            // očekávané
+        }
+        try {
+            new EscPosWriter(17, EscPosWriter.SIRKA_80_MM).writeQr(new EetUctenka().parseSchema(KOD),
+                    UrovenKorekce.L, new ByteArrayOutputStream());
+            fail("Modul větší než 16 bodů");
+        } catch (IllegalStateException e) {
+            // očekávané
+        }
+    }
+
+    private static byte[] hex(String bajty) {
+        String[] cisla = bajty.trim().split(" +");
+        byte[] vysledek = new byte[cisla.length];
+        for (int i = 0; i < cisla.length; i++) {
+            vysledek[i] = (byte) Integer.parseInt(cisla[i], 16);
+        }
+        return vysledek;
+    }
+
+    private static String decode(BufferedImage image) throws Exception {
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        Map<DecodeHintType, Object> hints = new EnumMap<DecodeHintType, Object>(DecodeHintType.class);
+        hints.put(DecodeHintType.PURE_BARCODE, Boolean.TRUE);
+        return new QRCodeReader().decode(bitmap, hints).getText();
+    }
+
+}
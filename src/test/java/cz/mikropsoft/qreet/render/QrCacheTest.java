@@ -0,0 +1,136 @@
+package cz.mikropsoft.qreet.render;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Paměť vykreslených QR kódů.
+ */
+public class QrCacheTest {
+
+    private static final QrImageWriter WRITER = new QrImageWriter(3);
+
+    @Test
+    public void hitAndMiss() {
+        EetUctenka uctenka = Uctenky.random(1, 12)[0];
+        QrCache cache = new QrCache(1 << 20, UrovenKorekce.M, WRITER);
+
+        QrMatrix matrix = cache.matrix(uctenka);
+        assertSame(matrix, cache.matrix(uctenka));
+        byte[] png = cache.png(uctenka);
+        assertSame(png, cache.png(uctenka));
+        assertArrayEquals(WRITER.toPng(QrEncoder.encode(uctenka, UrovenKorekce.M)), png);
+
+        // Druhá matice a matice prvního obrázku jsou z paměti, obrázek se poprvé vykreslil
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getPngMisses());
+        assertEquals(1, cache.getPngHits());
+        assertEquals(1, cache.size());
+
+        // Stejné položky v jiném objektu jsou stejný klíč
+        EetUctenka kopie = new EetUctenka().parseSchema(uctenka.generateString());
+        assertSame(png, cache.png(kopie));
+        assertEquals(1, cache.getMisses());
+
+        // Neměnná účtenka je stejný klíč
+        Uctenka nemenna = Uctenka.of(uctenka);
+        assertSame(png, cache.pngIfPresent(nemenna));
+        assertNull(cache.pngIfPresent(Uctenka.of(Uctenky.random(1, 16)[0])));
+        assertSame(matrix, cache.matrix(nemenna));
+        assertSame(png, cache.png(nemenna));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getPngMisses());
+        assertEquals(4, cache.getPngHits());
+        assertTrue(cache.getWeight() > png.length);
+    }
+
+    @Test
+    public void evictionWithinBudget() {
+        EetUctenka[] uctenky = Uctenky.random(2000, 13);
+        long budget = 64 * 1024;
+        QrCache cache = new QrCache(budget, UrovenKorekce.L, WRITER, 4);
+        for (EetUctenka uctenka : uctenky) {
+            cache.png(uctenka);
+            assertTrue(cache.getWeight() <= budget);
+        }
+        assertEquals(uctenky.length, cache.getMisses());
+        assertEquals(uctenky.length, cache.getPngMisses());
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(uctenky.length - cache.getEvictions(), cache.size());
+
+        // Naposledy použitá účtenka zůstává v paměti
+        EetUctenka posledni = uctenky[uctenky.length - 1];
+        long misses = cache.getPngMisses();
+        cache.png(posledni);
+        assertEquals(misses, cache.getPngMisses());
+    }
+
+    @Test
+    public void zapornaNula() {
+        String bkp = "01234567-89ABCDEF-01234567-89ABCDEF-01234567";
+        LocalDateTime datum = LocalDateTime.of(2026, 10, 17, 12, 30);
+        EetUctenka kladna = EetUctenka.ofBkp(bkp, "CZ12345678", 0.0, datum, Rezim.BEZNY);
+        EetUctenka zaporna = EetUctenka.ofBkp(bkp, "CZ12345678", -0.001, datum, Rezim.BEZNY);
+        QrCache cache = new QrCache(1 << 20, UrovenKorekce.M, WRITER);
+
+        // Zakódovaná informace se liší znaménkem, záporná nula proto nesmí dostat matici kladné nuly
+        assertEquals(QrEncoder.encode(kladna, UrovenKorekce.M).getMaska(), cache.matrix(kladna).getMaska());
+        try {
+            cache.matrix(zaporna);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Znaménko nelze zakódovat v číselném režimu, stejně jako v QrEncoder
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void concurrentAccess() throws Exception {
+        final EetUctenka[] uctenky = Uctenky.random(200, 14);
+        final QrCache cache = new QrCache(1 << 24, UrovenKorekce.Q, WRITER);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                final int posun = t;
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 2000; i++) {
+                            EetUctenka uctenka = uctenky[(i * 7 + posun) % uctenky.length];
+                            assertEquals(QrEncoder.encode(uctenka, UrovenKorekce.Q).getMaska(),
+                                    cache.matrix(uctenka).getMaska());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(uctenky.length, cache.size());
+        assertEquals(8 * 2000, cache.getHits() + cache.getMisses());
+    }
+
+}
@@ -0,0 +1,89 @@
+package cz.mikropsoft.qreet.render;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.Decoder;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Kódování do matice modulů QR kódu, porovnání se ZXing.
+ */
+public class QrEncoderTest {
+
+    @Test
+    public void shodaSeZxing() throws Exception {
+        EetUctenka[] uctenky = Uctenky.random(500, 8);
+        for (EetUctenka uctenka : uctenky) {
+            for (UrovenKorekce uroven : UrovenKorekce.values()) {
+                QrMatrix matrix = QrEncoder.encode(uctenka, uroven);
+                QRCode expected = Encoder.encode(uctenka.generateString(), ErrorCorrectionLevel.valueOf(uroven.name()));
+                assertEquals(expected.getVersion().getVersionNumber(), matrix.getVerze());
+                assertEquals(expected.getMaskPattern(), matrix.getMaska());
+                assertMatrix(expected.getMatrix(), matrix);
+            }
+        }
+    }
+
+    @Test
+    public void vsechnyVerze() throws Exception {
+        Random random = new Random(3);
+        Decoder decoder = new Decoder();
+        for (UrovenKorekce uroven : UrovenKorekce.values()) {
+            for (int length = 1; length < 7000; length += 1 + random.nextInt(length)) {
+                StringBuilder digits = new StringBuilder(length);
+                for (int i = 0; i < length; i++) {
+                    digits.append((char) ('0' + random.nextInt(10)));
+                }
+                QrMatrix matrix;
+                try {
+                    matrix = QrEncoder.encode(digits, uroven);
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+                assertEquals(digits.toString(), decoder.decode(toBitMatrix(matrix)).getText());
+            }
+        }
+    }
+
+    @Test
+    public void jineZnaky() {
+        try {
+            QrEncoder.encode("12a4", UrovenKorekce.L);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // očekávaná výjimka
+        }
+    }
+
+    private static void assertMatrix(ByteMatrix expected, QrMatrix actual) {
+        assertEquals(expected.getWidth(), actual.getSize());
+        for (int y = 0; y < actual.getSize(); y++) {
+            for (int x = 0; x < actual.getSize(); x++) {
+                assertEquals("[" + x + ", " + y + "]", expected.get(x, y) == 1, actual.get(x, y));
+            }
+        }
+    }
+
+    private static BitMatrix toBitMatrix(QrMatrix matrix) {
+        BitMatrix bits = new BitMatrix(matrix.getSize());
+        for (int y = 0; y < matrix.getSize(); y++) {
+            for (int x = 0; x < matrix.getSize(); x++) {
+                if (matrix.get(x, y)) {
+                    bits.set(x, y);
+                }
+            }
+        }
+        return bits;
+    }
+
+}
@@ -0,0 +1,159 @@
+package cz.mikropsoft.qreet.render;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import net.glxn.qrgen.javase.QRCode;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Zápis matice modulů jako obrázku PNG a BMP.
+ */
+public class QrImageWriterTest {
+
+    @Test
+    public void png() throws Exception {
+        for (EetUctenka uctenka : Uctenky.random(20, 9)) {
+            QrMatrix matrix = QrEncoder.encode(uctenka, UrovenKorekce.M);
+            for (int velikost = 1; velikost <= 5; velikost += 2) {
+                QrImageWriter writer = new QrImageWriter(velikost);
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(writer.toPng(matrix)));
+                assertImage(matrix, velikost, QrImageWriter.TICHA_ZONA, image);
+                assertEquals(uctenka.generateString(), decode(image));
+            }
+        }
+    }
+
+    @Test
+    public void pngSoubezne() throws Exception {
+        // Více vláken, než drží fond Deflaterů: obrázky se shodují s vykreslením v jednom vlákně
+        EetUctenka[] uctenky = Uctenky.random(10, 10);
+        final QrImageWriter writer = new QrImageWriter(3);
+        final QrMatrix[] matice = new QrMatrix[uctenky.length];
+        final byte[][] ocekavane = new byte[uctenky.length][];
+        for (int i = 0; i < uctenky.length; i++) {
+            matice[i] = QrEncoder.encode(uctenky[i], UrovenKorekce.M);
+            ocekavane[i] = writer.toPng(matice[i]);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4 * Runtime.getRuntime().availableProcessors() + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 4 * Runtime.getRuntime().availableProcessors() + 1; t++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 50; i++) {
+                            assertArrayEquals(ocekavane[i % matice.length], writer.toPng(matice[i % matice.length]));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void bmp() throws Exception {
+        for (EetUctenka uctenka : Uctenky.random(20, 10)) {
+            QrMatrix matrix = QrEncoder.encode(uctenka, UrovenKorekce.L);
+            for (int zona = 0; zona <= 4; zona += 2) {
+                QrImageWriter writer = new QrImageWriter(3, zona);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                writer.writeBmp(matrix, out);
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+                assertImage(matrix, 3, zona, image);
+            }
+        }
+    }
+
+    @Test
+    public void svg() {
+        for (EetUctenka uctenka : Uctenky.random(20, 12)) {
+            QrMatrix matrix = QrEncoder.encode(uctenka, UrovenKorekce.M);
+            QrImageWriter writer = new QrImageWriter(3, 2);
+            String svg = writer.toSvg(matrix);
+            int size = writer.getSize(matrix);
+            assertTrue(svg, svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + size
+                    + "\" height=\"" + size + "\" viewBox=\"0 0 " + (matrix.getSize() + 4) + " "));
+            assertTrue(svg.endsWith("\"/></svg>"));
+
+            // Úseky cesty vykreslí zpět právě tmavé moduly
+            boolean[][] tmave = new boolean[matrix.getSize()][matrix.getSize()];
+            String d = svg.substring(svg.indexOf(" d=\"") + 4, svg.lastIndexOf('"'));
+            Matcher usek = Pattern.compile("M(\\d+) (\\d+)h(\\d+)v1h-\\3z").matcher(d);
+            int konec = 0;
+            while (usek.find()) {
+                assertEquals(konec, usek.start());
+                konec = usek.end();
+                int y = Integer.parseInt(usek.group(2)) - 2;
+                int x = Integer.parseInt(usek.group(1)) - 2;
+                for (int i = 0; i < Integer.parseInt(usek.group(3)); i++) {
+                    tmave[y][x + i] = true;
+                }
+            }
+            assertEquals(d.length(), konec);
+            for (int y = 0; y < matrix.getSize(); y++) {
+                for (int x = 0; x < matrix.getSize(); x++) {
+                    assertEquals("[" + x + ", " + y + "]", matrix.get(x, y), tmave[y][x]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void mensiNezJpeg() throws Exception {
+        EetUctenka uctenka = Uctenky.random(1, 11)[0];
+        byte[] jpeg = QRCode.from(uctenka).stream().toByteArray();
+        byte[] png = new QrImageWriter(4).toPng(QrEncoder.encode(uctenka, UrovenKorekce.L));
+        assertTrue(png.length + " < " + jpeg.length, png.length * 3 < jpeg.length);
+    }
+
+    private static void assertImage(QrMatrix matrix, int velikost, int zona, BufferedImage image) {
+        int size = (matrix.getSize() + 2 * zona) * velikost;
+        assertEquals(size, image.getWidth());
+        assertEquals(size, image.getHeight());
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int mx = x / velikost - zona;
+                int my = y / velikost - zona;
+                boolean tmavy = mx >= 0 && my >= 0 && mx < matrix.getSize() && my < matrix.getSize()
+                        && matrix.get(mx, my);
+                assertEquals("[" + x + ", " + y + "]", tmavy, (image.getRGB(x, y) & 0xFFFFFF) == 0);
+            }
+        }
+    }
+
+    private static String decode(BufferedImage image) throws Exception {
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        Map<DecodeHintType, Object> hints = new EnumMap<DecodeHintType, Object>(DecodeHintType.class);
+        hints.put(DecodeHintType.PURE_BARCODE, Boolean.TRUE);
+        return new QRCodeReader().decode(bitmap, hints).getText();
+    }
+
+}
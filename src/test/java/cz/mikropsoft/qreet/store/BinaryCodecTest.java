@@ -0,0 +1,119 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Binární zápis účtenek s pevnou délkou.
+ */
+public class BinaryCodecTest {
+
+    @Test
+    public void byteBuffer() {
+        EetUctenka[] eet = Uctenky.random(2000, 61);
+        Uctenka[] uctenky = new Uctenka[eet.length];
+        for (int i = 0; i < eet.length; i++) {
+            uctenky[i] = Uctenka.of(eet[i]);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(uctenky.length * BinaryCodec.RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        BinaryCodec.writeAll(uctenky, buffer);
+        assertEquals(0, buffer.remaining());
+
+        buffer.flip();
+        Uctenka[] prectene = BinaryCodec.readAll(buffer, uctenky.length);
+        buffer.flip();
+        EetZaznam zaznam = new EetZaznam();
+        for (int i = 0; i < uctenky.length; i++) {
+            assertEquals(uctenky[i], prectene[i]);
+            assertEquals(eet[i].generateString(), prectene[i].qrValue());
+            assertEquals(eet[i].generateString(), BinaryCodec.read(buffer, zaznam).generateString());
+        }
+    }
+
+    @Test
+    public void dataOutput() throws Exception {
+        EetUctenka[] eet = Uctenky.random(500, 62);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        EetZaznam zaznam = new EetZaznam();
+        for (EetUctenka uctenka : eet) {
+            BinaryCodec.write(uctenka.toZaznam(zaznam), out);
+        }
+        assertEquals(eet.length * BinaryCodec.RECORD_BYTES, bytes.size());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (EetUctenka uctenka : eet) {
+            assertEquals(uctenka.generateString(), BinaryCodec.read(in, zaznam).generateString());
+        }
+
+        bytes.reset();
+        Uctenka[] uctenky = {Uctenka.of(eet[0]), Uctenka.of(eet[1])};
+        BinaryCodec.writeAll(uctenky, out);
+        Uctenka[] prectene = BinaryCodec.readAll(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(2, prectene.length);
+        assertEquals(uctenky[1], prectene[1]);
+    }
+
+    @Test
+    public void eetUctenka() throws Exception {
+        EetUctenka[] eet = Uctenky.random(500, 63);
+        ByteBuffer buffer = ByteBuffer.allocate(eet.length * BinaryCodec.RECORD_BYTES);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (EetUctenka uctenka : eet) {
+            BinaryCodec.write(uctenka, buffer);
+            BinaryCodec.write(uctenka, out);
+        }
+        buffer.flip();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (EetUctenka uctenka : eet) {
+            assertEquals(uctenka.generateString(), BinaryCodec.readEetUctenka(buffer).generateString());
+            assertEquals(uctenka.generateString(), BinaryCodec.readEetUctenka(in).generateString());
+        }
+    }
+
+    @Test
+    public void hranicniHodnoty() {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * BinaryCodec.RECORD_BYTES);
+        // Záporná nula, DIČ s deseti číslicemi a rok mimo 2000-2099 se shodným dvojčíslím
+        Uctenka zapornaNula = Uctenka.builder().fik("ffffffff-ffff-ffff").dic("CZ9999999999").castka(-0d)
+                .datumCasTransakce(LocalDateTime.of(2099, 12, 31, 23, 59)).rezim(Rezim.ZJEDNODUSENY).build();
+        // Builder rok mimo 2000-2099 odmítne, převzatá EetUctenka jej však nést může
+        Uctenka jineStoleti = Uctenka.of(EetUctenka.ofBkp("00000000-00000000", null, -1.23,
+                LocalDateTime.of(1996, 2, 29, 0, 0), Rezim.BEZNY));
+        BinaryCodec.write(zapornaNula, buffer);
+        BinaryCodec.write(jineStoleti, buffer);
+        buffer.putLong(0).putLong(-1L).putLong(0);
+        buffer.flip();
+
+        assertEquals(zapornaNula, BinaryCodec.read(buffer));
+        Uctenka prectena = BinaryCodec.read(buffer);
+        assertEquals(jineStoleti.qrValue(), prectena.qrValue());
+        assertEquals(LocalDateTime.of(2096, 2, 29, 0, 0), prectena.getDatumCasTransakce());
+        try {
+            BinaryCodec.read(buffer);
+            fail("Neplatný záznam");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Neplatný binární záznam"));
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sloupcové úložiště účtenek mimo haldu.
+ */
+public class ColumnStoreTest {
+
+    @Test
+    public void appendAndRead() {
+        EetUctenka[] uctenky = Uctenky.random(3 * ColumnStore.SEGMENT_ROWS + 17, 5);
+        ColumnStore store = new ColumnStore();
+        for (int i = 0; i < uctenky.length; i++) {
+            assertEquals(i, store.append(uctenky[i]));
+        }
+        assertEquals(uctenky.length, store.size());
+        assertEquals(37, ColumnStore.ROW_BYTES);
+
+        ColumnStore.View view = store.view();
+        EetZaznam zaznam = new EetZaznam();
+        for (int i = uctenky.length - 1; i >= 0; i--) {
+            String expected = uctenky[i].generateString();
+            assertEquals(expected, view.moveTo(i).generateString());
+            assertEquals(expected, store.get(i, zaznam).generateString());
+
+            uctenky[i].toZaznam(zaznam);
+            assertEquals(zaznam.getTyp(), view.getTyp());
+            assertEquals(zaznam.getDicVerze(), view.getDicVerze());
+            assertEquals(zaznam.getRezim(), view.getRezim());
+            assertEquals(zaznam.getMinuta(), view.getMinuta());
+            assertEquals(zaznam.getDic(), view.getDic());
+            assertEquals(zaznam.getKodHi(), view.getKodHi());
+            assertEquals(zaznam.getKodLo(), view.getKodLo());
+            assertEquals(zaznam.getCastka(), view.getCastka());
+        }
+        assertEquals(uctenky[3].generateString(), view.moveTo(3).toUctenka().generateString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfRange() {
+        ColumnStore store = new ColumnStore();
+        store.append(Uctenky.random(1, 1)[0]);
+        store.getCastka(1);
+    }
+
+}
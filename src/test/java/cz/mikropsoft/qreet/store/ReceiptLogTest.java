@@ -0,0 +1,202 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.Uctenky;
+import cz.mikropsoft.qreet.bulk.BulkDecoder;
+import cz.mikropsoft.qreet.scheme.EetUctenka;
+import cz.mikropsoft.qreet.scheme.EetZaznam;
+import cz.mikropsoft.qreet.scheme.Uctenka;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Deník účtenek v segmentech namapovaných do paměti.
+ */
+public class ReceiptLogTest {
+
+    // Malé segmenty, aby deník přesahoval přes několik souborů
+    private static final int ZAZNAMU_SEGMENTU = 64;
+
+    @Test
+    public void zapisACteni() throws Exception {
+        EetUctenka[] eet = Uctenky.random(1000, 71);
+        Path adresar = Files.createTempDirectory("qreet");
+        try {
+            try (ReceiptLog log = ReceiptLog.open(adresar, ZAZNAMU_SEGMENTU)) {
+                EetZaznam zaznam = new EetZaznam();
+                for (int i = 0; i < eet.length; i++) {
+                    long poradi = (i % 2 == 0) ? log.append(eet[i].toZaznam(zaznam)) : log.append(Uctenka.of(eet[i]));
+                    assertEquals(i, poradi);
+                    if (i % 100 == 99) {
+                        log.sync(poradi);
+                        assertEquals(i + 1, log.getTrvalych());
+                    }
+                }
+                assertEquals(eet.length, log.size());
+                overit(log, eet);
+            }
+
+            try (ReceiptLog log = ReceiptLog.open(adresar, ZAZNAMU_SEGMENTU)) {
+                assertEquals(eet.length, log.getObnovenych());
+                overit(log, eet);
+                assertEquals(eet.length, log.append(Uctenka.of(eet[0])));
+                assertEquals(eet[0].generateString(), log.get(eet.length, new EetZaznam()).generateString());
+            }
+        } finally {
+            smazat(adresar);
+        }
+    }
+
+    @Test
+    public void rozepsanyKonec() throws Exception {
+        EetUctenka[] eet = Uctenky.random(300, 72);
+        Path adresar = Files.createTempDirectory("qreet");
+        try {
+            try (ReceiptLog log = ReceiptLog.open(adresar, ZAZNAMU_SEGMENTU)) {
+                for (EetUctenka uctenka : eet) {
+                    log.append(Uctenka.of(uctenka));
+                }
+            }
+
+            // Poškozený kontrolní součet záznamu 263 (poslední segment 4, záznam 12): deník končí před ním
+            poskodit(adresar, 4, 12);
+            try (ReceiptLog log = ReceiptLog.open(adresar, ZAZNAMU_SEGMENTU)) {
+                assertEquals(263, log.getObnovenych());
+                overit(log, eet, 263);
+                // Nové záznamy za zkráceným koncem
+                for (int i = 263; i < 280; i++) {
+                    log.append(Uctenka.of(eet[i]));
+                }
+            }
+            try (ReceiptLog log = ReceiptLog.open(adresar, ZAZNAMU_SEGMENTU)) {
+                assertEquals(280, log.getObnovenych());
+                overit(log, eet, 280);
+            }
+
+            // Poškození dřívějšího segmentu deník nezkrátí, otevření selže
+            poskodit(adresar, 1, 5);
+            try {
+                ReceiptLog.open(adresar, ZAZNAMU_SEGMENTU).close();
+                fail("Poškozený dřívější segment");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(String.format("%020d", ZAZNAMU_SEGMENTU - 1)));
+                assertTrue(e.getMessage(), e.getMessage().contains(" " + 5 * ReceiptLog.RECORD_BYTES + "."));
+            }
+            // Soubory segmentů zůstávají
+            assertEquals(5, adresar.toFile().list().length);
+        } finally {
+            smazat(adresar);
+        }
+    }
+
+    @Test
+    public void soubeznyZapis() throws Exception {
+        EetUctenka[] eet = Uctenky.random(4000, 73);
+        Path adresar = Files.createTempDirectory("qreet");
+        try {
+            try (final ReceiptLog log = ReceiptLog.open(adresar, 1 << 10)) {
+                final Uctenka[] uctenky = new Uctenka[eet.length];
+                for (int i = 0; i < eet.length; i++) {
+                    uctenky[i] = Uctenka.of(eet[i]);
+                }
+                // Pořadí přidání určí, která účtenka je na které pozici
+                final long[] poradi = new long[eet.length];
+                final Thread[] vlakna = new Thread[4];
+                for (int t = 0; t < vlakna.length; t++) {
+                    final int vlakno = t;
+                    vlakna[t] = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                for (int i = vlakno; i < uctenky.length; i += vlakna.length) {
+                                    poradi[i] = log.append(uctenky[i]);
+                                    log.sync(poradi[i]);
+                                }
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    });
+                    vlakna[t].start();
+                }
+                for (Thread vlakno : vlakna) {
+                    vlakno.join();
+                }
+                assertEquals(eet.length, log.getTrvalych());
+
+                final String[] ocekavane = new String[eet.length];
+                for (int i = 0; i < eet.length; i++) {
+                    ocekavane[Math.toIntExact(poradi[i])] = eet[i].generateString();
+                }
+                final AtomicLongArray videne = new AtomicLongArray(eet.length);
+                assertEquals(eet.length, log.scan(new BulkDecoder.Handler() {
+                    @Override
+                    public void accept(long radek, EetZaznam zaznam) {
+                        assertEquals(ocekavane[Math.toIntExact(radek)], zaznam.generateString());
+                        videne.incrementAndGet(Math.toIntExact(radek));
+                    }
+                }, new ForkJoinPool(3)));
+                for (int i = 0; i < eet.length; i++) {
+                    assertEquals(1, videne.get(i));
+                }
+            }
+        } finally {
+            smazat(adresar);
+        }
+    }
+
+    private static void overit(ReceiptLog log, EetUctenka[] eet) {
+        overit(log, eet, eet.length);
+    }
+
+    private static void overit(ReceiptLog log, final EetUctenka[] eet, int pocet) {
+        assertEquals(pocet, log.size());
+        final long[] dalsi = {0};
+        assertEquals(pocet, log.scan(0, new BulkDecoder.Handler() {
+            @Override
+            public void accept(long radek, EetZaznam zaznam) {
+                assertEquals(dalsi[0]++, radek);
+                assertEquals(eet[Math.toIntExact(radek)].generateString(), zaznam.generateString());
+            }
+        }));
+        assertEquals(pocet, dalsi[0]);
+        EetZaznam zaznam = new EetZaznam();
+        for (int i = 0; i < pocet; i += 7) {
+            assertEquals(eet[i].generateString(), log.get(i, zaznam).generateString());
+        }
+    }
+
+    private static void poskodit(Path adresar, int segment, int zaznam) throws Exception {
+        Path soubor = adresar.resolve(String.format("%020d", (long) segment * (ZAZNAMU_SEGMENTU - 1)) + ".seg");
+        assertTrue(Files.exists(soubor));
+        long pozice = (long) zaznam * ReceiptLog.RECORD_BYTES + ReceiptLog.RECORD_BYTES - 1;
+        try (FileChannel channel = FileChannel.open(soubor, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bajt = ByteBuffer.allocate(1);
+            channel.read(bajt, pozice);
+            bajt.put(0, (byte) ~bajt.get(0));
+            bajt.rewind();
+            channel.write(bajt, pozice);
+        }
+    }
+
+    private static void smazat(Path adresar) throws Exception {
+        try (DirectoryStream<Path> soubory = Files.newDirectoryStream(adresar)) {
+            for (Path soubor : soubory) {
+                Files.delete(soubor);
+            }
+        }
+        Files.delete(adresar);
+    }
+}
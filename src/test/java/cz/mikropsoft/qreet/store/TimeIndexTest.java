@@ -0,0 +1,147 @@
+package cz.mikropsoft.qreet.store;
+
+import cz.mikropsoft.qreet.scheme.Dic;
+import cz.mikropsoft.qreet.scheme.Kod;
+import cz.mikropsoft.qreet.scheme.Rezim;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Index úložiště podle minuty transakce a DIČ.
+ */
+public class TimeIndexTest {
+
+    private static final Dic.Verze[] VERZE = {Dic.Verze.PRAZDNY, Dic.Verze.OSM_CISLIC, Dic.Verze.OSM_CISLIC,
+            Dic.Verze.DESET_CISLIC};
+    private static final long[] DICY = {0, 12345678, 87654321, 7900110063L};
+    private static final int PRVNI = 24_900_000;
+
+    @Test
+    public void dotazy() throws Exception {
+        ColumnStore store = store(3 * TimeIndex.BLOK + 123, 11);
+        TimeIndex index = TimeIndex.build(store);
+        assertEquals(store.size(), index.size());
+        assertEquals(DICY.length, index.getPocetDic());
+        overit(store, index, new Random(12));
+
+        Path file = Files.createTempFile("qreet", ".idx");
+        try {
+            index.write(file);
+            TimeIndex otevreny = TimeIndex.open(file);
+            assertEquals(index.size(), otevreny.size());
+            assertEquals(index.getMinMinuta(), otevreny.getMinMinuta());
+            assertEquals(index.getMaxMinuta(), otevreny.getMaxMinuta());
+            overit(store, otevreny, new Random(12));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void prazdnyAPoskozeny() throws Exception {
+        TimeIndex prazdny = TimeIndex.build(new ColumnStore());
+        assertEquals(0, prazdny.count(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, prazdny.rows(Dic.Verze.PRAZDNY, 0, 0, 1).length);
+
+        Path file = Files.createTempFile("qreet", ".idx");
+        try {
+            prazdny.write(file);
+            assertEquals(0, TimeIndex.open(file).size());
+
+            TimeIndex.build(store(1001, 13)).write(file);
+            assertEquals(1001, TimeIndex.open(file).size());
+            byte[] obsah = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(obsah, obsah.length - 4));
+            try {
+                TimeIndex.open(file);
+                fail("Zkrácený soubor");
+            } catch (IOException e) {
+                // očekávané
+            }
+            obsah[0] = 0;
+            Files.write(file, obsah);
+            try {
+                TimeIndex.open(file);
+                fail("Chybná hlavička");
+            } catch (IOException e) {
+                // očekávané
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static ColumnStore store(int pocet, long seed) {
+        Random random = new Random(seed);
+        ColumnStore store = new ColumnStore();
+        for (int i = 0; i < pocet; i++) {
+            int d = random.nextInt(DICY.length);
+            store.append(Kod.Typ.FIK, VERZE[d], Rezim.BEZNY, PRVNI + random.nextInt(5000), DICY[d], i, i, 100);
+        }
+        return store;
+    }
+
+    private static void overit(ColumnStore store, TimeIndex index, Random random) {
+        for (int pokus = 0; pokus < 300; pokus++) {
+            int od = PRVNI - 10 + random.nextInt(5020);
+            int doMinuty = od + ((pokus % 10 == 0) ? 1 : random.nextInt(800));
+            int d = random.nextInt(DICY.length);
+
+            List<Long> vsechny = new ArrayList<Long>();
+            List<Long> dic = new ArrayList<Long>();
+            for (long row = 0; row < store.size(); row++) {
+                int minuta = store.getMinuta(row);
+                if (minuta >= od && minuta < doMinuty) {
+                    vsechny.add(row);
+                    if (store.getDic(row) == DICY[d] && store.getDicVerze(row) == VERZE[d]) {
+                        dic.add(row);
+                    }
+                }
+            }
+
+            long[] rows = index.rows(od, doMinuty);
+            assertEquals(vsechny.size(), index.count(od, doMinuty));
+            assertEquals(vsechny.size(), rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                if (i > 0) {
+                    // Pořadí podle minuty, pak podle řádku
+                    int predchozi = store.getMinuta(rows[i - 1]);
+                    int minuta = store.getMinuta(rows[i]);
+                    assertTrue(predchozi < minuta || predchozi == minuta && rows[i - 1] < rows[i]);
+                }
+                assertTrue(vsechny.contains(rows[i]));
+            }
+
+            long[] dicRows = index.rows(VERZE[d], DICY[d], od, doMinuty);
+            assertEquals(dic.size(), index.count(VERZE[d], DICY[d], od, doMinuty));
+            assertEquals(dic.size(), dicRows.length);
+            final List<Long> predane = new ArrayList<Long>();
+            index.forEach(VERZE[d], DICY[d], od, doMinuty, new LongConsumer() {
+                @Override
+                public void accept(long row) {
+                    predane.add(row);
+                }
+            });
+            long[] ocekavane = new long[predane.size()];
+            for (int i = 0; i < ocekavane.length; i++) {
+                ocekavane[i] = predane.get(i);
+            }
+            assertArrayEquals(dicRows, ocekavane);
+        }
+        assertEquals(0, index.count(Dic.Verze.DEVET_CISLIC, DICY[1], PRVNI, PRVNI + 5000));
+    }
+
+}